@@ -0,0 +1,147 @@
+package ch.epfl.rigel.coordinates;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Additional class.
+ * The kernel projecting the unit vectors with the (incubating) Vector API, as many objects at once as there are lanes
+ * in its vectors.
+ *
+ * This class is compiled apart from the rest of the project, which does not depend on it (it is loaded by reflection
+ * by {@link ProjectionKernel#preferred()}) :
+ *
+ *     javac --release 17 --add-modules jdk.incubator.vector -cp [classes] -d [classes] src-vector/.../*.java
+ *
+ * and used once the module has been added to the virtual machine (option --add-modules jdk.incubator.vector). The
+ * size of its vectors is the preferred one of the platform, unless it is given by the option -Drigel.vectorBitSize=
+ * (64, 128, 256 or 512).
+ *
+ * The objects are projected by chunks, small enough to stay in the cache : the coordinates of their unit vectors,
+ * interleaved in their array, are first copied axis by axis, so that they are loaded into vectors from consecutive
+ * elements (the loads of interleaved elements through an index map are not compiled to vector instructions), and the
+ * coordinates on the plane are then copied back. The terms are computed in the same order as by the scalar kernel
+ * (without fused multiply-add), so that both kernels give exactly the same coordinates.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class VectorProjectionKernel implements ProjectionKernel {
+
+    // The system property giving the size (in bits) of the vectors
+    static final String BIT_SIZE_PROPERTY = "rigel.vectorBitSize";
+
+    // The species of the vectors. It must be a constant, without which the operations on the vectors are not compiled
+    // to vector instructions, so that the size of the vectors is chosen once per virtual machine.
+    private static final VectorSpecies<Double> SPECIES = Integer.getInteger(BIT_SIZE_PROPERTY) == null
+            ? DoubleVector.SPECIES_PREFERRED
+            : VectorSpecies.of(double.class, VectorShape.forBitSize(Integer.getInteger(BIT_SIZE_PROPERTY)));
+
+    // The number of objects projected together, whose coordinates fit in the first level cache
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * @see ProjectionKernel#project(double[], int, int, double[], double[], double, double, double, double)
+     */
+    @Override
+    public void project(double[] unitVectors, int from, int to, double[] positions, double[] rotation,
+                        double scaleX, double scaleY, double translateX, double translateY) {
+        Chunk chunk = new Chunk();
+        for (int start = from; start < to; start += CHUNK_SIZE) {
+            int count = Math.min(CHUNK_SIZE, to - start);
+            for (int k = 0; k < count; ++k) {
+                chunk.load(k, unitVectors, start + k);
+            }
+            chunk.project(count, rotation, scaleX, scaleY, translateX, translateY);
+            for (int k = 0; k < count; ++k) {
+                chunk.store(k, positions, start + k);
+            }
+        }
+    }
+
+    /**
+     * @see ProjectionKernel#project(double[], int[], int, int, double[], double[], double, double, double, double)
+     */
+    @Override
+    public void project(double[] unitVectors, int[] indices, int from, int to, double[] positions, double[] rotation,
+                        double scaleX, double scaleY, double translateX, double translateY) {
+        Chunk chunk = new Chunk();
+        for (int start = from; start < to; start += CHUNK_SIZE) {
+            int chunkCount = Math.min(CHUNK_SIZE, to - start);
+            for (int k = 0; k < chunkCount; ++k) {
+                chunk.load(k, unitVectors, indices[start + k]);
+            }
+            chunk.project(chunkCount, rotation, scaleX, scaleY, translateX, translateY);
+            for (int k = 0; k < chunkCount; ++k) {
+                chunk.store(k, positions, indices[start + k]);
+            }
+        }
+    }
+
+    /**
+     * @see Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("Vector kernel (%d bits, %d lanes)", SPECIES.vectorBitSize(), SPECIES.length());
+    }
+
+    /**
+     * A chunk of objects, whose coordinates are stored axis by axis so that they are loaded into vectors from
+     * consecutive elements.
+     */
+    private static final class Chunk {
+        private final double[] x = new double[CHUNK_SIZE], y = new double[CHUNK_SIZE], z = new double[CHUNK_SIZE];
+        private final double[] projectedX = new double[CHUNK_SIZE], projectedY = new double[CHUNK_SIZE];
+
+        /**
+         * Copies the unit vector of the object at the given index at the given position of the chunk.
+         */
+        void load(int k, double[] unitVectors, int i) {
+            x[k] = unitVectors[3 * i];
+            y[k] = unitVectors[3 * i + 1];
+            z[k] = unitVectors[3 * i + 2];
+        }
+
+        /**
+         * Copies the coordinates at the given position of the chunk to the ones of the object at the given index.
+         */
+        void store(int k, double[] positions, int i) {
+            positions[2 * i] = projectedX[k];
+            positions[2 * i + 1] = projectedY[k];
+        }
+
+        /**
+         * Projects the given number of unit vectors of the chunk, the ones which do not fill a whole vector one by
+         * one.
+         */
+        void project(int count, double[] rotation, double scaleX, double scaleY, double translateX,
+                     double translateY) {
+            int k = 0;
+            for (; k <= count - SPECIES.length(); k += SPECIES.length()) {
+                DoubleVector vx = DoubleVector.fromArray(SPECIES, x, k);
+                DoubleVector vy = DoubleVector.fromArray(SPECIES, y, k);
+                DoubleVector vz = DoubleVector.fromArray(SPECIES, z, k);
+
+                // The rotation to the frame of the projection, and the projection from the point opposite to its
+                // center
+                DoubleVector d = DoubleVector.broadcast(SPECIES, 1.0).div(DoubleVector.broadcast(SPECIES, 1.0)
+                        .add(vx.mul(rotation[6])).add(vy.mul(rotation[7])).add(vz.mul(rotation[8])));
+                DoubleVector right = vx.mul(rotation[0]).add(vy.mul(rotation[1])).add(vz.mul(rotation[2]));
+                DoubleVector up = vx.mul(rotation[3]).add(vy.mul(rotation[4])).add(vz.mul(rotation[5]));
+
+                d.mul(right).mul(scaleX).add(translateX).intoArray(projectedX, k);
+                d.mul(up).mul(scaleY).add(translateY).intoArray(projectedY, k);
+            }
+
+            for (; k < count; ++k) {
+                double d = 1.0 / (1.0 + rotation[6] * x[k] + rotation[7] * y[k] + rotation[8] * z[k]);
+                double right = rotation[0] * x[k] + rotation[1] * y[k] + rotation[2] * z[k];
+                double up = rotation[3] * x[k] + rotation[4] * y[k] + rotation[5] * z[k];
+                projectedX[k] = d * right * scaleX + translateX;
+                projectedY[k] = d * up * scaleY + translateY;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Additional class.
+ * The indices (in the catalogue) of the stars of all the asterisms of a catalogue, stored in compressed sparse rows :
+ * the indices of the stars of all the asterisms follow each other in a single array, and the asterism at a given
+ * position owns the indices between its offset (inclusive) and the one of the next asterism (exclusive).
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class AsterismIndex {
+
+    private final List<Asterism> asterisms;
+    private final int[] offsets; // The offsets of the asterisms, followed by the total number of indices
+    private final int[] starIndices;
+    private final int[] distinctStarIndices; // The indices of the stars of the asterisms, sorted and without duplicates
+
+    /**
+     * Constructs the index of the given asterisms, which are not copied.
+     *
+     * @param asterisms
+     *            The asterisms
+     * @param offsets
+     *            The offsets of the asterisms in the array of the indices, followed by its length
+     * @param starIndices
+     *            The indices of the stars of all the asterisms
+     */
+    AsterismIndex(List<Asterism> asterisms, int[] offsets, int[] starIndices) {
+        this.asterisms = asterisms;
+        this.offsets = offsets;
+        this.starIndices = starIndices;
+
+        int[] sortedIndices = starIndices.clone();
+        Arrays.sort(sortedIndices);
+        int count = 0;
+        for (int i = 0; i < sortedIndices.length; ++i) {
+            if (i == 0 || sortedIndices[i] != sortedIndices[i - 1]) {
+                sortedIndices[count++] = sortedIndices[i];
+            }
+        }
+        this.distinctStarIndices = Arrays.copyOf(sortedIndices, count);
+    }
+
+    /**
+     * Returns the number of asterisms.
+     * @return the number of asterisms
+     */
+    public int count() {
+        return asterisms.size();
+    }
+
+    /**
+     * Returns the asterism at the given position.
+     *
+     * @param position
+     *            The position of the asterism
+     * @return the asterism at the given position
+     */
+    public Asterism asterism(int position) {
+        return asterisms.get(position);
+    }
+
+    /**
+     * Returns the position, in the array of the indices, of the first star of the asterism at the given position.
+     *
+     * @param position
+     *            The position of the asterism
+     * @return the position of the first star of the asterism (inclusive)
+     */
+    public int start(int position) {
+        return offsets[Objects.checkIndex(position, count())];
+    }
+
+    /**
+     * Returns the position, in the array of the indices, following the last star of the asterism at the given
+     * position.
+     *
+     * @param position
+     *            The position of the asterism
+     * @return the position following the last star of the asterism (exclusive)
+     */
+    public int end(int position) {
+        return offsets[Objects.checkIndex(position, count()) + 1];
+    }
+
+    /**
+     * Returns the index (in the catalogue) of the star at the given position of the array of the indices.
+     *
+     * @param position
+     *            The position in the array of the indices, between the start and the end of an asterism
+     * @return the index of the star in the catalogue
+     */
+    public int starIndex(int position) {
+        return starIndices[Objects.checkIndex(position, starIndices.length)];
+    }
+
+    /**
+     * Returns the number of distinct stars belonging to at least one asterism.
+     * @return the number of distinct stars of the asterisms
+     */
+    public int distinctStarCount() {
+        return distinctStarIndices.length;
+    }
+
+    /**
+     * Returns the index (in the catalogue) of the distinct star of the asterisms at the given position, the distinct
+     * stars being ordered by increasing index.
+     *
+     * @param position
+     *            The position of the distinct star
+     * @return the index of the star in the catalogue
+     */
+    public int distinctStarIndex(int position) {
+        return distinctStarIndices[Objects.checkIndex(position, distinctStarIndices.length)];
+    }
+
+    /**
+     * Returns an immutable view on the indices (in the catalogue) of the stars of the asterism at the given position.
+     *
+     * @param position
+     *            The position of the asterism
+     * @return the list of the indices of the stars of the asterism
+     */
+    List<Integer> indicesOf(int position) {
+        int start = start(position), size = end(position) - start;
+        return new IndexList(start, size);
+    }
+
+    /**
+     * Additional class.
+     * An immutable view on a slice of the array of the indices.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    private final class IndexList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int start, size;
+
+        private IndexList(int start, int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return starIndices[start + Objects.checkIndex(index, size)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
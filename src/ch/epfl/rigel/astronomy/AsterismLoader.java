@@ -6,9 +6,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * A loader of a catalogue of asterisms.
@@ -26,15 +24,17 @@ public enum AsterismLoader implements StarCatalogue.Loader {
     @Override
     public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
 
-        // Reads the catalogue of stars, encoded in ASCII)
+        // Reads the catalogue of stars, encoded in ASCII (and inflated while being read if it is compressed)
         try (BufferedReader reader =
                      new BufferedReader(
                              new InputStreamReader(
-                                     inputStream, StandardCharsets.US_ASCII))) {
+                                     CompressedInput.decompressed(inputStream), StandardCharsets.US_ASCII))) {
 
-            Map<Integer, Star> starsIDs = new HashMap<>(); // The stars associated to their Hipparcos IDs
-            for (Star s : builder.stars()) {
-                starsIDs.put(s.hipparcosId(), s);
+            // The indices of the stars in the table under construction, associated to their Hipparcos IDs
+            StarTable.Builder table = builder.starTable();
+            IntIntHashMap starsIDs = new IntIntHashMap(table.size());
+            for (int i = 0; i < table.size(); ++i) {
+                starsIDs.put(table.hipparcosId(i), i);
             }
 
             String line; // The current line of data (i.e. the current asterism in the catalogue)
@@ -43,16 +43,45 @@ public enum AsterismLoader implements StarCatalogue.Loader {
 
                 List<Star> asterismStars = new ArrayList<>(); // The list of stars composing the current asterism
 
-                // Adds the stars of each asterism, if they are present in the list of stars of the catalogue's builder
+                // Adds the stars of each asterism, if they are present in the list of stars of the catalogue's builder.
+                // As an asterism is drawn as a polyline, it is split at each star rejected by the filter of the
+                // builder (which would otherwise be replaced by a segment joining its neighbours)
                 for (String col : columns) {
                     int hipparcosID = Integer.parseInt(col);
 
-                    if (starsIDs.containsKey(hipparcosID)) {
-                        asterismStars.add(starsIDs.get(hipparcosID));
+                    // Only the stars of the asterisms are materialized
+                    int index = starsIDs.get(hipparcosID);
+                    if (index != IntIntHashMap.NO_VALUE) {
+                        asterismStars.add(table.star(index));
+                    } else {
+                        addPart(asterismStars, builder);
+                        asterismStars = new ArrayList<>();
                     }
                 }
-                builder.addAsterism(new Asterism(asterismStars));
+
+                // An asterism all of whose stars are in the catalogue is added as is
+                if (asterismStars.size() == columns.length) {
+                    builder.addAsterism(new Asterism(asterismStars));
+                } else {
+                    addPart(asterismStars, builder);
+                }
             }
         }
     }
+
+    /**
+     * Additional method.
+     * Adds the given part of an asterism (i.e. its stars between two stars rejected by the filter of the builder) to
+     * the catalogue under construction, unless it has less than two stars (and thus no segment to draw).
+     *
+     * @param stars
+     *            The stars of the part of the asterism
+     * @param builder
+     *            The builder of the star catalogue
+     */
+    private static void addPart(List<Star> stars, StarCatalogue.Builder builder) {
+        if (stars.size() >= 2) {
+            builder.addAsterism(new Asterism(stars));
+        }
+    }
 }
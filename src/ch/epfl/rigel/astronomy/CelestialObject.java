@@ -60,15 +60,38 @@ public abstract class CelestialObject {
         this.angularSize = angularSize;
 
         this.magnitude = magnitude;
-        this.isBright = magnitude < 1.0;
+        this.isBright = isBright(magnitude);
+        this.discSize = discSizeFor(magnitude);
+    }
 
+    /**
+     * Additional method.
+     * Returns the size of the disc corresponding to a celestial object of the given magnitude.
+     *
+     * @param magnitude
+     *            The object's magnitude (unitless)
+     * @return the size of the disc corresponding to a celestial object of the given magnitude
+     */
+    static double discSizeFor(float magnitude) {
         // The magnitude is clipped to [-2, 5]
         double clippedMagnitude = MAGNITUDE_INTERVAL.clip(magnitude);
 
         // The size factor (between 10% and 95% of the diameter of an object whose angular size is 0.5 degrees)
         double sizeFactor = (99.0 - 17.0 * clippedMagnitude) / 140.0;
 
-        this.discSize = sizeFactor * DISC_SIZE_HALF_DEGREE;
+        return sizeFactor * DISC_SIZE_HALF_DEGREE;
+    }
+
+    /**
+     * Additional method.
+     * Tells if a celestial object of the given magnitude is bright.
+     *
+     * @param magnitude
+     *            The object's magnitude (unitless)
+     * @return true if a celestial object of the given magnitude is bright, false otherwise
+     */
+    static boolean isBright(float magnitude) {
+        return magnitude < 1.0;
     }
 
     /**
@@ -0,0 +1,377 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static java.lang.Math.*;
+
+/**
+ * Additional class.
+ * A spatial index of the stars of a table, partitioning the celestial sphere into a hierarchical triangular mesh : the
+ * eight faces of an octahedron are recursively divided into four spherical triangles (the cells), down to a fixed
+ * depth. The stars are grouped by the cell of the last level containing them, so that the stars of any cell (or of
+ * all the cells descending from a given one) are contiguous.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class CelestialSphereIndex {
+
+    private final int depth;
+    private final int[] cellOffsets; // The offsets of the cells of the last level, followed by the number of stars
+    private final int[] starIndices; // The indices of the stars, grouped by cell and increasing within a cell
+
+    // The average number of stars per cell of the last level aimed for, and the maximum depth of the mesh
+    private static final int STARS_PER_CELL = 8, MAX_DEPTH = 8;
+
+    // The tolerance of the tests of the position of a point relatively to the sides of a cell
+    private static final double EPSILON = 1e-12;
+
+    // The vertices of the octahedron, and its eight faces (counterclockwise, seen from outside the sphere)
+    private static final double[][] VERTICES = {
+            {0, 0, 1}, {1, 0, 0}, {0, 1, 0}, {-1, 0, 0}, {0, -1, 0}, {0, 0, -1}
+    };
+    private static final int[][] FACES = {
+            {1, 5, 2}, {2, 5, 3}, {3, 5, 4}, {4, 5, 1}, {1, 0, 4}, {4, 0, 3}, {3, 0, 2}, {2, 0, 1}
+    };
+
+    /**
+     * Constructs the spatial index of the stars of the given table.
+     *
+     * @param table
+     *            The table of the stars
+     */
+    CelestialSphereIndex(StarTable table) {
+        int size = table.size();
+
+        // The depth for which the cells of the last level contain about STARS_PER_CELL stars
+        int d = 0;
+        while (d < MAX_DEPTH && FACES.length * (1L << (2 * d)) * STARS_PER_CELL < size) {
+            ++d;
+        }
+        depth = d;
+
+        int cellCount = FACES.length << (2 * depth);
+        int[] cells = new int[size];
+        for (int i = 0; i < size; ++i) {
+            cells[i] = cellOf(table.ra(i), table.dec(i), depth);
+        }
+
+        // Groups the stars by cell (counting sort, which keeps the stars of a cell in increasing order)
+        cellOffsets = new int[cellCount + 1];
+        for (int cell : cells) {
+            ++cellOffsets[cell + 1];
+        }
+        for (int c = 0; c < cellCount; ++c) {
+            cellOffsets[c + 1] += cellOffsets[c];
+        }
+        starIndices = new int[size];
+        int[] next = Arrays.copyOf(cellOffsets, cellCount);
+        for (int i = 0; i < size; ++i) {
+            starIndices[next[cells[i]]++] = i;
+        }
+    }
+
+    /**
+     * Returns the depth of the mesh, i.e. the number of divisions of the faces of the octahedron.
+     * @return the depth of the mesh
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of cells of the last level of the mesh.
+     * @return the number of cells of the last level of the mesh
+     */
+    public int cellCount() {
+        return cellOffsets.length - 1;
+    }
+
+    /**
+     * Returns the indices of the stars which may be in the spherical cap of given center and angular radius, i.e. the
+     * stars of all the cells intersecting the cap (possibly including some stars outside of it). The indices of the
+     * stars of a given cell are in increasing order.
+     *
+     * @param center
+     *            The center of the cap
+     * @param radius
+     *            The angular radius of the cap (in radians)
+     * @return the indices of the candidate stars
+     */
+    public int[] starsInCap(EquatorialCoordinates center, double radius) {
+        if (radius >= PI) {
+            return starIndices.clone(); // The cap is the whole sphere
+        }
+
+        Ranges ranges = new Ranges();
+        visitCap(center, radius, depth, (firstCell, endCell) -> ranges.add(cellOffsets[firstCell], cellOffsets[endCell]));
+        return ranges.indices();
+    }
+
+    /**
+     * Additional method.
+     * Returns the identifiers of the cells of the mesh of given depth intersecting the spherical cap of given center
+     * and angular radius (possibly including some cells outside of it), in increasing order.
+     *
+     * @param center
+     *            The center of the cap
+     * @param radius
+     *            The angular radius of the cap (in radians)
+     * @param depth
+     *            The depth of the mesh
+     * @return the identifiers of the cells intersecting the cap
+     */
+    static int[] cellsInCap(EquatorialCoordinates center, double radius, int depth) {
+        if (radius >= PI) {
+            return IntStream.range(0, FACES.length << (2 * depth)).toArray(); // The cap is the whole sphere
+        }
+
+        // The cells are found as ranges of contiguous identifiers, in increasing order
+        IntStream.Builder cells = IntStream.builder();
+        visitCap(center, radius, depth, (firstCell, endCell) -> {
+            for (int cell = firstCell; cell < endCell; ++cell) {
+                cells.add(cell);
+            }
+        });
+        return cells.build().toArray();
+    }
+
+    /**
+     * Additional method.
+     * Returns the identifier of the cell of the last level of the mesh of given depth containing the given position.
+     *
+     * @param ra
+     *            The right ascension (in radians)
+     * @param dec
+     *            The declination (in radians)
+     * @param depth
+     *            The depth of the mesh
+     * @return the identifier of the cell containing the position
+     */
+    static int cellOf(double ra, double dec, int depth) {
+        double[] p = unitVector(ra, dec);
+
+        // The face of the octahedron containing the position
+        int cell = 0;
+        while (cell < FACES.length - 1
+                && !contains(VERTICES[FACES[cell][0]], VERTICES[FACES[cell][1]], VERTICES[FACES[cell][2]], p)) {
+            ++cell;
+        }
+        double[] a = VERTICES[FACES[cell][0]], b = VERTICES[FACES[cell][1]], c = VERTICES[FACES[cell][2]];
+
+        for (int level = 0; level < depth; ++level) {
+            double[] w0 = midpoint(b, c), w1 = midpoint(a, c), w2 = midpoint(a, b);
+
+            // The child containing the position, the central one by default
+            if (contains(a, w2, w1, p)) {
+                cell = 4 * cell;
+                b = w2;
+                c = w1;
+            } else if (contains(b, w0, w2, p)) {
+                cell = 4 * cell + 1;
+                a = b;
+                b = w0;
+                c = w2;
+            } else if (contains(c, w1, w0, p)) {
+                cell = 4 * cell + 2;
+                a = c;
+                b = w1;
+                c = w0;
+            } else {
+                cell = 4 * cell + 3;
+                a = w0;
+                b = w1;
+                c = w2;
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * Additional method.
+     * Gives to the given consumer the ranges of the cells of the last level of the mesh of given depth intersecting
+     * the given (partial) cap, in increasing order.
+     *
+     * @param center
+     *            The center of the cap
+     * @param radius
+     *            The angular radius of the cap (in radians), less than PI
+     * @param depth
+     *            The depth of the mesh
+     * @param cells
+     *            The consumer of the ranges of cells
+     */
+    private static void visitCap(EquatorialCoordinates center, double radius, int depth, CellRanges cells) {
+        double[] c = unitVector(center.ra(), center.dec());
+        for (int f = 0; f < FACES.length; ++f) {
+            visit(VERTICES[FACES[f][0]], VERTICES[FACES[f][1]], VERTICES[FACES[f][2]], 0, f, depth, c, radius, cells);
+        }
+    }
+
+    /**
+     * Additional method.
+     * Gives to the given consumer the descendants, at the last level, of the given cell intersecting the given cap.
+     *
+     * @param a, b, c
+     *            The vertices of the cell
+     * @param level
+     *            The level of the cell
+     * @param cell
+     *            The identifier of the cell within its level
+     * @param depth
+     *            The depth of the mesh
+     * @param capCenter
+     *            The center of the cap (unit vector)
+     * @param capRadius
+     *            The angular radius of the cap
+     * @param cells
+     *            The consumer of the ranges of cells of the last level
+     */
+    private static void visit(double[] a, double[] b, double[] c, int level, int cell, int depth, double[] capCenter,
+                              double capRadius, CellRanges cells) {
+        // The cap circumscribing the cell, centered at its normalized centroid
+        double[] cellCenter = normalized(a[0] + b[0] + c[0], a[1] + b[1] + c[1], a[2] + b[2] + c[2]);
+        double cellRadius = acos(clamp(min(dot(cellCenter, a), min(dot(cellCenter, b), dot(cellCenter, c)))));
+        double distance = acos(clamp(dot(cellCenter, capCenter)));
+
+        if (distance > capRadius + cellRadius) {
+            return; // Disjoint from the cap
+        }
+
+        int shift = 2 * (depth - level);
+        if (level == depth || distance + cellRadius <= capRadius) {
+            // All the cells of the last level descending from this cell, which are contiguous
+            cells.add(cell << shift, (cell + 1) << shift);
+            return;
+        }
+
+        double[] w0 = midpoint(b, c), w1 = midpoint(a, c), w2 = midpoint(a, b);
+        visit(a, w2, w1, level + 1, 4 * cell, depth, capCenter, capRadius, cells);
+        visit(b, w0, w2, level + 1, 4 * cell + 1, depth, capCenter, capRadius, cells);
+        visit(c, w1, w0, level + 1, 4 * cell + 2, depth, capCenter, capRadius, cells);
+        visit(w0, w1, w2, level + 1, 4 * cell + 3, depth, capCenter, capRadius, cells);
+    }
+
+    /**
+     * Additional method.
+     * Tells if the given point is in the spherical triangle of given (counterclockwise) vertices.
+     */
+    private static boolean contains(double[] a, double[] b, double[] c, double[] p) {
+        return tripleProduct(a, b, p) >= -EPSILON
+                && tripleProduct(b, c, p) >= -EPSILON
+                && tripleProduct(c, a, p) >= -EPSILON;
+    }
+
+    /**
+     * Additional method.
+     * Returns the triple product (a x b) . p of the given vectors.
+     */
+    private static double tripleProduct(double[] a, double[] b, double[] p) {
+        return (a[1] * b[2] - a[2] * b[1]) * p[0]
+                + (a[2] * b[0] - a[0] * b[2]) * p[1]
+                + (a[0] * b[1] - a[1] * b[0]) * p[2];
+    }
+
+    /**
+     * Additional method.
+     * Returns the unit vector of the given equatorial position.
+     */
+    private static double[] unitVector(double ra, double dec) {
+        double cosDec = cos(dec);
+        return new double[]{cosDec * cos(ra), cosDec * sin(ra), sin(dec)};
+    }
+
+    /**
+     * Additional method.
+     * Returns the midpoint, on the sphere, of the given unit vectors.
+     */
+    private static double[] midpoint(double[] a, double[] b) {
+        return normalized(a[0] + b[0], a[1] + b[1], a[2] + b[2]);
+    }
+
+    /**
+     * Additional method.
+     * Returns the unit vector of the same direction as the given vector.
+     */
+    private static double[] normalized(double x, double y, double z) {
+        double norm = sqrt(x * x + y * y + z * z);
+        return new double[]{x / norm, y / norm, z / norm};
+    }
+
+    /**
+     * Additional method.
+     * Returns the dot product of the given vectors.
+     */
+    private static double dot(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    /**
+     * Additional method.
+     * Clamps the given cosine to [-1,1], to absorb the rounding errors.
+     */
+    private static double clamp(double cosine) {
+        return max(-1, min(1, cosine));
+    }
+
+    /**
+     * Additional interface.
+     * A consumer of the ranges of contiguous cells of the last level of the mesh found by a query.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    @FunctionalInterface
+    private interface CellRanges {
+
+        /**
+         * Adds the cells of the given range.
+         *
+         * @param firstCell
+         *            The identifier of the first cell (inclusive)
+         * @param endCell
+         *            The identifier of the last cell (exclusive)
+         */
+        void add(int firstCell, int endCell);
+    }
+
+    /**
+     * Additional class.
+     * The ranges of the array of the indices of the stars found by a query.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    private final class Ranges {
+
+        private int[] bounds = new int[16]; // The starts and ends of the ranges, alternately
+        private int count; // The number of bounds
+        private int length; // The total length of the ranges
+
+        private void add(int start, int end) {
+            if (start == end) {
+                return;
+            }
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, 2 * count);
+            }
+            bounds[count++] = start;
+            bounds[count++] = end;
+            length += end - start;
+        }
+
+        private int[] indices() {
+            int[] indices = new int[length];
+            int position = 0;
+            for (int r = 0; r < count; r += 2) {
+                int rangeLength = bounds[r + 1] - bounds[r];
+                System.arraycopy(starIndices, bounds[r], indices, position, rangeLength);
+                position += rangeLength;
+            }
+            return indices;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Additional class.
+ * The input streams of the catalogues, which may be compressed in the GZIP format. A compressed catalogue is detected
+ * by its magic bytes (and not by its name) and inflated by a background thread, a few blocks ahead of the loader, so
+ * that the inflation of the catalogue overlaps with its parsing.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+final class CompressedInput {
+
+    // The two first bytes of a GZIP stream
+    private static final int GZIP_MAGIC_1 = 0x1f, GZIP_MAGIC_2 = 0x8b;
+
+    // The size (in bytes) of the blocks of inflated data, and the maximum number of blocks inflated ahead of the reader
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final int QUEUED_BLOCKS = 8;
+
+    // The daemon threads inflating the compressed catalogues, one per catalogue being read
+    private static final ExecutorService INFLATERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "catalogue-inflater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Default constructor.
+     */
+    private CompressedInput() {}
+
+    /**
+     * Returns the decompressed content of the given input stream : an input stream inflated in the background if it
+     * starts with the magic bytes of the GZIP format, or the (buffered) input stream itself otherwise. Closing the
+     * returned stream closes the given one.
+     *
+     * @param inputStream
+     *            The input stream, compressed or not
+     * @throws IOException
+     *             in case of input/output error
+     * @return the decompressed content of the input stream
+     */
+    static InputStream decompressed(InputStream inputStream) throws IOException {
+        InputStream buffered = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+
+        // Peeks the magic bytes, which are then read again
+        buffered.mark(2);
+        int first = buffered.read(), second = buffered.read();
+        buffered.reset();
+
+        return (first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2) ? new InflatingInputStream(buffered) : buffered;
+    }
+
+    /**
+     * Additional class.
+     * An input stream whose data is inflated from a GZIP stream by a background thread, which hands over blocks of
+     * inflated data through a bounded queue (so that a slow reader does not make the whole catalogue be inflated in
+     * memory).
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    static final class InflatingInputStream extends InputStream {
+
+        // The block marking the end of the inflated data (or the failure of the inflation)
+        private static final byte[] END = new byte[0];
+
+        private final InputStream source;
+        private final BlockingQueue<byte[]> blocks = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+        private final Future<?> inflater;
+        private volatile IOException failure;
+
+        private byte[] block = new byte[0]; // The block being read
+        private int position; // The position of the next byte to read in the block
+
+        /**
+         * Constructs an input stream inflating the given GZIP stream in the background.
+         *
+         * @param source
+         *            The GZIP stream
+         */
+        private InflatingInputStream(InputStream source) {
+            this.source = source;
+            inflater = INFLATERS.submit(this::inflate);
+        }
+
+        /**
+         * Inflates the given GZIP stream into blocks, put into the queue until its end or until the reader closes
+         * this stream.
+         */
+        private void inflate() {
+            try (InputStream gzip = new GZIPInputStream(source, BLOCK_SIZE)) {
+                int length;
+                do {
+                    byte[] inflated = new byte[BLOCK_SIZE];
+                    length = gzip.readNBytes(inflated, 0, BLOCK_SIZE);
+                    if (length > 0) {
+                        blocks.put(length == BLOCK_SIZE ? inflated : Arrays.copyOf(inflated, length));
+                    }
+                } while (length == BLOCK_SIZE);
+            } catch (IOException e) {
+                // The failure is rethrown to the reader once it has read the data inflated before it
+                failure = e;
+            } catch (InterruptedException e) {
+                // The reader has closed this stream
+                return;
+            }
+
+            try {
+                blocks.put(END);
+            } catch (InterruptedException e) {
+                // The reader has closed this stream
+            }
+        }
+
+        /**
+         * Moves to the next block of inflated data if the current one has been read entirely, waiting for it to be
+         * inflated if necessary.
+         *
+         * @throws IOException
+         *             if the inflation has failed or if the reader has been interrupted
+         * @return true if there is data left to read, false if the end of the inflated data has been reached
+         */
+        private boolean nextBlock() throws IOException {
+            while (block != END && position == block.length) {
+                try {
+                    block = blocks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+                position = 0;
+            }
+
+            if (block == END && failure != null) {
+                throw failure;
+            }
+            return block != END;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return nextBlock() ? block[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextBlock()) {
+                return -1;
+            }
+
+            int length = Math.min(len, block.length - position);
+            System.arraycopy(block, position, b, off, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return block.length - position;
+        }
+
+        /**
+         * Stops the inflation (if it is not over yet) and closes the GZIP stream.
+         *
+         * @throws IOException
+         *             in case of input/output error
+         */
+        @Override
+        public void close() throws IOException {
+            // The background thread may not have started yet, in which case it never closes the GZIP stream itself
+            inflater.cancel(true);
+            source.close();
+            block = END;
+            position = 0;
+        }
+    }
+}
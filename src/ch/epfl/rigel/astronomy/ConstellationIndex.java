@@ -0,0 +1,268 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.math.Angle;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.RandomAccess;
+
+/**
+ * Additional class.
+ * The indices (in the catalogue) of the stars of each of the 88 constellations, stored in compressed sparse rows : the
+ * indices of the stars are grouped by constellation in a single array, and the constellation of a given code owns the
+ * indices between its offset (inclusive) and the one of the next constellation (exclusive). The stars whose
+ * constellation is unknown belong to no group.
+ *
+ * Within a group, the stars keep their order in the catalogue, so that the stars of a constellation of a catalogue
+ * ordered by magnitude are ordered by magnitude too. The queries about a constellation thus only examine the stars of
+ * its group, instead of scanning the whole catalogue.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class ConstellationIndex {
+
+    private final StarTable table;
+    private final int[] offsets; // The offsets of the constellations, followed by the total number of indices
+    private final int[] starIndices;
+
+    /**
+     * Constructs the index of the constellations of the stars of the given table, sorted by a counting sort.
+     *
+     * @param table
+     *            The table of the stars
+     */
+    ConstellationIndex(StarTable table) {
+        this.table = table;
+        int count = StarNames.CONSTELLATIONS.size();
+
+        // The number of stars of each constellation, then their offsets
+        offsets = new int[count + 1];
+        for (int i = 0; i < table.size(); ++i) {
+            int code = table.constellationCode(i);
+            if (code != StarNames.NO_CODE) {
+                ++offsets[code + 1];
+            }
+        }
+        for (int c = 0; c < count; ++c) {
+            offsets[c + 1] += offsets[c];
+        }
+
+        // The indices of the stars, in their order in the table within each group
+        starIndices = new int[offsets[count]];
+        int[] next = new int[count];
+        System.arraycopy(offsets, 0, next, 0, count);
+        for (int i = 0; i < table.size(); ++i) {
+            int code = table.constellationCode(i);
+            if (code != StarNames.NO_CODE) {
+                starIndices[next[code]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of constellations.
+     * @return the number of constellations
+     */
+    public int count() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the code of the constellation with the given abbreviated name (e.g. "Ori" for Orion), as in the HYG
+     * catalogue.
+     *
+     * @param shortName
+     *            The abbreviated name of the constellation
+     * @return the code of the constellation, or -1 if there is none with this name
+     */
+    public int codeOf(String shortName) {
+        return StarNames.CONSTELLATIONS.indexOf(shortName);
+    }
+
+    /**
+     * Returns the abbreviated name of the constellation of the given code.
+     *
+     * @param code
+     *            The code of the constellation
+     * @return the abbreviated name of the constellation
+     */
+    public String name(int code) {
+        return StarNames.CONSTELLATIONS.get(Objects.checkIndex(code, count()));
+    }
+
+    /**
+     * Returns the position, in the array of the indices, of the first star of the constellation of the given code.
+     *
+     * @param code
+     *            The code of the constellation
+     * @return the position of the first star of the constellation (inclusive)
+     */
+    public int start(int code) {
+        return offsets[Objects.checkIndex(code, count())];
+    }
+
+    /**
+     * Returns the position, in the array of the indices, following the last star of the constellation of the given
+     * code.
+     *
+     * @param code
+     *            The code of the constellation
+     * @return the position following the last star of the constellation (exclusive)
+     */
+    public int end(int code) {
+        return offsets[Objects.checkIndex(code, count()) + 1];
+    }
+
+    /**
+     * Returns the index (in the catalogue) of the star at the given position of the array of the indices.
+     *
+     * @param position
+     *            The position in the array of the indices, between the start and the end of a constellation
+     * @return the index of the star in the catalogue
+     */
+    public int starIndex(int position) {
+        return starIndices[Objects.checkIndex(position, starIndices.length)];
+    }
+
+    /**
+     * Returns the number of stars of the constellation of the given code.
+     *
+     * @param code
+     *            The code of the constellation
+     * @return the number of stars of the constellation
+     */
+    public int size(int code) {
+        return end(code) - start(code);
+    }
+
+    /**
+     * Returns an immutable view on the indices (in the catalogue) of the stars of the constellation of the given
+     * code, e.g. to highlight them.
+     *
+     * @param code
+     *            The code of the constellation
+     * @return the list of the indices of the stars of the constellation
+     */
+    public List<Integer> indicesOf(int code) {
+        int start = start(code);
+        return new IndexList(start, end(code) - start);
+    }
+
+    /**
+     * Returns the number of stars of the constellation of the given code at most as faint as the given limiting
+     * magnitude, found by a binary search in its group when the catalogue is ordered by magnitude.
+     *
+     * @param code
+     *            The code of the constellation
+     * @param limitingMagnitude
+     *            The limiting magnitude
+     * @return the number of stars of the constellation at most as faint as the limiting magnitude
+     */
+    public int brighterStarCount(int code, double limitingMagnitude) {
+        int start = start(code), end = end(code);
+        if (!table.isSortedByMagnitude()) {
+            int count = 0;
+            for (int k = start; k < end; ++k) {
+                if (table.magnitude(starIndices[k]) <= limitingMagnitude) {
+                    ++count;
+                }
+            }
+            return count;
+        }
+
+        // Binary search of the first star of the group fainter than the limiting magnitude
+        int low = start, high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (table.magnitude(starIndices[middle]) <= limitingMagnitude) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - start;
+    }
+
+    /**
+     * Returns the index (in the catalogue) of the brightest star of the constellation of the given code, which is the
+     * first one of its group when the catalogue is ordered by magnitude.
+     *
+     * @param code
+     *            The code of the constellation
+     * @return the index of the brightest star of the constellation, or -1 if it has no star
+     */
+    public int brightestStar(int code) {
+        int start = start(code), end = end(code);
+        if (start == end || table.isSortedByMagnitude()) {
+            return start == end ? -1 : starIndices[start];
+        }
+
+        int brightest = starIndices[start];
+        for (int k = start + 1; k < end; ++k) {
+            if (table.magnitude(starIndices[k]) < table.magnitude(brightest)) {
+                brightest = starIndices[k];
+            }
+        }
+        return brightest;
+    }
+
+    /**
+     * Returns the mean position of the stars of the constellation of the given code at most as faint as the given
+     * limiting magnitude, i.e. the direction of the sum of their unit vectors, e.g. to center the view on it.
+     *
+     * @param code
+     *            The code of the constellation
+     * @param limitingMagnitude
+     *            The limiting magnitude
+     * @return the mean position of the stars of the constellation, or an empty cell if none of them is bright enough
+     */
+    public Optional<EquatorialCoordinates> center(int code, double limitingMagnitude) {
+        double x = 0, y = 0, z = 0;
+        int count = 0;
+        for (int k = start(code); k < end(code); ++k) {
+            int i = starIndices[k];
+            if (table.magnitude(i) <= limitingMagnitude) {
+                double cosDec = Math.cos(table.dec(i));
+                x += cosDec * Math.cos(table.ra(i));
+                y += cosDec * Math.sin(table.ra(i));
+                z += Math.sin(table.dec(i));
+                ++count;
+            }
+        }
+        return count == 0 ?
+                Optional.empty() :
+                Optional.of(EquatorialCoordinates.of(Angle.normalizePositive(Math.atan2(y, x)),
+                        Math.atan2(z, Math.hypot(x, y))));
+    }
+
+    /**
+     * Additional class.
+     * An immutable view on a slice of the array of the indices.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    private final class IndexList extends AbstractList<Integer> implements RandomAccess {
+
+        private final int start, size;
+
+        private IndexList(int start, int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            return starIndices[start + Objects.checkIndex(index, size)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
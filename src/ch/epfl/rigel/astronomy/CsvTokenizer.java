@@ -0,0 +1,390 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Additional class.
+ * A tokenizer of comma-separated values encoded in ASCII, which scans the bytes of the values in place.
+ *
+ * The fields of the current line are selected in increasing column order. The skipped fields are never materialized,
+ * and the numeric fields are parsed directly from their bytes, so that reading a line allocates nothing but the
+ * strings explicitly asked for.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+final class CsvTokenizer {
+
+    private final byte[] bytes;
+    private final int end;
+
+    private int column; // The column of the selected field (-1 when no line is selected)
+    private int fieldStart, fieldEnd; // The bounds of the selected field, the end being its separator
+
+    private static final byte SEPARATOR = ',', NEW_LINE = '\n';
+
+    // The greatest power of ten (10^22) which is exactly representable by a double
+    private static final int MAX_EXACT_POWER = 22;
+
+    // The maximum number of significant digits parsed directly, whose mantissa is exactly representable by a double
+    // (i.e. at most 2^53), so that its division or multiplication by an exact power of ten is correctly rounded
+    private static final int MAX_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = powersOfTen();
+
+    /**
+     * Constructs a tokenizer of the given bytes, between the given start (inclusive) and end (exclusive) positions.
+     * The start position is assumed to be at the beginning of a line.
+     *
+     * @param bytes
+     *            The bytes of the values
+     * @param start
+     *            The start position (inclusive)
+     * @param end
+     *            The end position (exclusive)
+     */
+    CsvTokenizer(byte[] bytes, int start, int end) {
+        this.bytes = bytes;
+        this.end = end;
+        this.column = -1;
+        this.fieldStart = this.fieldEnd = start;
+    }
+
+    /**
+     * Returns a tokenizer of all the bytes of the given input stream (inflated if it is compressed), which is read and
+     * then closed.
+     *
+     * @param inputStream
+     *            The input stream
+     * @throws IOException
+     *             in case of input/output error
+     * @return the tokenizer of the bytes of the input stream
+     */
+    static CsvTokenizer of(InputStream inputStream) throws IOException {
+        try (InputStream decompressed = CompressedInput.decompressed(inputStream)) {
+            byte[] bytes = decompressed.readAllBytes();
+            return new CsvTokenizer(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Moves to the beginning of the next line, skipping the remaining fields of the current one (if any), and
+     * selects its first field.
+     * @return true if there is a next line, false if the end of the values has been reached
+     */
+    boolean nextLine() {
+        int lineStart = fieldEnd;
+        if (column >= 0) {
+            // Skips the remaining fields of the current line and its new line character
+            while (lineStart < end && bytes[lineStart] != NEW_LINE) {
+                ++lineStart;
+            }
+            ++lineStart;
+        }
+
+        if (lineStart >= end) {
+            column = -1;
+            fieldStart = fieldEnd = end;
+            return false;
+        }
+        column = 0;
+        scanField(lineStart);
+        return true;
+    }
+
+    /**
+     * Skips the next line, typically a header line giving the names of the columns.
+     */
+    void skipLine() {
+        nextLine(); // The line is selected, and thus skipped by the next call
+    }
+
+    /**
+     * Selects the field of the current line at the given column, which must not precede the selected one.
+     * Selecting a column beyond the end of the line selects an empty field.
+     *
+     * @param index
+     *            The index of the column
+     * @throws IllegalStateException
+     *             if the given column precedes the selected one
+     * @return this tokenizer
+     */
+    CsvTokenizer field(int index) {
+        if (index < column) {
+            throw new IllegalStateException("Column " + index + " precedes the selected column " + column);
+        }
+        while (column < index) {
+            if (fieldEnd >= end || bytes[fieldEnd] == NEW_LINE) {
+                // The line has no more fields
+                fieldStart = fieldEnd;
+                column = index;
+                return this;
+            }
+            ++column;
+            scanField(fieldEnd + 1);
+        }
+        return this;
+    }
+
+    /**
+     * Tells if the selected field is empty.
+     * @return true if the selected field is empty, false otherwise
+     */
+    boolean isEmpty() {
+        return fieldStart == fieldEnd;
+    }
+
+    /**
+     * Returns the position of the first byte of the selected field.
+     * @return the position of the first byte of the selected field
+     */
+    int start() {
+        return fieldStart;
+    }
+
+    /**
+     * Returns the position following the last byte of the selected field.
+     * @return the position following the last byte of the selected field
+     */
+    int end() {
+        return fieldEnd;
+    }
+
+    /**
+     * Returns the selected field as a string.
+     * @return the selected field as a string
+     */
+    String string() {
+        return string(fieldStart, fieldEnd);
+    }
+
+    /**
+     * Returns the bytes between the given positions (typically the bounds of a formerly selected field) as a string.
+     *
+     * @param from
+     *            The start position (inclusive)
+     * @param to
+     *            The end position (exclusive)
+     * @return the bytes between the given positions as a string
+     */
+    String string(int from, int to) {
+        return new String(bytes, from, to - from, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Tells if the selected field is equal to the given ASCII text.
+     *
+     * @param text
+     *            The ASCII text
+     * @return true if the selected field is equal to the text, false otherwise
+     */
+    boolean isEqualTo(String text) {
+        int length = text.length();
+        if (fieldEnd - fieldStart != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (bytes[fieldStart + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells if the selected field contains the given ASCII text.
+     *
+     * @param text
+     *            The ASCII text
+     * @return true if the selected field contains the text, false otherwise
+     */
+    boolean contains(String text) {
+        int length = text.length();
+        for (int from = fieldStart; from + length <= fieldEnd; ++from) {
+            int i = 0;
+            while (i < length && bytes[from + i] == text.charAt(i)) {
+                ++i;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the integer value of the selected field.
+     *
+     * @throws NumberFormatException
+     *             if the field is not an integer
+     * @return the integer value of the selected field
+     */
+    int parseInt() {
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && bytes[i] == '-';
+        if (negative || (i < fieldEnd && bytes[i] == '+')) {
+            ++i;
+        }
+
+        if (i == fieldEnd || fieldEnd - i > 9) {
+            // Empty or possibly overflowing field, handled (and rejected if needed) by the standard parser
+            return Integer.parseInt(string());
+        }
+
+        int value = 0;
+        for (; i < fieldEnd; ++i) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(string());
+            }
+            value = 10 * value + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the double value of the selected field, which is always the one of the standard parser. Decimal values
+     * with at most 15 significant digits and a power of ten in [-22,22] are parsed directly from the bytes (the
+     * mantissa and the power of ten being exact doubles, their quotient or product is correctly rounded) ; the other
+     * values are handed to the standard parser.
+     *
+     * @throws NumberFormatException
+     *             if the field is not a decimal number
+     * @return the double value of the selected field
+     */
+    double parseDouble() {
+        int i = fieldStart;
+        boolean negative = i < fieldEnd && bytes[i] == '-';
+        if (negative || (i < fieldEnd && bytes[i] == '+')) {
+            ++i;
+        }
+
+        long mantissa = 0;
+        int digits = 0; // The number of significant digits accumulated in the mantissa
+        int exponent = 0; // The power of ten by which the mantissa is multiplied
+        boolean hasDigits = false, afterPoint = false;
+
+        for (; i < fieldEnd; ++i) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                hasDigits = true;
+                if (mantissa != 0 || b != '0') {
+                    if (++digits > MAX_DIGITS) {
+                        // The mantissa could be rounded, and then rounded again by the scaling
+                        return Double.parseDouble(string());
+                    }
+                }
+                mantissa = 10 * mantissa + (b - '0');
+                if (afterPoint) {
+                    --exponent;
+                }
+            } else if (b == '.' && !afterPoint) {
+                afterPoint = true;
+            } else if ((b == 'e' || b == 'E') && hasDigits) {
+                return withExponent(negative, mantissa, exponent, i + 1);
+            } else {
+                return Double.parseDouble(string());
+            }
+        }
+
+        if (!hasDigits) {
+            return Double.parseDouble(string());
+        }
+        return scaled(negative, mantissa, exponent);
+    }
+
+    /**
+     * Additional method.
+     * Parses the exponent of a decimal number in scientific notation, starting at the given position, and returns
+     * the value of the number.
+     *
+     * @param negative
+     *            The sign of the number
+     * @param mantissa
+     *            The significant digits of the number
+     * @param exponent
+     *            The power of ten by which the mantissa is multiplied, before the explicit exponent
+     * @param from
+     *            The position of the first byte of the explicit exponent
+     * @return the value of the number
+     */
+    private double withExponent(boolean negative, long mantissa, int exponent, int from) {
+        int i = from;
+        boolean negativeExponent = i < fieldEnd && bytes[i] == '-';
+        if (negativeExponent || (i < fieldEnd && bytes[i] == '+')) {
+            ++i;
+        }
+        if (i == fieldEnd || fieldEnd - i > 3) {
+            return Double.parseDouble(string());
+        }
+
+        int explicitExponent = 0;
+        for (; i < fieldEnd; ++i) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.parseDouble(string());
+            }
+            explicitExponent = 10 * explicitExponent + digit;
+        }
+        return scaled(negative, mantissa, exponent + (negativeExponent ? -explicitExponent : explicitExponent));
+    }
+
+    /**
+     * Additional method.
+     * Returns the value of the given mantissa multiplied by the given power of ten.
+     *
+     * @param negative
+     *            The sign of the number
+     * @param mantissa
+     *            The significant digits of the number
+     * @param exponent
+     *            The power of ten by which the mantissa is multiplied
+     * @return the value of the number
+     */
+    private double scaled(boolean negative, long mantissa, int exponent) {
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (-MAX_EXACT_POWER <= exponent && exponent <= MAX_EXACT_POWER) {
+            // The mantissa and the power of ten are exact, the result is thus rounded once
+            value = exponent < 0 ?
+                    mantissa / POWERS_OF_TEN[-exponent] :
+                    mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            return Double.parseDouble(string());
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Additional method.
+     * Selects the field starting at the given position.
+     *
+     * @param from
+     *            The position of the first byte of the field
+     */
+    private void scanField(int from) {
+        int i = from;
+        while (i < end && bytes[i] != SEPARATOR && bytes[i] != NEW_LINE) {
+            ++i;
+        }
+        fieldStart = from;
+        fieldEnd = i;
+    }
+
+    /**
+     * Additional method.
+     * Returns the powers of ten exactly representable by a double.
+     * @return the powers of ten exactly representable by a double
+     */
+    private static double[] powersOfTen() {
+        double[] powers = new double[MAX_EXACT_POWER + 1];
+        powers[0] = 1;
+        for (int i = 1; i < powers.length; ++i) {
+            powers[i] = 10 * powers[i - 1];
+        }
+        return powers;
+    }
+}
@@ -1,22 +1,33 @@
 package ch.epfl.rigel.astronomy;
 
-import ch.epfl.rigel.coordinates.EquatorialCoordinates;
-
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A loader of a HYG catalogue, containing only stars with a magnitude less than or equal to 6.
  *
+ * The catalogue is either parsed sequentially ({@link #INSTANCE}) or, for large catalogues, split into chunks of
+ * whole lines parsed in parallel and then added in their original order ({@link #PARALLEL}), so that the indices of
+ * the stars do not depend on the loading mode.
+ *
+ * The catalogue may be compressed in the GZIP format (see {@link CompressedInput}). A compressed catalogue loaded
+ * sequentially is parsed block after block, while the next blocks are being inflated in the background.
+ *
  * @author Mathias Bouilloud (309979)
  * @author Julien Mettler (309999)
  */
 public enum HygDatabaseLoader implements StarCatalogue.Loader {
 
-    INSTANCE();
+    INSTANCE(false),
+
+    PARALLEL(true);
+
+    private final boolean parallel;
 
     private static final int
             HIP = 1, // The index of the star's Hipparcos identification number
@@ -25,73 +36,260 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
             CI = 16, // The index of the star's B-V color index
             RARAD = 23, // The index of the star's right ascension (in radians)
             DECRAD = 24, // The index of the star's declination (in radians)
+            PMRARAD = 25, // The index of the star's proper motion in right ascension (in radians per year)
+            PMDECRAD = 26, // The index of the star's proper motion in declination (in radians per year)
             BAYER = 27, // The index of the star's Bayer designation
             CON = 29; // The index of the short name of the constellation
 
+    // The minimum size (in bytes) of a chunk parsed in parallel, below which the catalogue is parsed sequentially
+    private static final int MIN_CHUNK_SIZE = 1 << 18;
+
+    // The number of chunks per available processor, to balance the load between the threads
+    private static final int CHUNKS_PER_PROCESSOR = 4;
+
+    // The initial size (in bytes) of the buffer of a compressed catalogue parsed while being inflated
+    private static final int STREAMING_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Constructs a loader of a HYG catalogue.
+     *
+     * @param parallel
+     *            Tells if large catalogues are parsed in parallel
+     */
+    HygDatabaseLoader(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     /**
      * @see StarCatalogue.Loader#load(InputStream, StarCatalogue.Builder)
      */
     @Override
     public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
 
-        // Reads the HYG database, encoded in ASCII
-        try (BufferedReader reader =
-                     new BufferedReader(
-                             new InputStreamReader(
-                                     inputStream, StandardCharsets.US_ASCII))) {
+        // Reads the HYG database, encoded in ASCII (and inflated if it is compressed)
+        byte[] bytes;
+        try (InputStream decompressed = CompressedInput.decompressed(inputStream)) {
+            if (!parallel && decompressed instanceof CompressedInput.InflatingInputStream) {
+                parseStream(decompressed, builder.starTable());
+                return;
+            }
+            bytes = decompressed.readAllBytes();
+        }
+
+        // Ignores the header line, giving the names of the columns (which is thus unusable)
+        int dataStart = lineEnd(bytes, 0);
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int chunkCount = Math.min(pool.getParallelism() * CHUNKS_PER_PROCESSOR,
+                (bytes.length - dataStart) / MIN_CHUNK_SIZE);
+
+        if (!parallel || chunkCount < 2) {
+            // The stars are parsed directly into the columns of the catalogue under construction, which are reserved
+            // for all the lines when no star can be rejected (so that they are handed over to the catalogue as is)
+            StarTable.Builder table = builder.starTable();
+            if (builder.starFilter() == StarFilter.ALL) {
+                table.ensureCapacity(table.size() + lineCount(bytes, dataStart));
+            }
+            parseChunk(bytes, dataStart, bytes.length, table);
+            return;
+        }
+
+        // Splits the data into chunks of whole lines, parsed in parallel
+        List<ForkJoinTask<StarTable.Builder>> chunks = new ArrayList<>(chunkCount);
+        int chunkStart = dataStart;
+        for (int i = 1; i <= chunkCount && chunkStart < bytes.length; ++i) {
+            // The chunk ends with the line containing its ideal (evenly spaced) end
+            int idealEnd = dataStart + (int) ((long) (bytes.length - dataStart) * i / chunkCount);
+            int chunkEnd = (i == chunkCount) ? bytes.length : lineEnd(bytes, Math.max(chunkStart, idealEnd));
+            int start = chunkStart;
+            chunks.add(pool.submit(() ->
+                    parseChunk(bytes, start, chunkEnd, new StarTable.Builder().filter(builder.starFilter()))));
+            chunkStart = chunkEnd;
+        }
+
+        // Adds the stars of the chunks in their original order
+        for (ForkJoinTask<StarTable.Builder> chunk : chunks) {
+            builder.addStars(chunk.join());
+        }
+    }
+
+    /**
+     * Additional method.
+     * Parses the stars of the HYG database read from the given input stream, as soon as their lines have been read
+     * entirely, and adds them to the given table. The buffer only keeps the last line read partially, so that its
+     * size does not depend on the size of the database.
+     *
+     * @param inputStream
+     *            The input stream of the HYG database, encoded in ASCII
+     * @param stars
+     *            The builder of the table the stars are added to, in their order of appearance
+     * @throws IOException
+     *             in case of input/output error
+     */
+    private static void parseStream(InputStream inputStream, StarTable.Builder stars) throws IOException {
+        byte[] buffer = new byte[STREAMING_BUFFER_SIZE];
+        int length = 0; // The number of bytes in the buffer
+        boolean headerSkipped = false;
+
+        int read;
+        while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+
+            // The end of the last whole line of the buffer (0 if there is none)
+            int wholeLinesEnd = length;
+            while (wholeLinesEnd > 0 && buffer[wholeLinesEnd - 1] != '\n') {
+                --wholeLinesEnd;
+            }
+
+            // Ignores the header line, then parses the whole lines and keeps the partial one for the next block
+            int start = 0;
+            if (!headerSkipped && wholeLinesEnd > 0) {
+                start = lineEnd(buffer, 0);
+                headerSkipped = true;
+            }
+            if (headerSkipped) {
+                parseChunk(buffer, start, wholeLinesEnd, stars);
+                System.arraycopy(buffer, wholeLinesEnd, buffer, 0, length - wholeLinesEnd);
+                length -= wholeLinesEnd;
+            }
+
+            // A line longer than the buffer makes it grow
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+            }
+        }
+
+        // The last line may not end with a new line character
+        if (headerSkipped && length > 0) {
+            parseChunk(buffer, 0, length, stars);
+        }
+    }
+
+    /**
+     * Additional method.
+     * Parses the stars of the given chunk of whole lines of the HYG database and adds them to the given table.
+     *
+     * @param bytes
+     *            The HYG database, encoded in ASCII
+     * @param start
+     *            The position of the beginning of the first line of the chunk
+     * @param end
+     *            The position following the last line of the chunk
+     * @param stars
+     *            The builder of the table the stars are added to, in their order of appearance
+     * @return the builder of the table
+     */
+    private static StarTable.Builder parseChunk(byte[] bytes, int start, int end, StarTable.Builder stars) {
+        StarFilter filter = stars.filter();
+        CsvTokenizer tokenizer = new CsvTokenizer(bytes, start, end);
+
+        // Reads the current line of data (i.e. the current star in the HYG catalogue), whose 37 informations are
+        // selected in increasing column order
+        while (tokenizer.nextLine()) {
+            // The star's Hipparcos identification number (0 by default)
+            int hipparcosId = tokenizer.field(HIP).isEmpty() ? 0 : tokenizer.parseInt();
 
-            reader.readLine(); // Ignores the header line, giving the names of the columns (which is thus unusable)
+            // The position of the star's proper name (empty if absent), its string being only built if the star is
+            // accepted
+            int properStart = tokenizer.field(PROPER).start(), properEnd = tokenizer.end();
 
-            String line; // The current line of data (i.e. the current star in the HYG catalogue)
-            while ((line = reader.readLine()) != null) {
-                String[] columns = line.split(","); // The 37 informations on the current star
+            // The star's magnitude (0 by default)
+            float magnitude = defaultCases(tokenizer.field(MAG));
 
-                // The star's Hipparcos identification number (0 by default)
-                int hipparcosId = columns[HIP].isEmpty() ? 0 : Integer.parseInt(columns[HIP]);
+            // The star's color index (0 by default)
+            float colorIndex = defaultCases(tokenizer.field(CI));
 
-                // The star's name
-                String name;
+            // The star's right ascension and declination (in radians)
+            double raRad = tokenizer.field(RARAD).parseDouble();
+            double decRad = tokenizer.field(DECRAD).parseDouble();
 
-                if (columns[PROPER].isEmpty()) {
-                    StringBuilder nameBuilder = new StringBuilder();
-                    if (columns[BAYER].isEmpty()) {
-                        nameBuilder.append("?");
-                    } else {
-                        nameBuilder.append(columns[BAYER]);
-                    }
-                    nameBuilder.append(" ").append(columns[CON]);
-                    name = nameBuilder.toString();
-                } else {
-                    name = columns[PROPER];
-                }
+            // A star rejected by the filter is skipped before its other fields are read
+            if (!filter.accepts(hipparcosId, raRad, decRad, magnitude)) {
+                continue;
+            }
+
+            // The star's proper motions (in radians per year, 0 by default), the one in right ascension being
+            // multiplied by the cosine of the declination
+            float pmRa = defaultCases(tokenizer.field(PMRARAD));
+            float pmDec = defaultCases(tokenizer.field(PMDECRAD));
 
-                // The star's right ascension and declination (in radians)
-                double raRad = Double.parseDouble(columns[RARAD]);
-                double decRad = Double.parseDouble(columns[DECRAD]);
+            // The star's Bayer designation and constellation, read as codes directly from the bytes of the fields (the
+            // constellation being kept for all the stars, whichever their name)
+            int bayerStart = tokenizer.field(BAYER).start(), bayerEnd = tokenizer.end();
+            int bayerCode = StarNames.bayerCode(bytes, bayerStart, bayerEnd);
+            int constellationCode = StarNames.constellationCode(bytes, tokenizer.field(CON).start(), tokenizer.end());
 
-                // The star's equatorial position (in radians)
-                EquatorialCoordinates equatorialCoordinates = EquatorialCoordinates.of(raRad, decRad);
+            // The star is stored in the columns of the table, without being materialized
+            if (properStart != properEnd) {
+                String properName = tokenizer.string(properStart, properEnd);
+                stars.add(hipparcosId, properName, constellationCode, raRad, decRad, magnitude, colorIndex, pmRa,
+                        pmDec);
+                continue;
+            }
 
-                // The star's magnitude (0 by default)
-                float magnitude = defaultCases(columns, MAG);
+            // The star's name, made of its Bayer designation ("?" if absent) and constellation, is stored as the two
+            // codes, its string being only built when it is first asked for
+            if (bayerCode != StarNames.NO_CODE && constellationCode != StarNames.NO_CODE) {
+                stars.add(hipparcosId, bayerCode, constellationCode, raRad, decRad, magnitude, colorIndex, pmRa,
+                        pmDec);
+            } else {
+                // A name which cannot be encoded is stored as a string
+                String bayer = bayerCode == StarNames.NO_BAYER ? "?" : tokenizer.string(bayerStart, bayerEnd);
+                String name = bayer + " " + tokenizer.string();
+                stars.add(hipparcosId, name, constellationCode, raRad, decRad, magnitude, colorIndex, pmRa, pmDec);
+            }
+        }
+        return stars;
+    }
 
-                // The star's color index (0 by default)
-                float colorIndex = defaultCases(columns, CI);
+    /**
+     * Additional method.
+     * Returns the position following the end of the line containing the given position.
+     *
+     * @param bytes
+     *            The HYG database, encoded in ASCII
+     * @param position
+     *            The position
+     * @return the position following the new line character ending the line (or the end of the database)
+     */
+    private static int lineEnd(byte[] bytes, int position) {
+        int i = position;
+        while (i < bytes.length && bytes[i] != '\n') {
+            ++i;
+        }
+        return Math.min(i + 1, bytes.length);
+    }
 
-                builder.addStar(new Star(hipparcosId, name, equatorialCoordinates, magnitude, colorIndex));
+    /**
+     * Additional method.
+     * Returns the number of lines starting at or after the given position.
+     *
+     * @param bytes
+     *            The HYG database, encoded in ASCII
+     * @param position
+     *            The position of the beginning of the first line
+     * @return the number of lines starting at or after the position
+     */
+    private static int lineCount(byte[] bytes, int position) {
+        int count = 0;
+        for (int i = position; i < bytes.length; ++i) {
+            if (bytes[i] == '\n') {
+                ++count;
             }
         }
+        // The last line may not end with a new line character
+        return (position < bytes.length && bytes[bytes.length - 1] != '\n') ? count + 1 : count;
     }
 
     /**
      * Additional method.
-     * Returns the float value of the string at the given index of the given array.
+     * Returns the float value of the field selected by the given tokenizer.
      *
-     * @param columns The array of strings
-     * @param index The index of the string
-     * @return the float value of the string
+     * @param tokenizer
+     *            The tokenizer, whose selected field is read
+     * @return the float value of the field (0 if the field is empty)
      */
-    private static float defaultCases(String[] columns, int index) {
-        return columns[index].isEmpty() ? 0f : (float) Double.parseDouble(columns[index]);
+    private static float defaultCases(CsvTokenizer tokenizer) {
+        return tokenizer.isEmpty() ? 0f : (float) tokenizer.parseDouble();
     }
 }
@@ -0,0 +1,332 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Additional class.
+ * A loader of a HYG catalogue through a binary snapshot of it, which is memory-mapped and read without any text
+ * parsing.
+ *
+ * The snapshot stores the stars column by column (right ascensions, declinations, magnitudes, color indices,
+ * proper motions, Hipparcos numbers, codes of the Bayer designations and constellations, name offsets and name
+ * characters, the latter being only stored for the names which are not encoded), preceded by a header containing the checksum of the HYG
+ * catalogue it was produced from and the checksum of the snapshot itself. The HYG catalogue given to the loader stays
+ * the source of truth : a missing, stale or corrupted snapshot is (re)generated from it before being read, and the
+ * catalogue is parsed directly if the snapshot cannot be written or read (the snapshot being only a cache).
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class HygSnapshotLoader implements StarCatalogue.Loader {
+
+    private final Path snapshotPath;
+
+    // The identification of a snapshot file ("RGLS" in ASCII) and the version of its format
+    private static final int MAGIC = 0x52474C53, VERSION = 5;
+
+    // The size (in bytes) of the header : magic, version, checksum of the HYG catalogue, checksum of the snapshot,
+    // number of stars and number of name bytes. The checksum of the snapshot covers all the bytes following it
+    private static final int BODY_CHECKSUM_OFFSET = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int BODY_OFFSET = BODY_CHECKSUM_OFFSET + Long.BYTES;
+    private static final int HEADER_SIZE = BODY_OFFSET + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * Constructs a loader using the snapshot located at the given path.
+     *
+     * @param snapshotPath
+     *            The path of the snapshot (which does not need to exist yet)
+     * @throws NullPointerException
+     *             if the path is null
+     */
+    public HygSnapshotLoader(Path snapshotPath) {
+        this.snapshotPath = Objects.requireNonNull(snapshotPath);
+    }
+
+    /**
+     * Reads the whole HYG catalogue from the given input stream (to compute its checksum, over its decompressed content
+     * if it is compressed), regenerates the snapshot if it does not correspond to this catalogue and then loads the
+     * stars of the snapshot. If the snapshot cannot be written or read (e.g. if its directory is read-only), the stars
+     * are parsed from the HYG catalogue already read.
+     *
+     * @see StarCatalogue.Loader#load(InputStream, StarCatalogue.Builder)
+     */
+    @Override
+    public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        byte[] source; // The HYG catalogue, encoded in ASCII
+        try (InputStream decompressed = CompressedInput.decompressed(inputStream)) {
+            source = decompressed.readAllBytes();
+        }
+
+        long checksum = checksumOf(source);
+        try {
+            if (!isUpToDate(snapshotPath, checksum)) {
+                write(source, checksum, snapshotPath);
+            }
+
+            try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+                MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                readStars(snapshot, builder);
+            }
+            return;
+        } catch (IOException e) {
+            // The snapshot is only a cache : the stars are parsed from the HYG catalogue instead (readStars adding no
+            // star before the snapshot has been validated)
+        }
+
+        HygDatabaseLoader.INSTANCE.load(new ByteArrayInputStream(source), builder);
+    }
+
+    /**
+     * Converts the HYG catalogue read from the given input stream (compressed or not) into a snapshot written at the
+     * given path.
+     *
+     * @param inputStream
+     *            The input stream of the HYG catalogue
+     * @param snapshotPath
+     *            The path of the snapshot to write
+     * @throws IOException
+     *             in case of input/output error
+     */
+    public static void convert(InputStream inputStream, Path snapshotPath) throws IOException {
+        byte[] source;
+        try (InputStream decompressed = CompressedInput.decompressed(inputStream)) {
+            source = decompressed.readAllBytes();
+        }
+        write(source, checksumOf(source), snapshotPath);
+    }
+
+    /**
+     * Converts a HYG catalogue into a snapshot, from the command line.
+     *
+     * @param args
+     *            The path of the HYG catalogue, followed by the path of the snapshot
+     * @throws IOException
+     *             in case of input/output error
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: HygSnapshotLoader <hyg catalogue> <snapshot>");
+            System.exit(1);
+        }
+        try (InputStream inputStream = Files.newInputStream(Path.of(args[0]))) {
+            convert(inputStream, Path.of(args[1]));
+        }
+    }
+
+    /**
+     * Additional method.
+     * Returns the checksum of the given HYG catalogue.
+     *
+     * @param source
+     *            The HYG catalogue
+     * @return the checksum of the HYG catalogue
+     */
+    private static long checksumOf(byte[] source) {
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        return crc.getValue();
+    }
+
+    /**
+     * Additional method.
+     * Tells if the snapshot at the given path exists, has the current format, was produced from the HYG catalogue with
+     * the given checksum and is intact (i.e. the checksum of its content is the one of its header). The file is read
+     * without being mapped, so that it is never mapped before a possible replacement.
+     *
+     * @param snapshotPath
+     *            The path of the snapshot
+     * @param checksum
+     *            The checksum of the HYG catalogue
+     * @return true if the snapshot is up to date, false otherwise
+     * @throws IOException
+     *             in case of input/output error
+     */
+    private static boolean isUpToDate(Path snapshotPath, long checksum) throws IOException {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) ;
+            if (header.hasRemaining()) {
+                return false; // Truncated snapshot
+            }
+            header.flip();
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != checksum) {
+                return false;
+            }
+            long bodyChecksum = header.getLong();
+
+            // The checksum of the content following the checksum of the snapshot, read from the file
+            CRC32 crc = new CRC32();
+            crc.update(header.array(), BODY_OFFSET, HEADER_SIZE - BODY_OFFSET);
+            ByteBuffer block = ByteBuffer.allocate(1 << 16);
+            while (channel.read(block) >= 0) {
+                block.flip();
+                crc.update(block);
+                block.clear();
+            }
+            return crc.getValue() == bodyChecksum;
+        }
+    }
+
+    /**
+     * Additional method.
+     * Parses the given HYG catalogue and writes its snapshot at the given path. The snapshot is first written to a
+     * temporary file which then replaces the former one, so that a partially written snapshot is never read.
+     *
+     * @param source
+     *            The HYG catalogue
+     * @param checksum
+     *            The checksum of the HYG catalogue
+     * @param snapshotPath
+     *            The path of the snapshot
+     * @throws IOException
+     *             in case of input/output error
+     */
+    private static void write(byte[] source, long checksum, Path snapshotPath) throws IOException {
+        StarTable stars = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(source), HygDatabaseLoader.INSTANCE)
+                .build()
+                .starTable();
+        int count = stars.size();
+
+        // The names of the stars which are not encoded, stored one after the other (the encoded ones being empty)
+        byte[][] names = new byte[count][];
+        int nameBytes = 0;
+        for (int i = 0; i < count; ++i) {
+            names[i] = stars.hasEncodedName(i) ?
+                    new byte[0] :
+                    stars.name(i).getBytes(StandardCharsets.US_ASCII);
+            nameBytes += names[i].length;
+        }
+
+        int size = HEADER_SIZE
+                + count * (2 * Double.BYTES + 4 * Float.BYTES + Integer.BYTES + 2 * Byte.BYTES)
+                + (count + 1) * Integer.BYTES
+                + nameBytes;
+        ByteBuffer snapshot = ByteBuffer.allocate(size);
+
+        // The checksum of the snapshot is written once its content is known
+        snapshot.putInt(MAGIC).putInt(VERSION).putLong(checksum).putLong(0).putInt(count).putInt(nameBytes);
+        for (int i = 0; i < count; ++i) snapshot.putDouble(stars.ra(i));
+        for (int i = 0; i < count; ++i) snapshot.putDouble(stars.dec(i));
+        for (int i = 0; i < count; ++i) snapshot.putFloat((float) stars.magnitude(i));
+        for (int i = 0; i < count; ++i) snapshot.putFloat(stars.colorIndex(i));
+        for (int i = 0; i < count; ++i) snapshot.putFloat((float) stars.pmRa(i));
+        for (int i = 0; i < count; ++i) snapshot.putFloat((float) stars.pmDec(i));
+        for (int i = 0; i < count; ++i) snapshot.putInt(stars.hipparcosId(i));
+        for (int i = 0; i < count; ++i) snapshot.put((byte) stars.bayerCode(i));
+        for (int i = 0; i < count; ++i) snapshot.put((byte) stars.constellationCode(i));
+
+        int offset = 0;
+        for (byte[] name : names) {
+            snapshot.putInt(offset);
+            offset += name.length;
+        }
+        snapshot.putInt(offset);
+        for (byte[] name : names) snapshot.put(name);
+
+        CRC32 crc = new CRC32();
+        crc.update(snapshot.array(), BODY_OFFSET, size - BODY_OFFSET);
+        snapshot.putLong(BODY_CHECKSUM_OFFSET, crc.getValue());
+
+        Path directory = snapshotPath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, snapshotPath.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, snapshot.array());
+            Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Additional method.
+     * Adds the stars of the given (mapped) snapshot to the catalogue under construction.
+     *
+     * @param snapshot
+     *            The snapshot, positioned at its beginning
+     * @param builder
+     *            The builder of the catalogue of stars and asterisms
+     * @throws IOException
+     *             if the snapshot is malformed
+     */
+    private static void readStars(ByteBuffer snapshot, StarCatalogue.Builder builder) throws IOException {
+        if (snapshot.getInt() != MAGIC || snapshot.getInt() != VERSION) {
+            throw new IOException("Invalid star catalogue snapshot");
+        }
+        snapshot.getLong(); // The checksums have already been verified
+        snapshot.getLong();
+        int count = snapshot.getInt();
+        int nameBytes = snapshot.getInt();
+
+        // The offsets (in bytes) of the columns in the snapshot
+        int raOffset = HEADER_SIZE;
+        int decOffset = raOffset + count * Double.BYTES;
+        int magOffset = decOffset + count * Double.BYTES;
+        int ciOffset = magOffset + count * Float.BYTES;
+        int pmRaOffset = ciOffset + count * Float.BYTES;
+        int pmDecOffset = pmRaOffset + count * Float.BYTES;
+        int hipOffset = pmDecOffset + count * Float.BYTES;
+        int bayerOffset = hipOffset + count * Integer.BYTES;
+        int constellationOffset = bayerOffset + count * Byte.BYTES;
+        int nameOffsetsOffset = constellationOffset + count * Byte.BYTES;
+        int namesOffset = nameOffsetsOffset + (count + 1) * Integer.BYTES;
+
+        if (snapshot.limit() != namesOffset + nameBytes) {
+            throw new IOException("Truncated star catalogue snapshot");
+        }
+
+        // The columns of the catalogue under construction are reserved for all the stars when none can be rejected
+        if (builder.starFilter() == StarFilter.ALL) {
+            builder.starTable().ensureCapacity(builder.starTable().size() + count);
+        }
+
+        // The characters of all the names, copied at once
+        byte[] names = new byte[nameBytes];
+        snapshot.position(namesOffset);
+        snapshot.get(names);
+
+        for (int i = 0; i < count; ++i) {
+            double raRad = snapshot.getDouble(raOffset + i * Double.BYTES);
+            double decRad = snapshot.getDouble(decOffset + i * Double.BYTES);
+            float magnitude = snapshot.getFloat(magOffset + i * Float.BYTES);
+            float colorIndex = snapshot.getFloat(ciOffset + i * Float.BYTES);
+            float pmRa = snapshot.getFloat(pmRaOffset + i * Float.BYTES);
+            float pmDec = snapshot.getFloat(pmDecOffset + i * Float.BYTES);
+            int hipparcosId = snapshot.getInt(hipOffset + i * Integer.BYTES);
+
+            // An encoded name is added as its codes, its string being only built when it is first asked for
+            int constellationCode = snapshot.get(constellationOffset + i);
+            int bayerCode = Byte.toUnsignedInt(snapshot.get(bayerOffset + i));
+            if (bayerCode != StarNames.GIVEN_NAME) {
+                builder.starTable().add(hipparcosId, bayerCode, constellationCode, raRad, decRad, magnitude, colorIndex,
+                        pmRa, pmDec);
+                continue;
+            }
+
+            int nameStart = snapshot.getInt(nameOffsetsOffset + i * Integer.BYTES);
+            int nameEnd = snapshot.getInt(nameOffsetsOffset + (i + 1) * Integer.BYTES);
+            String name = new String(names, nameStart, nameEnd - nameStart, StandardCharsets.US_ASCII);
+
+            builder.starTable().add(hipparcosId, name, constellationCode, raRad, decRad, magnitude, colorIndex, pmRa,
+                    pmDec);
+        }
+    }
+}
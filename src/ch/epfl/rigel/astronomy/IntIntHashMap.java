@@ -0,0 +1,124 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Arrays;
+
+/**
+ * Additional class.
+ * A map from integers to non-negative integers, stored in two arrays with open addressing (linear probing), so that
+ * neither the keys nor the values are boxed.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+final class IntIntHashMap {
+
+    private int[] keys;
+    private int[] values; // The values, NO_VALUE marking an empty slot
+    private int size;
+
+    static final int NO_VALUE = -1;
+
+    // The maximum ratio between the number of entries and the number of slots
+    private static final double MAX_LOAD_FACTOR = 0.5;
+
+    /**
+     * Constructs an empty map, able to contain the given number of entries without growing.
+     *
+     * @param expectedSize
+     *            The expected number of entries
+     */
+    IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / MAX_LOAD_FACTOR)) * 2 - 1);
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+    }
+
+    /**
+     * Associates the given value to the given key, replacing the former value (if any).
+     *
+     * @param key
+     *            The key
+     * @param value
+     *            The value (non-negative)
+     */
+    void put(int key, int value) {
+        int slot = slotOf(key);
+        if (values[slot] == NO_VALUE) {
+            if (size + 1 > MAX_LOAD_FACTOR * keys.length) {
+                grow();
+                slot = slotOf(key);
+            }
+            ++size;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Returns the value associated to the given key.
+     *
+     * @param key
+     *            The key
+     * @return the value associated to the key, or NO_VALUE if there is none
+     */
+    int get(int key) {
+        return values[slotOf(key)];
+    }
+
+    /**
+     * Returns the number of entries of the map.
+     * @return the number of entries of the map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Additional method.
+     * Returns the slot containing the given key, or the empty slot where it would be inserted.
+     *
+     * @param key
+     *            The key
+     * @return the slot of the key
+     */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != NO_VALUE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Additional method.
+     * Doubles the number of slots, inserting again the entries.
+     */
+    private void grow() {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[2 * oldKeys.length];
+        values = new int[2 * oldValues.length];
+        Arrays.fill(values, NO_VALUE);
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldValues[i] != NO_VALUE) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Additional method.
+     * Scrambles the bits of the given key, so that consecutive keys are spread over the slots.
+     *
+     * @param key
+     *            The key
+     * @return the scrambled key
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
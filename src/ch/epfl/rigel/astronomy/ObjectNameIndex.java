@@ -0,0 +1,616 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.text.Normalizer;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Additional class.
+ * An index of the names of the celestial objects of the sky : the Sun, the Moon, the planets (except the Earth), the
+ * stars of a catalogue (by their proper name, their Bayer designation followed by their constellation, and their
+ * Hipparcos identification number) and the satellites of a catalogue.
+ *
+ * The names are normalized (in lower case, without accents nor punctuation) and stored in a sorted array, along with
+ * the suffixes starting at each of their words (so that e.g. "ori" finds "Alp Ori"). The names starting with a query
+ * are thus found by a binary search, followed by a scan of the contiguous keys sharing the query as prefix. The
+ * Hipparcos numbers are stored in a sorted array of integers, the numbers starting with given digits being the
+ * contiguous ranges of the decimal intervals of each length. When the prefix search finds too few names, the names
+ * whose prefix is within a small edit distance of the query (e.g. misspelled names) are looked for as well.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class ObjectNameIndex {
+
+    // The minimum length of the queries for which misspelled names are looked for
+    private static final int MIN_FUZZY_QUERY_LENGTH = 3;
+
+    // The maximum length of the queries for which only one misspelling is tolerated
+    private static final int MAX_ONE_EDIT_QUERY_LENGTH = 5;
+
+    // The prefix of the queries of Hipparcos numbers, once normalized
+    private static final String HIP_PREFIX = "hip";
+
+    // The names of the Sun and of the Moon, as given by their classes
+    private static final String SUN_NAME = "Soleil", MOON_NAME = "Lune";
+
+    // The extraterrestrial planets, in the order of the observed sky, whose positions in this list are the indices of
+    // their matches
+    private static final List<PlanetModel> PLANETS = PlanetModel.ALL
+            .stream()
+            .filter(m -> m != PlanetModel.EARTH)
+            .collect(Collectors.toUnmodifiableList());
+
+    private final StarCatalogue catalogue;
+    private final SatelliteTable satellites;
+
+    // The objects, i.e. their displayed names, kinds and indices (in the list of their kind)
+    private final String[] names;
+    private final Kind[] kinds;
+    private final int[] indices;
+
+    // The sorted normalized keys, the objects they refer to, and whether they are whole names or word suffixes
+    private final String[] keys;
+    private final int[] keyObjects;
+    private final boolean[] wholeKeys;
+
+    // The sorted Hipparcos numbers and the indices of their stars
+    private final int[] hipparcosIds, hipparcosStars;
+
+    /**
+     * Additional enum.
+     * The kinds of the indexed objects.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    public enum Kind {
+        SUN, MOON, PLANET, STAR, SATELLITE
+    }
+
+    /**
+     * Additional class.
+     * An object whose name matches a query.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    public static final class Match {
+
+        private final String name;
+        private final Kind kind;
+        private final int index;
+        private final int distance;
+
+        /**
+         * Constructs a match.
+         *
+         * @param name
+         *            The displayed name of the object
+         * @param kind
+         *            The kind of the object
+         * @param index
+         *            The index of the object in the list of its kind
+         * @param distance
+         *            The edit distance between the query and the name (0 for the names starting with the query)
+         */
+        private Match(String name, Kind kind, int index, int distance) {
+            this.name = name;
+            this.kind = kind;
+            this.index = index;
+            this.distance = distance;
+        }
+
+        /**
+         * Returns the displayed name of the object.
+         * @return the displayed name of the object
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the kind of the object.
+         * @return the kind of the object
+         */
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * Returns the index of the object : its row in the table of the stars or of the satellites, or its position
+         * in the list of the extraterrestrial planets (0 for the Sun and the Moon).
+         * @return the index of the object
+         */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * Returns the edit distance between the query and the beginning of the name (0 for the exact prefixes).
+         * @return the edit distance between the query and the name
+         */
+        public int distance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Constructs the index of the names of the Sun, the Moon, the planets and the objects of the given catalogues.
+     *
+     * @param catalogue
+     *            The catalogue of the stars
+     * @param satCatalogue
+     *            The catalogue of the satellites
+     */
+    public ObjectNameIndex(StarCatalogue catalogue, SatelliteCatalogue satCatalogue) {
+        this.catalogue = catalogue;
+        this.satellites = satCatalogue.satelliteTable();
+        StarTable stars = catalogue.starTable();
+
+        // The named objects, in the order of their kinds
+        List<String> objectNames = new ArrayList<>();
+        List<Kind> objectKinds = new ArrayList<>();
+        List<Integer> objectIndices = new ArrayList<>();
+
+        objectNames.add(SUN_NAME);
+        objectKinds.add(Kind.SUN);
+        objectIndices.add(0);
+        objectNames.add(MOON_NAME);
+        objectKinds.add(Kind.MOON);
+        objectIndices.add(0);
+        for (int i = 0; i < PLANETS.size(); ++i) {
+            objectNames.add(PLANETS.get(i).frenchName());
+            objectKinds.add(Kind.PLANET);
+            objectIndices.add(i);
+        }
+
+        // The stars without a proper name nor a Bayer designation (named "? Con") are only found by their number
+        // The names built from codes are not kept by the table, so as not to fill its cache of names
+        // The Bayer designations with a suffix are also found without it (e.g. "Alp-2 Cen" by "Alp Cen")
+        List<String> aliases = new ArrayList<>();
+        List<Integer> aliasObjects = new ArrayList<>();
+        int hipparcosCount = 0;
+        for (int i = 0; i < stars.size(); ++i) {
+            if (stars.hipparcosId(i) != 0) {
+                ++hipparcosCount;
+            }
+
+            int constellation = stars.constellationCode(i);
+            String name;
+            if (!stars.hasEncodedName(i)) {
+                name = stars.name(i);
+            } else if (stars.bayerCode(i) != StarNames.NO_BAYER) {
+                int bayer = stars.bayerCode(i);
+                name = StarNames.name(bayer, constellation);
+                if (bayer % 10 != 0) {
+                    aliases.add(StarNames.name(bayer - bayer % 10, constellation));
+                    aliasObjects.add(objectNames.size());
+                }
+            } else {
+                continue;
+            }
+            if (!name.startsWith("?")) {
+                objectNames.add(name);
+                objectKinds.add(Kind.STAR);
+                objectIndices.add(i);
+            }
+        }
+
+        for (int i = 0; i < satellites.size(); ++i) {
+            objectNames.add(satellites.name(i));
+            objectKinds.add(Kind.SATELLITE);
+            objectIndices.add(i);
+        }
+
+        names = objectNames.toArray(new String[0]);
+        kinds = objectKinds.toArray(new Kind[0]);
+        indices = objectIndices.stream().mapToInt(Integer::intValue).toArray();
+
+        // The keys of each object : its normalized name (and aliases) and the suffixes starting at each of the other
+        // words of its name
+        List<String> objectKeys = new ArrayList<>();
+        List<Integer> keyObjectList = new ArrayList<>();
+        for (int a = 0; a < aliases.size(); ++a) {
+            objectKeys.add(normalized(aliases.get(a)));
+            keyObjectList.add(aliasObjects.get(a));
+        }
+        for (int o = 0; o < names.length; ++o) {
+            String key = normalized(names[o]);
+            if (key.isEmpty()) {
+                continue;
+            }
+            objectKeys.add(key);
+            keyObjectList.add(o);
+            for (int c = key.indexOf(' '); c >= 0; c = key.indexOf(' ', c + 1)) {
+                objectKeys.add(key.substring(c + 1));
+                keyObjectList.add(-o - 1); // Negative for the word suffixes
+            }
+        }
+
+        Integer[] order = new Integer[objectKeys.size()];
+        for (int k = 0; k < order.length; ++k) {
+            order[k] = k;
+        }
+        Arrays.sort(order, Comparator.comparing(objectKeys::get));
+
+        keys = new String[order.length];
+        keyObjects = new int[order.length];
+        wholeKeys = new boolean[order.length];
+        for (int k = 0; k < order.length; ++k) {
+            keys[k] = objectKeys.get(order[k]);
+            int object = keyObjectList.get(order[k]);
+            wholeKeys[k] = object >= 0;
+            keyObjects[k] = object >= 0 ? object : -object - 1;
+        }
+
+        // The Hipparcos numbers, sorted along with the indices of their stars (packed in longs to be sorted together)
+        long[] packed = new long[hipparcosCount];
+        for (int i = 0, k = 0; i < stars.size(); ++i) {
+            if (stars.hipparcosId(i) != 0) {
+                packed[k++] = ((long) stars.hipparcosId(i) << 32) | i;
+            }
+        }
+        Arrays.sort(packed);
+        hipparcosIds = new int[hipparcosCount];
+        hipparcosStars = new int[hipparcosCount];
+        for (int k = 0; k < hipparcosCount; ++k) {
+            hipparcosIds[k] = (int) (packed[k] >>> 32);
+            hipparcosStars[k] = (int) packed[k];
+        }
+    }
+
+    /**
+     * Returns the number of names (including the Hipparcos numbers) of this index.
+     * @return the number of names of this index
+     */
+    public int size() {
+        return names.length + hipparcosIds.length;
+    }
+
+    /**
+     * Returns the objects whose name starts with the given query (ignoring the case, the accents and the
+     * punctuation), the whole names coming before the names of which only a word matches. For a query made of digits
+     * (optionally preceded by "HIP"), the stars whose Hipparcos number starts with these digits come first. When
+     * fewer objects are found than asked for, the objects whose name starts with a close misspelling of the query are
+     * added, by increasing edit distance.
+     *
+     * @param query
+     *            The beginning of the name
+     * @param maxResults
+     *            The maximum number of objects returned
+     * @throws IllegalArgumentException
+     *             if the maximum number of objects is negative
+     * @return the objects whose name matches the query, at most maxResults of them
+     */
+    public List<Match> search(String query, int maxResults) {
+        Preconditions.checkArgument(maxResults >= 0);
+        String key = normalized(query);
+        if (key.isEmpty() || maxResults == 0) {
+            return List.of();
+        }
+
+        // The mask of the objects already found, so that an object matching by several keys appears only once
+        List<Match> matches = new ArrayList<>(Math.min(maxResults, 16));
+        BitSet found = new BitSet();
+        boolean number = hipparcosMatches(key, maxResults, matches);
+
+        // The keys starting with the query form the contiguous range following the first key not less than it
+        int first = lowerBound(key);
+        int end = first;
+        while (end < keys.length && keys[end].startsWith(key)) {
+            ++end;
+        }
+        prefixMatches(first, end, true, maxResults, found, matches);
+        prefixMatches(first, end, false, maxResults, found, matches);
+
+        // The numbers are not misspelled
+        if (matches.size() < maxResults && key.length() >= MIN_FUZZY_QUERY_LENGTH && !number) {
+            fuzzyMatches(key, maxResults, found, matches);
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Returns the equatorial position of the given matched object at the given epoch (the stars being moved by their
+     * proper motions to the year of the epoch).
+     *
+     * @param match
+     *            The matched object, found by this index
+     * @param when
+     *            The epoch
+     * @return the equatorial position of the object at the given epoch
+     */
+    public EquatorialCoordinates equatorialPos(Match match, ZonedDateTime when) {
+        double daysSinceJ2010 = Epoch.J2010.daysUntil(when);
+        switch (match.kind()) {
+            case SUN:
+                return SunModel.SUN.at(daysSinceJ2010, new EclipticToEquatorialConversion(when)).equatorialPos();
+            case MOON:
+                return MoonModel.MOON.at(daysSinceJ2010, new EclipticToEquatorialConversion(when)).equatorialPos();
+            case PLANET:
+                return PLANETS.get(match.index())
+                        .at(daysSinceJ2010, new EclipticToEquatorialConversion(when))
+                        .equatorialPos();
+            case STAR:
+                StarPositions positions = catalogue.positionsAt(when.getYear());
+                return EquatorialCoordinates.of(positions.ra(match.index()), positions.dec(match.index()));
+            default:
+                // The satellites are placed as in the observed sky
+                return EquatorialCoordinates.of(satellites.lon(match.index()), 0);
+        }
+    }
+
+    /**
+     * Returns the normalized form of the given name : in lower case, without accents, and whose other characters
+     * than the letters and the digits are replaced by single spaces (without leading nor trailing spaces).
+     *
+     * @param name
+     *            The name
+     * @return the normalized name
+     */
+    static String normalized(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean space = false;
+        for (int c = 0; c < decomposed.length(); ++c) {
+            char ch = decomposed.charAt(c);
+            if (Character.isLetterOrDigit(ch)) {
+                if (space && builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(Character.toLowerCase(ch));
+                space = false;
+            } else if (Character.getType(ch) != Character.NON_SPACING_MARK) {
+                space = true;
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Adds the stars whose Hipparcos number starts with the digits of the given query to the matches, by increasing
+     * number of digits and then by increasing number.
+     *
+     * @param key
+     *            The normalized query
+     * @param maxResults
+     *            The maximum number of matches
+     * @param matches
+     *            The matches
+     * @return true if the query is a Hipparcos number, false otherwise
+     */
+    private boolean hipparcosMatches(String key, int maxResults, List<Match> matches) {
+        String digits = key.startsWith(HIP_PREFIX) ? key.substring(HIP_PREFIX.length()).trim() : key;
+        if (digits.isEmpty() || digits.length() > 9 || digits.charAt(0) == '0') {
+            return false;
+        }
+        for (int c = 0; c < digits.length(); ++c) {
+            if (digits.charAt(c) < '0' || digits.charAt(c) > '9') {
+                return false;
+            }
+        }
+
+        // The numbers starting with the digits are those of the intervals [d, d + 1), [10d, 10d + 10), ...
+        long low = Long.parseLong(digits), high = low + 1;
+        while (low <= Integer.MAX_VALUE && matches.size() < maxResults) {
+            for (int k = lowerBound(hipparcosIds, (int) low); k < hipparcosIds.length && hipparcosIds[k] < high
+                    && matches.size() < maxResults; ++k) {
+                int star = hipparcosStars[k];
+                String name = "HIP " + hipparcosIds[k] + " (" + catalogue.starTable().name(star) + ")";
+                matches.add(new Match(name, Kind.STAR, star, 0));
+            }
+            low *= 10;
+            high *= 10;
+        }
+        return true;
+    }
+
+    /**
+     * Adds the objects of the keys of the given range which are either whole names or word suffixes to the matches.
+     *
+     * @param first
+     *            The first key of the range (inclusive)
+     * @param end
+     *            The last key of the range (exclusive)
+     * @param whole
+     *            Whether the whole names or the word suffixes are added
+     * @param maxResults
+     *            The maximum number of matches
+     * @param found
+     *            The objects already found
+     * @param matches
+     *            The matches
+     */
+    private void prefixMatches(int first, int end, boolean whole, int maxResults, BitSet found, List<Match> matches) {
+        for (int k = first; k < end && matches.size() < maxResults; ++k) {
+            if (wholeKeys[k] == whole) {
+                addMatch(keyObjects[k], 0, found, matches);
+            }
+        }
+    }
+
+    /**
+     * Adds the objects whose keys have a prefix close to the given query to the matches, by increasing edit distance
+     * (and then in the order of their keys).
+     *
+     * The edit distance (Levenshtein distance) between the query and the closest prefix of each key is computed row
+     * by row, one row per character of the key. The keys being sorted, the rows of the prefix a key shares with the
+     * previous one are reused, as when walking down a trie, and the rows of the keys sharing a prefix already too far
+     * from the query are not computed (their closest prefix being one of this shared prefix).
+     *
+     * @param key
+     *            The normalized query
+     * @param maxResults
+     *            The maximum number of matches
+     * @param found
+     *            The objects already found
+     * @param matches
+     *            The matches
+     */
+    private void fuzzyMatches(String key, int maxResults, BitSet found, List<Match> matches) {
+        int maxDistance = key.length() <= MAX_ONE_EDIT_QUERY_LENGTH ? 1 : 2;
+        int length = key.length();
+
+        // Only the prefixes at most maxDistance characters longer than the query can be close enough to it
+        int maxDepth = length + maxDistance;
+
+        // The rows of the distances between the prefixes of the query and the prefix of the current path (one row
+        // per character), and the smallest distance between the whole query and the prefixes of the path
+        int[][] rows = new int[maxDepth + 1][length + 1];
+        int[] closest = new int[maxDepth + 1];
+        for (int i = 0; i <= length; ++i) {
+            rows[0][i] = i;
+        }
+        closest[0] = length;
+
+        // The keys close to the query, bucketed by distance
+        List<List<Integer>> close = new ArrayList<>();
+        for (int d = 0; d <= maxDistance; ++d) {
+            close.add(new ArrayList<>());
+        }
+
+        String path = ""; // The last key whose rows have been computed
+        int depth = 0; // The number of rows computed for the path
+        int deadDepth = Integer.MAX_VALUE; // The length of the prefix of the path too far from the query
+        for (int k = 0; k < keys.length; ++k) {
+            String current = keys[k];
+            int common = commonPrefixLength(path, current, Math.min(depth, deadDepth));
+            if (common >= deadDepth) {
+                // The key shares the prefix too far from the query, whose closest prefix is thus one of this prefix
+                if (closest[deadDepth] <= maxDistance && !found.get(keyObjects[k])) {
+                    close.get(closest[deadDepth]).add(k);
+                }
+                continue;
+            }
+
+            deadDepth = Integer.MAX_VALUE;
+            depth = common;
+            int end = Math.min(current.length(), maxDepth);
+            while (depth < end) {
+                int[] previous = rows[depth], row = rows[++depth];
+                char c = current.charAt(depth - 1);
+                row[0] = depth;
+                int rowMin = depth;
+                for (int i = 1; i <= length; ++i) {
+                    int substitution = previous[i - 1] + (key.charAt(i - 1) == c ? 0 : 1);
+                    row[i] = Math.min(substitution, Math.min(previous[i], row[i - 1]) + 1);
+                    rowMin = Math.min(rowMin, row[i]);
+                }
+                closest[depth] = Math.min(closest[depth - 1], row[length]);
+
+                // The distances never decrease from one row to the next one
+                if (rowMin > maxDistance) {
+                    deadDepth = depth;
+                    break;
+                }
+            }
+            path = current;
+
+            int distance = closest[depth];
+            if (distance <= maxDistance && !found.get(keyObjects[k])) {
+                close.get(distance).add(k);
+            }
+        }
+
+        for (int d = 1; d <= maxDistance; ++d) {
+            for (int k : close.get(d)) {
+                if (matches.size() == maxResults) {
+                    return;
+                }
+                addMatch(keyObjects[k], d, found, matches);
+            }
+        }
+    }
+
+    /**
+     * Adds the given object to the matches unless it has already been found.
+     *
+     * @param object
+     *            The object
+     * @param distance
+     *            The edit distance between the query and its name
+     * @param found
+     *            The objects already found
+     * @param matches
+     *            The matches
+     */
+    private void addMatch(int object, int distance, BitSet found, List<Match> matches) {
+        if (!found.get(object)) {
+            found.set(object);
+            matches.add(new Match(names[object], kinds[object], indices[object], distance));
+        }
+    }
+
+    /**
+     * Returns the length of the common prefix of the given strings, up to the given maximum.
+     *
+     * @param s1
+     *            The first string
+     * @param s2
+     *            The second string
+     * @param max
+     *            The maximum length of interest
+     * @return the length of the common prefix of the strings, at most max
+     */
+    private static int commonPrefixLength(String s1, String s2, int max) {
+        int bound = Math.min(max, Math.min(s1.length(), s2.length()));
+        int length = 0;
+        while (length < bound && s1.charAt(length) == s2.charAt(length)) {
+            ++length;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the position of the first key not less than the given one.
+     *
+     * @param key
+     *            The key
+     * @return the position of the first key not less than the given one
+     */
+    private int lowerBound(String key) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position of the first value of the given sorted array not less than the given one.
+     *
+     * @param values
+     *            The sorted values
+     * @param value
+     *            The value
+     * @return the position of the first value not less than the given one
+     */
+    private static int lowerBound(int[] values, int value) {
+        int low = 0, high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
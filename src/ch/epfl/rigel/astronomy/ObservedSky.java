@@ -2,6 +2,7 @@ package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.coordinates.*;
 
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -25,8 +26,24 @@ public final class ObservedSky {
     // The projected positions on the plane of all of the celestial objects in the observed sky
     private final CartesianCoordinates sunPosition, moonPosition;
     private final double[] planetPositions, starPositions, satellitePositions;
+
+    // The limiting magnitude of the visible stars, and the number of the first stars of the catalogue which may be
+    // visible (i.e. all of them, unless the catalogue is ordered by magnitude)
+    private final double limitingMagnitude;
+    private final int visibleStarCount;
+
+    // The angular radius (in radians) of the cap of the sky around the center of the projection out of which the
+    // stars are not projected
+    private final double viewRadius;
+
+    // The projected positions on the plane of the celestial objects other than the stars and the satellites, whose
+    // positions are only stored in their arrays so that they do not have to be materialized
     private final Map<CelestialObject, CartesianCoordinates> positions;
 
+    // The coefficients of the affine transform applied to the projected positions (scale factors and translations)
+    // by the bulk conversion, i.e. the identity, the positions being expressed on the plane
+    private static final double PLANE_SCALE = 1, PLANE_TRANSLATION = 0;
+
     /**
      * Constructs a representation of the sky at a given epoch and place of observation.
      *
@@ -43,8 +60,66 @@ public final class ObservedSky {
      */
     public ObservedSky(ZonedDateTime when, GeographicCoordinates where, StereographicProjection projection,
                        StarCatalogue catalogue, SatelliteCatalogue satCatalogue) {
+        this(when, where, projection, catalogue, satCatalogue, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Additional constructor.
+     * Constructs a representation of the sky at a given epoch and place of observation, whose visible stars are the
+     * ones at most as faint as the given limiting magnitude. Only the visible stars and the stars of the asterisms are
+     * projected on the plane, the positions of the other stars being NaN.
+     * When the catalogue is ordered by magnitude, only its first stars are considered.
+     *
+     * @param when
+     *            The epoch of observation, in the UTC time-zone
+     * @param where
+     *            The place of observation
+     * @param projection
+     *            The stereographic projection of the celestial objects
+     * @param catalogue
+     *            The catalogue of the observed stars
+     * @param satCatalogue
+     *            The catalogue of the observed satellites
+     * @param limitingMagnitude
+     *            The magnitude of the faintest visible stars
+     */
+    public ObservedSky(ZonedDateTime when, GeographicCoordinates where, StereographicProjection projection,
+                       StarCatalogue catalogue, SatelliteCatalogue satCatalogue, double limitingMagnitude) {
+        this(when, where, projection, catalogue, satCatalogue, limitingMagnitude, Math.PI);
+    }
+
+    /**
+     * Additional constructor.
+     * Constructs a representation of the sky at a given epoch and place of observation, whose visible stars are the
+     * ones at most as faint as the given limiting magnitude and within the given angular distance from the center of
+     * the projection. Only the visible stars and the stars of the asterisms are projected on the plane, the positions
+     * of the other stars being NaN. The stars far from the center are discarded using the spatial index of the
+     * catalogue, without being examined one by one.
+     *
+     * @param when
+     *            The epoch of observation, in the UTC time-zone
+     * @param where
+     *            The place of observation
+     * @param projection
+     *            The stereographic projection of the celestial objects
+     * @param catalogue
+     *            The catalogue of the observed stars
+     * @param satCatalogue
+     *            The catalogue of the observed satellites
+     * @param limitingMagnitude
+     *            The magnitude of the faintest visible stars
+     * @param viewRadius
+     *            The angular radius (in radians) of the visible cap of the sky, around the center of the projection
+     *            (PI for the whole sky)
+     */
+    public ObservedSky(ZonedDateTime when, GeographicCoordinates where, StereographicProjection projection,
+                       StarCatalogue catalogue, SatelliteCatalogue satCatalogue, double limitingMagnitude,
+                       double viewRadius) {
         this.catalogue = catalogue;
         this.satCatalogue = satCatalogue;
+        this.limitingMagnitude = limitingMagnitude;
+        this.viewRadius = viewRadius;
+        this.visibleStarCount = catalogue.brighterStarCount(limitingMagnitude);
 
         // The number of days elapsed from the epoch J2010 to the epoch of the observation
         double daysSinceJ2010 = Epoch.J2010.daysUntil(when);
@@ -81,15 +156,53 @@ public final class ObservedSky {
         // Calculates the projected positions of the planets of the solar system on the plane and puts them in the map
         planetPositions = projectedPositions(planets, equToCart, allObjectsPositions);
 
-        // Calculates the projected positions of the stars of the catalogue on the plane and puts them in the map
-        starPositions = projectedPositions(stars(), equToCart, allObjectsPositions);
+        // Calculates the projected positions of the stars of the catalogue on the plane, from the columns of its table
+        // (the center of the visible cap being the center of the projection, expressed in equatorial coordinates)
+        EquatorialCoordinates viewCenter = viewCenter(when, where, projection);
+        starPositions = projectedPositions(catalogue, catalogue.positionsAt(when.getYear()), equToCart, viewCenter);
 
-        // Calculates the projected positions of the satellites of the catalogue on the plane and puts them in the map
-        satellitePositions = projectedPositions(satellites(), equToCart, allObjectsPositions);
+        // Calculates the projected positions of the satellites of the catalogue on the plane, from the columns of its
+        // table
+        satellitePositions = projectedPositions(satCatalogue.satelliteTable(), equToCart);
 
         positions = Map.copyOf(allObjectsPositions);
     }
 
+    /**
+     * Additional constructor.
+     * Constructs a representation of the sky at a given epoch and place of observation, whose stars are read from the
+     * tiles of the given tiled catalogue intersecting the visible cap, down to the given limiting magnitude. The cap
+     * is widened by the largest distance a star has moved since the epoch of the catalogue.
+     *
+     * @param when
+     *            The epoch of observation, in the UTC time-zone
+     * @param where
+     *            The place of observation
+     * @param projection
+     *            The stereographic projection of the celestial objects
+     * @param tiles
+     *            The tiled catalogue of the observed stars
+     * @param satCatalogue
+     *            The catalogue of the observed satellites
+     * @param limitingMagnitude
+     *            The magnitude of the faintest visible stars
+     * @param viewRadius
+     *            The angular radius (in radians) of the visible cap of the sky, around the center of the projection
+     *            (PI for the whole sky)
+     * @throws IOException
+     *             in case of input/output error while reading the tiles
+     */
+    public ObservedSky(ZonedDateTime when, GeographicCoordinates where, StereographicProjection projection,
+                       TiledStarCatalogue tiles, SatelliteCatalogue satCatalogue, double limitingMagnitude,
+                       double viewRadius) throws IOException {
+        this(when, where, projection,
+                tiles.catalogueFor(viewCenter(when, where, projection),
+                        viewRadius + tiles.maxProperMotion()
+                                * Math.abs(when.getYear() - StarPositions.CATALOGUE_EPOCH_YEAR),
+                        limitingMagnitude),
+                satCatalogue, limitingMagnitude, viewRadius);
+    }
+
     /**
      * Returns the Sun at the given epoch and place of observation.
      * @return the Sun at the given epoch and place of observation
@@ -146,6 +259,45 @@ public final class ObservedSky {
         return catalogue.stars();
     }
 
+    /**
+     * Additional method.
+     * Returns the table of the stars of the catalogue, whose indices are the ones of the positions of the stars.
+     * @return the table of the stars of the catalogue
+     */
+    public StarTable starTable() {
+        return catalogue.starTable();
+    }
+
+    /**
+     * Additional method.
+     * Returns the magnitude of the faintest visible stars.
+     * @return the limiting magnitude of the visible stars
+     */
+    public double limitingMagnitude() {
+        return limitingMagnitude;
+    }
+
+    /**
+     * Additional method.
+     * Returns the number of the first stars of the catalogue which may be visible, i.e. beyond which no star is visible.
+     * @return the number of the first stars of the catalogue which may be visible
+     */
+    public int visibleStarCount() {
+        return visibleStarCount;
+    }
+
+    /**
+     * Additional method.
+     * Tells if the star at the given index (in the catalogue) is visible.
+     *
+     * @param index
+     *            The index of the star
+     * @return true if the star is visible, false otherwise
+     */
+    public boolean isVisible(int index) {
+        return index < visibleStarCount && catalogue.starTable().magnitude(index) <= limitingMagnitude;
+    }
+
     /**
      * Returns the positions of the stars of the catalogue on the plane.
      * @return the positions of the stars of the catalogue on the plane.
@@ -154,6 +306,20 @@ public final class ObservedSky {
         return Arrays.copyOf(starPositions, 2 * stars().size());
     }
 
+    /**
+     * Additional method.
+     * Copies the positions of the stars of the catalogue on the plane into the given array (e.g. an array reused from
+     * one drawing to the next), the abscissa and the ordinate of each star being at consecutive indices.
+     *
+     * @param positions
+     *            The array the positions are copied into, at least twice as long as the number of stars
+     * @throws IndexOutOfBoundsException
+     *             if the array is shorter than twice the number of stars
+     */
+    public void copyStarPositionsTo(double[] positions) {
+        System.arraycopy(starPositions, 0, positions, 0, 2 * starTable().size());
+    }
+
     /**
      * Returns an immutable view on the set of the asterisms of the catalogue.
      * @return an immutable view on the set of the asterisms of the catalogue
@@ -175,6 +341,15 @@ public final class ObservedSky {
         return catalogue.asterismIndices(asterism);
     }
 
+    /**
+     * Additional method.
+     * Returns the indices (in the catalogue) of the stars of all the asterisms of the catalogue.
+     * @return the index of the asterisms of the catalogue
+     */
+    public AsterismIndex asterismIndex() {
+        return catalogue.asterismIndex();
+    }
+
     /**
      * Additional method.
      * Returns the list of the satellites of the catalogue.
@@ -190,7 +365,16 @@ public final class ObservedSky {
      * @return the positions of the satellites of the catalogue on the plane.
      */
     public double[] satellitePositions() {
-        return Arrays.copyOf(satellitePositions, 2 * satellites().size());
+        return Arrays.copyOf(satellitePositions, satellitePositions.length);
+    }
+
+    /**
+     * Additional method.
+     * Returns the table of the satellites of the catalogue, whose rows have the indices of the satellite positions.
+     * @return the table of the satellites of the catalogue
+     */
+    public SatelliteTable satelliteTable() {
+        return satCatalogue.satelliteTable();
     }
 
     /**
@@ -206,7 +390,49 @@ public final class ObservedSky {
         double minDistance = Double.MAX_VALUE; // The distance between the closest object and the search point
         CelestialObject closestObject = null; // The closest object to the search point
 
-        // Determines which of the celestial objects on the map is closest to the given point
+        // Determines which of the stars is closest to the given point, scanning their positions without materializing
+        // them
+        int closestStar = -1;
+        for (int i = 0; i < visibleStarCount; ++i) {
+            if (!isVisible(i)) {
+                continue;
+            }
+            double dx = starPositions[2 * i] - searchPoint.x();
+            double dy = starPositions[2 * i + 1] - searchPoint.y();
+
+            if (Math.abs(dx) <= maxDistance && Math.abs(dy) <= maxDistance) {
+                double distanceToStar = Math.hypot(dx, dy);
+
+                if (distanceToStar < minDistance) {
+                    minDistance = distanceToStar;
+                    closestStar = i;
+                }
+            }
+        }
+        if (closestStar >= 0) {
+            closestObject = catalogue.starTable().star(closestStar);
+        }
+
+        // Determines which of the satellites is closest to the given point, in the same way
+        int closestSatellite = -1;
+        for (int i = 0; i < satellitePositions.length / 2; ++i) {
+            double dx = satellitePositions[2 * i] - searchPoint.x();
+            double dy = satellitePositions[2 * i + 1] - searchPoint.y();
+
+            if (Math.abs(dx) <= maxDistance && Math.abs(dy) <= maxDistance) {
+                double distanceToSatellite = Math.hypot(dx, dy);
+
+                if (distanceToSatellite < minDistance) {
+                    minDistance = distanceToSatellite;
+                    closestSatellite = i;
+                }
+            }
+        }
+        if (closestSatellite >= 0) {
+            closestObject = satCatalogue.satelliteTable().satellite(closestSatellite);
+        }
+
+        // Determines which of the other celestial objects on the map is closest to the given point
         for (CelestialObject object : positions.keySet()) {
             CartesianCoordinates planePosition = positions.get(object);
 
@@ -229,29 +455,138 @@ public final class ObservedSky {
 
     /**
      * Additional method.
-     * Adds the Cartesian coordinates of the given list of celestial objects to the map of projected positions, using
-     * the given conversion.
+     * Returns the center of the projection, expressed in equatorial coordinates at the given epoch and place of
+     * observation.
+     *
+     * @param when
+     *            The epoch of observation
+     * @param where
+     *            The place of observation
+     * @param projection
+     *            The stereographic projection
+     * @return the equatorial coordinates of the center of the projection
+     */
+    private static EquatorialCoordinates viewCenter(ZonedDateTime when, GeographicCoordinates where,
+                                                    StereographicProjection projection) {
+        return new EquatorialToHorizontalConversion(when, where)
+                .inverseApply(projection.inverseApply(CartesianCoordinates.of(0, 0)));
+    }
+
+    /**
+     * Additional method.
+     * Returns the Cartesian coordinates of the visible stars within the visible cap and of the stars of the
+     * asterisms of the given catalogue, projected in bulk from the unit vectors of their positions by a rotation. The
+     * coordinates of the other stars are NaN.
+     *
+     * The spatial index of the catalogue grouping the stars by their positions at the epoch of the catalogue, the cap
+     * it is searched with is widened by the largest distance a star has moved since then.
+     * The visible stars of a large catalogue are projected in parallel, by chunks, with exactly the same coordinates.
+     *
+     * @param catalogue
+     *            The catalogue of the stars
+     * @param starPositions
+     *            The equatorial positions of the stars of the catalogue at the epoch of the observation
+     * @param equToCart
+     *            The conversion from equatorial to Cartesian coordinates
+     * @param viewCenter
+     *            The center of the visible cap
+     * @return the positions of the stars on the plane
+     */
+    private double[] projectedPositions(StarCatalogue catalogue, StarPositions starPositions,
+                                        EquatorialToCartesianConversion equToCart, EquatorialCoordinates viewCenter) {
+        StarTable table = catalogue.starTable();
+        double[] multiplePositions = new double[2 * table.size()];
+        Arrays.fill(multiplePositions, Double.NaN);
+
+        double maxDisplacement = table.maxProperMotion()
+                * Math.abs(starPositions.year() - StarPositions.CATALOGUE_EPOCH_YEAR);
+        double searchRadius = viewRadius + maxDisplacement;
+
+        // The indices of the visible stars, among all the stars which may be visible or only among the stars of the
+        // cells of the spatial index intersecting the (widened) visible cap. The candidates are filtered in place
+        int[] indices = (searchRadius >= Math.PI) ?
+                new int[visibleStarCount] :
+                catalogue.spatialIndex().starsInCap(viewCenter, searchRadius);
+        int count = 0;
+        if (searchRadius >= Math.PI) {
+            for (int i = 0; i < visibleStarCount; ++i) {
+                if (isVisible(i)) {
+                    indices[count++] = i;
+                }
+            }
+        } else {
+            for (int i : indices) {
+                if (isVisible(i)) {
+                    indices[count++] = i;
+                }
+            }
+        }
+        equToCart.applyToAllUnitVectors(starPositions.unitVectorColumn(), indices, count, multiplePositions,
+                PLANE_SCALE, PLANE_SCALE, PLANE_TRANSLATION, PLANE_TRANSLATION);
+
+        // The stars of the asterisms are projected even if they are not visible, so that the asterisms are complete
+        AsterismIndex asterismIndex = catalogue.asterismIndex();
+        int[] asterismStars = new int[asterismIndex.distinctStarCount()];
+        count = 0;
+        for (int k = 0; k < asterismIndex.distinctStarCount(); ++k) {
+            int i = asterismIndex.distinctStarIndex(k);
+            if (Double.isNaN(multiplePositions[2 * i])) {
+                asterismStars[count++] = i;
+            }
+        }
+        equToCart.applyToAllUnitVectors(starPositions.unitVectorColumn(), asterismStars, count, multiplePositions,
+                PLANE_SCALE, PLANE_SCALE, PLANE_TRANSLATION, PLANE_TRANSLATION);
+
+        return multiplePositions;
+    }
+
+    /**
+     * Additional method.
+     * Returns the Cartesian coordinates of the satellites of the given table, converted in bulk from the column of
+     * their longitudes. A satellite in geosynchronous orbit is at the equatorial position of right ascension its
+     * longitude and of declination 0.
+     *
+     * @param table
+     *            The table of the satellites
+     * @param equToCart
+     *            The conversion from equatorial to Cartesian coordinates
+     * @return the positions of the satellites on the plane
+     */
+    private static double[] projectedPositions(SatelliteTable table, EquatorialToCartesianConversion equToCart) {
+        double[] multiplePositions = new double[2 * table.size()];
+        equToCart.applyToAll(table.lonColumn(), new double[table.size()], 0, table.size(), multiplePositions,
+                PLANE_SCALE, PLANE_SCALE, PLANE_TRANSLATION, PLANE_TRANSLATION);
+        return multiplePositions;
+    }
+
+    /**
+     * Additional method.
+     * Returns the Cartesian coordinates of the given list of celestial objects, converted in bulk, and adds them to
+     * the map of projected positions.
      *
      * @param list
      *            The list of celestial objects
      * @param equToCart
-     *            The conversion from equatorial to Cartesian coordinates of one celestial object
+     *            The conversion from equatorial to Cartesian coordinates
      * @param positions
      *            The map which associates to each Celestial object its position on the plane
+     * @return the positions of the celestial objects on the plane
      */
     private <T extends CelestialObject> double[] projectedPositions(List<T> list, EquatorialToCartesianConversion equToCart,
                                                                     Map<CelestialObject, CartesianCoordinates> positions) {
         int size = list.size();
-        double[] multiplePositions = new double[2 * size];
-
+        double[] ra = new double[size], dec = new double[size];
         for (int i = 0; i < size; ++i) {
-            CelestialObject object = list.get(i);
+            ra[i] = list.get(i).equatorialPos().ra();
+            dec[i] = list.get(i).equatorialPos().dec();
+        }
 
-            CartesianCoordinates planePosition = equToCart.apply(object.equatorialPos());
-            positions.put(object, planePosition);
+        double[] multiplePositions = new double[2 * size];
+        equToCart.applyToAll(ra, dec, 0, size, multiplePositions,
+                PLANE_SCALE, PLANE_SCALE, PLANE_TRANSLATION, PLANE_TRANSLATION);
 
-            multiplePositions[2 * i] = planePosition.x();
-            multiplePositions[2 * i + 1] = planePosition.y();
+        for (int i = 0; i < size; ++i) {
+            positions.put(list.get(i), CartesianCoordinates.of(multiplePositions[2 * i], multiplePositions[2 * i + 1]));
         }
         return multiplePositions;
     }
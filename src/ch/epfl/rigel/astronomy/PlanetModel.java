@@ -182,6 +182,15 @@ public enum PlanetModel implements CelestialObjectModel<Planet> {
         return axis;
     }
 
+    /**
+     * Additional method.
+     * Returns the French name of the planet.
+     * @return the French name of the planet
+     */
+    public String frenchName() {
+        return frenchName;
+    }
+
     /**
      * Returns the planet's true anomaly (in radians).
      *
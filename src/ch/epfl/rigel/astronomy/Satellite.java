@@ -14,6 +14,9 @@ public final class Satellite extends CelestialObject {
 
     private final String country, purpose;
 
+    // The information about this satellite, formatted at its first request
+    private String info;
+
     /**
      * Constructs a satellite with the given name, country, purpose, NORAD identification number and longitude of
      * geosynchronous orbit.
@@ -34,10 +37,36 @@ public final class Satellite extends CelestialObject {
     }
 
     /**
+     * Additional method.
+     * Returns the satellite's country of origin.
+     * @return the satellite's country of origin
+     */
+    public String country() {
+        return country;
+    }
+
+    /**
+     * Additional method.
+     * Returns the satellite's purpose.
+     * @return the satellite's purpose
+     */
+    public String purpose() {
+        return purpose;
+    }
+
+    /**
+     * The information is formatted once, at its first request (the satellite being immutable, concurrent requests can
+     * only format the same string).
+     *
      * @see CelestialObject#info()
      */
     @Override
     public String info() {
-        return String.format("%s (%s, %s)", name(), purpose, country);
+        String formatted = info;
+        if (formatted == null) {
+            formatted = String.format("%s (%s, %s)", name(), purpose, country);
+            info = formatted;
+        }
+        return formatted;
     }
 }
@@ -12,7 +12,8 @@ import java.util.*;
  */
 public final class SatelliteCatalogue {
 
-    private final List<Satellite> satellites;
+    private final SatelliteTable table;
+    private final List<Satellite> satellites; // The view on the satellites of the table
 
     /**
      * Constructs a catalogue composed of the given satellites.
@@ -21,17 +22,39 @@ public final class SatelliteCatalogue {
      *            The satellites of this catalogue
      */
     public SatelliteCatalogue(List<Satellite> satellites) {
-        this.satellites = List.copyOf(satellites);
+        this(SatelliteTable.of(List.copyOf(satellites)));
     }
 
     /**
-     * Returns the list of the satellites of the catalogue.
+     * Additional constructor.
+     * Constructs a catalogue composed of the satellites of the given table.
+     *
+     * @param table
+     *            The table of the satellites of this catalogue
+     */
+    SatelliteCatalogue(SatelliteTable table) {
+        this.table = table;
+        this.satellites = new SatelliteList(table);
+    }
+
+    /**
+     * Returns the list of the satellites of the catalogue, which are materialized when they are first accessed.
      * @return the list of the satellites of the catalogue
      */
     public List<Satellite> satellites() {
         return satellites;
     }
 
+    /**
+     * Additional method.
+     * Returns the table of the satellites of the catalogue, whose columns can be iterated over without materializing
+     * the satellites.
+     * @return the table of the satellites of the catalogue
+     */
+    public SatelliteTable satelliteTable() {
+        return table;
+    }
+
     /**
      * A builder of a catalogue of satellites.
      *
@@ -40,14 +63,14 @@ public final class SatelliteCatalogue {
      */
     public final static class Builder {
 
-        private final List<Satellite> satellites;
+        private final SatelliteTable.Builder table;
 
         /**
          * Default constructor.
          * Constructs a builder such that the catalogue under construction is initially empty.
          */
         public Builder() {
-            satellites = new ArrayList<>(); // Empty list of stars
+            table = new SatelliteTable.Builder(); // Empty table of satellites
         }
 
         /**
@@ -60,7 +83,31 @@ public final class SatelliteCatalogue {
          * @return the builder of the catalogue under construction
          */
         public Builder addSatellite(Satellite satellite) {
-            satellites.add(satellite);
+            table.add(satellite);
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Adds a satellite with the given characteristics to the catalogue under construction, without materializing
+         * it. Its country and purpose are stored in the dictionaries of the catalogue.
+         *
+         * @param name
+         *            The satellite's name
+         * @param country
+         *            The satellite's country of origin
+         * @param purpose
+         *            The satellite's purpose
+         * @param lonRad
+         *            The satellite's longitude of geosynchronous orbit (in radians)
+         * @throws IllegalArgumentException
+         *             if the longitude is not contained in [0,2*PI[
+         * @throws NullPointerException
+         *             if the name, the country and/or the purpose are null
+         * @return the builder of the catalogue under construction
+         */
+        public Builder addSatellite(String name, String country, String purpose, double lonRad) {
+            table.add(name, country, purpose, lonRad);
             return this;
         }
 
@@ -69,7 +116,17 @@ public final class SatelliteCatalogue {
          * @return an unmodifiable view on the satellites of the catalogue under construction
          */
         public List<Satellite> satellites() {
-            return Collections.unmodifiableList(satellites);
+            return new AbstractList<>() {
+                @Override
+                public Satellite get(int index) {
+                    return table.satellite(index);
+                }
+
+                @Override
+                public int size() {
+                    return table.size();
+                }
+            };
         }
 
         /**
@@ -94,7 +151,33 @@ public final class SatelliteCatalogue {
          * @return the built catalogue.
          */
         public SatelliteCatalogue build() {
-            return new SatelliteCatalogue(satellites);
+            return new SatelliteCatalogue(table.build());
+        }
+    }
+
+    /**
+     * Additional class.
+     * An immutable view on the satellites of a table, materialized when they are first accessed.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    private static final class SatelliteList extends AbstractList<Satellite> implements RandomAccess {
+
+        private final SatelliteTable table;
+
+        private SatelliteList(SatelliteTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public Satellite get(int index) {
+            return table.satellite(index);
+        }
+
+        @Override
+        public int size() {
+            return table.size();
         }
     }
 
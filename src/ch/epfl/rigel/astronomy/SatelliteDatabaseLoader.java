@@ -2,11 +2,8 @@ package ch.epfl.rigel.astronomy;
 
 import ch.epfl.rigel.math.Angle;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 
 /**
  * A loader of a satellite catalogue, containing only satellites with a geostationary orbit.
@@ -22,8 +19,9 @@ public enum SatelliteDatabaseLoader implements SatelliteCatalogue.Loader {
             NAME = 0, // The index of the satellite's name
             COUN = 1, // The index of the satellite's country of origin
             PURP = 5, // The index of the satellite's purpose
+            ORB = 7, // The index of the satellite's class of orbit
             LONDEG = 9, // The index of the satellite's longitude of geosynchronous orbit (in degrees)
-            ORB = 7; // The index of the satellite's class of orbit
+            LAUNCH = 18; // The index of the satellite's date of launch (containing "EOL" at its end of life)
 
     /**
      * @see SatelliteDatabaseLoader#load(InputStream, SatelliteCatalogue.Builder)
@@ -32,46 +30,40 @@ public enum SatelliteDatabaseLoader implements SatelliteCatalogue.Loader {
     public void load(InputStream inputStream, SatelliteCatalogue.Builder builder) throws IOException {
 
         // Reads the satellite database, encoded in ASCII
-        try (BufferedReader reader =
-                     new BufferedReader(
-                             new InputStreamReader(
-                                     inputStream, StandardCharsets.US_ASCII))) {
+        CsvTokenizer tokenizer = CsvTokenizer.of(inputStream);
 
-            reader.readLine(); // Ignores the header line, giving the names of the columns (which is thus unusable)
+        tokenizer.skipLine(); // Ignores the header line, giving the names of the columns (which is thus unusable)
 
-            String line; // The current line of data (i.e. the current satellite in the satellite catalogue)
-            while ((line = reader.readLine()) != null) {
-                String[] columns = line.split(","); // The 26 informations on the current satellite
+        // Reads the current line of data (i.e. the current satellite in the satellite catalogue), whose 26
+        // informations are selected in increasing column order
+        while (tokenizer.nextLine()) {
 
-                // Reads the information of satellites with geostationary orbit
-                if (columns[ORB].equals("GEO") && !columns[18].contains("EOL")) {
+            // The bounds of the satellite's name, country of origin and purpose, materialized only for the
+            // satellites with a geostationary orbit
+            int nameStart = tokenizer.field(NAME).start(), nameEnd = tokenizer.end();
+            int countryStart = tokenizer.field(COUN).start(), countryEnd = tokenizer.end();
+            int purposeStart = tokenizer.field(PURP).start(), purposeEnd = tokenizer.end();
 
-                    String name = columns[NAME]; // The satellite's name
-                    String country = columns[COUN]; // The satellite's country of origin
-                    String purpose = columns[PURP]; // The satellite's purpose
+            if (!tokenizer.field(ORB).isEqualTo("GEO")) {
+                continue;
+            }
+
+            // The satellite's longitude of geosynchronous orbit in deg
+            double lonDeg = tokenizer.field(LONDEG).isEmpty() ? 0 : tokenizer.parseDouble();
 
-                    // The satellite's longitude of geosynchronous orbit in deg
-                    double lonDeg = defaultLonDeg(columns);
+            // Reads the information of satellites with geostationary orbit
+            if (!tokenizer.field(LAUNCH).contains("EOL")) {
 
-                    // The satellite's longitude of geosynchronous orbit in radians
-                    double lonRad = Angle.normalizePositive(Angle.ofDeg(lonDeg));
+                String name = tokenizer.string(nameStart, nameEnd); // The satellite's name
+                String country = tokenizer.string(countryStart, countryEnd); // The satellite's country of origin
+                String purpose = tokenizer.string(purposeStart, purposeEnd); // The satellite's purpose
 
-                    builder.addSatellite(new Satellite(name, country, purpose, lonRad));
-                }
+                // The satellite's longitude of geosynchronous orbit in radians
+                double lonRad = Angle.normalizePositive(Angle.ofDeg(lonDeg));
+
+                // The country and purpose are shared with the other satellites through the dictionaries of the catalogue
+                builder.addSatellite(name, country, purpose, lonRad);
             }
         }
     }
-
-    /**
-     * Additional method.
-     * Returns the double value of the string at the given index of the given array.
-     *
-     * @param columns
-     *            The array of strings
-     * @return the double value of the string
-     */
-    private static double defaultLonDeg(String[] columns) {
-        return columns[SatelliteDatabaseLoader.LONDEG].isEmpty() ?
-                0 : Double.parseDouble(columns[SatelliteDatabaseLoader.LONDEG]);
-    }
 }
@@ -0,0 +1,376 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Additional class.
+ * A table of satellites, stored column by column : the longitudes in an array of primitive values, and the countries
+ * and purposes as codes in dictionaries of distinct strings, which are shared by all the satellites. As for the stars,
+ * the satellite objects are views on the rows of the table, materialized only when asked for and then kept.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class SatelliteTable {
+
+    private final int size;
+
+    private final double[] lon; // The longitudes of geosynchronous orbit (in radians)
+    private final int[] countryCode, purposeCode; // The positions of the countries and purposes in their dictionaries
+    private final String[] name;
+    private final List<String> countries, purposes; // The dictionaries of the distinct countries and purposes
+
+    private final AtomicReferenceArray<Satellite> satellites; // The materialized satellites (null when not yet)
+
+    /**
+     * Constructs a table of satellites with the given columns, which are not copied.
+     *
+     * @param size
+     *            The number of satellites
+     * @param lon
+     *            The longitudes of geosynchronous orbit (in radians)
+     * @param countryCode
+     *            The codes of the countries of origin
+     * @param purposeCode
+     *            The codes of the purposes
+     * @param name
+     *            The names
+     * @param countries
+     *            The dictionary of the countries of origin
+     * @param purposes
+     *            The dictionary of the purposes
+     * @param satellites
+     *            The already materialized satellites (null for the other rows)
+     */
+    private SatelliteTable(int size, double[] lon, int[] countryCode, int[] purposeCode, String[] name,
+                           List<String> countries, List<String> purposes, Satellite[] satellites) {
+        this.size = size;
+        this.lon = lon;
+        this.countryCode = countryCode;
+        this.purposeCode = purposeCode;
+        this.name = name;
+        this.countries = countries;
+        this.purposes = purposes;
+        this.satellites = new AtomicReferenceArray<>(satellites);
+    }
+
+    /**
+     * Returns the table of the given satellites, which are kept as the materialized satellites of the table.
+     *
+     * @param satellites
+     *            The satellites
+     * @return the table of the given satellites
+     */
+    public static SatelliteTable of(List<Satellite> satellites) {
+        Builder builder = new Builder();
+        for (Satellite s : satellites) {
+            builder.add(s);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of satellites in this table.
+     * @return the number of satellites in this table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the longitude of geosynchronous orbit (in radians) of the satellite at the given index.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the longitude of geosynchronous orbit (in radians) of the satellite
+     */
+    public double lon(int index) {
+        return lon[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Additional method.
+     * Returns the column of the longitudes, which must not be modified (and may be longer than the number of
+     * satellites).
+     * @return the column of the longitudes
+     */
+    double[] lonColumn() {
+        return lon;
+    }
+
+    /**
+     * Returns the name of the satellite at the given index.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the name of the satellite
+     */
+    public String name(int index) {
+        return name[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the code of the country of origin of the satellite at the given index, i.e. its position in the
+     * dictionary of the countries.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the code of the country of origin of the satellite
+     */
+    public int countryCode(int index) {
+        return countryCode[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the code of the purpose of the satellite at the given index, i.e. its position in the dictionary of the
+     * purposes.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the code of the purpose of the satellite
+     */
+    public int purposeCode(int index) {
+        return purposeCode[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the country of origin of the satellite at the given index.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the country of origin of the satellite
+     */
+    public String country(int index) {
+        return countries.get(countryCode(index));
+    }
+
+    /**
+     * Returns the purpose of the satellite at the given index.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the purpose of the satellite
+     */
+    public String purpose(int index) {
+        return purposes.get(purposeCode(index));
+    }
+
+    /**
+     * Returns the dictionary of the distinct countries of origin of the satellites, indexed by their codes.
+     * @return the dictionary of the countries of origin
+     */
+    public List<String> countries() {
+        return countries;
+    }
+
+    /**
+     * Returns the dictionary of the distinct purposes of the satellites, indexed by their codes.
+     * @return the dictionary of the purposes
+     */
+    public List<String> purposes() {
+        return purposes;
+    }
+
+    /**
+     * Returns the satellite at the given index, materialized at its first request.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the satellite at the given index
+     */
+    public Satellite satellite(int index) {
+        Satellite satellite = satellites.get(Objects.checkIndex(index, size));
+        if (satellite == null) {
+            Satellite materialized = new Satellite(name[index], countries.get(countryCode[index]),
+                    purposes.get(purposeCode[index]), lon[index]);
+
+            // Only one satellite is kept if several threads materialize the same row at the same time
+            satellite = satellites.compareAndSet(index, null, materialized) ? materialized : satellites.get(index);
+        }
+        return satellite;
+    }
+
+    /**
+     * Additional method.
+     * Returns the satellite at the given index if it has already been materialized.
+     *
+     * @param index
+     *            The index of the satellite
+     * @return the satellite at the given index, or null if it has not been materialized yet
+     */
+    Satellite materializedSatellite(int index) {
+        return satellites.get(Objects.checkIndex(index, size));
+    }
+
+    /**
+     * Additional class.
+     * A builder of a table of satellites, whose columns grow and whose dictionaries are completed as the satellites
+     * are added.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    static final class Builder {
+
+        private int size;
+
+        private double[] lon;
+        private int[] countryCode, purposeCode;
+        private String[] name;
+        private Satellite[] satellites;
+
+        // The dictionaries, and the codes of their strings
+        private final List<String> countries = new ArrayList<>(), purposes = new ArrayList<>();
+        private final Map<String, Integer> countryCodes = new HashMap<>(), purposeCodes = new HashMap<>();
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * Default constructor.
+         * Constructs a builder such that the table under construction is initially empty.
+         */
+        Builder() {
+            lon = new double[INITIAL_CAPACITY];
+            countryCode = new int[INITIAL_CAPACITY];
+            purposeCode = new int[INITIAL_CAPACITY];
+            name = new String[INITIAL_CAPACITY];
+            satellites = new Satellite[INITIAL_CAPACITY];
+        }
+
+        /**
+         * Adds a satellite with the given characteristics to the table under construction.
+         *
+         * @param name
+         *            The satellite's name
+         * @param country
+         *            The satellite's country of origin
+         * @param purpose
+         *            The satellite's purpose
+         * @param lonRad
+         *            The satellite's longitude of geosynchronous orbit (in radians)
+         * @throws IllegalArgumentException
+         *             if the longitude is not contained in [0,2*PI[
+         * @throws NullPointerException
+         *             if the name, the country and/or the purpose are null
+         * @return this builder
+         */
+        Builder add(String name, String country, String purpose, double lonRad) {
+            Preconditions.checkArgument(EquatorialCoordinates.isValidRa(lonRad));
+            Objects.requireNonNull(name);
+
+            return append(name, code(country, countries, countryCodes), code(purpose, purposes, purposeCodes), lonRad,
+                    null);
+        }
+
+        /**
+         * Adds the given (materialized) satellite to the table under construction.
+         *
+         * @param satellite
+         *            The satellite
+         * @throws NullPointerException
+         *             if the satellite is null
+         * @return this builder
+         */
+        Builder add(Satellite satellite) {
+            return append(satellite.name(), code(satellite.country(), countries, countryCodes),
+                    code(satellite.purpose(), purposes, purposeCodes), satellite.equatorialPos().ra(), satellite);
+        }
+
+        /**
+         * Returns the number of satellites added so far.
+         * @return the number of satellites added so far
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the satellite at the given index, materialized at its first request.
+         *
+         * @param index
+         *            The index of the satellite
+         * @return the satellite at the given index
+         */
+        Satellite satellite(int index) {
+            Satellite satellite = satellites[Objects.checkIndex(index, size)];
+            if (satellite == null) {
+                satellite = new Satellite(name[index], countries.get(countryCode[index]),
+                        purposes.get(purposeCode[index]), lon[index]);
+                satellites[index] = satellite;
+            }
+            return satellite;
+        }
+
+        /**
+         * Returns the table of the satellites added so far.
+         * @return the table of the satellites added so far
+         */
+        SatelliteTable build() {
+            return new SatelliteTable(size,
+                    Arrays.copyOf(lon, size), Arrays.copyOf(countryCode, size), Arrays.copyOf(purposeCode, size),
+                    Arrays.copyOf(name, size), List.copyOf(countries), List.copyOf(purposes),
+                    Arrays.copyOf(satellites, size));
+        }
+
+        /**
+         * Additional method.
+         * Returns the code of the given string in the given dictionary, adding it to the latter if it is not in it yet.
+         *
+         * @param string
+         *            The string
+         * @param dictionary
+         *            The strings of the dictionary
+         * @param codes
+         *            The codes of the strings of the dictionary
+         * @return the code of the string
+         * @throws NullPointerException
+         *             if the string is null
+         */
+        private static int code(String string, List<String> dictionary, Map<String, Integer> codes) {
+            Integer code = codes.get(Objects.requireNonNull(string));
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(string);
+                codes.put(string, code);
+            }
+            return code;
+        }
+
+        /**
+         * Additional method.
+         * Appends a row to the columns of the table under construction.
+         */
+        private Builder append(String name, int countryCode, int purposeCode, double lon, Satellite satellite) {
+            ensureCapacity(size + 1);
+            this.name[size] = name;
+            this.countryCode[size] = countryCode;
+            this.purposeCode[size] = purposeCode;
+            this.lon[size] = lon;
+            this.satellites[size] = satellite;
+            ++size;
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Grows the columns so that they can contain at least the given number of satellites.
+         *
+         * @param capacity
+         *            The minimum capacity of the columns
+         */
+        private void ensureCapacity(int capacity) {
+            if (capacity > lon.length) {
+                int newCapacity = Math.max(capacity, 2 * lon.length);
+                lon = Arrays.copyOf(lon, newCapacity);
+                countryCode = Arrays.copyOf(countryCode, newCapacity);
+                purposeCode = Arrays.copyOf(purposeCode, newCapacity);
+                name = Arrays.copyOf(name, newCapacity);
+                satellites = Arrays.copyOf(satellites, newCapacity);
+            }
+        }
+    }
+}
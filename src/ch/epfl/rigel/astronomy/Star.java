@@ -14,9 +14,10 @@ public final class Star extends CelestialObject {
 
     private final int hipparcosId;
     private final int colorTemperature;
+    private final float colorIndex;
 
     // The valid closed interval [-0.5,5.5] (unitless) for the star's color index
-    private static final ClosedInterval COLOR_INDEX_INTERVAL = ClosedInterval.of(-0.5f, 5.5f);
+    static final ClosedInterval COLOR_INDEX_INTERVAL = ClosedInterval.of(-0.5f, 5.5f);
 
     /**
      * Constructs a star with the given name, equatorial position, angular size and magnitude.
@@ -43,13 +44,26 @@ public final class Star extends CelestialObject {
         Preconditions.checkArgument(hipparcosId >= 0);
 
         float starColorIndex = (float) Preconditions.checkInInterval(COLOR_INDEX_INTERVAL, colorIndex);
-        double T = 4600.0 * (1.0 / (0.92 * starColorIndex + 1.7) + 1.0 / (0.92 * starColorIndex + 0.62));
-        this.colorTemperature = (int) T;
+        this.colorTemperature = colorTemperatureFor(starColorIndex);
+        this.colorIndex = starColorIndex;
 
         this.hipparcosId = hipparcosId;
 
     }
 
+    /**
+     * Additional method.
+     * Returns the color temperature (in degrees Kelvin) of a star with the given B-V color index.
+     *
+     * @param colorIndex
+     *            The star's B-V color index, assumed to be valid
+     * @return the color temperature (in degrees Kelvin) of the star
+     */
+    static int colorTemperatureFor(float colorIndex) {
+        double T = 4600.0 * (1.0 / (0.92 * colorIndex + 1.7) + 1.0 / (0.92 * colorIndex + 0.62));
+        return (int) T;
+    }
+
     /**
      * Returns the identification number of this star in the Hipparcos catalogue.
      * @return the identification number of this star in the Hipparcos catalogue
@@ -58,6 +72,15 @@ public final class Star extends CelestialObject {
         return hipparcosId;
     }
 
+    /**
+     * Additional method.
+     * Returns the B-V color index of this star, as given at construction.
+     * @return the B-V color index of this star
+     */
+    float colorIndex() {
+        return colorIndex;
+    }
+
     /**
      * Returns the color temperature of this star (in degrees Kelvin).
      * @return the color temperature of this star (in degrees Kelvin)
@@ -5,18 +5,28 @@ import ch.epfl.rigel.Preconditions;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A catalogue of stars and asterisms.
  *
+ * The stars are stored in a table of primitive columns (see {@link StarTable}), the star objects being materialized
+ * only when asked for.
+ *
  * @author Mathias Bouilloud (309979)
  * @author Julien Mettler (309999)
  */
 public final class StarCatalogue {
 
+    private final StarTable table;
     private final List<Star> stars;
-    private final Map<Asterism, List<Integer>> asterismsWithIndices;
-    private final Map<Star, Integer> starsIndices;
+    private final AsterismIndex asterismIndex;
+    private final CelestialSphereIndex spatialIndex;
+    private final ConstellationIndex constellationIndex;
+    private final Map<Asterism, Integer> asterismsPositions; // The positions of the asterisms in their index
+
+    // The positions of the stars at the year they were last asked for
+    private final AtomicReference<StarPositions> lastPositions = new AtomicReference<>();
 
     /**
      * Constructs a catalogue composed of the given stars and asterisms.
@@ -29,20 +39,51 @@ public final class StarCatalogue {
      *             if at least one asterism contains a star that is not on the given list of stars
      */
     public StarCatalogue(List<Star> stars, List<Asterism> asterisms) {
-        this.stars = List.copyOf(stars);
+        this(StarTable.of(List.copyOf(stars)), asterisms);
+    }
 
-        this.starsIndices = new HashMap<>(); // The indices of the stars of the catalogue
-        int i = 0;
-        for (Star s : this.stars) {
-            starsIndices.put(s, i);
-            ++i;
-        }
+    /**
+     * Additional constructor.
+     * Constructs a catalogue composed of the stars of the given table and of the given asterisms.
+     *
+     * @param table
+     *            The table of the stars of this catalogue
+     * @param asterisms
+     *            The asterisms of this catalogue
+     * @throws IllegalArgumentException
+     *             if at least one asterism contains a star that is not a materialized star of the given table
+     */
+    StarCatalogue(StarTable table, List<Asterism> asterisms) {
+        this.table = table;
+        this.stars = new StarList(table);
+        this.spatialIndex = new CelestialSphereIndex(table);
+        this.constellationIndex = new ConstellationIndex(table);
 
-        // Constructs the map by associating to each asterism (the key) its list of indices (the value)
-        asterismsWithIndices = new HashMap<>();
+        // The positions of the distinct asterisms, in their order of appearance
+        asterismsPositions = new HashMap<>();
+        List<Asterism> distinctAsterisms = new ArrayList<>(asterisms.size());
+        int indexCount = 0;
         for (Asterism ast : asterisms) {
-            asterismsWithIndices.put(ast, indicesOf(ast));
+            if (asterismsPositions.putIfAbsent(ast, distinctAsterisms.size()) == null) {
+                distinctAsterisms.add(ast);
+                indexCount += ast.stars().size();
+            }
         }
+
+        // Constructs the compressed sparse rows of the indices of the stars of the asterisms
+        StarIndexer indexer = new StarIndexer(table);
+        int[] offsets = new int[distinctAsterisms.size() + 1];
+        int[] starIndices = new int[indexCount];
+        int position = 0;
+        for (int k = 0; k < distinctAsterisms.size(); ++k) {
+            offsets[k] = position;
+            for (Star s : distinctAsterisms.get(k).stars()) {
+                starIndices[position++] = indexer.indexOf(s);
+            }
+        }
+        offsets[distinctAsterisms.size()] = position;
+
+        asterismIndex = new AsterismIndex(List.copyOf(distinctAsterisms), offsets, starIndices);
     }
 
     /**
@@ -53,12 +94,72 @@ public final class StarCatalogue {
         return stars;
     }
 
+    /**
+     * Additional method.
+     * Returns the table of the stars of the catalogue, whose indices are the ones of the list of the stars.
+     * @return the table of the stars of the catalogue
+     */
+    public StarTable starTable() {
+        return table;
+    }
+
+    /**
+     * Additional method.
+     * Returns the spatial index of the stars of the catalogue, grouping them by position on the celestial sphere.
+     * @return the spatial index of the stars of the catalogue
+     */
+    public CelestialSphereIndex spatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Additional method.
+     * Returns the index of the stars of the catalogue grouped by constellation.
+     * @return the constellation index of the stars of the catalogue
+     */
+    public ConstellationIndex constellationIndex() {
+        return constellationIndex;
+    }
+
+    /**
+     * Additional method.
+     * Returns the equatorial positions of the stars of the catalogue at the given year, propagated from the epoch of
+     * the catalogue with their proper motions. The positions at the last year asked for are kept, so that they are
+     * only computed again when the year of the observation changes.
+     *
+     * @param year
+     *            The year of the observation
+     * @return the positions of the stars of the catalogue at the given year
+     */
+    public StarPositions positionsAt(int year) {
+        StarPositions positions = lastPositions.get();
+        if (positions == null || positions.year() != year) {
+            positions = StarPositions.of(table, year);
+            lastPositions.set(positions);
+        }
+        return positions;
+    }
+
+    /**
+     * Additional method.
+     * Returns the number of stars with a magnitude less than or equal to the given limiting magnitude, which are the
+     * first stars of the catalogue when it is ordered by magnitude.
+     *
+     * @param limitingMagnitude
+     *            The limiting magnitude
+     * @return the number of stars at most as faint as the limiting magnitude if the catalogue is ordered by
+     *         magnitude, the number of stars of the catalogue otherwise
+     */
+    public int brighterStarCount(double limitingMagnitude) {
+        return table.brighterStarCount(limitingMagnitude);
+    }
+
     /**
      * Returns an immutable view on the set of the asterisms of the catalogue.
      * @return an immutable view on the set of the asterisms of the catalogue
      */
     public Set<Asterism> asterisms() {
-        return Collections.unmodifiableSet(asterismsWithIndices.keySet());
+        return Collections.unmodifiableSet(asterismsPositions.keySet());
     }
 
     /**
@@ -71,28 +172,74 @@ public final class StarCatalogue {
      * @return an immutable list of the indices of the stars composing the given asterism
      */
     public List<Integer> asterismIndices(Asterism asterism) {
-        Preconditions.checkArgument(asterisms().contains(asterism));
-        return Collections.unmodifiableList(asterismsWithIndices.get(asterism));
+        Integer position = asterismsPositions.get(asterism);
+        Preconditions.checkArgument(position != null);
+        return asterismIndex.indicesOf(position);
     }
 
     /**
      * Additional method.
-     * Constructs the list of the indices of the stars composing the given asterism
-     * Note : the given asterism is assumed to be contained in the catalogue since this method is used in the constructor.
+     * Returns the indices (in the catalogue) of the stars of all the asterisms of the catalogue, stored in compressed
+     * sparse rows.
+     * @return the index of the asterisms of the catalogue
+     */
+    public AsterismIndex asterismIndex() {
+        return asterismIndex;
+    }
+
+    /**
+     * Additional class.
+     * A resolver of the indices of the (materialized) stars of a table, looked up by their Hipparcos IDs.
+     * As several stars may share a Hipparcos ID (e.g. 0 when unknown), the star found is checked to be the given one,
+     * the stars being otherwise looked up in a map of all the materialized stars, constructed when first needed.
      *
-     * @param asterism
-     *            The asterism
-     * @return the list of the indices of the stars composing the asterism
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
      */
-    private List<Integer> indicesOf(Asterism asterism) {
-        List<Integer> indices = new ArrayList<>();
+    private static final class StarIndexer {
+
+        private final StarTable table;
+        private final IntIntHashMap indicesByHipparcosId;
+        private Map<Star, Integer> indicesByStar;
+
+        private StarIndexer(StarTable table) {
+            this.table = table;
 
-        // Adds the index of each star as indexed in the list of the stars of the catalogue
-        for (Star s : asterism.stars()) {
-            Preconditions.checkArgument(stars.contains(s));
-            indices.add(starsIndices.get(s));
+            // The last star with a given Hipparcos ID wins, as in the asterism loader
+            indicesByHipparcosId = new IntIntHashMap(table.size());
+            for (int i = 0; i < table.size(); ++i) {
+                indicesByHipparcosId.put(table.hipparcosId(i), i);
+            }
+        }
+
+        /**
+         * Returns the index of the given star in the table.
+         *
+         * @param star
+         *            The star
+         * @throws IllegalArgumentException
+         *             if the star is not a materialized star of the table
+         * @return the index of the star in the table
+         */
+        private int indexOf(Star star) {
+            int index = indicesByHipparcosId.get(star.hipparcosId());
+            if (index != IntIntHashMap.NO_VALUE && table.materializedStar(index) == star) {
+                return index;
+            }
+
+            if (indicesByStar == null) {
+                indicesByStar = new HashMap<>();
+                for (int i = 0; i < table.size(); ++i) {
+                    Star s = table.materializedStar(i);
+                    if (s != null) {
+                        indicesByStar.put(s, i);
+                    }
+                }
+            }
+            Integer fallbackIndex = indicesByStar.get(star);
+            Preconditions.checkArgument(fallbackIndex != null);
+            return fallbackIndex;
         }
-        return indices;
     }
 
     /**
@@ -103,15 +250,16 @@ public final class StarCatalogue {
      */
     public final static class Builder {
 
-        private final List<Star> stars;
+        private final StarTable.Builder table;
         private final List<Asterism> asterisms;
+        private boolean orderedByMagnitude;
 
         /**
          * Default constructor.
          * Constructs a builder such that the catalogue under construction is initially empty.
          */
         public Builder() {
-            stars = new ArrayList<>(); // Empty list of stars
+            table = new StarTable.Builder(); // Empty table of stars
             asterisms = new ArrayList<>(); // Empty list of asterisms
         }
 
@@ -125,7 +273,84 @@ public final class StarCatalogue {
          * @return the builder of the catalogue under construction
          */
         public Builder addStar(Star star) {
-            stars.add(star);
+            table.add(star);
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Adds a star with the given characteristics to the catalogue under construction, without materializing it.
+         *
+         * @param hipparcosId
+         *            The star's identification number in the Hipparcos catalogue
+         * @param name
+         *            The star's name
+         * @param raRad
+         *            The star's right ascension (in radians)
+         * @param decRad
+         *            The star's declination (in radians)
+         * @param magnitude
+         *            The star's magnitude (unitless)
+         * @param colorIndex
+         *            The star's B-V color index
+         * @throws IllegalArgumentException
+         *             if the Hipparcos ID is < 0, the color index is not contained in [-0.5,5.5],
+         *             and/or the equatorial position is not valid
+         * @throws NullPointerException
+         *             if the name is null
+         * @return the builder of the catalogue under construction
+         */
+        public Builder addStar(int hipparcosId, String name, double raRad, double decRad, float magnitude,
+                               float colorIndex) {
+            table.add(hipparcosId, name, raRad, decRad, magnitude, colorIndex);
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Adds a star with the given characteristics, including its proper motion, to the catalogue under
+         * construction, without materializing it.
+         *
+         * @param hipparcosId
+         *            The star's identification number in the Hipparcos catalogue
+         * @param name
+         *            The star's name
+         * @param raRad
+         *            The star's right ascension (in radians)
+         * @param decRad
+         *            The star's declination (in radians)
+         * @param magnitude
+         *            The star's magnitude (unitless)
+         * @param colorIndex
+         *            The star's B-V color index
+         * @param pmRa
+         *            The star's proper motion in right ascension, times the cosine of its declination (in radians per
+         *            year)
+         * @param pmDec
+         *            The star's proper motion in declination (in radians per year)
+         * @throws IllegalArgumentException
+         *             if the Hipparcos ID is < 0, the color index is not contained in [-0.5,5.5], the equatorial
+         *             position is not valid and/or a proper motion is not finite
+         * @throws NullPointerException
+         *             if the name is null
+         * @return the builder of the catalogue under construction
+         */
+        public Builder addStar(int hipparcosId, String name, double raRad, double decRad, float magnitude,
+                               float colorIndex, float pmRa, float pmDec) {
+            table.add(hipparcosId, name, raRad, decRad, magnitude, colorIndex, pmRa, pmDec);
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Adds all the stars of the given table under construction to the catalogue under construction, in their order.
+         *
+         * @param stars
+         *            The builder of the table of the stars to be added
+         * @return the builder of the catalogue under construction
+         */
+        Builder addStars(StarTable.Builder stars) {
+            table.addAll(stars);
             return this;
         }
 
@@ -134,7 +359,26 @@ public final class StarCatalogue {
          * @return an unmodifiable view on the stars of the catalogue under construction
          */
         public List<Star> stars() {
-            return Collections.unmodifiableList(stars);
+            return new AbstractList<>() {
+                @Override
+                public Star get(int index) {
+                    return table.star(index);
+                }
+
+                @Override
+                public int size() {
+                    return table.size();
+                }
+            };
+        }
+
+        /**
+         * Additional method.
+         * Returns the table of the stars of the catalogue under construction.
+         * @return the builder of the table of the stars of the catalogue under construction
+         */
+        StarTable.Builder starTable() {
+            return table;
         }
 
         /**
@@ -159,6 +403,169 @@ public final class StarCatalogue {
             return Collections.unmodifiableList(asterisms);
         }
 
+        /**
+         * Additional method.
+         * Sets the filter of the stars added from now on to the catalogue under construction (e.g. by a loader), the
+         * stars it rejects being ignored before being stored or materialized. The asterisms loaded afterwards only
+         * contain the accepted stars.
+         *
+         * @param filter
+         *            The filter of the stars
+         * @throws NullPointerException
+         *             if the filter is null
+         * @return the builder of the catalogue under construction
+         */
+        public Builder filterStars(StarFilter filter) {
+            table.filter(filter);
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Returns the filter of the stars added to the catalogue under construction ({@link StarFilter#ALL} by
+         * default), which loaders may apply as soon as they have read the characteristics of a star.
+         * @return the filter of the stars added to the catalogue under construction
+         */
+        public StarFilter starFilter() {
+            return table.filter();
+        }
+
+        /**
+         * Additional method.
+         * Orders the stars of the catalogue to be built by increasing magnitude (the stars of equal magnitudes keeping
+         * their order of addition), so that the stars brighter than a given magnitude are the first ones of the
+         * catalogue. The indices of the stars of the asterisms are the ones of the stars once ordered.
+         *
+         * @return the builder of the catalogue under construction
+         */
+        public Builder orderByMagnitude() {
+            orderedByMagnitude = true;
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Merges the stars and asterisms of the given catalogue under construction (e.g. a supplementary catalogue)
+         * into this one, joining the stars on their Hipparcos identification numbers. A star of the other catalogue
+         * whose number is unknown (0) or not in this catalogue is added to it (unless rejected by its filter), and the
+         * conflicts between two stars of the same number are resolved by the given policy.
+         *
+         * The asterisms of both catalogues are kept valid : their stars which are replaced are replaced by the stars
+         * replacing them, their stars which are rejected are removed from them, and the asterisms left empty are
+         * removed. The merge is done in time linear in the number of stars, using a primitive hash map.
+         *
+         * @param other
+         *            The builder of the other catalogue, which is not modified
+         * @param policy
+         *            The resolution of the conflicts between the stars of the same Hipparcos number
+         * @throws NullPointerException
+         *             if the other catalogue or the policy is null
+         * @return the builder of the catalogue under construction
+         */
+        public Builder merge(Builder other, MergePolicy policy) {
+            Objects.requireNonNull(policy);
+            StarTable.Builder that = other.table;
+
+            // The index of the first star of each (known) Hipparcos number in this catalogue
+            IntIntHashMap indices = new IntIntHashMap(table.size());
+            for (int i = 0; i < table.size(); ++i) {
+                int hipparcosId = table.hipparcosId(i);
+                if (hipparcosId != 0 && indices.get(hipparcosId) == IntIntHashMap.NO_VALUE) {
+                    indices.put(hipparcosId, i);
+                }
+            }
+
+            // The materialized stars which are no longer in the catalogue, associated to the stars replacing them
+            // (null if they are dropped)
+            Map<Star, Star> replacements = new IdentityHashMap<>();
+            for (int j = 0; j < that.size(); ++j) {
+                int hipparcosId = that.hipparcosId(j);
+                int i = hipparcosId == 0 ? IntIntHashMap.NO_VALUE : indices.get(hipparcosId);
+                Star otherStar = that.materializedStar(j);
+
+                if (i == IntIntHashMap.NO_VALUE) {
+                    if (!table.addRow(that, j) && otherStar != null) {
+                        replacements.put(otherStar, null);
+                    }
+                    continue;
+                }
+
+                Star formerStar = table.materializedStar(i);
+                switch (policy) {
+                    case REPLACE:
+                        table.setRow(i, that, j);
+                        break;
+                    case SUPPLEMENT_NAMES:
+                        if (table.hasEncodedName(i) && !that.hasEncodedName(j)) {
+                            table.setName(i, that.name(j));
+                        }
+                        break;
+                    case KEEP_EXISTING:
+                    default:
+                        break;
+                }
+
+                // The stars of both catalogues which are not the one of the row any more are replaced by the latter
+                Star star = table.materializedStar(i);
+                if (formerStar != null && formerStar != star) {
+                    replacements.put(formerStar, table.star(i));
+                }
+                if (otherStar != null && otherStar != table.materializedStar(i)) {
+                    replacements.put(otherStar, table.star(i));
+                }
+            }
+
+            // Keeps the asterisms of both catalogues valid
+            List<Asterism> mergedAsterisms = new ArrayList<>(asterisms.size() + other.asterisms.size());
+            for (List<Asterism> list : List.of(asterisms, other.asterisms)) {
+                for (Asterism asterism : list) {
+                    Asterism merged = replaced(asterism, replacements);
+                    if (merged != null) {
+                        mergedAsterisms.add(merged);
+                    }
+                }
+            }
+            asterisms.clear();
+            asterisms.addAll(mergedAsterisms);
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Returns the given asterism whose stars are replaced by the given replacements (following them until the
+         * star of the catalogue is reached), the dropped stars being removed.
+         *
+         * @param asterism
+         *            The asterism
+         * @param replacements
+         *            The stars replacing the former stars (null for the dropped stars)
+         * @return the asterism with replaced stars (the same one if none of its stars is replaced), or null if all its
+         *         stars are dropped
+         */
+        private static Asterism replaced(Asterism asterism, Map<Star, Star> replacements) {
+            if (replacements.isEmpty()) {
+                return asterism;
+            }
+
+            boolean changed = false;
+            List<Star> stars = new ArrayList<>(asterism.stars().size());
+            for (Star star : asterism.stars()) {
+                Star replacement = star;
+                while (replacement != null && replacements.containsKey(replacement)) {
+                    replacement = replacements.get(replacement);
+                }
+                changed |= replacement != star;
+                if (replacement != null) {
+                    stars.add(replacement);
+                }
+            }
+
+            if (!changed) {
+                return asterism;
+            }
+            return stars.isEmpty() ? null : new Asterism(stars);
+        }
+
         /**
          * Asks the given loader to add to the catalogue under construction the stars and/or asterisms the loader
          * obtains from the given input stream, and returns the builder of this catalogue.
@@ -178,11 +585,71 @@ public final class StarCatalogue {
 
         /**
          * Returns the catalogue of the stars and asterisms added so far to its builder.
+         *
+         * The columns of the stars are handed over to the catalogue rather than copied (see {@link StarTable.Builder}),
+         * the stars being ordered in place if the catalogue is to be ordered by magnitude.
+         *
          * @return the built catalogue.
          */
         public StarCatalogue build() {
-            return new StarCatalogue(stars, asterisms);
+            if (orderedByMagnitude) {
+                table.sortByMagnitude();
+            }
+            return new StarCatalogue(table.build(), asterisms);
+        }
+    }
+
+    /**
+     * Additional class.
+     * An immutable list of the stars of a table, materialized when accessed.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    private static final class StarList extends AbstractList<Star> implements RandomAccess {
+
+        private final StarTable table;
+
+        private StarList(StarTable table) {
+            this.table = table;
         }
+
+        @Override
+        public Star get(int index) {
+            return table.star(index);
+        }
+
+        @Override
+        public int size() {
+            return table.size();
+        }
+    }
+
+    /**
+     * Additional enum.
+     * The policies of resolution of the conflicts between two stars of the same Hipparcos identification number, when
+     * merging a catalogue into another one.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    public enum MergePolicy {
+
+        /**
+         * The star of the catalogue merged into is kept as is.
+         */
+        KEEP_EXISTING,
+
+        /**
+         * The star of the catalogue merged into is replaced by the one of the merged catalogue, at the same index.
+         */
+        REPLACE,
+
+        /**
+         * The star of the catalogue merged into is kept, but takes the name of the one of the merged catalogue when
+         * it only has a catalogue designation (Bayer designation and constellation) and the latter has another name.
+         */
+        SUPPLEMENT_NAMES
     }
 
     /**
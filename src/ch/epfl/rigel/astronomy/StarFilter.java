@@ -0,0 +1,110 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+
+import java.util.Objects;
+
+import static java.lang.Math.PI;
+
+/**
+ * Additional interface.
+ * A filter of the stars loaded into a catalogue, applied to the characteristics of each star as it is read, i.e.
+ * before the star is stored in the table of the catalogue (and a fortiori before it is materialized).
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+@FunctionalInterface
+public interface StarFilter {
+
+    /**
+     * The filter accepting all the stars.
+     */
+    StarFilter ALL = (hipparcosId, raRad, decRad, magnitude) -> true;
+
+    /**
+     * Tells if the star with the given characteristics is to be loaded.
+     *
+     * @param hipparcosId
+     *            The star's identification number in the Hipparcos catalogue
+     * @param raRad
+     *            The star's right ascension (in radians)
+     * @param decRad
+     *            The star's declination (in radians)
+     * @param magnitude
+     *            The star's magnitude (unitless)
+     * @return true if the star is to be loaded, false otherwise
+     */
+    boolean accepts(int hipparcosId, double raRad, double decRad, double magnitude);
+
+    /**
+     * Returns the filter accepting the stars accepted by both this filter and the given one.
+     *
+     * @param that
+     *            The other filter
+     * @throws NullPointerException
+     *             if the other filter is null
+     * @return the conjunction of the two filters
+     */
+    default StarFilter and(StarFilter that) {
+        Objects.requireNonNull(that);
+        return (hipparcosId, raRad, decRad, magnitude) ->
+                accepts(hipparcosId, raRad, decRad, magnitude) && that.accepts(hipparcosId, raRad, decRad, magnitude);
+    }
+
+    /**
+     * Returns the filter accepting the stars whose magnitude is less than or equal to the given limiting magnitude.
+     *
+     * @param limitingMagnitude
+     *            The magnitude of the faintest stars accepted
+     * @return the filter of the stars at most as faint as the limiting magnitude
+     */
+    static StarFilter magnitudeAtMost(double limitingMagnitude) {
+        return (hipparcosId, raRad, decRad, magnitude) -> magnitude <= limitingMagnitude;
+    }
+
+    /**
+     * Returns the filter accepting the stars whose declination is contained in the given (closed) band.
+     *
+     * @param minDecRad
+     *            The lower bound of the band (in radians)
+     * @param maxDecRad
+     *            The upper bound of the band (in radians)
+     * @throws IllegalArgumentException
+     *             if the lower bound is greater than the upper bound
+     * @return the filter of the stars of the declination band
+     */
+    static StarFilter declinationBetween(double minDecRad, double maxDecRad) {
+        Preconditions.checkArgument(minDecRad <= maxDecRad);
+        return (hipparcosId, raRad, decRad, magnitude) -> minDecRad <= decRad && decRad <= maxDecRad;
+    }
+
+    /**
+     * Returns the filter accepting the stars which rise above the horizon of an observer at the given place, i.e.
+     * excluding the stars which never rise (those of the pole hidden below the horizon). The stars whose declination
+     * is within 90° of the latitude of the observer are the ones passing above the horizon during a day.
+     *
+     * @param where
+     *            The place of observation
+     * @return the filter of the stars rising at the given place
+     */
+    static StarFilter risingAt(GeographicCoordinates where) {
+        return declinationBetween(where.lat() - PI / 2, where.lat() + PI / 2);
+    }
+
+    /**
+     * Returns the filter accepting only the stars with the given Hipparcos identification numbers.
+     *
+     * @param hipparcosIds
+     *            The identification numbers of the accepted stars
+     * @return the filter of the stars with the given Hipparcos identification numbers
+     */
+    static StarFilter hipparcosIds(int... hipparcosIds) {
+        IntIntHashMap ids = new IntIntHashMap(hipparcosIds.length);
+        for (int id : hipparcosIds) {
+            ids.put(id, 0);
+        }
+        return (hipparcosId, raRad, decRad, magnitude) -> ids.get(hipparcosId) != IntIntHashMap.NO_VALUE;
+    }
+}
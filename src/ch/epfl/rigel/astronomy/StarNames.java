@@ -0,0 +1,168 @@
+package ch.epfl.rigel.astronomy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Additional class.
+ * The compact encoding of the names of the stars without a proper name, which are made of a Bayer designation (or "?"
+ * if the star has none) followed by the short name of its constellation, e.g. "Alp-1 Cen" or "? Ori".
+ *
+ * The constellation is encoded by its position in the shared table of the 88 constellations, and the Bayer
+ * designation in a single (unsigned) byte : ten times the position of its Greek letter (from 1) plus its suffix (from
+ * 1 to 9, or 0 if it has none), 0 encoding the absence of designation.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+final class StarNames {
+
+    // The code of a name component which cannot be encoded, and the code of the absence of Bayer designation
+    static final int NO_CODE = -1, NO_BAYER = 0;
+
+    // The (unsigned) code standing for the Bayer designation of the stars whose name is stored as given, which is not
+    // the code of any Bayer designation
+    static final int GIVEN_NAME = 0xFF;
+
+    // The short names of the 88 constellations, as in the HYG catalogue
+    static final List<String> CONSTELLATIONS = List.of(
+            "And", "Ant", "Aps", "Aql", "Aqr", "Ara", "Ari", "Aur", "Boo", "CMa", "CMi", "CVn", "Cae", "Cam", "Cap",
+            "Car", "Cas", "Cen", "Cep", "Cet", "Cha", "Cir", "Cnc", "Col", "Com", "CrA", "CrB", "Crt", "Cru", "Crv",
+            "Cyg", "Del", "Dor", "Dra", "Equ", "Eri", "For", "Gem", "Gru", "Her", "Hor", "Hya", "Hyi", "Ind", "LMi",
+            "Lac", "Leo", "Lep", "Lib", "Lup", "Lyn", "Lyr", "Men", "Mic", "Mon", "Mus", "Nor", "Oct", "Oph", "Ori",
+            "Pav", "Peg", "Per", "Phe", "Pic", "PsA", "Psc", "Pup", "Pyx", "Ret", "Scl", "Sco", "Sct", "Ser", "Sex",
+            "Sge", "Sgr", "Tau", "Tel", "TrA", "Tri", "Tuc", "UMa", "UMi", "Vel", "Vir", "Vol", "Vul");
+
+    // The abbreviations of the Greek letters of the Bayer designations, as in the HYG catalogue
+    private static final List<String> GREEK_LETTERS = List.of(
+            "Alp", "Bet", "Gam", "Del", "Eps", "Zet", "Eta", "The", "Iot", "Kap", "Lam", "Mu", "Nu", "Xi", "Omi", "Pi",
+            "Rho", "Sig", "Tau", "Ups", "Phi", "Chi", "Psi", "Ome");
+
+    // The positions of the constellations and of the Greek letters, by their packed characters
+    private static final IntIntHashMap CONSTELLATION_CODES = codes(CONSTELLATIONS);
+    private static final IntIntHashMap GREEK_LETTER_CODES = codes(GREEK_LETTERS);
+
+    /**
+     * Default constructor.
+     */
+    private StarNames() {}
+
+    /**
+     * Returns the code of the constellation whose short name is given by the characters between the given positions.
+     *
+     * @param bytes
+     *            The characters, encoded in ASCII
+     * @param start
+     *            The position of the first character (inclusive)
+     * @param end
+     *            The position of the last character (exclusive)
+     * @return the code of the constellation, or NO_CODE if it is unknown
+     */
+    static int constellationCode(byte[] bytes, int start, int end) {
+        return CONSTELLATION_CODES.get(packed(bytes, start, end));
+    }
+
+    /**
+     * Returns the code of the Bayer designation given by the characters between the given positions, e.g. "Alp" or
+     * "Kap-2".
+     *
+     * @param bytes
+     *            The characters, encoded in ASCII
+     * @param start
+     *            The position of the first character (inclusive)
+     * @param end
+     *            The position of the last character (exclusive)
+     * @return the code of the Bayer designation (NO_BAYER if there are no characters), or NO_CODE if it cannot be
+     *         encoded
+     */
+    static int bayerCode(byte[] bytes, int start, int end) {
+        if (start == end) {
+            return NO_BAYER;
+        }
+
+        // The optional suffix, made of a dash and a non-zero digit
+        int suffix = 0, letterEnd = end;
+        if (end - start > 2 && bytes[end - 2] == '-' && '1' <= bytes[end - 1] && bytes[end - 1] <= '9') {
+            suffix = bytes[end - 1] - '0';
+            letterEnd = end - 2;
+        }
+
+        int letter = GREEK_LETTER_CODES.get(packed(bytes, start, letterEnd));
+        return letter == IntIntHashMap.NO_VALUE ? NO_CODE : 10 * (letter + 1) + suffix;
+    }
+
+    /**
+     * Tells if the given code is the code of a Bayer designation (or of its absence).
+     *
+     * @param bayerCode
+     *            The code
+     * @return true if the code is valid, false otherwise
+     */
+    static boolean isValidBayerCode(int bayerCode) {
+        return bayerCode == NO_BAYER || (10 <= bayerCode && bayerCode < 10 * (GREEK_LETTERS.size() + 1));
+    }
+
+    /**
+     * Returns the name of the star with the given Bayer designation and constellation.
+     *
+     * @param bayerCode
+     *            The code of the Bayer designation
+     * @param constellationCode
+     *            The code of the constellation
+     * @return the name of the star
+     */
+    static String name(int bayerCode, int constellationCode) {
+        String constellation = CONSTELLATIONS.get(constellationCode);
+        if (bayerCode == NO_BAYER) {
+            return "? " + constellation;
+        }
+
+        String letter = GREEK_LETTERS.get(bayerCode / 10 - 1);
+        int suffix = bayerCode % 10;
+        return suffix == 0 ?
+                letter + " " + constellation :
+                letter + "-" + suffix + " " + constellation;
+    }
+
+    /**
+     * Additional method.
+     * Returns the map associating to the packed characters of each given string its position.
+     *
+     * @param strings
+     *            The strings, of at most three ASCII characters
+     * @return the map of the positions of the strings
+     */
+    private static IntIntHashMap codes(List<String> strings) {
+        IntIntHashMap codes = new IntIntHashMap(strings.size());
+        for (int i = 0; i < strings.size(); ++i) {
+            byte[] bytes = strings.get(i).getBytes(StandardCharsets.US_ASCII);
+            codes.put(packed(bytes, 0, bytes.length), i);
+        }
+        return codes;
+    }
+
+    /**
+     * Additional method.
+     * Packs the (at most three) characters between the given positions into an integer, along with their number.
+     *
+     * @param bytes
+     *            The characters, encoded in ASCII
+     * @param start
+     *            The position of the first character (inclusive)
+     * @param end
+     *            The position of the last character (exclusive)
+     * @return the packed characters, or -1 if there are more than three characters
+     */
+    private static int packed(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length > 3) {
+            return -1;
+        }
+
+        int packed = length;
+        for (int i = start; i < end; ++i) {
+            packed = (packed << 8) | (bytes[i] & 0xFF);
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,207 @@
+package ch.epfl.rigel.astronomy;
+
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import static java.lang.Math.*;
+
+/**
+ * Additional class.
+ * The equatorial positions of all the stars of a table at a given year, obtained by propagating their positions at
+ * the epoch of the catalogue (J2000) with their proper motions. Each star moves at constant angular speed along the
+ * great circle of its proper motion (which is valid at all declinations, the stars crossing the celestial poles), and
+ * the propagation is computed in one pass over the columns of the table. The unit vectors of the positions are
+ * propagated along with them, so that the stars can be projected by rotations.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class StarPositions {
+
+    private final int year;
+    private final int size;
+    private final double[] ra, dec; // The propagated equatorial positions (in radians)
+    private final double[] unitVector; // Their unit vectors (the coordinates x, y and z of each star, in this order)
+
+    // The year of the epoch of the positions of the catalogue (J2000)
+    public static final int CATALOGUE_EPOCH_YEAR = 2000;
+
+    // The number of stars below which the positions are propagated sequentially, and the number of stars propagated
+    // by each parallel task
+    private static final int MIN_PARALLEL_SIZE = 1 << 14, CHUNK_SIZE = 1 << 12;
+
+    private static final double TAU = 2 * PI;
+
+    /**
+     * Constructs the positions of the stars at the given year, with the given columns, which are not copied.
+     */
+    private StarPositions(int year, int size, double[] ra, double[] dec, double[] unitVector) {
+        this.year = year;
+        this.size = size;
+        this.ra = ra;
+        this.dec = dec;
+        this.unitVector = unitVector;
+    }
+
+    /**
+     * Returns the positions of the stars of the given table at the given year. The positions of a table without proper
+     * motions, or at the epoch of the catalogue, are not copied.
+     *
+     * @param table
+     *            The table of the stars
+     * @param year
+     *            The year
+     * @return the positions of the stars at the given year
+     */
+    static StarPositions of(StarTable table, int year) {
+        int size = table.size();
+        double years = year - CATALOGUE_EPOCH_YEAR;
+        if (years == 0 || !table.hasProperMotions()) {
+            return new StarPositions(year, size, table.raColumn(), table.decColumn(), table.unitVectorColumn());
+        }
+
+        double[] ra = new double[size], dec = new double[size], unitVector = new double[3 * size];
+        if (size < MIN_PARALLEL_SIZE) {
+            propagate(table, years, 0, size, ra, dec, unitVector);
+        } else {
+            // The chunks of stars are independent, and thus propagated in parallel
+            int chunkCount = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            IntStream.range(0, chunkCount).parallel().forEach(c -> propagate(table, years, c * CHUNK_SIZE,
+                    min(size, (c + 1) * CHUNK_SIZE), ra, dec, unitVector));
+        }
+        return new StarPositions(year, size, ra, dec, unitVector);
+    }
+
+    /**
+     * Returns the year of these positions.
+     * @return the year of these positions
+     */
+    public int year() {
+        return year;
+    }
+
+    /**
+     * Returns the number of stars.
+     * @return the number of stars
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the right ascension (in radians) of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the right ascension (in radians) of the star, in [0,2*PI[
+     */
+    public double ra(int index) {
+        return ra[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the declination (in radians) of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the declination (in radians) of the star, in [-PI/2,PI/2]
+     */
+    public double dec(int index) {
+        return dec[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Additional method.
+     * Returns the array of the right ascensions, which must not be modified (and may be longer than the number of
+     * stars).
+     * @return the array of the right ascensions
+     */
+    double[] raColumn() {
+        return ra;
+    }
+
+    /**
+     * Additional method.
+     * Returns the array of the declinations, which must not be modified (and may be longer than the number of stars).
+     * @return the array of the declinations
+     */
+    double[] decColumn() {
+        return dec;
+    }
+
+    /**
+     * Additional method.
+     * Returns the array of the equatorial unit vectors (the coordinates x, y and z of the star at index i being at the
+     * indices 3i, 3i+1 and 3i+2), which must not be modified.
+     * @return the array of the equatorial unit vectors
+     */
+    double[] unitVectorColumn() {
+        return unitVector;
+    }
+
+    /**
+     * Additional method.
+     * Propagates the positions of the stars between the given indices by the given number of years, by rotating their
+     * unit vectors along the great circles of their proper motions. The proper motion in right ascension of the HYG
+     * catalogue being multiplied by the cosine of the declination, both proper motions are angular speeds on the sky,
+     * respectively towards the east and the north.
+     *
+     * @param table
+     *            The table of the stars
+     * @param years
+     *            The number of years elapsed since the epoch of the catalogue
+     * @param from
+     *            The index of the first star (inclusive)
+     * @param to
+     *            The index of the last star (exclusive)
+     * @param ra
+     *            The propagated right ascensions
+     * @param dec
+     *            The propagated declinations
+     * @param unitVector
+     *            The unit vectors of the propagated positions
+     */
+    private static void propagate(StarTable table, double years, int from, int to, double[] ra, double[] dec,
+                                  double[] unitVector) {
+        double[] unitVector0 = table.unitVectorColumn();
+        for (int i = from; i < to; ++i) {
+            double pmRa = table.pmRa(i), pmDec = table.pmDec(i);
+            double properMotion = hypot(pmRa, pmDec);
+            if (properMotion == 0) {
+                ra[i] = table.ra(i);
+                dec[i] = table.dec(i);
+                System.arraycopy(unitVector0, 3 * i, unitVector, 3 * i, 3);
+                continue;
+            }
+
+            double x = unitVector0[3 * i], y = unitVector0[3 * i + 1], z = unitVector0[3 * i + 2];
+            double cosRa = cos(table.ra(i)), sinRa = sin(table.ra(i));
+            double cosDec = cos(table.dec(i)), sinDec = sin(table.dec(i));
+
+            // The direction of the proper motion, in the local basis of the directions of the east and the north
+            // (which is defined even at the poles, by the right ascension of the star)
+            double east = pmRa / properMotion, north = pmDec / properMotion;
+            double dx = -east * sinRa - north * sinDec * cosRa;
+            double dy = east * cosRa - north * sinDec * sinRa;
+            double dz = north * cosDec;
+
+            // The rotation by the angle travelled along the great circle
+            double angle = properMotion * years;
+            double cosAngle = cos(angle), sinAngle = sin(angle);
+            double px = x * cosAngle + dx * sinAngle;
+            double py = y * cosAngle + dy * sinAngle;
+            double pz = z * cosAngle + dz * sinAngle;
+
+            // The right ascension is reduced to [0,2*PI[ (the rounding of a tiny negative one possibly giving 2*PI)
+            double propagatedRa = atan2(py, px);
+            if (propagatedRa < 0) {
+                propagatedRa += TAU;
+            }
+            ra[i] = propagatedRa < TAU ? propagatedRa : 0;
+            dec[i] = atan2(pz, hypot(px, py));
+            unitVector[3 * i] = px;
+            unitVector[3 * i + 1] = py;
+            unitVector[3 * i + 2] = pz;
+        }
+    }
+}
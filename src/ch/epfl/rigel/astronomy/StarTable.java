@@ -0,0 +1,1047 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Additional class.
+ * A table of stars, stored column by column in arrays of primitive values, so that the stars can be iterated over
+ * without following any reference. The star objects themselves are views on the rows of the table, materialized only
+ * when asked for and then kept, so that a given row always corresponds to the same star.
+ *
+ * The names made of a Bayer designation and a constellation are stored as two codes (see {@link StarNames}), and the
+ * corresponding strings are only built when they are first asked for. The other (proper) names are stored as given.
+ * The constellation of each star is kept whichever way its name is stored, so that the stars can be grouped by
+ * constellation (see {@link ConstellationIndex}).
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class StarTable {
+
+    private final int size;
+
+    private final double[] ra, dec; // The equatorial positions (in radians)
+    private final float[] magnitude, colorIndex;
+    private final float[] pmRa, pmDec; // The proper motions (in radians per year), the first one times cos(dec)
+    private final int[] colorTemperature, hipparcosId;
+    private final short[] temperatureBin; // The color temperatures rounded to the closest hundred, minus 1000, over 100
+    private final double[] discSize;
+
+    // The equatorial unit vectors of the positions (the coordinates x, y and z of each star, in this order), so that
+    // the stars can be projected by rotations, without evaluating trigonometric functions
+    private final double[] unitVector;
+
+    // The codes of the Bayer designations (GIVEN_NAME for the stars whose name is stored as given) and of the
+    // constellations (NO_CODE for the stars whose constellation is unknown)
+    private final byte[] bayerCode, constellationCode;
+    private final String[] name; // The given names, and the names built so far from their codes
+
+    private final Star[] stars; // The materialized stars (null when not materialized yet)
+    private final boolean sortedByMagnitude;
+
+    // The maximum angular speed (in radians per year) of the stars due to their proper motions
+    private final double maxProperMotion;
+
+    // The atomic accesses to the elements of the columns of the names and of the stars, which are filled lazily
+    // (these columns being handed over by the builder, they are not wrapped in atomic arrays, which would copy them)
+    private static final VarHandle NAMES = MethodHandles.arrayElementVarHandle(String[].class);
+    private static final VarHandle STARS = MethodHandles.arrayElementVarHandle(Star[].class);
+
+    /**
+     * Constructs a table of stars with the given columns, which are not copied.
+     *
+     * @param size
+     *            The number of stars
+     * @param ra
+     *            The right ascensions (in radians)
+     * @param dec
+     *            The declinations (in radians)
+     * @param magnitude
+     *            The magnitudes (unitless)
+     * @param colorIndex
+     *            The B-V color indices
+     * @param pmRa
+     *            The proper motions in right ascension, times the cosines of the declinations (in radians per year)
+     * @param pmDec
+     *            The proper motions in declination (in radians per year)
+     * @param hipparcosId
+     *            The Hipparcos identification numbers
+     * @param name
+     *            The names given as strings (null for the names given as codes)
+     * @param bayerCode
+     *            The codes of the Bayer designations (GIVEN_NAME for the names given as strings)
+     * @param constellationCode
+     *            The codes of the constellations (NO_CODE for the unknown constellations)
+     * @param stars
+     *            The already materialized stars (null for the other rows)
+     */
+    private StarTable(int size, double[] ra, double[] dec, float[] magnitude, float[] colorIndex, float[] pmRa,
+                      float[] pmDec, int[] hipparcosId, String[] name, byte[] bayerCode, byte[] constellationCode,
+                      Star[] stars) {
+        this.size = size;
+        this.ra = ra;
+        this.dec = dec;
+        this.magnitude = magnitude;
+        this.colorIndex = colorIndex;
+        this.pmRa = pmRa;
+        this.pmDec = pmDec;
+        this.hipparcosId = hipparcosId;
+        this.name = name;
+        this.bayerCode = bayerCode;
+        this.constellationCode = constellationCode;
+        this.stars = stars;
+
+        this.colorTemperature = new int[size];
+        this.temperatureBin = new short[size];
+        this.discSize = new double[size];
+        this.unitVector = new double[3 * size];
+        boolean sorted = true;
+        double maxMotion = 0;
+        for (int i = 0; i < size; ++i) {
+            sorted &= (i == 0 || magnitude[i - 1] <= magnitude[i]);
+            maxMotion = Math.max(maxMotion, Math.hypot(pmRa[i], pmDec[i]));
+            colorTemperature[i] = Star.colorTemperatureFor(colorIndex[i]);
+            temperatureBin[i] = (short) (Math.round(colorTemperature[i] / 100.0) - 10);
+            discSize[i] = CelestialObject.discSizeFor(magnitude[i]);
+            unitVector(ra[i], dec[i], unitVector, i);
+        }
+        this.sortedByMagnitude = sorted;
+        this.maxProperMotion = maxMotion;
+    }
+
+    /**
+     * Returns the table of the given stars, which are kept as the materialized stars of the table.
+     *
+     * @param stars
+     *            The stars
+     * @return the table of the given stars
+     */
+    public static StarTable of(List<Star> stars) {
+        Builder builder = new Builder();
+        for (Star s : stars) {
+            builder.add(s);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of stars in this table.
+     * @return the number of stars in this table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the right ascension (in radians) of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the right ascension (in radians) of the star
+     */
+    public double ra(int index) {
+        return ra[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the declination (in radians) of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the declination (in radians) of the star
+     */
+    public double dec(int index) {
+        return dec[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the magnitude (unitless) of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the magnitude of the star
+     */
+    public double magnitude(int index) {
+        return magnitude[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the proper motion in right ascension of the star at the given index, multiplied by the cosine of its
+     * declination (as in the HYG catalogue).
+     *
+     * @param index
+     *            The index of the star
+     * @return the proper motion in right ascension, times the cosine of the declination (in radians per year)
+     */
+    public double pmRa(int index) {
+        return pmRa[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the proper motion in declination of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the proper motion in declination (in radians per year)
+     */
+    public double pmDec(int index) {
+        return pmDec[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Tells if at least one star of this table has a proper motion.
+     * @return true if at least one star has a proper motion, false otherwise
+     */
+    public boolean hasProperMotions() {
+        return maxProperMotion > 0;
+    }
+
+    /**
+     * Returns the maximum angular speed of the stars of this table due to their proper motions, which bounds the
+     * angular distance covered by any star during a given time.
+     * @return the maximum angular speed of the stars (in radians per year)
+     */
+    public double maxProperMotion() {
+        return maxProperMotion;
+    }
+
+    /**
+     * Returns the color temperature (in degrees Kelvin) of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the color temperature of the star
+     */
+    public int colorTemperature(int index) {
+        return colorTemperature[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the bin of the color temperature of the star at the given index, i.e. (T - 1000) / 100 for its color
+     * temperature T rounded to the closest hundred, which indexes the palette of the colors of the black bodies.
+     *
+     * @param index
+     *            The index of the star
+     * @return the bin of the color temperature of the star
+     */
+    public int temperatureBin(int index) {
+        return temperatureBin[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the Hipparcos identification number of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the Hipparcos identification number of the star
+     */
+    public int hipparcosId(int index) {
+        return hipparcosId[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Returns the size of the disc corresponding to the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the size of the disc corresponding to the star
+     */
+    public double discSize(int index) {
+        return discSize[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Tells if the star at the given index is bright.
+     *
+     * @param index
+     *            The index of the star
+     * @return true if the star is bright, false otherwise
+     */
+    public boolean isBright(int index) {
+        return CelestialObject.isBright(magnitude[Objects.checkIndex(index, size)]);
+    }
+
+    /**
+     * Returns the name of the star at the given index, built from its codes at its first request.
+     *
+     * @param index
+     *            The index of the star
+     * @return the name of the star
+     */
+    public String name(int index) {
+        String starName = (String) NAMES.getVolatile(name, Objects.checkIndex(index, size));
+        if (starName == null) {
+            String built = StarNames.name(Byte.toUnsignedInt(bayerCode[index]), constellationCode[index]);
+
+            // Only one name is kept if several threads build the same name at the same time
+            starName = NAMES.compareAndSet(name, index, null, built) ? built : (String) NAMES.getVolatile(name, index);
+        }
+        return starName;
+    }
+
+    /**
+     * Returns the star at the given index, materialized at its first request.
+     *
+     * @param index
+     *            The index of the star
+     * @return the star at the given index
+     */
+    public Star star(int index) {
+        Star star = (Star) STARS.getVolatile(stars, Objects.checkIndex(index, size));
+        if (star == null) {
+            Star materialized = new Star(hipparcosId[index], name(index), EquatorialCoordinates.of(ra[index], dec[index]),
+                    magnitude[index], colorIndex[index]);
+
+            // Only one star is kept if several threads materialize the same row at the same time
+            star = STARS.compareAndSet(stars, index, null, materialized) ? materialized :
+                    (Star) STARS.getVolatile(stars, index);
+        }
+        return star;
+    }
+
+    /**
+     * Tells if the stars of this table are ordered by increasing magnitude.
+     * @return true if the stars are ordered by increasing magnitude, false otherwise
+     */
+    public boolean isSortedByMagnitude() {
+        return sortedByMagnitude;
+    }
+
+    /**
+     * Returns the number of stars with a magnitude less than or equal to the given limiting magnitude, which are the
+     * first stars of the table if it is ordered by magnitude.
+     *
+     * @param limitingMagnitude
+     *            The limiting magnitude
+     * @return the number of stars at most as faint as the limiting magnitude if the table is ordered by magnitude,
+     *         the number of stars of the table otherwise
+     */
+    public int brighterStarCount(double limitingMagnitude) {
+        if (!sortedByMagnitude) {
+            return size;
+        }
+
+        // Binary search of the first star fainter than the limiting magnitude
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (magnitude[middle] <= limitingMagnitude) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Additional method.
+     * Returns the star at the given index if it has already been materialized.
+     *
+     * @param index
+     *            The index of the star
+     * @return the star at the given index, or null if it has not been materialized yet
+     */
+    Star materializedStar(int index) {
+        return (Star) STARS.getVolatile(stars, Objects.checkIndex(index, size));
+    }
+
+    /**
+     * Additional method.
+     * Returns the B-V color index of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the B-V color index of the star
+     */
+    float colorIndex(int index) {
+        return colorIndex[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Additional method.
+     * Returns the column of the right ascensions, which must not be modified.
+     * @return the column of the right ascensions
+     */
+    double[] raColumn() {
+        return ra;
+    }
+
+    /**
+     * Additional method.
+     * Returns the column of the declinations, which must not be modified.
+     * @return the column of the declinations
+     */
+    double[] decColumn() {
+        return dec;
+    }
+
+    /**
+     * Additional method.
+     * Returns the column of the equatorial unit vectors (the coordinates x, y and z of the star at index i being at
+     * the indices 3i, 3i+1 and 3i+2), which must not be modified.
+     * @return the column of the equatorial unit vectors
+     */
+    double[] unitVectorColumn() {
+        return unitVector;
+    }
+
+    /**
+     * Additional method.
+     * Writes the unit vector of the given equatorial position in the given array of unit vectors, the x axis pointing
+     * to the vernal equinox and the z axis to the north celestial pole.
+     *
+     * @param ra
+     *            The right ascension (in radians)
+     * @param dec
+     *            The declination (in radians)
+     * @param unitVectors
+     *            The array of the unit vectors
+     * @param index
+     *            The index of the unit vector, whose coordinates are at the indices 3*index to 3*index+2
+     */
+    static void unitVector(double ra, double dec, double[] unitVectors, int index) {
+        double cosDec = Math.cos(dec);
+        unitVectors[3 * index] = cosDec * Math.cos(ra);
+        unitVectors[3 * index + 1] = cosDec * Math.sin(ra);
+        unitVectors[3 * index + 2] = Math.sin(dec);
+    }
+
+    /**
+     * Additional method.
+     * Returns the code of the Bayer designation of the star at the given index.
+     *
+     * @param index
+     *            The index of the star
+     * @return the code of the Bayer designation of the star, or GIVEN_NAME if its name is given as a string
+     */
+    int bayerCode(int index) {
+        return Byte.toUnsignedInt(bayerCode[Objects.checkIndex(index, size)]);
+    }
+
+    /**
+     * Additional method.
+     * Tells if the name of the star at the given index is a catalogue designation (a Bayer designation and a
+     * constellation) stored as codes, rather than a name stored as given.
+     *
+     * @param index
+     *            The index of the star
+     * @return true if the name of the star is stored as codes, false otherwise
+     */
+    boolean hasEncodedName(int index) {
+        return bayerCode(index) != StarNames.GIVEN_NAME;
+    }
+
+    /**
+     * Additional method.
+     * Returns the code of the constellation of the star at the given index, i.e. its position in the list of the
+     * constellations of the {@link ConstellationIndex}, whatever the way its name is stored.
+     *
+     * @param index
+     *            The index of the star
+     * @return the code of the constellation of the star, or -1 if it is unknown
+     */
+    public int constellationCode(int index) {
+        return constellationCode[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Additional class.
+     * A builder of a table of stars, whose columns grow as the stars are added.
+     *
+     * The columns are handed over to the built table without being copied when they are exactly filled (e.g. when the
+     * number of stars has been reserved beforehand), and trimmed otherwise. A builder modified after having built a
+     * table first copies its columns, which then belong to the table.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    static final class Builder {
+
+        private int size;
+
+        private double[] ra, dec;
+        private float[] magnitude, colorIndex;
+        private float[] pmRa, pmDec;
+        private int[] hipparcosId;
+        private String[] name;
+        private byte[] bayerCode, constellationCode;
+        private Star[] stars;
+
+        private StarFilter filter = StarFilter.ALL; // The filter of the stars added to the table
+        private boolean shared; // Tells if the columns belong to a built table
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * Default constructor.
+         * Constructs a builder such that the table under construction is initially empty.
+         */
+        Builder() {
+            this(INITIAL_CAPACITY);
+        }
+
+        /**
+         * Additional constructor.
+         * Constructs a builder such that the table under construction is initially empty, and whose columns can
+         * contain the given number of stars without growing.
+         *
+         * @param capacity
+         *            The initial capacity of the columns
+         * @throws IllegalArgumentException
+         *             if the capacity is negative
+         */
+        Builder(int capacity) {
+            Preconditions.checkArgument(capacity >= 0);
+            ra = new double[capacity];
+            dec = new double[capacity];
+            magnitude = new float[capacity];
+            colorIndex = new float[capacity];
+            pmRa = new float[capacity];
+            pmDec = new float[capacity];
+            hipparcosId = new int[capacity];
+            name = new String[capacity];
+            bayerCode = new byte[capacity];
+            constellationCode = new byte[capacity];
+            stars = new Star[capacity];
+        }
+
+        /**
+         * Adds a star with the given characteristics to the table under construction.
+         *
+         * @param hipparcosId
+         *            The star's identification number in the Hipparcos catalogue
+         * @param name
+         *            The star's name
+         * @param ra
+         *            The star's right ascension (in radians)
+         * @param dec
+         *            The star's declination (in radians)
+         * @param magnitude
+         *            The star's magnitude (unitless)
+         * @param colorIndex
+         *            The star's B-V color index
+         * @throws IllegalArgumentException
+         *             if the Hipparcos ID is < 0, the color index is not contained in [-0.5,5.5],
+         *             and/or the equatorial position is not valid
+         * @throws NullPointerException
+         *             if the name is null
+         * @return this builder
+         */
+        Builder add(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex) {
+            return add(hipparcosId, name, ra, dec, magnitude, colorIndex, 0, 0);
+        }
+
+        /**
+         * Adds a star with the given characteristics, including its proper motion, to the table under construction.
+         *
+         * @param hipparcosId
+         *            The star's identification number in the Hipparcos catalogue
+         * @param name
+         *            The star's name
+         * @param ra
+         *            The star's right ascension (in radians)
+         * @param dec
+         *            The star's declination (in radians)
+         * @param magnitude
+         *            The star's magnitude (unitless)
+         * @param colorIndex
+         *            The star's B-V color index
+         * @param pmRa
+         *            The star's proper motion in right ascension, times the cosine of its declination (in radians per
+         *            year)
+         * @param pmDec
+         *            The star's proper motion in declination (in radians per year)
+         * @throws IllegalArgumentException
+         *             if the Hipparcos ID is < 0, the color index is not contained in [-0.5,5.5], the equatorial
+         *             position is not valid and/or a proper motion is not finite
+         * @throws NullPointerException
+         *             if the name is null
+         * @return this builder
+         */
+        Builder add(int hipparcosId, String name, double ra, double dec, float magnitude, float colorIndex,
+                    float pmRa, float pmDec) {
+            return add(hipparcosId, name, StarNames.NO_CODE, ra, dec, magnitude, colorIndex, pmRa, pmDec);
+        }
+
+        /**
+         * Additional method.
+         * Adds a star with the given characteristics, including its name (stored as given) and the code of its
+         * constellation, to the table under construction.
+         *
+         * @param hipparcosId
+         *            The star's identification number in the Hipparcos catalogue
+         * @param name
+         *            The star's name
+         * @param constellationCode
+         *            The code of the star's constellation, or NO_CODE if it is unknown
+         * @param ra
+         *            The star's right ascension (in radians)
+         * @param dec
+         *            The star's declination (in radians)
+         * @param magnitude
+         *            The star's magnitude (unitless)
+         * @param colorIndex
+         *            The star's B-V color index
+         * @param pmRa
+         *            The star's proper motion in right ascension, times the cosine of its declination (in radians per
+         *            year)
+         * @param pmDec
+         *            The star's proper motion in declination (in radians per year)
+         * @throws IllegalArgumentException
+         *             if the Hipparcos ID is < 0, the constellation code is not valid, the color index is not
+         *             contained in [-0.5,5.5], the equatorial position is not valid and/or a proper motion is not finite
+         * @throws NullPointerException
+         *             if the name is null
+         * @return this builder
+         */
+        Builder add(int hipparcosId, String name, int constellationCode, double ra, double dec, float magnitude,
+                    float colorIndex, float pmRa, float pmDec) {
+            Preconditions.checkArgument(hipparcosId >= 0);
+            Preconditions.checkArgument(StarNames.NO_CODE <= constellationCode
+                    && constellationCode < StarNames.CONSTELLATIONS.size());
+            Preconditions.checkInInterval(Star.COLOR_INDEX_INTERVAL, colorIndex);
+            Preconditions.checkArgument(EquatorialCoordinates.isValidRa(ra) && EquatorialCoordinates.isValidDec(dec));
+            Preconditions.checkArgument(Float.isFinite(pmRa) && Float.isFinite(pmDec));
+            Objects.requireNonNull(name);
+
+            return append(hipparcosId, name, StarNames.GIVEN_NAME, constellationCode, ra, dec, magnitude, colorIndex,
+                    pmRa, pmDec, null);
+        }
+
+        /**
+         * Adds a star with the given characteristics to the table under construction, its name being given by the
+         * codes of its Bayer designation and constellation (see {@link StarNames}).
+         *
+         * @param hipparcosId
+         *            The star's identification number in the Hipparcos catalogue
+         * @param bayerCode
+         *            The code of the star's Bayer designation
+         * @param constellationCode
+         *            The code of the star's constellation
+         * @param ra
+         *            The star's right ascension (in radians)
+         * @param dec
+         *            The star's declination (in radians)
+         * @param magnitude
+         *            The star's magnitude (unitless)
+         * @param colorIndex
+         *            The star's B-V color index
+         * @param pmRa
+         *            The star's proper motion in right ascension, times the cosine of its declination (in radians per
+         *            year)
+         * @param pmDec
+         *            The star's proper motion in declination (in radians per year)
+         * @throws IllegalArgumentException
+         *             if the Hipparcos ID is < 0, a code is not valid, the color index is not contained in
+         *             [-0.5,5.5], the equatorial position is not valid and/or a proper motion is not finite
+         * @return this builder
+         */
+        Builder add(int hipparcosId, int bayerCode, int constellationCode, double ra, double dec, float magnitude,
+                    float colorIndex, float pmRa, float pmDec) {
+            Preconditions.checkArgument(hipparcosId >= 0);
+            Preconditions.checkArgument(StarNames.isValidBayerCode(bayerCode));
+            Preconditions.checkArgument(0 <= constellationCode && constellationCode < StarNames.CONSTELLATIONS.size());
+            Preconditions.checkInInterval(Star.COLOR_INDEX_INTERVAL, colorIndex);
+            Preconditions.checkArgument(EquatorialCoordinates.isValidRa(ra) && EquatorialCoordinates.isValidDec(dec));
+            Preconditions.checkArgument(Float.isFinite(pmRa) && Float.isFinite(pmDec));
+
+            return append(hipparcosId, null, bayerCode, constellationCode, ra, dec, magnitude, colorIndex, pmRa, pmDec,
+                    null);
+        }
+
+        /**
+         * Adds the given (materialized) star to the table under construction.
+         *
+         * @param star
+         *            The star
+         * @throws NullPointerException
+         *             if the star is null
+         * @return this builder
+         */
+        Builder add(Star star) {
+            return append(star.hipparcosId(), star.name(), StarNames.GIVEN_NAME, StarNames.NO_CODE,
+                    star.equatorialPos().ra(), star.equatorialPos().dec(), (float) star.magnitude(), star.colorIndex(),
+                    0, 0, star);
+        }
+
+        /**
+         * Sets the filter of the stars added from now on to the table under construction, the stars it rejects being
+         * silently ignored.
+         *
+         * @param filter
+         *            The filter of the stars
+         * @throws NullPointerException
+         *             if the filter is null
+         * @return this builder
+         */
+        Builder filter(StarFilter filter) {
+            this.filter = Objects.requireNonNull(filter);
+            return this;
+        }
+
+        /**
+         * Returns the filter of the stars added to the table under construction.
+         * @return the filter of the stars added to the table under construction
+         */
+        StarFilter filter() {
+            return filter;
+        }
+
+        /**
+         * Adds all the stars of the given builder to the table under construction, in their order.
+         *
+         * @param that
+         *            The builder whose stars are added
+         * @return this builder
+         */
+        Builder addAll(Builder that) {
+            if (filter != StarFilter.ALL && filter != that.filter) {
+                // The stars of the other builder have not been filtered by this filter, and are thus added one by one
+                for (int i = 0; i < that.size; ++i) {
+                    append(that.hipparcosId[i], that.name[i], Byte.toUnsignedInt(that.bayerCode[i]),
+                            that.constellationCode[i], that.ra[i], that.dec[i], that.magnitude[i], that.colorIndex[i],
+                            that.pmRa[i], that.pmDec[i], that.stars[i]);
+                }
+                return this;
+            }
+
+            ensureCapacity(size + that.size);
+            System.arraycopy(that.ra, 0, ra, size, that.size);
+            System.arraycopy(that.dec, 0, dec, size, that.size);
+            System.arraycopy(that.magnitude, 0, magnitude, size, that.size);
+            System.arraycopy(that.colorIndex, 0, colorIndex, size, that.size);
+            System.arraycopy(that.pmRa, 0, pmRa, size, that.size);
+            System.arraycopy(that.pmDec, 0, pmDec, size, that.size);
+            System.arraycopy(that.hipparcosId, 0, hipparcosId, size, that.size);
+            System.arraycopy(that.name, 0, name, size, that.size);
+            System.arraycopy(that.bayerCode, 0, bayerCode, size, that.size);
+            System.arraycopy(that.constellationCode, 0, constellationCode, size, that.size);
+            System.arraycopy(that.stars, 0, stars, size, that.size);
+            size += that.size;
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Adds the star at the given index of the given builder to the table under construction, unless it is
+         * rejected by the filter of this builder. Its materialized star, if any, is kept.
+         *
+         * @param that
+         *            The builder of the star
+         * @param index
+         *            The index of the star in the given builder
+         * @return true if the star has been added, false if it has been rejected
+         */
+        boolean addRow(Builder that, int index) {
+            Objects.checkIndex(index, that.size);
+            int formerSize = size;
+            append(that.hipparcosId[index], that.name[index], Byte.toUnsignedInt(that.bayerCode[index]),
+                    that.constellationCode[index], that.ra[index], that.dec[index], that.magnitude[index],
+                    that.colorIndex[index], that.pmRa[index], that.pmDec[index], that.stars[index]);
+            return size != formerSize;
+        }
+
+        /**
+         * Additional method.
+         * Replaces the star at the given index of the table under construction by the star at the given index of the
+         * given builder, whose materialized star (if any) is kept.
+         *
+         * @param index
+         *            The index of the replaced star
+         * @param that
+         *            The builder of the new star
+         * @param thatIndex
+         *            The index of the new star in the given builder
+         */
+        void setRow(int index, Builder that, int thatIndex) {
+            Objects.checkIndex(index, size);
+            Objects.checkIndex(thatIndex, that.size);
+            ensureCapacity(size);
+            hipparcosId[index] = that.hipparcosId[thatIndex];
+            name[index] = that.name[thatIndex];
+            bayerCode[index] = that.bayerCode[thatIndex];
+            constellationCode[index] = that.constellationCode[thatIndex];
+            ra[index] = that.ra[thatIndex];
+            dec[index] = that.dec[thatIndex];
+            magnitude[index] = that.magnitude[thatIndex];
+            colorIndex[index] = that.colorIndex[thatIndex];
+            pmRa[index] = that.pmRa[thatIndex];
+            pmDec[index] = that.pmDec[thatIndex];
+            stars[index] = that.stars[thatIndex];
+        }
+
+        /**
+         * Additional method.
+         * Replaces the name of the star at the given index of the table under construction, its former materialized
+         * star (if any) being forgotten. Its constellation is kept.
+         *
+         * @param index
+         *            The index of the star
+         * @param starName
+         *            The new name of the star
+         * @throws NullPointerException
+         *             if the name is null
+         */
+        void setName(int index, String starName) {
+            Objects.checkIndex(index, size);
+            Objects.requireNonNull(starName);
+            ensureCapacity(size);
+            name[index] = starName;
+            bayerCode[index] = (byte) StarNames.GIVEN_NAME;
+            stars[index] = null;
+        }
+
+        /**
+         * Additional method.
+         * Returns the name of the star at the given index, built from its codes if needed (but not kept).
+         *
+         * @param index
+         *            The index of the star
+         * @return the name of the star
+         */
+        String name(int index) {
+            String starName = name[Objects.checkIndex(index, size)];
+            return starName != null ?
+                    starName :
+                    StarNames.name(Byte.toUnsignedInt(bayerCode[index]), constellationCode[index]);
+        }
+
+        /**
+         * Additional method.
+         * Tells if the name of the star at the given index is a catalogue designation (a Bayer designation and a
+         * constellation) stored as codes, rather than a name stored as given.
+         *
+         * @param index
+         *            The index of the star
+         * @return true if the name of the star is stored as codes, false otherwise
+         */
+        boolean hasEncodedName(int index) {
+            return Byte.toUnsignedInt(bayerCode[Objects.checkIndex(index, size)]) != StarNames.GIVEN_NAME;
+        }
+
+        /**
+         * Additional method.
+         * Returns the star at the given index if it has already been materialized.
+         *
+         * @param index
+         *            The index of the star
+         * @return the star at the given index, or null if it has not been materialized yet
+         */
+        Star materializedStar(int index) {
+            return stars[Objects.checkIndex(index, size)];
+        }
+
+        /**
+         * Returns the number of stars added so far.
+         * @return the number of stars added so far
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Returns the Hipparcos identification number of the star at the given index.
+         *
+         * @param index
+         *            The index of the star
+         * @return the Hipparcos identification number of the star
+         */
+        int hipparcosId(int index) {
+            return hipparcosId[Objects.checkIndex(index, size)];
+        }
+
+        /**
+         * Returns the star at the given index, materialized at its first request.
+         *
+         * @param index
+         *            The index of the star
+         * @return the star at the given index
+         */
+        Star star(int index) {
+            Star star = stars[Objects.checkIndex(index, size)];
+            if (star == null) {
+                star = new Star(hipparcosId[index], name(index), EquatorialCoordinates.of(ra[index], dec[index]),
+                        magnitude[index], colorIndex[index]);
+                ensureCapacity(size);
+                stars[index] = star;
+            }
+            return star;
+        }
+
+        /**
+         * Reorders the stars added so far by increasing magnitude, the stars of equal magnitudes keeping their order.
+         * The materialized stars are moved with their rows.
+         *
+         * @return this builder
+         */
+        Builder sortByMagnitude() {
+            // Sorts the magnitudes along with the indices, as longs whose high bits are the magnitudes (as integers
+            // ordered like the floats) and whose low bits are the indices, which makes the sort stable
+            long[] keys = new long[size];
+            for (int i = 0; i < size; ++i) {
+                int bits = Float.floatToIntBits(magnitude[i]);
+                int orderedBits = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+                keys[i] = ((long) orderedBits << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            int[] order = new int[size];
+            for (int i = 0; i < size; ++i) {
+                order[i] = (int) keys[i];
+            }
+
+            // The columns are reordered one after the other, so that at most one former column is alive with the
+            // reordered ones (which are exactly filled, and thus handed over as is to the built table)
+            ra = permuted(ra, order);
+            dec = permuted(dec, order);
+            magnitude = permuted(magnitude, order);
+            colorIndex = permuted(colorIndex, order);
+            pmRa = permuted(pmRa, order);
+            pmDec = permuted(pmDec, order);
+            hipparcosId = permuted(hipparcosId, order);
+            name = permuted(name, order);
+            bayerCode = permuted(bayerCode, order);
+            constellationCode = permuted(constellationCode, order);
+            stars = permuted(stars, order);
+            shared = false;
+            return this;
+        }
+
+        /**
+         * Returns the table of the stars added so far, to which the columns are handed over.
+         * @return the table of the stars added so far
+         */
+        StarTable build() {
+            if (ra.length != size) {
+                // The columns are trimmed one after the other
+                ra = Arrays.copyOf(ra, size);
+                dec = Arrays.copyOf(dec, size);
+                magnitude = Arrays.copyOf(magnitude, size);
+                colorIndex = Arrays.copyOf(colorIndex, size);
+                pmRa = Arrays.copyOf(pmRa, size);
+                pmDec = Arrays.copyOf(pmDec, size);
+                hipparcosId = Arrays.copyOf(hipparcosId, size);
+                name = Arrays.copyOf(name, size);
+                bayerCode = Arrays.copyOf(bayerCode, size);
+                constellationCode = Arrays.copyOf(constellationCode, size);
+                stars = Arrays.copyOf(stars, size);
+            }
+            shared = true;
+            return new StarTable(size, ra, dec, magnitude, colorIndex, pmRa, pmDec, hipparcosId, name, bayerCode,
+                    constellationCode, stars);
+        }
+
+        /**
+         * Additional method.
+         * Appends a row to the columns of the table under construction, unless it is rejected by the filter.
+         */
+        private Builder append(int hipparcosId, String name, int bayerCode, int constellationCode, double ra,
+                               double dec, float magnitude, float colorIndex, float pmRa, float pmDec, Star star) {
+            if (!filter.accepts(hipparcosId, ra, dec, magnitude)) {
+                return this;
+            }
+
+            ensureCapacity(size + 1);
+            this.hipparcosId[size] = hipparcosId;
+            this.name[size] = name;
+            this.bayerCode[size] = (byte) bayerCode;
+            this.constellationCode[size] = (byte) constellationCode;
+            this.ra[size] = ra;
+            this.dec[size] = dec;
+            this.magnitude[size] = magnitude;
+            this.colorIndex[size] = colorIndex;
+            this.pmRa[size] = pmRa;
+            this.pmDec[size] = pmDec;
+            this.stars[size] = star;
+            ++size;
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Grows the columns so that they can contain at least the given number of stars, and copies them if they
+         * belong to a built table.
+         *
+         * @param capacity
+         *            The minimum capacity of the columns
+         * @return this builder
+         */
+        Builder ensureCapacity(int capacity) {
+            if (capacity > ra.length || shared) {
+                int newCapacity = capacity > ra.length ? Math.max(capacity, 2 * ra.length) : ra.length;
+                ra = Arrays.copyOf(ra, newCapacity);
+                dec = Arrays.copyOf(dec, newCapacity);
+                magnitude = Arrays.copyOf(magnitude, newCapacity);
+                colorIndex = Arrays.copyOf(colorIndex, newCapacity);
+                pmRa = Arrays.copyOf(pmRa, newCapacity);
+                pmDec = Arrays.copyOf(pmDec, newCapacity);
+                hipparcosId = Arrays.copyOf(hipparcosId, newCapacity);
+                name = Arrays.copyOf(name, newCapacity);
+                bayerCode = Arrays.copyOf(bayerCode, newCapacity);
+                constellationCode = Arrays.copyOf(constellationCode, newCapacity);
+                stars = Arrays.copyOf(stars, newCapacity);
+                shared = false;
+            }
+            return this;
+        }
+
+        /**
+         * Additional method.
+         * Returns the given column reordered in the given order, i.e. whose i-th element is the order[i]-th one of
+         * the column.
+         */
+        private static double[] permuted(double[] column, int[] order) {
+            double[] permuted = new double[order.length];
+            for (int i = 0; i < order.length; ++i) permuted[i] = column[order[i]];
+            return permuted;
+        }
+
+        /**
+         * Additional method.
+         * @see #permuted(double[], int[])
+         */
+        private static float[] permuted(float[] column, int[] order) {
+            float[] permuted = new float[order.length];
+            for (int i = 0; i < order.length; ++i) permuted[i] = column[order[i]];
+            return permuted;
+        }
+
+        /**
+         * Additional method.
+         * @see #permuted(double[], int[])
+         */
+        private static int[] permuted(int[] column, int[] order) {
+            int[] permuted = new int[order.length];
+            for (int i = 0; i < order.length; ++i) permuted[i] = column[order[i]];
+            return permuted;
+        }
+
+        /**
+         * Additional method.
+         * @see #permuted(double[], int[])
+         */
+        private static byte[] permuted(byte[] column, int[] order) {
+            byte[] permuted = new byte[order.length];
+            for (int i = 0; i < order.length; ++i) permuted[i] = column[order[i]];
+            return permuted;
+        }
+
+        /**
+         * Additional method.
+         * @see #permuted(double[], int[])
+         */
+        private static <T> T[] permuted(T[] column, int[] order) {
+            T[] permuted = Arrays.copyOf(column, order.length);
+            for (int i = 0; i < order.length; ++i) permuted[i] = column[order[i]];
+            return permuted;
+        }
+    }
+}
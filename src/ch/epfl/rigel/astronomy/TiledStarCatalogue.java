@@ -0,0 +1,517 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Additional class.
+ * A catalogue of stars stored on disk in tiles, for catalogues too large to be loaded in memory. The stars are
+ * bucketed by cell of the hierarchical triangular mesh of the celestial sphere (see {@link CelestialSphereIndex}) and
+ * by band of magnitude, and ordered by magnitude within a tile.
+ *
+ * Only the tiles intersecting a given cap of the sky, down to a given limiting magnitude, are read : each tile is
+ * memory-mapped when first needed and then kept in a cache, whose least recently used tiles are dropped as soon as
+ * the mapped tiles exceed the memory budget of the catalogue.
+ *
+ * The file starts with a header (magic, version, depth of the mesh, bands of magnitude and maximal proper motion of
+ * the stars), followed by the directory of the tiles (offset, size in bytes and number of stars of each tile) and by
+ * the tiles themselves. A tile stores its stars column by column : right ascensions, declinations, magnitudes, color
+ * indices, proper motions, Hipparcos numbers, constellation codes, name offsets and name characters.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class TiledStarCatalogue implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final int depth;
+    private final float[] bandLimits; // The upper bounds of the bands of magnitude (the last one being infinite)
+    private final double maxProperMotion; // The maximal angular speed (in radians per year) of the stars
+
+    // The directory of the tiles, indexed by cell and then by band of magnitude
+    private final long[] tileOffset;
+    private final int[] tileSize, tileStarCount;
+
+    private final long memoryBudget;
+    private final Map<Integer, ByteBuffer> tiles; // The mapped tiles, from the least to the most recently used
+    private long cachedBytes;
+
+    // The last catalogue obtained from the tiles, and the cells and the limiting magnitude it was obtained with
+    private StarCatalogue lastCatalogue;
+    private int[] lastCells;
+    private double lastMagnitude;
+
+    // The identification of a tiled catalogue file ("RGLT" in ASCII) and the version of its format
+    private static final int MAGIC = 0x52474C54, VERSION = 2;
+
+    /**
+     * The default depth of the mesh of the tiles, i.e. 8192 cells of about 2.2 degrees.
+     */
+    public static final int DEFAULT_DEPTH = 5;
+
+    // The maximal depth of the mesh of the tiles
+    private static final int MAX_DEPTH = 10;
+
+    // The upper bounds of the bands of magnitude of the tiles, the stars fainter than the last one forming a last band
+    private static final float[] MAGNITUDE_BANDS = {3, 6, 9, 12, 15};
+
+    // The size (in bytes) of an entry of the directory : offset, size and number of stars of a tile
+    private static final int DIRECTORY_ENTRY_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * Opens the tiled catalogue stored in the given file.
+     *
+     * @param path
+     *            The path of the file of the catalogue
+     * @param memoryBudget
+     *            The maximal size (in bytes) of the tiles kept mapped
+     * @throws IllegalArgumentException
+     *             if the memory budget is negative
+     * @throws IOException
+     *             in case of input/output error, or if the file is not a tiled catalogue
+     */
+    public TiledStarCatalogue(Path path, long memoryBudget) throws IOException {
+        Preconditions.checkArgument(memoryBudget >= 0);
+        this.memoryBudget = memoryBudget;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true);
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            ByteBuffer header = read(0, 4 * Integer.BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Invalid tiled star catalogue");
+            }
+            depth = header.getInt();
+            int bandCount = header.getInt();
+            if (depth < 0 || depth > MAX_DEPTH || bandCount <= 0) {
+                throw new IOException("Invalid tiled star catalogue");
+            }
+
+            ByteBuffer bands = read(header.limit(), bandCount * Float.BYTES + Double.BYTES);
+            bandLimits = new float[bandCount];
+            for (int b = 0; b < bandCount; ++b) {
+                bandLimits[b] = bands.getFloat();
+            }
+            maxProperMotion = bands.getDouble();
+
+            int tileCount = cellCount(depth) * bandCount;
+            ByteBuffer directory = read(header.limit() + bands.limit(), (long) tileCount * DIRECTORY_ENTRY_SIZE);
+            tileOffset = new long[tileCount];
+            tileSize = new int[tileCount];
+            tileStarCount = new int[tileCount];
+            for (int t = 0; t < tileCount; ++t) {
+                tileOffset[t] = directory.getLong();
+                tileSize[t] = directory.getInt();
+                tileStarCount[t] = directory.getInt();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Converts the HYG catalogue read from the given input stream into a tiled catalogue written at the given path.
+     *
+     * @param inputStream
+     *            The input stream of the HYG catalogue
+     * @param path
+     *            The path of the tiled catalogue to write
+     * @param depth
+     *            The depth of the mesh of the tiles
+     * @throws IOException
+     *             in case of input/output error
+     */
+    public static void convert(InputStream inputStream, Path path, int depth) throws IOException {
+        StarTable stars = new StarCatalogue.Builder()
+                .loadFrom(inputStream, HygDatabaseLoader.PARALLEL)
+                .build()
+                .starTable();
+        write(stars, path, depth);
+    }
+
+    /**
+     * Converts a HYG catalogue into a tiled catalogue, from the command line.
+     *
+     * @param args
+     *            The path of the HYG catalogue, followed by the path of the tiled catalogue
+     * @throws IOException
+     *             in case of input/output error
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: TiledStarCatalogue <hyg catalogue> <tiled catalogue>");
+            System.exit(1);
+        }
+        try (InputStream inputStream = Files.newInputStream(Path.of(args[0]))) {
+            convert(inputStream, Path.of(args[1]), DEFAULT_DEPTH);
+        }
+    }
+
+    /**
+     * Writes the stars of the given table as a tiled catalogue at the given path. The catalogue is first written to a
+     * temporary file which then replaces the former one, so that a partially written catalogue is never read.
+     *
+     * @param stars
+     *            The table of the stars
+     * @param path
+     *            The path of the tiled catalogue
+     * @param depth
+     *            The depth of the mesh of the tiles
+     * @throws IllegalArgumentException
+     *             if the depth is not contained in [0,10]
+     * @throws IOException
+     *             in case of input/output error
+     */
+    static void write(StarTable stars, Path path, int depth) throws IOException {
+        Preconditions.checkArgument(0 <= depth && depth <= MAX_DEPTH);
+        int count = stars.size();
+        int bandCount = MAGNITUDE_BANDS.length + 1;
+        int tileCount = cellCount(depth) * bandCount;
+
+        // Orders the stars by magnitude, and then groups them by tile (counting sort, which keeps the order)
+        long[] keys = new long[count];
+        for (int i = 0; i < count; ++i) {
+            int bits = Float.floatToIntBits((float) stars.magnitude(i));
+            int orderedBits = bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+            keys[i] = ((long) orderedBits << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] tileOf = new int[count];
+        int[] tileStart = new int[tileCount + 1];
+        for (int i = 0; i < count; ++i) {
+            int cell = CelestialSphereIndex.cellOf(stars.ra(i), stars.dec(i), depth);
+            tileOf[i] = cell * bandCount + band(stars.magnitude(i));
+            ++tileStart[tileOf[i] + 1];
+        }
+        for (int t = 0; t < tileCount; ++t) {
+            tileStart[t + 1] += tileStart[t];
+        }
+        int[] order = new int[count];
+        int[] next = Arrays.copyOf(tileStart, tileCount);
+        for (long key : keys) {
+            int i = (int) key;
+            order[next[tileOf[i]]++] = i;
+        }
+
+        // The names of the stars, and the sizes (in bytes) of the tiles
+        byte[][] names = new byte[count][];
+        long[] offsets = new long[tileCount];
+        int[] sizes = new int[tileCount];
+        long offset = 4 * Integer.BYTES + bandCount * Float.BYTES + Double.BYTES
+                + (long) tileCount * DIRECTORY_ENTRY_SIZE;
+        double maxProperMotion = 0;
+        for (int t = 0; t < tileCount; ++t) {
+            int n = tileStart[t + 1] - tileStart[t];
+            long size = n * (2L * Double.BYTES + 4 * Float.BYTES + Integer.BYTES + Byte.BYTES)
+                    + (n + 1L) * Integer.BYTES;
+            for (int k = tileStart[t]; k < tileStart[t + 1]; ++k) {
+                int i = order[k];
+                names[i] = stars.name(i).getBytes(StandardCharsets.US_ASCII);
+                size += names[i].length;
+                maxProperMotion = Math.max(maxProperMotion, Math.hypot(stars.pmRa(i), stars.pmDec(i)));
+            }
+            Preconditions.checkArgument(size <= Integer.MAX_VALUE);
+            offsets[t] = offset;
+            sizes[t] = (int) size;
+            offset += size;
+        }
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary),
+                    1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(depth);
+                out.writeInt(bandCount);
+                for (float limit : MAGNITUDE_BANDS) out.writeFloat(limit);
+                out.writeFloat(Float.POSITIVE_INFINITY);
+                out.writeDouble(maxProperMotion);
+                for (int t = 0; t < tileCount; ++t) {
+                    out.writeLong(offsets[t]);
+                    out.writeInt(sizes[t]);
+                    out.writeInt(tileStart[t + 1] - tileStart[t]);
+                }
+
+                for (int t = 0; t < tileCount; ++t) {
+                    int from = tileStart[t], to = tileStart[t + 1];
+                    for (int k = from; k < to; ++k) out.writeDouble(stars.ra(order[k]));
+                    for (int k = from; k < to; ++k) out.writeDouble(stars.dec(order[k]));
+                    for (int k = from; k < to; ++k) out.writeFloat((float) stars.magnitude(order[k]));
+                    for (int k = from; k < to; ++k) out.writeFloat(stars.colorIndex(order[k]));
+                    for (int k = from; k < to; ++k) out.writeFloat((float) stars.pmRa(order[k]));
+                    for (int k = from; k < to; ++k) out.writeFloat((float) stars.pmDec(order[k]));
+                    for (int k = from; k < to; ++k) out.writeInt(stars.hipparcosId(order[k]));
+                    for (int k = from; k < to; ++k) out.writeByte(stars.constellationCode(order[k]));
+
+                    int nameOffset = 0;
+                    for (int k = from; k < to; ++k) {
+                        out.writeInt(nameOffset);
+                        nameOffset += names[order[k]].length;
+                    }
+                    out.writeInt(nameOffset);
+                    for (int k = from; k < to; ++k) out.write(names[order[k]]);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the depth of the mesh of the tiles.
+     * @return the depth of the mesh of the tiles
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the maximal angular speed (in radians per year) of the stars due to their proper motions.
+     * @return the maximal angular speed of the stars
+     */
+    public double maxProperMotion() {
+        return maxProperMotion;
+    }
+
+    /**
+     * Returns the total number of stars of the catalogue.
+     * @return the total number of stars of the catalogue
+     */
+    public long starCount() {
+        return Arrays.stream(tileStarCount).asLongStream().sum();
+    }
+
+    /**
+     * Returns the maximal size (in bytes) of the tiles kept mapped.
+     * @return the memory budget of the catalogue
+     */
+    public long memoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns the number of tiles currently kept mapped.
+     * @return the number of tiles currently kept mapped
+     */
+    public synchronized int cachedTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * Returns the size (in bytes) of the tiles currently kept mapped.
+     * @return the size of the tiles currently kept mapped
+     */
+    public synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Returns the catalogue (without asterisms and ordered by magnitude) of the stars of all the tiles intersecting the
+     * spherical cap of given center and angular radius, which are at most as faint as the given limiting magnitude.
+     * The catalogue may also contain some stars close to the cap, in the same tiles as the stars of the cap. The last
+     * catalogue is returned again when it is asked for with a cap intersecting the same cells of the mesh and the same
+     * limiting magnitude, so that it is not rebuilt while the cap moves within these cells (e.g. while panning).
+     *
+     * @param center
+     *            The center of the cap
+     * @param radius
+     *            The angular radius of the cap (in radians)
+     * @param limitingMagnitude
+     *            The magnitude of the faintest stars
+     * @throws IOException
+     *             in case of input/output error
+     * @return the catalogue of the stars of the cap
+     */
+    public synchronized StarCatalogue catalogueFor(EquatorialCoordinates center, double radius,
+                                                   double limitingMagnitude) throws IOException {
+        int[] cells = CelestialSphereIndex.cellsInCap(center, radius, depth);
+        if (lastCatalogue != null && lastMagnitude == limitingMagnitude && Arrays.equals(lastCells, cells)) {
+            return lastCatalogue;
+        }
+
+        int bandCount = bandLimits.length;
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        for (int cell : cells) {
+            // The bands of magnitude containing stars at most as faint as the limiting magnitude
+            for (int b = 0; b < bandCount && (b == 0 || bandLimits[b - 1] < limitingMagnitude); ++b) {
+                int t = cell * bandCount + b;
+                if (tileStarCount[t] > 0) {
+                    addStars(tile(t), tileStarCount[t], limitingMagnitude, builder);
+                }
+            }
+        }
+
+        lastCatalogue = builder.orderByMagnitude().build();
+        lastCells = cells;
+        lastMagnitude = limitingMagnitude;
+        return lastCatalogue;
+    }
+
+    /**
+     * Closes the file of the catalogue and drops the mapped tiles.
+     *
+     * @throws IOException
+     *             in case of input/output error
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        tiles.clear();
+        cachedBytes = 0;
+        lastCatalogue = null;
+        lastCells = null;
+        channel.close();
+    }
+
+    /**
+     * Additional method.
+     * Returns the given mapped tile, mapping it if it is not cached and then dropping the least recently used tiles
+     * exceeding the memory budget (the given tile being kept in any case).
+     *
+     * @param t
+     *            The index of the tile in the directory
+     * @return the mapped tile
+     * @throws IOException
+     *             in case of input/output error
+     */
+    private ByteBuffer tile(int t) throws IOException {
+        ByteBuffer tile = tiles.get(t);
+        if (tile == null) {
+            tile = channel.map(FileChannel.MapMode.READ_ONLY, tileOffset[t], tileSize[t]);
+            tiles.put(t, tile);
+            cachedBytes += tileSize[t];
+
+            var iterator = tiles.entrySet().iterator();
+            while (cachedBytes > memoryBudget && tiles.size() > 1) {
+                Map.Entry<Integer, ByteBuffer> eldest = iterator.next();
+                cachedBytes -= tileSize[eldest.getKey()];
+                iterator.remove();
+            }
+        }
+        return tile;
+    }
+
+    /**
+     * Additional method.
+     * Adds the stars of the given tile at most as faint as the given limiting magnitude to the given catalogue under
+     * construction.
+     *
+     * @param tile
+     *            The mapped tile
+     * @param count
+     *            The number of stars of the tile
+     * @param limitingMagnitude
+     *            The magnitude of the faintest stars
+     * @param builder
+     *            The builder of the catalogue
+     */
+    private static void addStars(ByteBuffer tile, int count, double limitingMagnitude, StarCatalogue.Builder builder) {
+        // The offsets (in bytes) of the columns in the tile
+        int decOffset = count * Double.BYTES;
+        int magOffset = decOffset + count * Double.BYTES;
+        int ciOffset = magOffset + count * Float.BYTES;
+        int pmRaOffset = ciOffset + count * Float.BYTES;
+        int pmDecOffset = pmRaOffset + count * Float.BYTES;
+        int hipOffset = pmDecOffset + count * Float.BYTES;
+        int constellationOffset = hipOffset + count * Integer.BYTES;
+        int nameOffsetsOffset = constellationOffset + count * Byte.BYTES;
+        int namesOffset = nameOffsetsOffset + (count + 1) * Integer.BYTES;
+
+        ByteBuffer names = tile.duplicate();
+        byte[] name = new byte[0];
+        for (int i = 0; i < count; ++i) {
+            // The stars of a tile being ordered by magnitude, the following ones are fainter
+            float magnitude = tile.getFloat(magOffset + i * Float.BYTES);
+            if (magnitude > limitingMagnitude) {
+                break;
+            }
+
+            int nameStart = tile.getInt(nameOffsetsOffset + i * Integer.BYTES);
+            int nameLength = tile.getInt(nameOffsetsOffset + (i + 1) * Integer.BYTES) - nameStart;
+            if (name.length < nameLength) {
+                name = new byte[nameLength];
+            }
+            names.position(namesOffset + nameStart);
+            names.get(name, 0, nameLength);
+
+            builder.starTable().add(tile.getInt(hipOffset + i * Integer.BYTES),
+                    new String(name, 0, nameLength, StandardCharsets.US_ASCII), tile.get(constellationOffset + i),
+                    tile.getDouble(i * Double.BYTES), tile.getDouble(decOffset + i * Double.BYTES), magnitude,
+                    tile.getFloat(ciOffset + i * Float.BYTES), tile.getFloat(pmRaOffset + i * Float.BYTES),
+                    tile.getFloat(pmDecOffset + i * Float.BYTES));
+        }
+    }
+
+    /**
+     * Additional method.
+     * Reads the given number of bytes of the file of the catalogue, from the given position.
+     *
+     * @param position
+     *            The position of the first byte
+     * @param size
+     *            The number of bytes
+     * @return the bytes read, in a buffer positioned at its beginning
+     * @throws IOException
+     *             in case of input/output error, or if the file is truncated
+     */
+    private ByteBuffer read(long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE || position + size > channel.size()) {
+            throw new IOException("Truncated tiled star catalogue");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated tiled star catalogue");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Additional method.
+     * Returns the band of magnitude of the given magnitude.
+     *
+     * @param magnitude
+     *            The magnitude
+     * @return the index of the band of magnitude
+     */
+    private static int band(double magnitude) {
+        int b = 0;
+        while (b < MAGNITUDE_BANDS.length && magnitude > MAGNITUDE_BANDS[b]) {
+            ++b;
+        }
+        return b;
+    }
+
+    /**
+     * Additional method.
+     * Returns the number of cells of the mesh of given depth.
+     *
+     * @param depth
+     *            The depth of the mesh
+     * @return the number of cells of the mesh
+     */
+    private static int cellCount(int depth) {
+        return 8 << (2 * depth);
+    }
+}
@@ -51,6 +51,30 @@ public final class EquatorialCoordinates extends SphericalCoordinates {
         return new EquatorialCoordinates(validRaRad, validDecRad);
     }
 
+    /**
+     * Additional method.
+     * Checks if the given right ascension (in radians) is contained in the valid right open interval.
+     *
+     * @param ra
+     *            The checked right ascension
+     * @return true if the given right ascension is valid
+     */
+    public static boolean isValidRa(double ra) {
+        return RA_INTERVAL_RAD.contains(ra);
+    }
+
+    /**
+     * Additional method.
+     * Checks if the given declination (in radians) is contained in the valid closed interval.
+     *
+     * @param dec
+     *            The checked declination
+     * @return true if the given declination is valid
+     */
+    public static boolean isValidDec(double dec) {
+        return DEC_INTERVAL_RAD.contains(dec);
+    }
+
     /**
      * Returns the right ascension, in radians.
      * @return the right ascension, in radians
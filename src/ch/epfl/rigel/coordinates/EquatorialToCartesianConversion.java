@@ -1,18 +1,56 @@
 package ch.epfl.rigel.coordinates;
 
+import ch.epfl.rigel.astronomy.SiderealTime;
+import ch.epfl.rigel.math.Angle;
+
 import java.time.ZonedDateTime;
 import java.util.function.Function;
 
+import static java.lang.Math.*;
+
 /**
  * A change of coordinate system from equatorial to Cartesian coordinates, at a given astronomical epoch and location.
  *
+ * Besides the conversion of one celestial object, the positions of many objects can be converted in bulk, from arrays
+ * of primitive right ascensions and declinations : the conversion to horizontal coordinates, the projection and an
+ * optional affine transform (e.g. to the coordinates of the canvas) are then fused into a single loop, without
+ * allocating any coordinates.
+ *
+ * The positions can also be given by their equatorial unit vectors, computed once (e.g. by the catalogue). The
+ * conversion to horizontal coordinates and the rotation of the horizontal frame towards the center of the projection
+ * are then composed into a single rotation matrix, computed once per conversion, so that each position is projected by
+ * a product with this matrix and one division, without evaluating any trigonometric function. This projection is done
+ * by the fastest available kernel, which uses the Vector API when its module has been added to the virtual machine.
+ *
+ * The bulk conversions of many objects are done in parallel, by chunks of consecutive objects, giving exactly the same
+ * coordinates as when they are done serially.
+ *
  * @author Mathias Bouilloud (309979)
  * @author Julien Mettler (309999)
  */
 public final class EquatorialToCartesianConversion implements Function<EquatorialCoordinates, CartesianCoordinates> {
 
+    // The kernel projecting the unit vectors (the one using the Vector API if available, the scalar one otherwise)
+    private static final ProjectionKernel KERNEL = ProjectionKernel.preferred();
+
+    // The minimum numbers of objects converted in parallel, by their equatorial coordinates and by their unit vectors
+    // (whose projection is about a hundred times faster, so that it is worth splitting only many more of them)
+    private static final int MIN_PARALLEL_SIZE = 2 * ParallelProjection.CHUNK_SIZE;
+    private static final int MIN_PARALLEL_UNIT_VECTORS = 32 * ParallelProjection.CHUNK_SIZE;
+
     private final EquatorialToHorizontalConversion equToHor;
     private final StereographicProjection projection;
+    private final ParallelProjection parallelProjection;
+
+    // The local sidereal time (in radians), and the cosine and sine of the observer's latitude
+    private final double localSiderealTime, cosLat, sinLat;
+
+    // The azimuth (in radians) of the center of the projection, and the cosine and sine of its altitude
+    private final double centerAz, cosCenterAlt, sinCenterAlt;
+
+    // The rows of the rotation from the equatorial frame to the frame of the projection, whose axes point to the right
+    // of the plane, to its top, and to the center of the projection
+    private final double[] rotation;
 
     /**
      * Constructs a change of coordinate system between equatorial and Cartesian coordinates for the given
@@ -24,8 +62,65 @@ public final class EquatorialToCartesianConversion implements Function<Equatoria
      *            The given location
      */
     public EquatorialToCartesianConversion(ZonedDateTime when, GeographicCoordinates where, StereographicProjection projection) {
+        this(when, where, projection, ParallelProjection.DEFAULT);
+    }
+
+    /**
+     * Additional constructor.
+     * Constructs a change of coordinate system between equatorial and Cartesian coordinates for the given
+     * date/time pair and location, whose bulk conversions are done in the given parallel mode.
+     *
+     * @param when
+     *            The given date/time pair
+     * @param where
+     *            The given location
+     * @param projection
+     *            The stereographic projection
+     * @param parallelProjection
+     *            The parallel mode of the bulk conversions
+     */
+    EquatorialToCartesianConversion(ZonedDateTime when, GeographicCoordinates where, StereographicProjection projection,
+                                    ParallelProjection parallelProjection) {
         equToHor = new EquatorialToHorizontalConversion(when, where); // Conversion from equatorial to horizontal coordinates
         this.projection = projection;
+        this.parallelProjection = parallelProjection;
+
+        // The terms of the conversion and of the projection which do not depend on the converted position, computed
+        // as by the latter
+        localSiderealTime = SiderealTime.local(when, where);
+        cosLat = cos(where.lat());
+        sinLat = sin(where.lat());
+
+        HorizontalCoordinates center = projection.center();
+        centerAz = center.az();
+        cosCenterAlt = cos(center.alt());
+        sinCenterAlt = sin(center.alt());
+
+        // The directions of the north, of the east and of the zenith of the horizontal frame, in the equatorial frame
+        // (the hour angle of a position being the local sidereal time minus its right ascension)
+        double cosLst = cos(localSiderealTime), sinLst = sin(localSiderealTime);
+        double northX = -sinLat * cosLst, northY = -sinLat * sinLst, northZ = cosLat;
+        double eastX = -sinLst, eastY = cosLst, eastZ = 0;
+        double zenithX = cosLat * cosLst, zenithY = cosLat * sinLst, zenithZ = sinLat;
+
+        // The horizontal directions to the right of the center of the projection and towards it
+        double cosCenterAz = cos(centerAz), sinCenterAz = sin(centerAz);
+        double rightX = cosCenterAz * eastX - sinCenterAz * northX;
+        double rightY = cosCenterAz * eastY - sinCenterAz * northY;
+        double rightZ = cosCenterAz * eastZ - sinCenterAz * northZ;
+        double towardsX = cosCenterAz * northX + sinCenterAz * eastX;
+        double towardsY = cosCenterAz * northY + sinCenterAz * eastY;
+        double towardsZ = cosCenterAz * northZ + sinCenterAz * eastZ;
+
+        // The directions to the top of the plane and to the center of the projection, raised by its altitude
+        double upX = cosCenterAlt * zenithX - sinCenterAlt * towardsX;
+        double upY = cosCenterAlt * zenithY - sinCenterAlt * towardsY;
+        double upZ = cosCenterAlt * zenithZ - sinCenterAlt * towardsZ;
+        double forwardX = sinCenterAlt * zenithX + cosCenterAlt * towardsX;
+        double forwardY = sinCenterAlt * zenithY + cosCenterAlt * towardsY;
+        double forwardZ = sinCenterAlt * zenithZ + cosCenterAlt * towardsZ;
+
+        rotation = new double[]{rightX, rightY, rightZ, upX, upY, upZ, forwardX, forwardY, forwardZ};
     }
 
     /**
@@ -34,7 +129,199 @@ public final class EquatorialToCartesianConversion implements Function<Equatoria
     @Override
     public CartesianCoordinates apply(EquatorialCoordinates equ) {
         // Converts equatorial to horizontal coordinates, and then projects the horizontal coordinates on the plane
-        return equToHor.andThen(projection).apply(equ);
+        return projection.apply(equToHor.apply(equ));
+    }
+
+    /**
+     * Additional method.
+     * Converts the equatorial positions of the objects between the given indices (the first inclusive, the second
+     * exclusive) and writes their Cartesian coordinates, transformed by the affine transform of the given
+     * coefficients, in the given array : the abscissa and the ordinate of the object at index i at the indices 2i and
+     * 2i+1.
+     *
+     * @param ra
+     *            The right ascensions (in radians) of the objects
+     * @param dec
+     *            The declinations (in radians) of the objects
+     * @param from
+     *            The index of the first object (inclusive)
+     * @param to
+     *            The index of the last object (exclusive)
+     * @param positions
+     *            The array the coordinates of the objects are written in
+     * @param scaleX
+     *            The scale factor of the abscissas (1 to keep the coordinates of the plane)
+     * @param scaleY
+     *            The scale factor of the ordinates (1 to keep the coordinates of the plane)
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    public void applyToAll(double[] ra, double[] dec, int from, int to, double[] positions,
+                           double scaleX, double scaleY, double translateX, double translateY) {
+        parallelProjection.convert(from, to, MIN_PARALLEL_SIZE, (start, end) -> {
+            for (int i = start; i < end; ++i) {
+                project(ra[i], dec[i], positions, 2 * i, scaleX, scaleY, translateX, translateY);
+            }
+        });
+    }
+
+    /**
+     * Additional method.
+     * Converts the equatorial positions of the objects at the given indices and writes their Cartesian coordinates,
+     * transformed by the affine transform of the given coefficients, in the given array : the abscissa and the
+     * ordinate of the object at index i at the indices 2i and 2i+1. The coordinates of the other objects are left
+     * unchanged.
+     *
+     * @param ra
+     *            The right ascensions (in radians) of the objects
+     * @param dec
+     *            The declinations (in radians) of the objects
+     * @param indices
+     *            The indices of the objects to convert
+     * @param count
+     *            The number of indices to read, from the first one
+     * @param positions
+     *            The array the coordinates of the objects are written in
+     * @param scaleX
+     *            The scale factor of the abscissas (1 to keep the coordinates of the plane)
+     * @param scaleY
+     *            The scale factor of the ordinates (1 to keep the coordinates of the plane)
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    public void applyToAll(double[] ra, double[] dec, int[] indices, int count, double[] positions,
+                           double scaleX, double scaleY, double translateX, double translateY) {
+        parallelProjection.convert(0, count, MIN_PARALLEL_SIZE, (start, end) -> {
+            for (int k = start; k < end; ++k) {
+                int i = indices[k];
+                project(ra[i], dec[i], positions, 2 * i, scaleX, scaleY, translateX, translateY);
+            }
+        });
+    }
+
+    /**
+     * Additional method.
+     * Projects the positions, given by their equatorial unit vectors, of the objects at the given indices and writes
+     * their Cartesian coordinates, transformed by the affine transform of the given coefficients, in the given array :
+     * the abscissa and the ordinate of the object at index i at the indices 2i and 2i+1. The coordinates of the other
+     * objects are left unchanged.
+     *
+     * @param unitVectors
+     *            The equatorial unit vectors of the objects (the coordinates x, y and z of the object at index i being
+     *            at the indices 3i, 3i+1 and 3i+2, the x axis pointing to the vernal equinox and the z axis to the
+     *            north celestial pole)
+     * @param indices
+     *            The indices of the objects to convert
+     * @param count
+     *            The number of indices to read, from the first one
+     * @param positions
+     *            The array the coordinates of the objects are written in
+     * @param scaleX
+     *            The scale factor of the abscissas (1 to keep the coordinates of the plane)
+     * @param scaleY
+     *            The scale factor of the ordinates (1 to keep the coordinates of the plane)
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    public void applyToAllUnitVectors(double[] unitVectors, int[] indices, int count, double[] positions,
+                                      double scaleX, double scaleY, double translateX, double translateY) {
+        parallelProjection.convert(0, count, MIN_PARALLEL_UNIT_VECTORS, (start, end) -> KERNEL.project(unitVectors,
+                indices, start, end, positions, rotation, scaleX, scaleY, translateX, translateY));
+    }
+
+    /**
+     * Additional method.
+     * Projects the positions, given by their equatorial unit vectors, of the objects between the given indices (the
+     * first inclusive, the second exclusive) and writes their Cartesian coordinates, transformed by the affine
+     * transform of the given coefficients, in the given array : the abscissa and the ordinate of the object at index i
+     * at the indices 2i and 2i+1.
+     *
+     * @param unitVectors
+     *            The equatorial unit vectors of the objects (the coordinates x, y and z of the object at index i being
+     *            at the indices 3i, 3i+1 and 3i+2)
+     * @param from
+     *            The index of the first object (inclusive)
+     * @param to
+     *            The index of the last object (exclusive)
+     * @param positions
+     *            The array the coordinates of the objects are written in
+     * @param scaleX
+     *            The scale factor of the abscissas (1 to keep the coordinates of the plane)
+     * @param scaleY
+     *            The scale factor of the ordinates (1 to keep the coordinates of the plane)
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    public void applyToAllUnitVectors(double[] unitVectors, int from, int to, double[] positions,
+                                      double scaleX, double scaleY, double translateX, double translateY) {
+        parallelProjection.convert(from, to, MIN_PARALLEL_UNIT_VECTORS, (start, end) -> KERNEL.project(unitVectors,
+                start, end, positions, rotation, scaleX, scaleY, translateX, translateY));
+    }
+
+    /**
+     * Additional method.
+     * Returns the rows of the rotation from the equatorial frame to the frame of the projection (a copy of them).
+     *
+     * @return the rows of the rotation to the frame of the projection
+     */
+    double[] rotation() {
+        return rotation.clone();
+    }
+
+    /**
+     * Additional method.
+     * Converts the given equatorial position and writes its Cartesian coordinates, transformed by the affine transform
+     * of the given coefficients, in the given array. The terms are computed as by the conversion to horizontal
+     * coordinates and by the projection, so that the coordinates on the plane are the ones of {@link #apply}.
+     *
+     * @param ra
+     *            The right ascension (in radians)
+     * @param dec
+     *            The declination (in radians)
+     * @param positions
+     *            The array the coordinates are written in
+     * @param offset
+     *            The index of the abscissa in the array, followed by the ordinate
+     * @param scaleX
+     *            The scale factor of the abscissa
+     * @param scaleY
+     *            The scale factor of the ordinate
+     * @param translateX
+     *            The translation of the abscissa, after its scaling
+     * @param translateY
+     *            The translation of the ordinate, after its scaling
+     */
+    private void project(double ra, double dec, double[] positions, int offset,
+                         double scaleX, double scaleY, double translateX, double translateY) {
+        double cosDec = cos(dec), sinDec = sin(dec);
+
+        // The conversion to horizontal coordinates
+        double hourAngle = localSiderealTime - ra;
+        double tempAlt = sinDec * sinLat + cosDec * cosLat * cos(hourAngle);
+        double alt = asin(tempAlt);
+        double numeratorAz = -cosDec * cosLat * sin(hourAngle);
+        double denominatorAz = sinDec - sinLat * tempAlt;
+        double az = Angle.normalizePositive(atan2(numeratorAz, denominatorAz));
+
+        // The stereographic projection of the horizontal coordinates
+        double cosAlt = cos(alt), sinAlt = sin(alt);
+        double lambdaDelta = az - centerAz;
+        double cosLambdaDelta = cos(lambdaDelta);
+        double d = 1.0 / (1.0 + sinAlt * sinCenterAlt + cosAlt * cosCenterAlt * cosLambdaDelta);
+        double x = d * cosAlt * sin(lambdaDelta);
+        double y = d * (sinAlt * cosCenterAlt - cosAlt * sinCenterAlt * cosLambdaDelta);
+
+        // The affine transform
+        positions[offset] = x * scaleX + translateX;
+        positions[offset + 1] = y * scaleY + translateY;
     }
 
     /**
@@ -58,6 +58,33 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
         return HorizontalCoordinates.of(azRad, altRad);
     }
 
+    /**
+     * Additional method.
+     * Returns the equatorial coordinates of the point of given horizontal coordinates, i.e. the inverse of this
+     * conversion.
+     *
+     * @param hor
+     *            The horizontal coordinates
+     * @return the equatorial coordinates of the point
+     */
+    public EquatorialCoordinates inverseApply(HorizontalCoordinates hor) {
+        double azRad = hor.az(); // The azimuth (in radians)
+        double altRad = hor.alt(); // The altitude (in radians)
+        double cosAlt = cos(altRad), sinAlt = sin(altRad);
+
+        // Calculation of the declination (in radians, in its valid interval [-PI/2, PI/2]), by the same formula as the
+        // altitude, the conversion being symmetric
+        double tempDec = sinAlt * sinLat + cosAlt * cosLat * cos(azRad);
+        double decRad = asin(max(-1, min(1, tempDec)));
+
+        // Calculation of the hour angle, and then of the right ascension
+        double numeratorH = -cosAlt * cosLat * sin(azRad);
+        double denominatorH = sinAlt - sinLat * tempDec;
+        double raRad = Angle.normalizePositive(localSiderealTime - atan2(numeratorH, denominatorH));
+
+        return EquatorialCoordinates.of(raRad, decRad);
+    }
+
     /**
      * @see Object#hashCode()
      */
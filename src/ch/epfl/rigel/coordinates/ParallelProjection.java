@@ -0,0 +1,106 @@
+package ch.epfl.rigel.coordinates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Additional class.
+ * The parallel mode of the bulk conversions : the objects are split into chunks of consecutive objects, small enough
+ * for their coordinates to stay in the cache of a processor, which are converted in parallel by a dedicated pool of
+ * threads (so that the conversions neither wait for nor delay the tasks of the common pool, e.g. the loading of the
+ * catalogues). Each object being converted by the same code as in the serial mode, the coordinates are exactly the
+ * same.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+final class ParallelProjection {
+
+    // The number of objects of a chunk (whose unit vectors and coordinates on the plane take 160 KiB)
+    static final int CHUNK_SIZE = 1 << 12;
+
+    // The parallel mode shared by the conversions, with one thread per processor
+    static final ParallelProjection DEFAULT = new ParallelProjection(Runtime.getRuntime().availableProcessors());
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a parallel mode converting the chunks with the given number of threads.
+     *
+     * @param parallelism
+     *            The number of threads
+     */
+    ParallelProjection(int parallelism) {
+        pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("projection-worker-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Additional interface.
+     * The serial conversion of the objects between two indices.
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    @FunctionalInterface
+    interface ChunkConversion {
+
+        /**
+         * Converts the objects between the given indices (the first inclusive, the second exclusive).
+         *
+         * @param from
+         *            The index of the first object (inclusive)
+         * @param to
+         *            The index of the last object (exclusive)
+         */
+        void convert(int from, int to);
+    }
+
+    /**
+     * Converts the objects between the given indices (the first inclusive, the second exclusive) : in parallel, chunk
+     * by chunk, if there are at least the given number of them and if the pool has several threads, or serially
+     * otherwise (the splitting costing more than it saves).
+     *
+     * @param from
+     *            The index of the first object (inclusive)
+     * @param to
+     *            The index of the last object (exclusive)
+     * @param minParallelSize
+     *            The minimum number of objects converted in parallel
+     * @param conversion
+     *            The serial conversion of a chunk
+     */
+    void convert(int from, int to, int minParallelSize, ChunkConversion conversion) {
+        if (to - from < minParallelSize || pool.getParallelism() < 2) {
+            conversion.convert(from, to);
+            return;
+        }
+
+        List<ForkJoinTask<?>> chunks = new ArrayList<>((to - from + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int start = from; start < to; start += CHUNK_SIZE) {
+            int chunkStart = start, chunkEnd = Math.min(to, start + CHUNK_SIZE);
+            chunks.add(pool.submit(() -> conversion.convert(chunkStart, chunkEnd)));
+        }
+
+        // Waits for all the chunks (rethrowing the exception of a failed one)
+        for (ForkJoinTask<?> chunk : chunks) {
+            chunk.join();
+        }
+    }
+
+    /**
+     * Returns the number of threads of the pool.
+     *
+     * @return the number of threads of the pool
+     */
+    int parallelism() {
+        return pool.getParallelism();
+    }
+}
@@ -4,18 +4,179 @@ import javafx.geometry.Point2D;
 import javafx.scene.transform.NonInvertibleTransformException;
 import javafx.scene.transform.Transform;
 
-import java.util.Arrays;
+import java.util.Locale;
 
 /**
  * Additional class.
  * The methods allowing to transform Cartesian coordinates produced by a stereographic projection into coordinates of
  * the canvas (i.e. the coordinates of an image).
  *
+ * An instance of this class is the change of coordinate system of a given affine transform, i.e. a dilatation followed
+ * by a translation, whose coefficients are read once : it is immutable and transforms the points and the distances
+ * without allocating any JavaFX transform (unlike the static methods, which concatenate the dilatation and the
+ * translation on every call).
+ *
  * @author Mathias Bouilloud (309979)
  * @author Julien Mettler (309999)
  */
 public final class PlaneToCanvas {
 
+    // The coefficients of the dilatation (the one of the ordinates reversing the direction of the Y axis), and of the
+    // translation which follows it
+    private final double scaleX, scaleY, translateX, translateY;
+
+    /**
+     * Constructs the change of coordinate system of the given coefficients.
+     *
+     * @param scaleX
+     *            The scale factor of the abscissas
+     * @param scaleY
+     *            The scale factor of the ordinates
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    private PlaneToCanvas(double scaleX, double scaleY, double translateX, double translateY) {
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.translateX = translateX;
+        this.translateY = translateY;
+    }
+
+    /**
+     * Additional method.
+     * Returns the change of coordinate system from the plane to the canvas of the given affine transform (i.e. its
+     * dilatation followed by its translation), whose coefficients are read once.
+     *
+     * @param transform
+     *            The affine transform
+     * @return the change of coordinate system of the given affine transform
+     */
+    public static PlaneToCanvas of(Transform transform) {
+        return new PlaneToCanvas(transform.getMxx(), transform.getMyy(), transform.getTx(), transform.getTy());
+    }
+
+    /**
+     * Additional method.
+     * Returns the abscissa on the canvas of the given abscissa on the plane.
+     *
+     * @param x
+     *            The abscissa on the plane
+     * @return the abscissa on the canvas
+     */
+    public double applyToX(double x) {
+        return scaleX * x + translateX;
+    }
+
+    /**
+     * Additional method.
+     * Returns the ordinate on the canvas of the given ordinate on the plane.
+     *
+     * @param y
+     *            The ordinate on the plane
+     * @return the ordinate on the canvas
+     */
+    public double applyToY(double y) {
+        return scaleY * y + translateY;
+    }
+
+    /**
+     * Additional method.
+     * Expresses the coordinates of the given point in the canvas coordinate system.
+     *
+     * @param planePosition
+     *            The point coordinates, as described in the stereographic projection coordinate system
+     * @return the coordinates of the given point in the canvas coordinate system
+     */
+    public CartesianCoordinates applyToPoint(CartesianCoordinates planePosition) {
+        return CartesianCoordinates.of(applyToX(planePosition.x()), applyToY(planePosition.y()));
+    }
+
+    /**
+     * Additional method.
+     * Writes the positions of the given points in the canvas coordinate system in the given array (which may be the
+     * array of the points itself), the abscissa and the ordinate of each point being at consecutive indices.
+     *
+     * @param planePositions
+     *            The coordinates of the given points on the plane
+     * @param canvasPositions
+     *            The array the coordinates on the canvas are written in, at least as long as the one of the points
+     */
+    public void applyToAllPoints(double[] planePositions, double[] canvasPositions) {
+        for (int i = 0; i < planePositions.length - 1; i += 2) {
+            canvasPositions[i] = applyToX(planePositions[i]);
+            canvasPositions[i + 1] = applyToY(planePositions[i + 1]);
+        }
+    }
+
+    /**
+     * Additional method.
+     * Returns an array containing the positions of the given points in the canvas coordinate system.
+     *
+     * @param planePositions
+     *            The coordinates of the given points on the plane
+     * @return the coordinates of the given points in the canvas coordinate system
+     */
+    public double[] applyToAllPoints(double[] planePositions) {
+        double[] canvasPositions = new double[planePositions.length];
+        applyToAllPoints(planePositions, canvasPositions);
+        return canvasPositions;
+    }
+
+    /**
+     * Additional method.
+     * Expresses the magnitude of the given horizontal vector (a radius or a diameter) in the canvas coordinate system.
+     *
+     * @param x
+     *            The vector magnitude in the direction of the X axis of the stereographic projection coordinate system
+     * @return the magnitude of the given horizontal vector in the canvas coordinate system
+     */
+    public double applyToDistance(double x) {
+        // The magnitude of the vector (scaleX * x, 0)
+        return Math.abs(scaleX * x);
+    }
+
+    /**
+     * Additional method.
+     * Returns the scale factor of the abscissas.
+     *
+     * @return the scale factor of the abscissas
+     */
+    public double scaleX() {
+        return scaleX;
+    }
+
+    /**
+     * Additional method.
+     * Returns the scale factor of the ordinates.
+     *
+     * @return the scale factor of the ordinates
+     */
+    public double scaleY() {
+        return scaleY;
+    }
+
+    /**
+     * Additional method.
+     * Returns the translation of the abscissas, after their scaling.
+     *
+     * @return the translation of the abscissas
+     */
+    public double translateX() {
+        return translateX;
+    }
+
+    /**
+     * Additional method.
+     * Returns the translation of the ordinates, after their scaling.
+     *
+     * @return the translation of the ordinates
+     */
+    public double translateY() {
+        return translateY;
+    }
+
     /**
      * Expresses the coordinates of the given point in the canvas coordinate system, using an affine transform.
      *
@@ -26,10 +187,7 @@ public final class PlaneToCanvas {
      * @return the coordinates of the given point in the canvas coordinate system
      */
     public static CartesianCoordinates applyToPoint(CartesianCoordinates planePosition, Transform transform) {
-        Transform concatenation = concatenationOf(transform);
-        Point2D canvasPoint = concatenation.transform(planePosition.x(), planePosition.y());
-
-        return CartesianCoordinates.of(canvasPoint.getX(), canvasPoint.getY());
+        return of(transform).applyToPoint(planePosition);
     }
 
     /**
@@ -43,15 +201,8 @@ public final class PlaneToCanvas {
      * @return the coordinates of the given points in the canvas coordinate system
      */
     public static double[] applyToAllPoints(double[] planePositions, Transform transform) {
-        int numberOfCoordinates = planePositions.length;
-
-        double[] canvasPositions = new double[numberOfCoordinates];
-        Transform concatenation = concatenationOf(transform);
-        concatenation.transform2DPoints(planePositions, 0, canvasPositions, 0,
-                numberOfCoordinates / 2);
-
         // The positions of the images of the celestial objects
-        return Arrays.copyOf(canvasPositions, numberOfCoordinates);
+        return of(transform).applyToAllPoints(planePositions);
     }
 
     /**
@@ -65,10 +216,7 @@ public final class PlaneToCanvas {
      * @return the magnitude of the given horizontal vector in the canvas coordinate system
      */
     public static double applyToDistance(double x, Transform transform) {
-        Transform concatenation = concatenationOf(transform);
-        Point2D canvasVector = concatenation.deltaTransform(x, 0);
-
-        return canvasVector.magnitude(); // The magnitude of the vector
+        return of(transform).applyToDistance(x);
     }
 
     /**
@@ -110,21 +258,27 @@ public final class PlaneToCanvas {
     }
 
     /**
-     * Composition of a dilatation and then a translation, i.e. a change of coordinate system from that of the
-     * stereographic projection to that of the canvas, using an affine transform.
-     *
-     * @param transform
-     *            The affine transform
-     * @return the concatenation of the dilatation and translation transforms
+     * @see Object#toString()
      */
-    private static Transform concatenationOf(Transform transform) {
-        // Scales the image and reverses the direction of the Y axis
-        Transform dilatation = Transform.scale(transform.getMxx(), transform.getMyy());
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "PlaneToCanvas (scale=(%.4f, %.4f), translation=(%.4f, %.4f))",
+                scaleX, scaleY, translateX, translateY);
+    }
 
-        // Translates the origin of the coordinate system
-        Transform translation = Transform.translate(transform.getTx(), transform.getTy());
+    /**
+     * @see Object#hashCode()
+     */
+    @Override
+    public final int hashCode() {
+        throw new UnsupportedOperationException();
+    }
 
-        // Concatenates the translation transform to the dilatation transform
-        return translation.createConcatenation(dilatation);
+    /**
+     * @see Object#equals(Object)
+     */
+    @Override
+    public final boolean equals(Object obj) {
+        throw new UnsupportedOperationException();
     }
 }
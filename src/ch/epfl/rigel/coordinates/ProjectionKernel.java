@@ -0,0 +1,97 @@
+package ch.epfl.rigel.coordinates;
+
+/**
+ * Additional interface.
+ * A kernel projecting positions given by their equatorial unit vectors on the plane, using a rotation matrix to the
+ * frame of the projection, and transforming their coordinates by an affine transform.
+ *
+ * The unit vectors are stored in a single array, the coordinates x, y and z of the object at index i being at the
+ * indices 3i, 3i+1 and 3i+2, and the coordinates are written in a single array, the abscissa and the ordinate of the
+ * object at index i being at the indices 2i and 2i+1. The rotation is given by its three rows, in a single array :
+ * the directions to the right of the plane, to its top, and to the center of the projection.
+ *
+ * All the kernels give exactly the same coordinates, the terms being computed in the same order.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+interface ProjectionKernel {
+
+    // The name of the kernel using the Vector API, compiled separately (see the source folder src-vector), and of
+    // the (incubating) module of this API
+    String VECTOR_KERNEL_NAME = "ch.epfl.rigel.coordinates.VectorProjectionKernel";
+    String VECTOR_MODULE_NAME = "jdk.incubator.vector";
+
+    /**
+     * Projects the unit vectors of the objects between the given indices (the first inclusive, the second exclusive).
+     *
+     * @param unitVectors
+     *            The equatorial unit vectors of the objects
+     * @param from
+     *            The index of the first object (inclusive)
+     * @param to
+     *            The index of the last object (exclusive)
+     * @param positions
+     *            The array the coordinates of the objects are written in
+     * @param rotation
+     *            The rows of the rotation matrix
+     * @param scaleX
+     *            The scale factor of the abscissas
+     * @param scaleY
+     *            The scale factor of the ordinates
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    void project(double[] unitVectors, int from, int to, double[] positions, double[] rotation,
+                 double scaleX, double scaleY, double translateX, double translateY);
+
+    /**
+     * Projects the unit vectors of the objects at the given indices, read between the given positions of their array
+     * (the first inclusive, the second exclusive), the coordinates of the other objects being left unchanged.
+     *
+     * @param unitVectors
+     *            The equatorial unit vectors of the objects
+     * @param indices
+     *            The indices of the objects
+     * @param from
+     *            The position of the first index to read (inclusive)
+     * @param to
+     *            The position of the last index to read (exclusive)
+     * @param positions
+     *            The array the coordinates of the objects are written in
+     * @param rotation
+     *            The rows of the rotation matrix
+     * @param scaleX
+     *            The scale factor of the abscissas
+     * @param scaleY
+     *            The scale factor of the ordinates
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    void project(double[] unitVectors, int[] indices, int from, int to, double[] positions, double[] rotation,
+                 double scaleX, double scaleY, double translateX, double translateY);
+
+    /**
+     * Returns the fastest available kernel : the kernel using the Vector API if its module has been added to the
+     * virtual machine (e.g. with the option --add-modules jdk.incubator.vector) and if it has been compiled, or the
+     * scalar kernel otherwise.
+     *
+     * @return the fastest available kernel
+     */
+    static ProjectionKernel preferred() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE_NAME).isEmpty()) {
+            return ScalarProjectionKernel.INSTANCE;
+        }
+
+        // The kernel is loaded by reflection, so that the rest of the code is compiled and run without the module
+        try {
+            return (ProjectionKernel) Class.forName(VECTOR_KERNEL_NAME).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return ScalarProjectionKernel.INSTANCE;
+        }
+    }
+}
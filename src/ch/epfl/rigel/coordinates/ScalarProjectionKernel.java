@@ -0,0 +1,76 @@
+package ch.epfl.rigel.coordinates;
+
+/**
+ * Additional class.
+ * The kernel projecting the unit vectors one by one, used when the Vector API is not available.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+enum ScalarProjectionKernel implements ProjectionKernel {
+
+    INSTANCE;
+
+    /**
+     * @see ProjectionKernel#project(double[], int, int, double[], double[], double, double, double, double)
+     */
+    @Override
+    public void project(double[] unitVectors, int from, int to, double[] positions, double[] rotation,
+                        double scaleX, double scaleY, double translateX, double translateY) {
+        for (int i = from; i < to; ++i) {
+            project(unitVectors, i, positions, rotation, scaleX, scaleY, translateX, translateY);
+        }
+    }
+
+    /**
+     * @see ProjectionKernel#project(double[], int[], int, int, double[], double[], double, double, double, double)
+     */
+    @Override
+    public void project(double[] unitVectors, int[] indices, int from, int to, double[] positions, double[] rotation,
+                        double scaleX, double scaleY, double translateX, double translateY) {
+        for (int k = from; k < to; ++k) {
+            project(unitVectors, indices[k], positions, rotation, scaleX, scaleY, translateX, translateY);
+        }
+    }
+
+    /**
+     * Projects the unit vector of the object at the given index.
+     *
+     * @param unitVectors
+     *            The equatorial unit vectors of the objects
+     * @param i
+     *            The index of the object
+     * @param positions
+     *            The array the coordinates of the objects are written in
+     * @param rotation
+     *            The rows of the rotation matrix
+     * @param scaleX
+     *            The scale factor of the abscissas
+     * @param scaleY
+     *            The scale factor of the ordinates
+     * @param translateX
+     *            The translation of the abscissas, after their scaling
+     * @param translateY
+     *            The translation of the ordinates, after their scaling
+     */
+    static void project(double[] unitVectors, int i, double[] positions, double[] rotation,
+                        double scaleX, double scaleY, double translateX, double translateY) {
+        double x = unitVectors[3 * i], y = unitVectors[3 * i + 1], z = unitVectors[3 * i + 2];
+
+        // The rotation to the frame of the projection, and the projection from the point opposite to its center
+        double d = 1.0 / (1.0 + rotation[6] * x + rotation[7] * y + rotation[8] * z);
+        double right = rotation[0] * x + rotation[1] * y + rotation[2] * z;
+        double up = rotation[3] * x + rotation[4] * y + rotation[5] * z;
+
+        positions[2 * i] = d * right * scaleX + translateX;
+        positions[2 * i + 1] = d * up * scaleY + translateY;
+    }
+
+    /**
+     * @see Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "Scalar kernel";
+    }
+}
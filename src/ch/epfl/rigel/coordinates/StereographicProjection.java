@@ -130,6 +130,15 @@ public final class StereographicProjection implements Function<HorizontalCoordin
         return HorizontalCoordinates.of(azRad, altRad);
     }
 
+    /**
+     * Additional method.
+     * Returns the center of this projection.
+     * @return the center of this projection
+     */
+    HorizontalCoordinates center() {
+        return center;
+    }
+
     /**
      * @see Object#toString()
      */
@@ -5,12 +5,13 @@ import javafx.scene.paint.Color;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * The color of a black body, i.e. a celestial object that emits light solely because of its color temperature.
  *
+ * The colors are stored in an array indexed by the temperature bin, i.e. (T - 1000) / 100 for a temperature T
+ * rounded to the closest hundred, so that a color is found without hashing nor boxing.
+ *
  * @author Mathias Bouilloud (309979)
  * @author Julien Mettler (309999)
  */
@@ -23,7 +24,10 @@ public final class BlackBodyColor {
             TWO_DEG_INDEX = 10, // Index for the text "2deg"
             COLOR_INDEX_BEGIN = 80, COLOR_INDEX_END = 87; // Indices for the first and last characters of the color (hexadecimal)
 
-    private static final Map<Integer, Color> TEMPERATURE_COLOR_MAP = temperatureColorMap();
+    // The temperatures (in degrees Kelvin) of the colors of the file, and the step between two of them
+    private static final int MIN_TEMPERATURE = 1000, MAX_TEMPERATURE = 40_000, TEMPERATURE_STEP = 100;
+
+    private static final Color[] COLORS = temperatureColors();
 
     /**
      * Default constructor.
@@ -31,32 +35,45 @@ public final class BlackBodyColor {
     private BlackBodyColor() {}
 
     /**
-     * Constructs ecliptic coordinates (in radians) with the given longitude and latitude (in radians).
+     * Returns the color of the black body of the given color temperature.
      *
      * @param temperature
      *            The color temperature (in degrees Kelvin)
      * @throws IllegalArgumentException
-     *            if the closest multiple of 100 to the given temperature does not correspond to a temperature in the map
+     *            if the closest multiple of 100 to the given temperature does not correspond to a temperature of the file
      * @return the color of the black body associated to the given color temperature
      */
     public static Color colorForTemperature(double temperature) {
-        int closestTemperature = (int) Math.round(temperature / 100.0) * 100;
-        Preconditions.checkArgument(TEMPERATURE_COLOR_MAP.containsKey(closestTemperature));
+        // The bin of the closest multiple of 100 to the given temperature
+        int bin = (int) Math.round(temperature / TEMPERATURE_STEP) - MIN_TEMPERATURE / TEMPERATURE_STEP;
+        return colorForTemperatureBin(bin);
+    }
 
-        return TEMPERATURE_COLOR_MAP.get(closestTemperature);
+    /**
+     * Additional method.
+     * Returns the color of the black body whose color temperature is in the given bin, i.e. whose temperature
+     * rounded to the closest hundred is 1000 + 100 * bin degrees Kelvin.
+     *
+     * @param bin
+     *            The temperature bin
+     * @throws IllegalArgumentException
+     *            if the bin does not correspond to a temperature of the file, i.e. is not contained in [0,390]
+     * @return the color of the black body associated to the given temperature bin
+     */
+    public static Color colorForTemperatureBin(int bin) {
+        Preconditions.checkArgument(0 <= bin && bin < COLORS.length);
+        return COLORS[bin];
     }
 
     /**
      * Additional method.
-     * Constructs a map that associates to each color temperature (in degrees Kelvin) its corresponding color
-     * (in hexadecimal notation), as listed in the given text file.
+     * Constructs the array of the colors (in hexadecimal notation) listed in the given text file, indexed by
+     * their temperature bin.
      *
-     * @return the map
+     * @return the array of the colors
      */
-    private static Map<Integer, Color> temperatureColorMap() {
-        // Key : The color temperature (in degrees Kelvin)
-        // Value : The color (in hexadecimal notation)
-        Map<Integer, Color> map = new HashMap<>();
+    private static Color[] temperatureColors() {
+        Color[] colors = new Color[(MAX_TEMPERATURE - MIN_TEMPERATURE) / TEMPERATURE_STEP + 1];
 
         // The buffered reader of the given input stream (i.e. the color temperatures' text file)
         try (BufferedReader reader =
@@ -80,12 +97,12 @@ public final class BlackBodyColor {
                     int temperature = Integer.parseInt(temperatureString); // The temperature (in degrees Kelvin)
                     String colorString = line.substring(COLOR_INDEX_BEGIN, COLOR_INDEX_END); // The color (in hexadecimal notation)
 
-                    map.put(temperature, Color.web(colorString));
+                    colors[(temperature - MIN_TEMPERATURE) / TEMPERATURE_STEP] = Color.web(colorString);
                 }
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        return map;
+        return colors;
     }
 }
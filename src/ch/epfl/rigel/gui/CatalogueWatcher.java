@@ -0,0 +1,225 @@
+package ch.epfl.rigel.gui;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.lang.System.Logger.Level.INFO;
+import static java.lang.System.Logger.Level.WARNING;
+
+/**
+ * Additional class.
+ * A watcher of the files of the catalogues, which reloads a catalogue in the background when one of its files is
+ * changed and hands the new (immutable) catalogue over to a consumer.
+ *
+ * The changes of the files are detected by a watch service on their directories. The reloads are executed one after
+ * the other by a single background thread, so that parsing a catalogue never blocks the thread of the consumers, and
+ * the new catalogues are handed over, in the order of the reloads, through an executor chosen by the user (e.g.
+ * Platform::runLater to swap them on the JavaFX application thread). A reload which fails keeps the former catalogue.
+ *
+ * @author Mathias Bouilloud (309979)
+ * @author Julien Mettler (309999)
+ */
+public final class CatalogueWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+    private final Executor handOverExecutor;
+    private final ExecutorService reloadExecutor; // The background thread parsing the catalogues
+    private final Thread watchThread;
+
+    // The reloads triggered by a change of each watched file (absolute path), and the watched directories
+    private final Map<Path, List<Reload<?>>> reloadsByFile = new HashMap<>();
+    private final Set<Path> directories = new HashSet<>();
+
+    // The delay (in milliseconds) without any change after which the changed catalogues are reloaded, so that a file
+    // written in several steps is only reloaded once
+    private static final long QUIET_PERIOD_MS = 250;
+
+    private static final System.Logger LOGGER = System.getLogger(CatalogueWatcher.class.getName());
+
+    /**
+     * Constructs a watcher of catalogues, handing the reloaded catalogues over through the given executor.
+     *
+     * @param handOverExecutor
+     *            The executor through which the reloaded catalogues are given to their consumers
+     * @throws IOException
+     *             in case of input/output error while creating the watch service
+     */
+    public CatalogueWatcher(Executor handOverExecutor) throws IOException {
+        this.handOverExecutor = Objects.requireNonNull(handOverExecutor);
+        watchService = FileSystems.getDefault().newWatchService();
+
+        reloadExecutor = Executors.newSingleThreadExecutor(r -> daemon(r, "catalogue-reloader"));
+        watchThread = daemon(this::watchLoop, "catalogue-watcher");
+    }
+
+    /**
+     * Watches the given files, and reloads a catalogue using the given loader each time one of them is changed.
+     *
+     * @param files
+     *            The files of the catalogue
+     * @param loader
+     *            The loader of the catalogue, called on a background thread
+     * @param consumer
+     *            The consumer of the reloaded catalogue, called through the executor of the watcher
+     * @param <T>
+     *            The type of the catalogue
+     * @return this watcher
+     * @throws IOException
+     *             in case of input/output error while registering a directory
+     */
+    public synchronized <T> CatalogueWatcher watch(Collection<Path> files, Callable<? extends T> loader,
+                                                   Consumer<? super T> consumer) throws IOException {
+        Reload<T> reload = new Reload<>(Objects.requireNonNull(loader), Objects.requireNonNull(consumer));
+
+        for (Path file : files) {
+            Path absoluteFile = file.toAbsolutePath().normalize();
+            Path directory = absoluteFile.getParent();
+
+            if (directories.add(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            reloadsByFile.computeIfAbsent(absoluteFile, f -> new ArrayList<>()).add(reload);
+        }
+        return this;
+    }
+
+    /**
+     * Starts watching the files, on a background thread.
+     * @return this watcher
+     */
+    public CatalogueWatcher start() {
+        watchThread.start();
+        return this;
+    }
+
+    /**
+     * Stops watching the files and abandons the pending reloads.
+     *
+     * @throws IOException
+     *             in case of input/output error while closing the watch service
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close(); // Terminates the watch loop
+        reloadExecutor.shutdownNow();
+    }
+
+    /**
+     * Additional method.
+     * Waits for the changes of the watched files and submits the corresponding reloads, once the files have not been
+     * changed during the quiet period.
+     */
+    private void watchLoop() {
+        try {
+            while (true) {
+                Set<Reload<?>> pendingReloads = new LinkedHashSet<>(); // Each catalogue is reloaded at most once
+
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collectReloads(key, pendingReloads);
+                    key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+                }
+
+                for (Reload<?> reload : pendingReloads) {
+                    reloadExecutor.execute(reload);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher is closed
+        }
+    }
+
+    /**
+     * Additional method.
+     * Adds to the given set the reloads of the catalogues whose files were changed according to the events of the
+     * given key, and resets the latter.
+     *
+     * @param key
+     *            The key of a watched directory
+     * @param pendingReloads
+     *            The reloads to be executed
+     */
+    private synchronized void collectReloads(WatchKey key, Set<Reload<?>> pendingReloads) {
+        Path directory = (Path) key.watchable();
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Some events were lost : all the catalogues of the directory are reloaded
+                reloadsByFile.forEach((file, reloads) -> {
+                    if (file.getParent().equals(directory)) {
+                        pendingReloads.addAll(reloads);
+                    }
+                });
+            } else {
+                Path file = directory.resolve((Path) event.context());
+                pendingReloads.addAll(reloadsByFile.getOrDefault(file, List.of()));
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Additional method.
+     * Returns a daemon thread, so that the watcher never prevents the application from terminating.
+     *
+     * @param runnable
+     *            The code executed by the thread
+     * @param name
+     *            The name of the thread
+     * @return the daemon thread
+     */
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Additional class.
+     * The reload of a catalogue, executed on the background thread of the watcher.
+     *
+     * @param <T>
+     *            The type of the catalogue
+     *
+     * @author Mathias Bouilloud (309979)
+     * @author Julien Mettler (309999)
+     */
+    private final class Reload<T> implements Runnable {
+
+        private final Callable<? extends T> loader;
+        private final Consumer<? super T> consumer;
+
+        private Reload(Callable<? extends T> loader, Consumer<? super T> consumer) {
+            this.loader = loader;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void run() {
+            T catalogue;
+            try {
+                long start = System.nanoTime();
+                catalogue = loader.call();
+                LOGGER.log(INFO, "Catalogue reloaded in {0} ms", (System.nanoTime() - start) / 1_000_000);
+            } catch (Exception e) {
+                LOGGER.log(WARNING, "Reload of a catalogue failed, the former one is kept", e);
+                return;
+            }
+            handOverExecutor.execute(() -> consumer.accept(catalogue));
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package ch.epfl.rigel.gui;
 
 import ch.epfl.rigel.astronomy.*;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
 import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
+import javafx.beans.binding.ObjectBinding;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Orientation;
+import javafx.geometry.Side;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
@@ -25,13 +30,26 @@ import javafx.util.converter.NumberStringConverter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import static java.lang.System.Logger.Level.ERROR;
+import static java.lang.System.Logger.Level.INFO;
+import static java.lang.System.Logger.Level.WARNING;
 import static javafx.beans.binding.Bindings.when;
 
 /**
@@ -47,6 +65,7 @@ public final class Main extends Application {
     private ObserverLocationBean observerLocationBean;
     private ViewingParametersBean viewingParametersBean;
     private SkyCanvasManager canvasManager;
+    private CatalogueWatcher catalogueWatcher;
 
     // The starting moment of observation, i.e. the current time, at the default time-zone of the computer
     private static final ZonedDateTime STARTING_OBSERVATION_TIME = ZonedDateTime.now(ZoneOffset.systemDefault());
@@ -83,12 +102,33 @@ public final class Main extends Application {
             FONT_AWESOME_NAME = "/Font Awesome 5 Free-Solid-900.otf",
             RESET_CHAR = "\uf0e2", PLAY_CHAR = "\uf04b", PAUSE_CHAR = "\uf04c";
 
+    // (Additional) The suffix of the compressed versions of the catalogues, used instead of the latter when present
+    private static final String COMPRESSED_SUFFIX = ".gz";
+
+    // The binary snapshot of the HYG catalogue, (re)generated from the latter when missing or stale. It is stored in
+    // a directory of the user (and not in the shared temporary directory, where anyone could plant a snapshot)
+    private static final Path HYG_SNAPSHOT_PATH = Path.of(System.getProperty("user.home"), ".rigel",
+            "hygdata_v3.snapshot");
+
     // (Bonus) The Unicode characters (UTF-16 first range) of the icons of the bonus buttons and menus
     private static final String OPTIONS_CHAR = "\uf013", ASTERISM_CHAR = "\uf005",
             SAT_CHAR = "\uf09e", NAME_CHAR = "\uf075", MINIMALIST_CHAR = "\uf06e", INFO_CHAR = "\uf05a",
             UP_CHAR = "\uf062", DOWN_CHAR = "\uf063", RIGHT_CHAR = "\uf061", LEFT_CHAR = "\uf060", ZOOM_IN = "\uf00e",
             ZOOM_OUT = "\uf010";
 
+    // (Bonus) The maximum number of objects suggested by the search field, and the width of the latter
+    private static final int MAX_SEARCH_RESULTS = 10;
+    private static final double SEARCH_FIELD_WIDTH = 160;
+
+    // (Additional) The daemon threads loading the catalogues in parallel, one per catalogue
+    private static final Executor LOADING_EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "catalogue-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final System.Logger LOGGER = System.getLogger(Main.class.getName());
+
     /**
      * Launches the graphical interface.
      *
@@ -105,60 +145,197 @@ public final class Main extends Application {
      */
     @Override
     public void start(Stage primaryStage) throws Exception {
-        try (InputStream hs = resourceStream(HYG_CATALOGUE_NAME);
-             InputStream as = resourceStream(AST_CATALOGUE_NAME);
-             InputStream sat = resourceStream(SAT_CATALOGUE_NAME)) {
-
-            // The catalogue of the observed stars and asterisms
-            StarCatalogue catalogue = new StarCatalogue.Builder()
-                    .loadFrom(hs, HygDatabaseLoader.INSTANCE)
-                    .loadFrom(as, AsterismLoader.INSTANCE)
-                    .build();
-
-            // The catalogue of the observed satellites
-            SatelliteCatalogue satCatalogue = new SatelliteCatalogue.Builder()
-                    .loadFrom(sat, SatelliteDatabaseLoader.INSTANCE)
-                    .build();
-
-            // The date/time bean
-            dateTimeBean = new DateTimeBean();
-            dateTimeBean.setZonedDateTime(STARTING_OBSERVATION_TIME);
+        long startTime = System.nanoTime();
+
+        // The date/time bean
+        dateTimeBean = new DateTimeBean();
+        dateTimeBean.setZonedDateTime(STARTING_OBSERVATION_TIME);
+
+        // The current time animator
+        timeAnimator = new TimeAnimator(dateTimeBean);
+        timeAnimator.setAccelerator(STARTING_ACCELERATOR.getAccelerator());
+
+        // The observer location bean
+        observerLocationBean = new ObserverLocationBean();
+        observerLocationBean.setCoordinates(STARTING_OBSERVER_POSITION);
+
+        // The parameters of observation
+        viewingParametersBean = new ViewingParametersBean();
+        viewingParametersBean.setCenter(STARTING_OBSERVER_DIRECTION);
+        viewingParametersBean.setFieldOfViewDeg(STARTING_FIELD_OF_VIEW_DEG);
+
+        // The sky canvas manager, whose catalogues are empty until they are loaded : the first frame only shows the
+        // Sun, the Moon and the planets, which do not depend on any catalogue
+        canvasManager = new SkyCanvasManager(new StarCatalogue(List.of(), List.of()), new SatelliteCatalogue(List.of()),
+                dateTimeBean, observerLocationBean, viewingParametersBean);
+
+        Canvas canvas = canvasManager.getCanvas();
+        Pane skyPane = new Pane(canvas);  // The view of the sky (the center part of the graphical interface)
+
+        // The dimensions of the canvas are bounded to those of the sky pane
+        canvas.widthProperty().bind(skyPane.widthProperty());
+        canvas.heightProperty().bind(skyPane.heightProperty());
+
+        primaryStage.setTitle("Rigel");
+        primaryStage.setMinWidth(800);
+        primaryStage.setMinHeight(600);
+
+        // The main pane
+        BorderPane root = new BorderPane(skyPane, controlBar(), null, informationBar(), null);
+        primaryStage.setScene(new Scene(root));
+        primaryStage.show();
+
+        canvas.requestFocus(); // Sets the canvas as the receiver of the keyboard events
+
+        // Measures the time elapsed until the first pulse following the display of the window, i.e. the first frame
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                LOGGER.log(INFO, "Time to first frame : {0} ms", (System.nanoTime() - startTime) / 1_000_000);
+                stop();
+            }
+        }.start();
 
-            // The current time animator
-            timeAnimator = new TimeAnimator(dateTimeBean);
-            timeAnimator.setAccelerator(STARTING_ACCELERATOR.getAccelerator());
+        // Loads the catalogues in parallel in the background, each one being swapped on the JavaFX application thread
+        // as soon as it is loaded (the stars being ordered by magnitude, the brightest ones are drawn first)
+        CompletableFuture<Void> stars = loadAsync(this::loadStarCatalogue, canvasManager::setCatalogue);
+        CompletableFuture<Void> satellites = loadAsync(this::loadSatCatalogue, canvasManager::setSatCatalogue);
 
-            // The observer location bean
-            observerLocationBean = new ObserverLocationBean();
-            observerLocationBean.setCoordinates(STARTING_OBSERVER_POSITION);
+        CompletableFuture.allOf(stars, satellites).whenCompleteAsync((v, error) -> {
+            if (error != null) {
+                LOGGER.log(ERROR, "Loading of the catalogues failed", error);
 
-            // The parameters of observation
-            viewingParametersBean = new ViewingParametersBean();
-            viewingParametersBean.setCenter(STARTING_OBSERVER_DIRECTION);
-            viewingParametersBean.setFieldOfViewDeg(STARTING_FIELD_OF_VIEW_DEG);
+                Alert loadingAlert = new Alert(Alert.AlertType.ERROR);
+                loadingAlert.setContentText("Impossible de charger les catalogues !");
+                loadingAlert.show();
+                return;
+            }
+            LOGGER.log(INFO, "Time to full sky : {0} ms", (System.nanoTime() - startTime) / 1_000_000);
 
-            // The sky canvas manager
-            canvasManager = new SkyCanvasManager(catalogue, satCatalogue, dateTimeBean, observerLocationBean,
-                    viewingParametersBean);
+            // Reloads the catalogues in the background when their files are changed, the new catalogues being swapped
+            // on the JavaFX application thread. Watching only starts now, so that a reload cannot be overwritten by
+            // the initial loading
+            try {
+                catalogueWatcher = new CatalogueWatcher(Platform::runLater)
+                        .watch(resourceFiles(catalogueName(HYG_CATALOGUE_NAME), catalogueName(AST_CATALOGUE_NAME)),
+                                this::loadStarCatalogue, canvasManager::setCatalogue)
+                        .watch(resourceFiles(catalogueName(SAT_CATALOGUE_NAME)), this::loadSatCatalogue,
+                                canvasManager::setSatCatalogue)
+                        .start();
+            } catch (IOException e) {
+                LOGGER.log(WARNING, "The files of the catalogues cannot be watched", e);
+            }
+        }, Platform::runLater);
+    }
 
-            Canvas canvas = canvasManager.getCanvas();
-            Pane skyPane = new Pane(canvas);  // The view of the sky (the center part of the graphical interface)
+    /**
+     * Additional method.
+     * Stops watching the files of the catalogues.
+     *
+     * @see Application#stop()
+     */
+    @Override
+    public void stop() throws Exception {
+        if (catalogueWatcher != null) {
+            catalogueWatcher.close();
+        }
+    }
 
-            // The dimensions of the canvas are bounded to those of the sky pane
-            canvas.widthProperty().bind(skyPane.widthProperty());
-            canvas.heightProperty().bind(skyPane.heightProperty());
+    /**
+     * Additional method.
+     * Loads a catalogue on a background thread, and gives it to the given consumer on the JavaFX application thread.
+     *
+     * @param loader
+     *            The loader of the catalogue
+     * @param consumer
+     *            The consumer of the loaded catalogue
+     * @param <T>
+     *            The type of the catalogue
+     * @return the future completed once the catalogue has been given to the consumer
+     */
+    private static <T> CompletableFuture<Void> loadAsync(Callable<T> loader, Consumer<T> consumer) {
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return loader.call();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, LOADING_EXECUTOR)
+                .thenAcceptAsync(consumer, Platform::runLater);
+    }
 
-            primaryStage.setTitle("Rigel");
-            primaryStage.setMinWidth(800);
-            primaryStage.setMinHeight(600);
+    /**
+     * Additional method.
+     * Loads the catalogue of the stars and asterisms from the resources (through the snapshot of the HYG catalogue).
+     *
+     * @return the catalogue of the stars and asterisms
+     * @throws IOException
+     *             in case of input/output error
+     */
+    private StarCatalogue loadStarCatalogue() throws IOException {
+        try (InputStream hs = resourceStream(catalogueName(HYG_CATALOGUE_NAME));
+             InputStream as = resourceStream(catalogueName(AST_CATALOGUE_NAME))) {
+            return new StarCatalogue.Builder()
+                    .orderByMagnitude()
+                    .loadFrom(hs, new HygSnapshotLoader(HYG_SNAPSHOT_PATH))
+                    .loadFrom(as, AsterismLoader.INSTANCE)
+                    .build();
+        }
+    }
 
-            // The main pane
-            BorderPane root = new BorderPane(skyPane, controlBar(), null, informationBar(), null);
-            primaryStage.setScene(new Scene(root));
-            primaryStage.show();
+    /**
+     * Additional method.
+     * Loads the catalogue of the satellites from the resources.
+     *
+     * @return the catalogue of the satellites
+     * @throws IOException
+     *             in case of input/output error
+     */
+    private SatelliteCatalogue loadSatCatalogue() throws IOException {
+        try (InputStream sat = resourceStream(catalogueName(SAT_CATALOGUE_NAME))) {
+            return new SatelliteCatalogue.Builder()
+                    .loadFrom(sat, SatelliteDatabaseLoader.INSTANCE)
+                    .build();
+        }
+    }
 
-            canvas.requestFocus(); // Sets the canvas as the receiver of the keyboard events
+    /**
+     * Additional method.
+     * Returns the files of the given resources which are located in a directory (and can therefore be watched), the
+     * resources packaged in an archive being left out.
+     *
+     * @param resourceNames
+     *            The names of the resources
+     * @return the files of the resources located in a directory
+     */
+    private List<Path> resourceFiles(String... resourceNames) {
+        List<Path> files = new ArrayList<>();
+        for (String resourceName : resourceNames) {
+            URL url = getClass().getResource(resourceName);
+            if (url != null && "file".equals(url.getProtocol())) {
+                try {
+                    files.add(Path.of(url.toURI()));
+                } catch (URISyntaxException e) {
+                    // The resource cannot be watched
+                }
+            }
         }
+        return files;
+    }
+
+    /**
+     * Additional method.
+     * Returns the name of the resource of the given catalogue : the name of its compressed version if the latter is
+     * present (the loaders detecting and inflating compressed catalogues), or the given name otherwise.
+     *
+     * @param catalogueName
+     *            The name of the resource of the uncompressed catalogue
+     * @return the name of the resource of the catalogue to load
+     */
+    private String catalogueName(String catalogueName) {
+        String compressedName = catalogueName + COMPRESSED_SUFFIX;
+        return getClass().getResource(compressedName) != null ? compressedName : catalogueName;
     }
 
     /**
@@ -483,7 +660,7 @@ public final class Main extends Application {
      * @throws IOException in case of input/output error
      */
     private HBox bonusInterface() throws IOException {
-        HBox bonusInterface = new HBox(planetsMenu(), optionsMenu(), controlsInfoButton());
+        HBox bonusInterface = new HBox(planetsMenu(), searchField(), optionsMenu(), controlsInfoButton());
         bonusInterface.setStyle("-fx-spacing: inherit");
 
         return bonusInterface;
@@ -505,14 +682,7 @@ public final class Main extends Application {
 
         planetsMenu.valueProperty().addListener(
                 (o, oV, nV) -> {
-                    EquatorialToHorizontalConversion equToHor = new EquatorialToHorizontalConversion(
-                            dateTimeBean.getZonedDateTime(), observerLocationBean.getCoordinates());
-
-                    HorizontalCoordinates hor = equToHor.apply(planetsMenu.getValue().equatorialPos());
-
-                    if (0 <= hor.altDeg() && hor.altDeg() <= 90) {
-                        viewingParametersBean.setCenter(hor);
-                    } else {
+                    if (!centerOn(planetsMenu.getValue().equatorialPos())) {
                         observationAlert.showAndWait();
                     }
                 });
@@ -525,6 +695,92 @@ public final class Main extends Application {
         return planetsMenu;
     }
 
+    /**
+     * (Bonus) Returns the search field of the celestial objects by name, whose suggestions (the objects whose name
+     * starts with the typed text, or with a close misspelling of it) are updated at each keystroke. Choosing a
+     * suggestion, or pressing Enter for the first one, centers the view on the object.
+     * The index of the names is rebuilt when a catalogue is swapped, at the first search which follows.
+     *
+     * @return the search field of the celestial objects
+     */
+    private TextField searchField() {
+        ObjectBinding<ObjectNameIndex> nameIndex = Bindings.createObjectBinding(
+                () -> new ObjectNameIndex(canvasManager.getCatalogue(), canvasManager.getSatCatalogue()),
+                canvasManager.catalogueProperty(), canvasManager.satCatalogueProperty());
+
+        TextField searchField = new TextField();
+        searchField.setPromptText("Rechercher un objet");
+        searchField.setPrefWidth(SEARCH_FIELD_WIDTH);
+
+        Alert observationAlert = new Alert(Alert.AlertType.ERROR);
+        observationAlert.setContentText("Objet impossible à observer !");
+
+        ContextMenu suggestions = new ContextMenu();
+        Consumer<ObjectNameIndex.Match> select = match -> {
+            suggestions.hide();
+            if (!centerOn(nameIndex.get().equatorialPos(match, dateTimeBean.getZonedDateTime()))) {
+                observationAlert.showAndWait();
+            }
+        };
+
+        searchField.textProperty().addListener(
+                (o, oV, nV) -> {
+                    List<ObjectNameIndex.Match> matches = nameIndex.get().search(nV, MAX_SEARCH_RESULTS);
+                    if (matches.isEmpty()) {
+                        suggestions.hide();
+                        return;
+                    }
+
+                    List<MenuItem> items = new ArrayList<>(matches.size());
+                    for (ObjectNameIndex.Match match : matches) {
+                        MenuItem item = new MenuItem(match.name());
+                        item.setOnAction(e -> select.accept(match));
+                        items.add(item);
+                    }
+                    suggestions.getItems().setAll(items);
+
+                    if (!suggestions.isShowing()) {
+                        suggestions.show(searchField, Side.BOTTOM, 0, 0);
+                    }
+                });
+
+        // Enter centers the view on the first suggestion
+        searchField.setOnAction(e -> {
+            List<ObjectNameIndex.Match> matches = nameIndex.get().search(searchField.getText(), 1);
+            if (!matches.isEmpty()) {
+                select.accept(matches.get(0));
+            }
+        });
+
+        // Disables the search field when an animation is running, as the planets menu
+        searchField.disableProperty().bind(
+                when(timeAnimator.runningProperty()).then(true).otherwise(false)
+        );
+
+        return searchField;
+    }
+
+    /**
+     * (Bonus) Centers the view on the given equatorial position, at the current epoch and place of observation, as
+     * long as it is above the horizon.
+     *
+     * @param equatorialPos
+     *            The equatorial position of the object to look at
+     * @return true if the view has been centered on the position, false if the latter is below the horizon
+     */
+    private boolean centerOn(EquatorialCoordinates equatorialPos) {
+        EquatorialToHorizontalConversion equToHor = new EquatorialToHorizontalConversion(
+                dateTimeBean.getZonedDateTime(), observerLocationBean.getCoordinates());
+
+        HorizontalCoordinates hor = equToHor.apply(equatorialPos);
+
+        if (0 <= hor.altDeg() && hor.altDeg() <= 90) {
+            viewingParametersBean.setCenter(hor);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * (Bonus) Returns the viewing options menu.
      * @return the viewing options menu
@@ -15,6 +15,7 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.input.KeyCode;
 import javafx.scene.transform.Transform;
 
+import java.util.Objects;
 import java.util.Optional;
 
 import static java.lang.Math.*;
@@ -34,10 +35,16 @@ public final class SkyCanvasManager {
     // The internal bindings and properties
     private final ObjectBinding<StereographicProjection> projection; // The stereographic projection binding
     private final ObjectBinding<Transform> planeToCanvas; // The plane to canvas affine transform binding
+    // (Additional) The coefficients of the plane to canvas affine transform, read once per change of the transform
+    private final ObjectBinding<PlaneToCanvas> planeToCanvasAffine;
     private final ObjectBinding<ObservedSky> observedSky; // The observed sky binding
     private final ObjectBinding<HorizontalCoordinates> mouseHorizontalPosition;
     private final ObjectProperty<CartesianCoordinates> mousePosition; // The cursor canvas position property
 
+    // (Additional) The catalogues of the observed sky, which can be swapped for reloaded ones
+    private final ObjectProperty<StarCatalogue> catalogue;
+    private final ObjectProperty<SatelliteCatalogue> satCatalogue;
+
     // The beans
     private final ViewingParametersBean viewingParameters;
     private final ObserverLocationBean observerLocation;
@@ -60,11 +67,17 @@ public final class SkyCanvasManager {
     private static final ClosedInterval FOV_INTERVAL = ClosedInterval.of(30, 150);
     private static final ClosedInterval ALT_STEPS_INTERVAL = ClosedInterval.of(5, 90);
 
+    // The margin (in radians) added to the angular radius of the visible part of the sky, so that the stars at the
+    // edges of the canvas are still drawn
+    private static final double VIEW_RADIUS_MARGIN = Angle.ofDeg(2);
+
     /**
      * Constructs a sky canvas manager.
      *
      * @param catalogue
      *            The catalogue of the observed stars and asterisms
+     * @param satCatalogue
+     *            The catalogue of the observed satellites
      * @param dateTime
      *            The instant of observation
      * @param viewingParameters
@@ -81,6 +94,8 @@ public final class SkyCanvasManager {
         SkyCanvasPainter painter = new SkyCanvasPainter(canvas); // The painter which draws the sky on the canvas
 
         mousePosition = new SimpleObjectProperty<>();
+        this.catalogue = new SimpleObjectProperty<>(catalogue);
+        this.satCatalogue = new SimpleObjectProperty<>(satCatalogue);
 
         projection = Bindings.createObjectBinding(
                 () -> new StereographicProjection(viewingParameters.getCenter()), viewingParameters.centerProperty()
@@ -94,12 +109,19 @@ public final class SkyCanvasManager {
                     return Transform.affine(dilatationFactor, 0, 0, -dilatationFactor,
                             canvas.getWidth() / 2, canvas.getHeight() / 2);
                 }, viewingParameters.fieldOfViewDegProperty(), projection, canvas.widthProperty(), canvas.heightProperty());
+        planeToCanvasAffine = Bindings.createObjectBinding(() -> PlaneToCanvas.of(getPlaneToCanvas()), planeToCanvas);
 
+        // The faintest stars drawn depend on the field of view (only the brightest ones are projected when the catalogue
+        // is ordered by magnitude), and only the stars around the center of the projection visible on the canvas are
+        // projected. A swapped catalogue is used from the next observed sky on, the current one keeping the former
         observedSky = Bindings.createObjectBinding(
                 () -> new ObservedSky(dateTime.getZonedDateTime(), observerLocation.getCoordinates(), getProjection(),
-                        catalogue, satCatalogue),
+                        getCatalogue(), getSatCatalogue(), viewingParameters.getLimitingMagnitude(),
+                        viewRadius(viewingParameters.getFieldOfViewDeg(), canvas.getWidth(), canvas.getHeight())),
                 dateTime.dateProperty(), dateTime.timeProperty(), dateTime.zoneProperty(),
-                observerLocation.coordinatesBinding(), projection);
+                observerLocation.coordinatesBinding(), projection, viewingParameters.limitingMagnitudeBinding(),
+                viewingParameters.fieldOfViewDegProperty(), canvas.widthProperty(), canvas.heightProperty(),
+                this.catalogue, this.satCatalogue);
 
         // Redraws the painter when these properties are changed
         planeToCanvas.addListener(o -> draw(painter, getObservedSky()));
@@ -189,6 +211,66 @@ public final class SkyCanvasManager {
         return observedSky.get();
     }
 
+    /**
+     * Additional method.
+     * Returns the property of the catalogue of the observed stars and asterisms.
+     * @return the property of the catalogue of the observed stars and asterisms
+     */
+    public ObjectProperty<StarCatalogue> catalogueProperty() {
+        return catalogue;
+    }
+
+    /**
+     * Additional method.
+     * Returns the catalogue of the observed stars and asterisms.
+     * @return the catalogue of the observed stars and asterisms
+     */
+    public StarCatalogue getCatalogue() {
+        return catalogue.get();
+    }
+
+    /**
+     * Additional method.
+     * Replaces the catalogue of the observed stars and asterisms (on the JavaFX application thread), the sky being
+     * observed again with the new catalogue.
+     *
+     * @param catalogue
+     *            The new catalogue of the observed stars and asterisms
+     */
+    public void setCatalogue(StarCatalogue catalogue) {
+        this.catalogue.set(Objects.requireNonNull(catalogue));
+    }
+
+    /**
+     * Additional method.
+     * Returns the property of the catalogue of the observed satellites.
+     * @return the property of the catalogue of the observed satellites
+     */
+    public ObjectProperty<SatelliteCatalogue> satCatalogueProperty() {
+        return satCatalogue;
+    }
+
+    /**
+     * Additional method.
+     * Returns the catalogue of the observed satellites.
+     * @return the catalogue of the observed satellites
+     */
+    public SatelliteCatalogue getSatCatalogue() {
+        return satCatalogue.get();
+    }
+
+    /**
+     * Additional method.
+     * Replaces the catalogue of the observed satellites (on the JavaFX application thread), the sky being observed
+     * again with the new catalogue.
+     *
+     * @param satCatalogue
+     *            The new catalogue of the observed satellites
+     */
+    public void setSatCatalogue(SatelliteCatalogue satCatalogue) {
+        this.satCatalogue.set(Objects.requireNonNull(satCatalogue));
+    }
+
     /**
      * Returns the mouse cursor's azimuth property.
      * @return the mouse cursor's azimuth property
@@ -389,6 +471,30 @@ public final class SkyCanvasManager {
         viewingParameters.setCenter(movedCenter);
     }
 
+    /**
+     * Additional method.
+     * Returns the angular radius of the cap of the sky visible on a canvas of given dimensions, i.e. the angular
+     * distance between the center of the projection and the corners of the canvas. The width of the canvas covering
+     * the field of view, a corner is at the distance tan(fov/4) * sqrt(1 + (height/width)^2) from the center on the
+     * plane of the stereographic projection, which maps the angle t from its center to the distance tan(t/2).
+     *
+     * @param fovDeg
+     *            The field of view (in degrees)
+     * @param width
+     *            The width of the canvas
+     * @param height
+     *            The height of the canvas
+     * @return the angular radius (in radians) of the visible cap of the sky (PI if undetermined)
+     */
+    private static double viewRadius(double fovDeg, double width, double height) {
+        if (!(fovDeg > 0 && width > 0 && height > 0)) {
+            return PI;
+        }
+        double ratio = height / width;
+        double cornerPlaneDistance = tan(Angle.ofDeg(fovDeg) / 4) * sqrt(1 + ratio * ratio);
+        return min(PI, 2 * atan(cornerPlaneDistance) + VIEW_RADIUS_MARGIN);
+    }
+
     /**
      * Draws the observed sky on the canvas, using a sky canvas painter.
      *
@@ -398,13 +504,16 @@ public final class SkyCanvasManager {
      *            The observed sky
      */
     private void draw(SkyCanvasPainter painter, ObservedSky sky) {
+        // The coefficients of the affine transform are read once for the whole drawing
+        PlaneToCanvas transform = planeToCanvasAffine.get();
+
         painter.clear();
-        painter.drawStars(sky, planeToCanvas.get(), asterismEnabled(), nameEnabled());
-        painter.drawPlanets(sky, planeToCanvas.get(), nameEnabled());
-        painter.drawSun(sky, projection.get(), planeToCanvas.get(), nameEnabled());
-        painter.drawMoon(sky, projection.get(), planeToCanvas.get(), observerLocation.getCoordinates(), nameEnabled());
-        painter.drawSatellites(sky, planeToCanvas.get(), satelliteEnabled());
-        painter.drawHorizon(projection.get(), planeToCanvas.get());
+        painter.drawStars(sky, transform, asterismEnabled(), nameEnabled());
+        painter.drawPlanets(sky, transform, nameEnabled());
+        painter.drawSun(sky, projection.get(), transform, nameEnabled());
+        painter.drawMoon(sky, projection.get(), transform, observerLocation.getCoordinates(), nameEnabled());
+        painter.drawSatellites(sky, transform, satelliteEnabled());
+        painter.drawHorizon(projection.get(), transform);
     }
 }
 
@@ -3,16 +3,12 @@ package ch.epfl.rigel.gui;
 import ch.epfl.rigel.astronomy.*;
 import ch.epfl.rigel.coordinates.*;
 import javafx.geometry.Bounds;
-import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.ArcType;
 import javafx.scene.text.TextAlignment;
-import javafx.scene.transform.Transform;
-
-import java.util.List;
 
 /**
  * A painter of the observed sky.
@@ -25,6 +21,9 @@ public final class SkyCanvasPainter {
     private final Canvas canvas; // The canvas on which the sky is drawn
     private final GraphicsContext ctx; // The graphics context associated to the canvas
 
+    // (Additional) The positions of the stars on the canvas, reused from one drawing to the next
+    private double[] starCanvasPositions = new double[0];
+
     // The color of the Sun
     public static final Color SUN_COLOR = Color.YELLOW.deriveColor(0, 1, 1, 0.25);
 
@@ -60,27 +59,38 @@ public final class SkyCanvasPainter {
      * @param nameEnabled
      *           Enables the drawing of the names of the brightest stars
      */
-    public void drawStars(ObservedSky sky, Transform transform, boolean asterismEnabled, boolean nameEnabled) {
-        // The positions of the observed stars on the canvas
-        double[] starCanvasPositions = PlaneToCanvas.applyToAllPoints(sky.starPositions(), transform);
+    public void drawStars(ObservedSky sky, PlaneToCanvas transform, boolean asterismEnabled, boolean nameEnabled) {
+        // The positions of the observed stars on the canvas, written in the array of the previous drawing if the
+        // number of stars has not changed (the positions on the plane being transformed in place)
+        int starCoordinateCount = 2 * sky.starTable().size();
+        if (starCanvasPositions.length != starCoordinateCount) {
+            starCanvasPositions = new double[starCoordinateCount];
+        }
+        sky.copyStarPositionsTo(starCanvasPositions);
+        transform.applyToAllPoints(starCanvasPositions, starCanvasPositions);
 
         if(asterismEnabled) drawAsterisms(sky, starCanvasPositions);
 
-        int index = 0;
-        for (Star s : sky.stars()) {
-            CartesianCoordinates starCanvasPos = CartesianCoordinates.of(
-                    starCanvasPositions[index * 2], starCanvasPositions[index * 2 + 1]);
+        // The stars are read from the columns of the table, without being materialized. Only the visible stars are
+        // drawn, i.e. the ones at most as faint as the limiting magnitude of the observed sky
+        StarTable stars = sky.starTable();
+        for (int index = 0; index < sky.visibleStarCount(); ++index) {
+            // The stars out of the visible part of the sky have not been projected
+            if (!sky.isVisible(index) || Double.isNaN(starCanvasPositions[index * 2])) continue;
 
-            // The diameter of the image of the star
-            double starCanvasDiameter = PlaneToCanvas.applyToDistance(s.discSize(), transform);
+            double starCanvasX = starCanvasPositions[index * 2], starCanvasY = starCanvasPositions[index * 2 + 1];
 
-            // Draws and colors the star according to its color temperature
-            Color starColor = BlackBodyColor.colorForTemperature(s.colorTemperature());
-            drawFilledCircle(starCanvasPos, starCanvasDiameter, starColor);
+            // The diameter of the image of the star
+            double starCanvasDiameter = transform.applyToDistance(stars.discSize(index));
 
-            if(nameEnabled && s.isBright()) drawAnnotation(s.name(), starCanvasPos, starColor);
+            // Draws and colors the star according to its color temperature, whose bin in the palette has been computed
+            // with the table
+            Color starColor = BlackBodyColor.colorForTemperatureBin(stars.temperatureBin(index));
+            drawFilledCircle(starCanvasX, starCanvasY, starCanvasDiameter, starColor);
 
-            ++index;
+            if(nameEnabled && stars.isBright(index)) {
+                drawAnnotation(stars.name(index), starCanvasX, starCanvasY, starColor);
+            }
         }
     }
 
@@ -92,14 +102,14 @@ public final class SkyCanvasPainter {
      * @param transform
      *            The affine transform
      */
-    public void drawPlanets(ObservedSky sky, Transform transform, boolean nameEnabled) {
+    public void drawPlanets(ObservedSky sky, PlaneToCanvas transform, boolean nameEnabled) {
         // The positions of the observed planets of the solar system on the canvas
-        double[] planetCanvasPositions = PlaneToCanvas.applyToAllPoints(sky.planetPositions(), transform);
+        double[] planetCanvasPositions = transform.applyToAllPoints(sky.planetPositions());
 
         int index = 0;
         for (Planet p : sky.planets()) {
             // The diameter of the planet of the canvas
-            double planetCanvasDiameter = PlaneToCanvas.applyToDistance(p.discSize(), transform);
+            double planetCanvasDiameter = transform.applyToDistance(p.discSize());
 
             CartesianCoordinates planetCanvasPos = CartesianCoordinates.of(
                     planetCanvasPositions[index * 2], planetCanvasPositions[index * 2 + 1]);
@@ -122,14 +132,14 @@ public final class SkyCanvasPainter {
      * @param transform
      *            The affine transform
      */
-    public void drawSun(ObservedSky sky, StereographicProjection projection, Transform transform, boolean nameEnable) {
+    public void drawSun(ObservedSky sky, StereographicProjection projection, PlaneToCanvas transform, boolean nameEnable) {
         // The position and projected diameter of the observed Sun on the plane
         CartesianCoordinates sunPlanePosition = sky.sunPosition();
         double sunPlaneDiameter = projection.applyToAngle(sky.sun().angularSize());
 
         // The position and diameter of the observed Sun on the canvas
-        CartesianCoordinates sunCanvasPosition = PlaneToCanvas.applyToPoint(sunPlanePosition, transform);
-        double sunCanvasDiameter = PlaneToCanvas.applyToDistance(sunPlaneDiameter, transform);
+        CartesianCoordinates sunCanvasPosition = transform.applyToPoint(sunPlanePosition);
+        double sunCanvasDiameter = transform.applyToDistance(sunPlaneDiameter);
 
         // Draws the three concentric discs composing the image of the Sun, from the largest to the smallest
         drawFilledCircle(sunCanvasPosition, sunCanvasDiameter * 2.2, SUN_COLOR);
@@ -149,15 +159,15 @@ public final class SkyCanvasPainter {
      * @param transform
      *            The affine transform
      */
-    public void drawMoon(ObservedSky sky, StereographicProjection projection, Transform transform,
+    public void drawMoon(ObservedSky sky, StereographicProjection projection, PlaneToCanvas transform,
                   GeographicCoordinates observerLocation, boolean nameEnable) {
         // The position and projected diameter of the observed Moon on the plane
         CartesianCoordinates moonPlanePosition = sky.moonPosition();
         double moonPlaneDiameter = projection.applyToAngle(sky.moon().angularSize());
 
         // The position and diameter of the observed Moon on the canvas
-        CartesianCoordinates moonCanvasPosition = PlaneToCanvas.applyToPoint(moonPlanePosition, transform);
-        double moonCanvasDiameter = PlaneToCanvas.applyToDistance(moonPlaneDiameter, transform);
+        CartesianCoordinates moonCanvasPosition = transform.applyToPoint(moonPlanePosition);
+        double moonCanvasDiameter = transform.applyToDistance(moonPlaneDiameter);
 
         drawMoonPhase(sky.moon().phase(), moonCanvasPosition, moonCanvasDiameter, observerLocation);
 
@@ -173,14 +183,14 @@ public final class SkyCanvasPainter {
      * @param transform
      *            The affine transform
      */
-    public void drawHorizon(StereographicProjection projection, Transform transform) {
+    public void drawHorizon(StereographicProjection projection, PlaneToCanvas transform) {
         // The parallel of latitude 0 degree. Note : the arbitrarily chosen azimuth does not matter in the calculations
         HorizontalCoordinates parallel = HorizontalCoordinates.of(0, 0);
 
         // Projects the parallel of latitude 0 degree on the plane (resulting in the horizon) and expresses its center
         // and radius in the canvas coordinate system
-        CartesianCoordinates center = PlaneToCanvas.applyToPoint(projection.circleCenterForParallel(parallel), transform);
-        double horizonRadius = PlaneToCanvas.applyToDistance(projection.circleRadiusForParallel(parallel), transform);
+        CartesianCoordinates center = transform.applyToPoint(projection.circleCenterForParallel(parallel));
+        double horizonRadius = transform.applyToDistance(projection.circleRadiusForParallel(parallel));
         double horizonDiameter = 2.0 * horizonRadius;
 
         // Draws the empty red circle corresponding to the horizon
@@ -200,17 +210,14 @@ public final class SkyCanvasPainter {
      * @param transform
      *            The affine transform
      */
-    public void drawSatellites(ObservedSky sky, Transform transform, boolean satelliteEnabled) {
+    public void drawSatellites(ObservedSky sky, PlaneToCanvas transform, boolean satelliteEnabled) {
         // The positions of the observed satellites on the canvas
-        double[] satelliteCanvasPositions = PlaneToCanvas.applyToAllPoints(sky.satellitePositions(), transform);
+        double[] satelliteCanvasPositions = transform.applyToAllPoints(sky.satellitePositions());
 
         if(satelliteEnabled) {
-            for(int i = 0; i < sky.satellites().size(); ++i){
-                CartesianCoordinates satelliteCanvasPos = CartesianCoordinates.of(
-                        satelliteCanvasPositions[i * 2], satelliteCanvasPositions[i * 2 + 1]);
-
+            for(int i = 0; i < sky.satelliteTable().size(); ++i){
                 // Draws and colors the satellite
-                drawFilledCircle(satelliteCanvasPos, 3, Color.GREEN);
+                drawFilledCircle(satelliteCanvasPositions[i * 2], satelliteCanvasPositions[i * 2 + 1], 3, Color.GREEN);
             }
         }
     }
@@ -224,11 +231,28 @@ public final class SkyCanvasPainter {
      *            The diameter of the circle, expressed in the canvas coordinate system
      */
     private void drawFilledCircle(CartesianCoordinates center, double diameter, Color color) {
+        drawFilledCircle(center.x(), center.y(), diameter, color);
+    }
+
+    /**
+     * Additional method.
+     * Draws a filled circle of given diameter, centered at the given coordinates (without materializing them).
+     *
+     * @param centerX
+     *            The abscissa of the center of the circle, expressed in the canvas coordinate system
+     * @param centerY
+     *            The ordinate of the center of the circle, expressed in the canvas coordinate system
+     * @param diameter
+     *            The diameter of the circle, expressed in the canvas coordinate system
+     * @param color
+     *            The color of the circle
+     */
+    private void drawFilledCircle(double centerX, double centerY, double diameter, Color color) {
         double radius = diameter / 2.0;
         ctx.setFill(color);
 
         // Translates the coordinates of the center of the circle to the coordinates of its upper left bound
-        ctx.fillOval(center.x() - radius, center.y() - radius, diameter, diameter);
+        ctx.fillOval(centerX - radius, centerY - radius, diameter, diameter);
     }
 
     /**
@@ -245,25 +269,27 @@ public final class SkyCanvasPainter {
         ctx.setLineWidth(1.0);
         ctx.setStroke(Color.BLUE);
 
-        for (Asterism ast : sky.asterisms()) {
+        // The indices of the stars of the asterisms, read without unboxing
+        AsterismIndex asterismIndex = sky.asterismIndex();
+
+        for (int ast = 0; ast < asterismIndex.count(); ++ast) {
             ctx.beginPath(); // Resets the current path to empty
-            List<Integer> asterismIndices = sky.asterismsIndices(ast);
 
-            for (int i = 0; i < asterismIndices.size() - 1; ++i) {
+            for (int i = asterismIndex.start(ast); i < asterismIndex.end(ast) - 1; ++i) {
                 // The index (in the catalogue) and position (on the canvas) of the star at the beginning of the segment
-                int index1 = asterismIndices.get(i);
-                Point2D beginning = new Point2D(starCanvasPositions[index1 * 2], starCanvasPositions[index1 * 2 + 1]);
+                int index1 = asterismIndex.starIndex(i);
+                double beginningX = starCanvasPositions[index1 * 2], beginningY = starCanvasPositions[index1 * 2 + 1];
 
                 // Starts the segment to draw at the position of the first star
-                ctx.moveTo(beginning.getX(), beginning.getY());
+                ctx.moveTo(beginningX, beginningY);
 
                 // The index (in the catalogue) and position (on the canvas) of the star at the end of the segment
-                int index2 = asterismIndices.get(i + 1);
-                Point2D end = new Point2D(starCanvasPositions[index2 * 2], starCanvasPositions[index2 * 2 + 1]);
+                int index2 = asterismIndex.starIndex(i + 1);
+                double endX = starCanvasPositions[index2 * 2], endY = starCanvasPositions[index2 * 2 + 1];
 
                 // Adds a segment between the two stars if at least one star has its center within the limits of the canvas.
-                if (borders.contains(beginning) || borders.contains(end)) {
-                    ctx.lineTo(end.getX(), end.getY());
+                if (borders.contains(beginningX, beginningY) || borders.contains(endX, endY)) {
+                    ctx.lineTo(endX, endY);
                 }
                 ctx.fill(); // Colors the segment in blue
             }
@@ -281,14 +307,14 @@ public final class SkyCanvasPainter {
      * @param transform
      *            The affine transform
      */
-    private void drawCardinalPoints(StereographicProjection projection, Transform transform) {
+    private void drawCardinalPoints(StereographicProjection projection, PlaneToCanvas transform) {
         ctx.setFill(Color.RED);
         ctx.setTextAlign(TextAlignment.CENTER);
         ctx.setTextBaseline(VPos.TOP);
 
         for (int i = 0; i < 7; ++i) {
             HorizontalCoordinates cardinalPoint = HorizontalCoordinates.ofDeg(45 * i, -0.5);
-            CartesianCoordinates canvasPos = PlaneToCanvas.applyToPoint(projection.apply(cardinalPoint), transform);
+            CartesianCoordinates canvasPos = transform.applyToPoint(projection.apply(cardinalPoint));
             ctx.fillText(cardinalPoint.azOctantName("N", "E", "S", "O"), canvasPos.x(), canvasPos.y());
         }
     }
@@ -349,10 +375,28 @@ public final class SkyCanvasPainter {
      *            The color of the annotation
      */
     private void drawAnnotation(String annotation, CartesianCoordinates canvasPosition, Color color) {
+        drawAnnotation(annotation, canvasPosition.x(), canvasPosition.y(), color);
+    }
+
+    /**
+     * Additional method.
+     * Draws an annotation next to the given coordinates on the canvas (without materializing them) and using the
+     * given color.
+     *
+     * @param annotation
+     *            The annotation
+     * @param canvasX
+     *            The abscissa on the canvas
+     * @param canvasY
+     *            The ordinate on the canvas
+     * @param color
+     *            The color of the annotation
+     */
+    private void drawAnnotation(String annotation, double canvasX, double canvasY, Color color) {
         ctx.setFill(color);
         ctx.setTextAlign(TextAlignment.CENTER);
         ctx.setTextBaseline(VPos.TOP);
-        ctx.fillText(annotation, canvasPosition.x(), canvasPosition.y());
+        ctx.fillText(annotation, canvasX, canvasY);
     }
 
 }
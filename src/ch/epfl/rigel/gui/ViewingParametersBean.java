@@ -1,6 +1,8 @@
 package ch.epfl.rigel.gui;
 
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.DoubleBinding;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
@@ -16,6 +18,11 @@ public final class ViewingParametersBean {
 
     private final DoubleProperty fieldOfViewDeg; // The field of view property
     private final ObjectProperty<HorizontalCoordinates> center; // The stereographic projection property
+    private final DoubleBinding limitingMagnitude; // The limiting magnitude binding, derived from the field of view
+
+    // The limiting magnitude of the stars visible in the narrowest field of view (in degrees), which decreases by 2.5
+    // each time the field of view is multiplied by ten
+    private static final double REFERENCE_FOV_DEG = 30, REFERENCE_LIMITING_MAGNITUDE = 6.5;
 
     /**
      * Default constructor.
@@ -24,6 +31,8 @@ public final class ViewingParametersBean {
     public ViewingParametersBean() {
         fieldOfViewDeg = new SimpleDoubleProperty();
         center = new SimpleObjectProperty<>(null);
+        limitingMagnitude = Bindings.createDoubleBinding(
+                () -> limitingMagnitudeFor(getFieldOfViewDeg()), fieldOfViewDeg);
     }
 
     /**
@@ -52,6 +61,41 @@ public final class ViewingParametersBean {
         fieldOfViewDeg.set(fovDeg);
     }
 
+    /**
+     * Additional method.
+     * Returns the limiting magnitude binding, i.e. the magnitude of the faintest stars drawn in the field of view.
+     * @return the limiting magnitude binding
+     */
+    public DoubleBinding limitingMagnitudeBinding() {
+        return limitingMagnitude;
+    }
+
+    /**
+     * Additional method.
+     * Returns the limiting magnitude binding's content, i.e. the magnitude of the faintest stars drawn in the field
+     * of view.
+     * @return the limiting magnitude binding's content
+     */
+    public double getLimitingMagnitude() {
+        return limitingMagnitude.get();
+    }
+
+    /**
+     * Additional method.
+     * Returns the magnitude of the faintest stars drawn in the given field of view. The wider the field of view, the
+     * brighter the faintest stars drawn.
+     *
+     * @param fovDeg
+     *            The field of view (in degrees)
+     * @return the limiting magnitude for the field of view (infinite if the field of view is not positive)
+     */
+    static double limitingMagnitudeFor(double fovDeg) {
+        if (!(fovDeg > 0)) {
+            return Double.POSITIVE_INFINITY; // Undefined field of view : all the stars are drawn
+        }
+        return REFERENCE_LIMITING_MAGNITUDE - 2.5 * Math.log10(Math.max(fovDeg, REFERENCE_FOV_DEG) / REFERENCE_FOV_DEG);
+    }
+
     /**
      * Returns the center property.
      * @return the center property
@@ -0,0 +1,109 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsterismIndexTest {
+
+    private static Star star(int hipparcosId) {
+        return new Star(hipparcosId, "S" + hipparcosId, EquatorialCoordinates.of(0, 0), 0, 0);
+    }
+
+    @Test
+    void rowsContainTheIndicesOfTheAsterisms() {
+        var stars = List.of(star(1), star(2), star(3), star(4));
+        var a1 = new Asterism(List.of(stars.get(2), stars.get(0)));
+        var a2 = new Asterism(List.of(stars.get(1), stars.get(3), stars.get(2)));
+        var index = new StarCatalogue(stars, List.of(a1, a2)).asterismIndex();
+
+        assertEquals(2, index.count());
+        assertSame(a1, index.asterism(0));
+        assertSame(a2, index.asterism(1));
+        assertEquals(0, index.start(0));
+        assertEquals(2, index.end(0));
+        assertEquals(2, index.start(1));
+        assertEquals(5, index.end(1));
+        int[] expected = {2, 0, 1, 3, 2};
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], index.starIndex(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> index.start(2));
+    }
+
+    @Test
+    void starsSharingHipparcosIdsAreDistinguished() {
+        var stars = List.of(star(0), star(0), star(5), star(0));
+        var asterism = new Asterism(List.of(stars.get(1), stars.get(0), stars.get(3), stars.get(2)));
+        var catalogue = new StarCatalogue(stars, List.of(asterism));
+        assertEquals(List.of(1, 0, 3, 2), catalogue.asterismIndices(asterism));
+    }
+
+    @Test
+    void indicesFollowTheStarsOrderedByMagnitude() {
+        var faint = new Star(1, "Faint", EquatorialCoordinates.of(0, 0), 5, 0);
+        var bright = new Star(2, "Bright", EquatorialCoordinates.of(0, 0), 1, 0);
+        var asterism = new Asterism(List.of(faint, bright));
+        var catalogue = new StarCatalogue.Builder()
+                .orderByMagnitude()
+                .addStar(faint)
+                .addStar(bright)
+                .addAsterism(asterism)
+                .build();
+
+        assertSame(bright, catalogue.stars().get(0));
+        assertEquals(List.of(1, 0), catalogue.asterismIndices(asterism));
+        assertEquals(1, catalogue.brighterStarCount(3));
+    }
+
+    @Test
+    void duplicateAsterismsAreIndexedOnce() {
+        var stars = List.of(star(1));
+        var asterism = new Asterism(stars);
+        var catalogue = new StarCatalogue(stars, List.of(asterism, asterism));
+        assertEquals(1, catalogue.asterismIndex().count());
+        assertEquals(1, catalogue.asterisms().size());
+    }
+
+    @Test
+    void asterismWithForeignStarIsRejected() {
+        var stars = List.of(star(1), star(2));
+        var foreign = new Asterism(List.of(star(1)));
+        assertThrows(IllegalArgumentException.class, () -> new StarCatalogue(stars, List.of(foreign)));
+    }
+
+    @Test
+    void largeCatalogueIsIndexedCorrectly() {
+        var rng = new SplittableRandom(2020);
+        var stars = new ArrayList<Star>();
+        for (int i = 0; i < 100_000; ++i) {
+            stars.add(star(i));
+        }
+        var asterisms = new ArrayList<Asterism>();
+        var expected = new ArrayList<int[]>();
+        for (int a = 0; a < 10_000; ++a) {
+            int[] indices = rng.ints(1 + rng.nextInt(10), 0, stars.size()).toArray();
+            var asterismStars = new ArrayList<Star>();
+            for (int i : indices) {
+                asterismStars.add(stars.get(i));
+            }
+            asterisms.add(new Asterism(asterismStars));
+            expected.add(indices);
+        }
+
+        var index = new StarCatalogue(stars, asterisms).asterismIndex();
+        assertEquals(asterisms.size(), index.count());
+        for (int a = 0; a < index.count(); ++a) {
+            int[] indices = expected.get(a);
+            assertEquals(indices.length, index.end(a) - index.start(a));
+            for (int i = 0; i < indices.length; ++i) {
+                assertEquals(indices[i], index.starIndex(index.start(a) + i));
+            }
+        }
+    }
+}
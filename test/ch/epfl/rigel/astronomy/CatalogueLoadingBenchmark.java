@@ -0,0 +1,159 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the load time and the allocated bytes per row of the catalogue loaders, on the bundled catalogues and on a
+ * synthetic catalogue replicating the HYG rows 100 times, compared to a reference loader splitting each line into
+ * strings, of the parallel HYG loader on the synthetic catalogue, and of the HYG loader on the compressed synthetic
+ * catalogue, parsed while being inflated compared to inflated first.
+ *
+ * Run with : java -cp ... ch.epfl.rigel.astronomy.CatalogueLoadingBenchmark
+ */
+public final class CatalogueLoadingBenchmark {
+    private static final int WARMUP_ROUNDS = 20, MEASURED_ROUNDS = 20, REPLICATION = 100;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Load {
+        int run(byte[] source) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        byte[] hyg = resource("/hygdata_v3.csv");
+        byte[] satellites = resource("/active_satellites.csv");
+        byte[] replicatedHyg = replicated(hyg, REPLICATION);
+
+        measure("HYG (split)", hyg, CatalogueLoadingBenchmark::splitHyg);
+        measure("HYG (tokenizer)", hyg, CatalogueLoadingBenchmark::tokenizedHyg);
+        measure("Satellites (split)", satellites, CatalogueLoadingBenchmark::splitSatellites);
+        measure("Satellites (tokenizer)", satellites, CatalogueLoadingBenchmark::tokenizedSatellites);
+        measure("HYG x" + REPLICATION + " (split)", replicatedHyg, CatalogueLoadingBenchmark::splitHyg);
+        measure("HYG x" + REPLICATION + " (tokenizer)", replicatedHyg, CatalogueLoadingBenchmark::tokenizedHyg);
+        measure("HYG x" + REPLICATION + " (parallel)", replicatedHyg, CatalogueLoadingBenchmark::parallelHyg);
+
+        byte[] compressedHyg = compressed(replicatedHyg);
+        measure("HYG x" + REPLICATION + " (gzip, inflate first)", compressedHyg,
+                CatalogueLoadingBenchmark::inflatedFirstHyg);
+        measure("HYG x" + REPLICATION + " (gzip, pipelined)", compressedHyg, CatalogueLoadingBenchmark::tokenizedHyg);
+    }
+
+    private static void measure(String name, byte[] source, Load load) throws IOException {
+        int rows = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; ++i)
+            rows = load.run(source);
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; ++i)
+            load.run(source);
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-36s %8d rows %10.3f ms/load %10.1f bytes/row%n", name, rows,
+                elapsed / 1e6 / MEASURED_ROUNDS, (double) allocated / MEASURED_ROUNDS / rows);
+    }
+
+    private static int tokenizedHyg(byte[] source) throws IOException {
+        var builder = new StarCatalogue.Builder();
+        HygDatabaseLoader.INSTANCE.load(new ByteArrayInputStream(source), builder);
+        return builder.stars().size();
+    }
+
+    private static int parallelHyg(byte[] source) throws IOException {
+        var builder = new StarCatalogue.Builder();
+        HygDatabaseLoader.PARALLEL.load(new ByteArrayInputStream(source), builder);
+        return builder.stars().size();
+    }
+
+    // The reference loader of a compressed catalogue, inflating it entirely before parsing it
+    private static int inflatedFirstHyg(byte[] source) throws IOException {
+        byte[] inflated;
+        try (var stream = new GZIPInputStream(new ByteArrayInputStream(source))) {
+            inflated = stream.readAllBytes();
+        }
+        return tokenizedHyg(inflated);
+    }
+
+    private static int tokenizedSatellites(byte[] source) throws IOException {
+        var builder = new SatelliteCatalogue.Builder();
+        SatelliteDatabaseLoader.INSTANCE.load(new ByteArrayInputStream(source), builder);
+        return builder.satellites().size();
+    }
+
+    // The reference loader, reading the HYG catalogue as the loader did before using the tokenizer
+    private static int splitHyg(byte[] source) throws IOException {
+        var builder = new StarCatalogue.Builder();
+        try (var reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(source), StandardCharsets.US_ASCII))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] c = line.split(",");
+                int hip = c[1].isEmpty() ? 0 : Integer.parseInt(c[1]);
+                String name = c[6].isEmpty() ? (c[27].isEmpty() ? "?" : c[27]) + " " + c[29] : c[6];
+                float mag = c[13].isEmpty() ? 0f : (float) Double.parseDouble(c[13]);
+                float ci = c[16].isEmpty() ? 0f : (float) Double.parseDouble(c[16]);
+                builder.addStar(new Star(hip, name, ch.epfl.rigel.coordinates.EquatorialCoordinates.of(
+                        Double.parseDouble(c[23]), Double.parseDouble(c[24])), mag, ci));
+            }
+        }
+        return builder.stars().size();
+    }
+
+    // The reference loader, reading the satellite catalogue as the loader did before using the tokenizer
+    private static int splitSatellites(byte[] source) throws IOException {
+        var builder = new SatelliteCatalogue.Builder();
+        try (var reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(source), StandardCharsets.US_ASCII))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] c = line.split(",");
+                if (c[7].equals("GEO") && !c[18].contains("EOL")) {
+                    double lonDeg = c[9].isEmpty() ? 0 : Double.parseDouble(c[9]);
+                    builder.addSatellite(new Satellite(c[0], c[1], c[5],
+                            ch.epfl.rigel.math.Angle.normalizePositive(ch.epfl.rigel.math.Angle.ofDeg(lonDeg))));
+                }
+            }
+        }
+        return builder.satellites().size();
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream stream = CatalogueLoadingBenchmark.class.getResourceAsStream(name)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private static byte[] compressed(byte[] source) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var stream = new GZIPOutputStream(out)) {
+            stream.write(source);
+        }
+        return out.toByteArray();
+    }
+
+    // Replicates the data rows of the given catalogue, keeping a single header line
+    private static byte[] replicated(byte[] source, int times) {
+        int headerEnd = 0;
+        while (source[headerEnd] != '\n')
+            ++headerEnd;
+        var out = new ByteArrayOutputStream(source.length * times);
+        out.write(source, 0, headerEnd + 1);
+        for (int i = 0; i < times; ++i)
+            out.write(source, headerEnd + 1, source.length - headerEnd - 1);
+        return out.toByteArray();
+    }
+}
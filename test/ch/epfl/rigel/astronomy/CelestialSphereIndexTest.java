@@ -0,0 +1,91 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static java.lang.Math.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CelestialSphereIndexTest {
+
+    private static StarTable randomTable(int size, long seed) {
+        var rng = new SplittableRandom(seed);
+        var builder = new StarTable.Builder();
+        for (int i = 0; i < size; ++i) {
+            double dec = asin(rng.nextDouble(-1, 1)); // Uniform on the sphere
+            builder.add(i, "S" + i, rng.nextDouble(0, 2 * PI), dec, 0, 0);
+        }
+        return builder.build();
+    }
+
+    private static double angularDistance(double ra1, double dec1, double ra2, double dec2) {
+        double cos = sin(dec1) * sin(dec2) + cos(dec1) * cos(dec2) * cos(ra1 - ra2);
+        return acos(max(-1, min(1, cos)));
+    }
+
+    @Test
+    void depthGrowsWithTheNumberOfStars() {
+        assertEquals(0, new CelestialSphereIndex(randomTable(10, 1)).depth());
+        var index = new CelestialSphereIndex(randomTable(5000, 1));
+        assertTrue(index.depth() >= 4);
+        assertEquals(8 << (2 * index.depth()), index.cellCount());
+    }
+
+    @Test
+    void capQueriesReturnAllTheStarsOfTheCap() {
+        var table = randomTable(20_000, 2020);
+        var index = new CelestialSphereIndex(table);
+        var rng = new SplittableRandom(42);
+
+        for (int q = 0; q < 50; ++q) {
+            double ra = rng.nextDouble(0, 2 * PI), dec = asin(rng.nextDouble(-1, 1));
+            double radius = rng.nextDouble(0.01, 2);
+            int[] candidates = index.starsInCap(EquatorialCoordinates.of(ra, dec), radius);
+
+            boolean[] isCandidate = new boolean[table.size()];
+            for (int i : candidates) {
+                assertFalse(isCandidate[i]); // No duplicates
+                isCandidate[i] = true;
+            }
+
+            int inCap = 0;
+            for (int i = 0; i < table.size(); ++i) {
+                if (angularDistance(ra, dec, table.ra(i), table.dec(i)) <= radius) {
+                    assertTrue(isCandidate[i]);
+                    ++inCap;
+                }
+            }
+            // The candidates are not much more numerous than the stars of the cap
+            assertTrue(candidates.length <= 2 * inCap + 200);
+        }
+    }
+
+    @Test
+    void wholeSphereContainsAllTheStars() {
+        var table = randomTable(1000, 7);
+        int[] all = new CelestialSphereIndex(table).starsInCap(EquatorialCoordinates.of(0, 0), PI);
+        Arrays.sort(all);
+        for (int i = 0; i < table.size(); ++i) {
+            assertEquals(i, all[i]);
+        }
+    }
+
+    @Test
+    void starsOnTheVerticesOfTheOctahedronAreIndexed() {
+        var builder = new StarTable.Builder();
+        double[][] positions = {{0, 0}, {PI / 2, 0}, {PI, 0}, {3 * PI / 2, 0}, {0, PI / 2}, {0, -PI / 2}};
+        for (double[] p : positions) {
+            builder.add(0, "V", p[0], p[1], 0, 0);
+        }
+        var table = builder.build();
+        var index = new CelestialSphereIndex(table);
+        for (int i = 0; i < table.size(); ++i) {
+            int star = i;
+            int[] candidates = index.starsInCap(EquatorialCoordinates.of(table.ra(i), table.dec(i)), 1e-6);
+            assertTrue(Arrays.stream(candidates).anyMatch(c -> c == star));
+        }
+    }
+}
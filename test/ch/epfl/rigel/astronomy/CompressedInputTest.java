@@ -0,0 +1,176 @@
+package ch.epfl.rigel.astronomy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedInputTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    private static final String AST_CATALOGUE_NAME = "/asterisms.txt";
+    private static final String SAT_CATALOGUE_NAME = "/active_satellites.csv";
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream stream = CompressedInputTest.class.getResourceAsStream(name)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private static byte[] compressed(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static StarCatalogue starCatalogue(byte[] hyg, byte[] asterisms, StarCatalogue.Loader loader)
+            throws IOException {
+        return new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(hyg), loader)
+                .loadFrom(new ByteArrayInputStream(asterisms), AsterismLoader.INSTANCE)
+                .build();
+    }
+
+    private static void assertSameCatalogues(StarCatalogue expected, StarCatalogue actual) {
+        StarTable e = expected.starTable(), a = actual.starTable();
+        assertEquals(e.size(), a.size());
+        for (int i = 0; i < e.size(); ++i) {
+            assertEquals(e.hipparcosId(i), a.hipparcosId(i));
+            assertEquals(e.name(i), a.name(i));
+            assertEquals(e.ra(i), a.ra(i));
+            assertEquals(e.dec(i), a.dec(i));
+            assertEquals(e.magnitude(i), a.magnitude(i));
+            assertEquals(e.colorTemperature(i), a.colorTemperature(i));
+            assertEquals(e.constellationCode(i), a.constellationCode(i));
+        }
+
+        assertEquals(asterismIndices(expected), asterismIndices(actual));
+    }
+
+    private static Set<List<Integer>> asterismIndices(StarCatalogue catalogue) {
+        Set<List<Integer>> indices = new HashSet<>();
+        for (Asterism asterism : catalogue.asterisms()) {
+            indices.add(catalogue.asterismIndices(asterism));
+        }
+        return indices;
+    }
+
+    @Test
+    void compressedCataloguesAreLoadedAsTheUncompressedOnes(@TempDir Path directory) throws IOException {
+        byte[] hyg = resource(HYG_CATALOGUE_NAME), asterisms = resource(AST_CATALOGUE_NAME);
+        byte[] compressedHyg = compressed(hyg), compressedAsterisms = compressed(asterisms);
+
+        StarCatalogue expected = starCatalogue(hyg, asterisms, HygDatabaseLoader.INSTANCE);
+        for (StarCatalogue.Loader loader : List.of(HygDatabaseLoader.INSTANCE, HygDatabaseLoader.PARALLEL,
+                new HygSnapshotLoader(directory.resolve("hyg.snapshot")))) {
+            assertSameCatalogues(expected, starCatalogue(compressedHyg, compressedAsterisms, loader));
+        }
+
+        // The snapshot of the compressed catalogue is the one of the uncompressed catalogue, which is up to date
+        Path snapshot = directory.resolve("converted.snapshot");
+        HygSnapshotLoader.convert(new ByteArrayInputStream(compressedHyg), snapshot);
+        assertSameCatalogues(expected, starCatalogue(hyg, asterisms, new HygSnapshotLoader(snapshot)));
+
+        byte[] satellites = resource(SAT_CATALOGUE_NAME);
+        SatelliteTable expectedSatellites = new SatelliteCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(satellites), SatelliteDatabaseLoader.INSTANCE)
+                .build()
+                .satelliteTable();
+        SatelliteTable actualSatellites = new SatelliteCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(compressed(satellites)), SatelliteDatabaseLoader.INSTANCE)
+                .build()
+                .satelliteTable();
+        assertEquals(expectedSatellites.size(), actualSatellites.size());
+        for (int i = 0; i < expectedSatellites.size(); ++i) {
+            assertEquals(expectedSatellites.name(i), actualSatellites.name(i));
+            assertEquals(expectedSatellites.lon(i), actualSatellites.lon(i));
+        }
+    }
+
+    @Test
+    void linesSpanningSeveralBlocksAreParsed() throws IOException {
+        // A catalogue whose lines are longer than the blocks, and whose last line does not end with a new line
+        byte[] hyg = resource(HYG_CATALOGUE_NAME);
+        int headerEnd = 0;
+        while (hyg[headerEnd] != '\n') ++headerEnd;
+        String header = new String(hyg, 0, headerEnd + 1);
+        String line = "1,1,,,,,Long" + "g".repeat(200_000) + ",,,,,,,1.0,,,0.5,,,,,,,0.1,0.2,0,0,,,,";
+
+        byte[] source = (header + line + "\n" + line).getBytes();
+        var expected = new StarCatalogue.Builder().loadFrom(new ByteArrayInputStream(source),
+                HygDatabaseLoader.INSTANCE).build().starTable();
+        var actual = new StarCatalogue.Builder().loadFrom(new ByteArrayInputStream(compressed(source)),
+                HygDatabaseLoader.INSTANCE).build().starTable();
+
+        assertEquals(2, expected.size());
+        assertEquals(2, actual.size());
+        assertEquals(expected.name(1), actual.name(1));
+        assertEquals(0.2, actual.dec(1), 1e-9);
+    }
+
+    @Test
+    void uncompressedStreamsAreReadAsIs() throws IOException {
+        byte[] bytes = new byte[100_000];
+        new Random(2020).nextBytes(bytes);
+        bytes[0] = 0x1f; // Only the first magic byte
+
+        try (InputStream stream = CompressedInput.decompressed(new ByteArrayInputStream(bytes))) {
+            assertArrayEquals(bytes, stream.readAllBytes());
+        }
+        try (InputStream stream = CompressedInput.decompressed(new ByteArrayInputStream(new byte[0]))) {
+            assertEquals(-1, stream.read());
+        }
+    }
+
+    @Test
+    void compressedStreamsAreInflatedInTheBackground() throws IOException {
+        byte[] bytes = new byte[1_000_000];
+        new Random(2020).nextBytes(bytes);
+
+        try (InputStream stream = CompressedInput.decompressed(new ByteArrayInputStream(compressed(bytes)))) {
+            assertTrue(stream instanceof CompressedInput.InflatingInputStream);
+            byte[] inflated = new byte[bytes.length];
+            inflated[0] = (byte) stream.read();
+            assertEquals(bytes.length - 1, stream.readNBytes(inflated, 1, bytes.length - 1));
+            assertEquals(-1, stream.read());
+            assertArrayEquals(bytes, inflated);
+        }
+
+        // A stream closed before its end stops its inflation
+        InputStream stream = CompressedInput.decompressed(new ByteArrayInputStream(compressed(bytes)));
+        assertEquals(1000, stream.readNBytes(1000).length);
+        stream.close();
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    void corruptedStreamsFailOnceTheirValidDataIsRead() throws IOException {
+        byte[] bytes = new byte[1_000_000];
+        new Random(2020).nextBytes(bytes);
+        byte[] truncated = Arrays.copyOf(compressed(bytes), 500_000);
+
+        try (InputStream stream = CompressedInput.decompressed(new ByteArrayInputStream(truncated))) {
+            assertThrows(IOException.class, stream::readAllBytes);
+        }
+
+        byte[] hyg = compressed(resource(HYG_CATALOGUE_NAME));
+        byte[] truncatedHyg = Arrays.copyOf(hyg, hyg.length / 2);
+        for (StarCatalogue.Loader loader : List.of(HygDatabaseLoader.INSTANCE, HygDatabaseLoader.PARALLEL)) {
+            assertThrows(IOException.class, () -> new StarCatalogue.Builder()
+                    .loadFrom(new ByteArrayInputStream(truncatedHyg), loader));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConstellationIndexTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+
+    private static StarCatalogue load(StarCatalogue.Loader loader, boolean ordered) throws IOException {
+        try (InputStream hs = ConstellationIndexTest.class.getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            var builder = new StarCatalogue.Builder().loadFrom(hs, loader);
+            return (ordered ? builder.orderByMagnitude() : builder).build();
+        }
+    }
+
+    private static List<String> constellationColumn() throws IOException {
+        List<String> constellations = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                ConstellationIndexTest.class.getResourceAsStream(HYG_CATALOGUE_NAME), StandardCharsets.US_ASCII))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                constellations.add(line.split(",", -1)[29]);
+            }
+        }
+        return constellations;
+    }
+
+    @Test
+    void everyStarKeepsItsConstellation(@TempDir Path directory) throws IOException {
+        List<String> expected = constellationColumn();
+        List<StarCatalogue> catalogues = List.of(
+                load(HygDatabaseLoader.INSTANCE, false),
+                load(HygDatabaseLoader.PARALLEL, false),
+                load(new HygSnapshotLoader(directory.resolve("hyg.snapshot")), false));
+
+        for (StarCatalogue catalogue : catalogues) {
+            StarTable table = catalogue.starTable();
+            ConstellationIndex index = catalogue.constellationIndex();
+            assertEquals(expected.size(), table.size());
+            for (int i = 0; i < table.size(); ++i) {
+                assertEquals(index.codeOf(expected.get(i)), table.constellationCode(i));
+            }
+        }
+
+        // The tiles keep the constellations too, although they reorder the stars
+        Path tilesPath = directory.resolve("hyg.tiles");
+        TiledStarCatalogue.write(catalogues.get(0).starTable(), tilesPath, 2);
+        try (var tiles = new TiledStarCatalogue(tilesPath, Long.MAX_VALUE)) {
+            StarTable all = tiles.catalogueFor(EquatorialCoordinates.of(0, 0), Math.PI, Double.POSITIVE_INFINITY)
+                    .starTable();
+            Set<String> expectedRows = new HashSet<>(), rows = new HashSet<>();
+            for (int i = 0; i < all.size(); ++i) {
+                expectedRows.add(catalogues.get(0).starTable().hipparcosId(i) + expected.get(i));
+                rows.add(all.hipparcosId(i) + StarNames.CONSTELLATIONS.get(all.constellationCode(i)));
+            }
+            assertEquals(expectedRows, rows);
+        }
+
+        // The proper names do not prevent the stars from being grouped by constellation
+        StarTable table = catalogues.get(0).starTable();
+        int orion = catalogues.get(0).constellationIndex().codeOf("Ori");
+        for (int i = 0; i < table.size(); ++i) {
+            if (table.name(i).equals("Rigel") || table.name(i).equals("Betelgeuse")) {
+                assertEquals(orion, table.constellationCode(i));
+            }
+        }
+    }
+
+    @Test
+    void groupsPartitionTheStarsInTheirOrder() throws IOException {
+        StarCatalogue catalogue = load(HygDatabaseLoader.INSTANCE, true);
+        StarTable table = catalogue.starTable();
+        ConstellationIndex index = catalogue.constellationIndex();
+
+        assertEquals(88, index.count());
+        assertEquals("Ori", index.name(index.codeOf("Ori")));
+        assertEquals(-1, index.codeOf("Orion"));
+
+        int known = 0;
+        for (int i = 0; i < table.size(); ++i) {
+            if (table.constellationCode(i) != -1) ++known;
+        }
+
+        int grouped = 0;
+        for (int code = 0; code < index.count(); ++code) {
+            List<Integer> indices = index.indicesOf(code);
+            assertEquals(index.size(code), indices.size());
+            for (int k = 0; k < indices.size(); ++k) {
+                assertEquals(code, table.constellationCode(indices.get(k)));
+                assertEquals(index.starIndex(index.start(code) + k), indices.get(k));
+                assertTrue(k == 0 || indices.get(k - 1) < indices.get(k));
+            }
+            grouped += indices.size();
+        }
+        assertEquals(known, grouped);
+        assertThrows(IndexOutOfBoundsException.class, () -> index.indicesOf(88));
+    }
+
+    @Test
+    void statisticsOnlyExamineTheGroup() throws IOException {
+        for (boolean ordered : new boolean[]{true, false}) {
+            StarCatalogue catalogue = load(HygDatabaseLoader.INSTANCE, ordered);
+            StarTable table = catalogue.starTable();
+            ConstellationIndex index = catalogue.constellationIndex();
+
+            for (int code = 0; code < index.count(); ++code) {
+                for (double magnitude : new double[]{-2, 2, 4.5, 6, 20}) {
+                    int expected = 0;
+                    for (int i = 0; i < table.size(); ++i) {
+                        if (table.constellationCode(i) == code && table.magnitude(i) <= magnitude) ++expected;
+                    }
+                    assertEquals(expected, index.brighterStarCount(code, magnitude));
+                }
+            }
+
+            int brightest = index.brightestStar(index.codeOf("Ori"));
+            assertEquals("Rigel", table.name(brightest));
+        }
+    }
+
+    @Test
+    void centerOfTheConstellationIsAmongItsStars() throws IOException {
+        StarCatalogue catalogue = load(HygDatabaseLoader.INSTANCE, true);
+        ConstellationIndex index = catalogue.constellationIndex();
+
+        EquatorialCoordinates orion = index.center(index.codeOf("Ori"), 3).orElseThrow();
+        assertEquals(83, orion.raDeg(), 5);
+        assertEquals(0, orion.decDeg(), 8);
+        assertTrue(index.center(index.codeOf("Ori"), -5).isEmpty());
+    }
+}
@@ -0,0 +1,135 @@
+package ch.epfl.rigel.astronomy;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    private static CsvTokenizer tokenizerOf(String ascii) throws IOException {
+        return CsvTokenizer.of(new ByteArrayInputStream(ascii.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void fieldsAreSelectedInColumnOrder() throws IOException {
+        var t = tokenizerOf("a,bb,,ddd\ne,f");
+        assertTrue(t.nextLine());
+        assertEquals("a", t.string());
+        assertEquals("bb", t.field(1).string());
+        assertTrue(t.field(2).isEmpty());
+        assertEquals("ddd", t.field(3).string());
+        assertTrue(t.nextLine());
+        assertEquals("f", t.field(1).string());
+        assertFalse(t.nextLine());
+    }
+
+    @Test
+    void skippedFieldsAndLinesAreIgnored() throws IOException {
+        var t = tokenizerOf("h1,h2,h3\n1,2,3\n4,5,6\n");
+        t.skipLine();
+        assertTrue(t.nextLine());
+        assertEquals(3, t.field(2).parseInt());
+        assertTrue(t.nextLine());
+        assertEquals(5, t.field(1).parseInt());
+        assertFalse(t.nextLine());
+    }
+
+    @Test
+    void missingFieldsAreEmpty() throws IOException {
+        var t = tokenizerOf("1,2\n3");
+        assertTrue(t.nextLine());
+        assertTrue(t.field(5).isEmpty());
+        assertTrue(t.nextLine());
+        assertEquals(3, t.parseInt());
+    }
+
+    @Test
+    void fieldFailsForPrecedingColumn() throws IOException {
+        var t = tokenizerOf("1,2,3");
+        t.nextLine();
+        t.field(2);
+        assertThrows(IllegalStateException.class, () -> t.field(1));
+    }
+
+    @Test
+    void equalityAndContainmentWork() throws IOException {
+        var t = tokenizerOf("GEO,1/1/2000 EOL,GEOS");
+        t.nextLine();
+        assertTrue(t.isEqualTo("GEO"));
+        assertTrue(t.field(1).contains("EOL"));
+        assertFalse(t.isEqualTo("EOL"));
+        assertFalse(t.field(2).isEqualTo("GEO"));
+    }
+
+    @Test
+    void parseIntWorks() throws IOException {
+        var t = tokenizerOf("24436,-12,+7,2147483647,x1");
+        t.nextLine();
+        assertEquals(24436, t.parseInt());
+        assertEquals(-12, t.field(1).parseInt());
+        assertEquals(7, t.field(2).parseInt());
+        assertEquals(Integer.MAX_VALUE, t.field(3).parseInt());
+        assertThrows(NumberFormatException.class, () -> t.field(4).parseInt());
+    }
+
+    @Test
+    void parseDoubleMatchesStandardParser() throws IOException {
+        var values = new String[]{"0", "0.180", "-0.030", "1.3724303693276385", "-0.143145630755865",
+                "0.00000000906601582638889", "-0.000000002714956", "5.5e-3", "1E10", "123456789012345678901.5",
+                "51665.42425669497", ".5", "-.25"};
+        var t = tokenizerOf(String.join(",", values));
+        t.nextLine();
+        for (int i = 0; i < values.length; ++i) {
+            assertEquals(Double.parseDouble(values[i]), t.field(i).parseDouble());
+        }
+    }
+
+    @Test
+    void parseDoubleMatchesStandardParserOnRandomValues() throws IOException {
+        var rng = new SplittableRandom(2020);
+        var b = new StringBuilder();
+        var expected = new double[1000];
+        for (int i = 0; i < expected.length; ++i) {
+            expected[i] = rng.nextDouble(-10, 10);
+            b.append(expected[i]).append(',');
+        }
+        var t = tokenizerOf(b.toString());
+        t.nextLine();
+        for (int i = 0; i < expected.length; ++i)
+            assertEquals(expected[i], t.field(i).parseDouble());
+    }
+
+    @Test
+    void parseDoubleMatchesStandardParserOnTheHygCatalogue() throws IOException {
+        // The columns ra, dec, mag, ci, rarad, decrad, pmrarad and pmdecrad
+        int[] columns = {7, 8, 13, 16, 23, 24, 25, 26};
+        try (InputStream hs = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+            var t = CsvTokenizer.of(hs);
+            t.skipLine();
+            int fields = 0;
+            while (t.nextLine()) {
+                for (int column : columns) {
+                    if (!t.field(column).isEmpty()) {
+                        assertEquals(Double.parseDouble(t.string()), t.parseDouble());
+                        ++fields;
+                    }
+                }
+            }
+            assertTrue(fields > 30_000);
+        }
+    }
+
+    @Test
+    void parseDoubleFailsOnInvalidField() throws IOException {
+        var t = tokenizerOf("abc,");
+        t.nextLine();
+        assertThrows(NumberFormatException.class, t::parseDouble);
+        assertThrows(NumberFormatException.class, () -> t.field(1).parseDouble());
+    }
+}
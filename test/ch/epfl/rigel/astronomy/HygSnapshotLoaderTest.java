@@ -0,0 +1,115 @@
+package ch.epfl.rigel.astronomy;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HygSnapshotLoaderTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    private static final String HEADER_LINE = "id,hip,hd,hr,gl,bf,proper,ra,dec,dist,pmra,pmdec,rv,mag,absmag,spect,ci,x,y,z,vx,vy,vz,rarad,decrad,pmrarad,pmdecrad,bayer,flam,con,comp,comp_primary,base,lum,var,var_min,var_max";
+    private static final String RIGEL_LINE = "24378,24436,34085,1713,,19Bet Ori,Rigel,5.242298,-8.201640,264.5503,1.87,-0.56,21.0,0.180,-6.933,B8Ia,-0.030,51.601106,256.709905,-37.740051,0.00000182,0.00002121,-0.00000377,1.3724303693276385,-0.143145630755865,0.00000000906601582638889,-0.000000002714956,Bet,19,Ori,1,24378,,51665.42425669497,,,";
+    private static final String CONSTELLATION_NO_BAYER_LINE = "107,107,224865,9082,,,,0.022255,-50.337373,166.3894,7.34,10.59,2.0,5.530,-0.576,M2III,1.615,106.198875,0.618768,-128.089244,0.00000785,0.00000597,0.00000388,0.005826258371586336,-0.87855289975953,0.00000003558532415277778,0.000000051341768,,,Phe,1,107,,148.04713248976265,,,";
+
+    private static InputStream streamWithAsciiLines(String... asciiStrings) {
+        return new ByteArrayInputStream(String.join("\n", asciiStrings).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void snapshotLoaderLoadsSameStarsAsHygLoader() throws IOException {
+        Path snapshot = Files.createTempDirectory("rigel").resolve("hyg.snapshot");
+        try (InputStream hs1 = getClass().getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream hs2 = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            var expected = new StarCatalogue.Builder().loadFrom(hs1, HygDatabaseLoader.INSTANCE).stars();
+            var actual = new StarCatalogue.Builder().loadFrom(hs2, new HygSnapshotLoader(snapshot)).stars();
+
+            assertTrue(Files.isRegularFile(snapshot));
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); ++i) {
+                Star e = expected.get(i), a = actual.get(i);
+                assertEquals(e.hipparcosId(), a.hipparcosId());
+                assertEquals(e.name(), a.name());
+                assertEquals(e.equatorialPos().ra(), a.equatorialPos().ra());
+                assertEquals(e.equatorialPos().dec(), a.equatorialPos().dec());
+                assertEquals(e.magnitude(), a.magnitude());
+                assertEquals(e.colorTemperature(), a.colorTemperature());
+            }
+        }
+    }
+
+    @Test
+    void snapshotIsReusedWhenUpToDate() throws IOException {
+        Path snapshot = Files.createTempDirectory("rigel").resolve("hyg.snapshot");
+        var loader = new HygSnapshotLoader(snapshot);
+        loader.load(streamWithAsciiLines(HEADER_LINE, RIGEL_LINE), new StarCatalogue.Builder());
+        var lastModified = Files.getLastModifiedTime(snapshot);
+        var content = Files.readAllBytes(snapshot);
+
+        var b = new StarCatalogue.Builder();
+        loader.load(streamWithAsciiLines(HEADER_LINE, RIGEL_LINE), b);
+        assertEquals(lastModified, Files.getLastModifiedTime(snapshot));
+        assertArrayEquals(content, Files.readAllBytes(snapshot));
+        assertEquals("Rigel", b.stars().get(0).name());
+    }
+
+    @Test
+    void staleSnapshotIsRegenerated() throws IOException {
+        Path snapshot = Files.createTempDirectory("rigel").resolve("hyg.snapshot");
+        HygSnapshotLoader.convert(streamWithAsciiLines(HEADER_LINE, RIGEL_LINE), snapshot);
+
+        var b = new StarCatalogue.Builder();
+        new HygSnapshotLoader(snapshot).load(streamWithAsciiLines(HEADER_LINE, CONSTELLATION_NO_BAYER_LINE), b);
+        assertEquals(1, b.stars().size());
+        assertEquals("? Phe", b.stars().get(0).name());
+        assertEquals(107, b.stars().get(0).hipparcosId());
+    }
+
+    @Test
+    void corruptedSnapshotIsRegenerated() throws IOException {
+        Path snapshot = Files.createTempDirectory("rigel").resolve("hyg.snapshot");
+        Files.write(snapshot, new byte[]{1, 2, 3});
+
+        var b = new StarCatalogue.Builder();
+        new HygSnapshotLoader(snapshot).load(streamWithAsciiLines(HEADER_LINE, RIGEL_LINE), b);
+        assertEquals(24436, b.stars().get(0).hipparcosId());
+    }
+
+    @Test
+    void tamperedSnapshotWithValidHeaderIsRegenerated() throws IOException {
+        Path snapshot = Files.createTempDirectory("rigel").resolve("hyg.snapshot");
+        var loader = new HygSnapshotLoader(snapshot);
+        loader.load(streamWithAsciiLines(HEADER_LINE, RIGEL_LINE), new StarCatalogue.Builder());
+
+        // Changes the Hipparcos number of Rigel (the last int before the codes and the names), keeping the header
+        byte[] content = Files.readAllBytes(snapshot);
+        byte[] tampered = content.clone();
+        int hipOffset = content.length - (Integer.BYTES * 2 + "Rigel".length()) - 2 - Integer.BYTES;
+        tampered[hipOffset] ^= 0x7F;
+        Files.write(snapshot, tampered);
+
+        var b = new StarCatalogue.Builder();
+        loader.load(streamWithAsciiLines(HEADER_LINE, RIGEL_LINE), b);
+        assertEquals(24436, b.stars().get(0).hipparcosId());
+        assertArrayEquals(content, Files.readAllBytes(snapshot));
+    }
+
+    @Test
+    void catalogueIsLoadedWhenSnapshotDirectoryIsNotWritable() throws IOException {
+        // The directory of the snapshot cannot be created, its parent being a file
+        Path file = Files.createTempFile("rigel", ".file");
+        Path snapshot = file.resolve("rigel").resolve("hyg.snapshot");
+
+        var b = new StarCatalogue.Builder();
+        new HygSnapshotLoader(snapshot).load(streamWithAsciiLines(HEADER_LINE, RIGEL_LINE), b);
+        assertFalse(Files.exists(snapshot));
+        assertEquals(1, b.stars().size());
+        assertEquals("Rigel", b.stars().get(0).name());
+        assertEquals(24436, b.stars().get(0).hipparcosId());
+    }
+}
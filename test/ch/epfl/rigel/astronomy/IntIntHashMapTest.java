@@ -0,0 +1,44 @@
+package ch.epfl.rigel.astronomy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    void missingKeysHaveNoValue() {
+        var map = new IntIntHashMap(0);
+        assertEquals(IntIntHashMap.NO_VALUE, map.get(0));
+        assertEquals(IntIntHashMap.NO_VALUE, map.get(-42));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void putReplacesTheFormerValue() {
+        var map = new IntIntHashMap(4);
+        map.put(7, 1);
+        map.put(7, 2);
+        assertEquals(2, map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void mapBehavesLikeHashMapWhileGrowing() {
+        var rng = new SplittableRandom(2020);
+        var expected = new HashMap<Integer, Integer>();
+        var map = new IntIntHashMap(1);
+        for (int i = 0; i < 100_000; ++i) {
+            int key = rng.nextInt(-50_000, 50_000);
+            expected.put(key, i);
+            map.put(key, i);
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -50_000; key < 50_000; ++key) {
+            assertEquals(expected.getOrDefault(key, IntIntHashMap.NO_VALUE), map.get(key));
+        }
+    }
+}
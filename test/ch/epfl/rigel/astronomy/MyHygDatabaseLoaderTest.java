@@ -2,6 +2,8 @@ package ch.epfl.rigel.astronomy;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -48,4 +50,35 @@ class MyHygDatabaseLoaderTest {
             assertEquals(1,i);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void parallelLoaderKeepsTheOrderOfTheStars() throws IOException {
+        byte[] hyg;
+        try (InputStream hygStream = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            hyg = hygStream.readAllBytes();
+        }
+
+        // Replicates the data lines so that the catalogue is split into several chunks
+        int headerEnd = 0;
+        while (hyg[headerEnd] != '\n')
+            ++headerEnd;
+        var replicated = new ByteArrayOutputStream();
+        replicated.write(hyg, 0, headerEnd + 1);
+        for (int i = 0; i < 5; ++i)
+            replicated.write(hyg, headerEnd + 1, hyg.length - headerEnd - 1);
+
+        var sequential = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(replicated.toByteArray()), HygDatabaseLoader.INSTANCE)
+                .stars();
+        var parallel = new StarCatalogue.Builder()
+                .loadFrom(new ByteArrayInputStream(replicated.toByteArray()), HygDatabaseLoader.PARALLEL)
+                .stars();
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); ++i) {
+            assertEquals(sequential.get(i).hipparcosId(), parallel.get(i).hipparcosId());
+            assertEquals(sequential.get(i).name(), parallel.get(i).name());
+            assertEquals(sequential.get(i).equatorialPos().ra(), parallel.get(i).equatorialPos().ra());
+        }
+    }
+}
@@ -59,6 +59,142 @@ class MyObservedSkyTest {
     void starPositions() throws IOException {
     }
 
+    @Test
+    void copiedStarPositionsAreTheStarPositions() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream(MyHygDatabaseLoaderTest.HYG_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        var sky = new ObservedSky(ZDT_20200404, WHERE, PROJECTION, catalogue, new SatelliteCatalogue(List.of()));
+
+        double[] expected = sky.starPositions();
+        double[] positions = new double[expected.length + 2];
+        Arrays.fill(positions, -1);
+        sky.copyStarPositionsTo(positions);
+        assertArrayEquals(expected, Arrays.copyOf(positions, expected.length));
+        assertEquals(-1, positions[expected.length]);
+        assertThrows(IndexOutOfBoundsException.class, () -> sky.copyStarPositionsTo(new double[expected.length - 1]));
+    }
+
+    @Test
+    void limitingMagnitudeSelectsTheBrightestStarsOfAnOrderedCatalogue() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream(MyHygDatabaseLoaderTest.HYG_CATALOGUE_NAME);
+             InputStream astStream = getClass().getResourceAsStream(MyAsterismLoaderTest.AST_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder()
+                    .orderByMagnitude()
+                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(astStream, AsterismLoader.INSTANCE)
+                    .build();
+        }
+        var satellites = new SatelliteCatalogue(List.of());
+        var all = new ObservedSky(ZDT_20200404, WHERE, PROJECTION, catalogue, satellites);
+        var bright = new ObservedSky(ZDT_20200404, WHERE, PROJECTION, catalogue, satellites, 4);
+
+        int count = bright.visibleStarCount();
+        assertTrue(0 < count && count < catalogue.stars().size());
+        assertTrue(catalogue.starTable().magnitude(count - 1) <= 4);
+        assertTrue(catalogue.starTable().magnitude(count) > 4);
+
+        double[] allPositions = all.starPositions(), brightPositions = bright.starPositions();
+        for (int i = 0; i < count; ++i) {
+            assertEquals(allPositions[2 * i], brightPositions[2 * i]);
+            assertEquals(allPositions[2 * i + 1], brightPositions[2 * i + 1]);
+        }
+
+        // The stars of the asterisms are always projected, the other faint stars never are
+        var asterismIndex = catalogue.asterismIndex();
+        var asterismStars = new HashSet<Integer>();
+        for (int k = 0; k < asterismIndex.distinctStarCount(); ++k) {
+            asterismStars.add(asterismIndex.distinctStarIndex(k));
+        }
+        for (int i = count; i < catalogue.stars().size(); ++i) {
+            assertFalse(bright.isVisible(i));
+            assertEquals(!asterismStars.contains(i), Double.isNaN(brightPositions[2 * i]));
+        }
+    }
+
+    @Test
+    void starPositionsAreTheConversionsOfThePositionsOfTheStars() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream(MyHygDatabaseLoaderTest.HYG_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+
+        // At the epoch of the catalogue and at another year, the positions of the stars being propagated
+        for (ZonedDateTime when : List.of(ZonedDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC),
+                ZDT_20200404, ZDT_20200404.plusYears(3000))) {
+            var sky = new ObservedSky(when, WHERE, PROJECTION, catalogue, new SatelliteCatalogue(List.of()));
+            var equToCart = new EquatorialToCartesianConversion(when, WHERE, PROJECTION);
+            StarPositions positions = catalogue.positionsAt(when.getYear());
+
+            double[] starPositions = sky.starPositions();
+            for (int i = 0; i < catalogue.stars().size(); ++i) {
+                CartesianCoordinates expected = equToCart.apply(
+                        EquatorialCoordinates.of(positions.ra(i), positions.dec(i)));
+                double scale = 1 + expected.x() * expected.x() + expected.y() * expected.y();
+                assertEquals(expected.x(), starPositions[2 * i], 1e-13 * scale * scale);
+                assertEquals(expected.y(), starPositions[2 * i + 1], 1e-13 * scale * scale);
+            }
+        }
+    }
+
+    @Test
+    void onlyTheStarsOfTheVisibleCapAreProjected() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream(MyHygDatabaseLoaderTest.HYG_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        var satellites = new SatelliteCatalogue(List.of());
+        double radius = Math.toRadians(40);
+        var all = new ObservedSky(ZDT_20200404, WHERE, PROJECTION, catalogue, satellites);
+        var culled = new ObservedSky(ZDT_20200404, WHERE, PROJECTION, catalogue, satellites,
+                Double.POSITIVE_INFINITY, radius);
+
+        // The angular distance to the center of the projection of a point of the plane at distance r is 2*atan(r)
+        double[] allPositions = all.starPositions(), culledPositions = culled.starPositions();
+        int projected = 0;
+        for (int i = 0; i < catalogue.stars().size(); ++i) {
+            double x = allPositions[2 * i], y = allPositions[2 * i + 1];
+            double distance = 2 * Math.atan(Math.hypot(x, y));
+            if (distance <= radius) {
+                assertEquals(x, culledPositions[2 * i]);
+                assertEquals(y, culledPositions[2 * i + 1]);
+            }
+            if (!Double.isNaN(culledPositions[2 * i])) ++projected;
+        }
+        assertTrue(projected < catalogue.stars().size() / 2);
+    }
+
+    @Test
+    void unorderedCatalogueIsFilteredStarByStar() throws IOException {
+        StarCatalogue catalogue;
+        try (InputStream hygStream = getClass().getResourceAsStream(MyHygDatabaseLoaderTest.HYG_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hygStream, HygDatabaseLoader.INSTANCE).build();
+        }
+        var sky = new ObservedSky(ZDT_20200404, WHERE, PROJECTION, catalogue, new SatelliteCatalogue(List.of()), 3);
+
+        assertEquals(catalogue.stars().size(), sky.visibleStarCount());
+        for (int i = 0; i < catalogue.stars().size(); ++i) {
+            boolean bright = catalogue.stars().get(i).magnitude() <= 3;
+            assertEquals(bright, sky.isVisible(i));
+            assertEquals(!bright, Double.isNaN(sky.starPositions()[2 * i]));
+        }
+    }
+
+    @Test
+    void emptyCataloguesOnlyContainTheSolarSystem() {
+        var sky = new ObservedSky(ZDT_20200404, WHERE, PROJECTION, new StarCatalogue(List.of(), List.of()),
+                new SatelliteCatalogue(List.of()), 6, Math.PI / 2);
+
+        assertEquals(0, sky.stars().size());
+        assertEquals(0, sky.starPositions().length);
+        assertEquals(0, sky.asterisms().size());
+        assertEquals(7, sky.planets().size());
+        assertNotNull(sky.sun());
+        assertNotNull(sky.moon());
+    }
+
     @Test
     void asterisms() {
     }
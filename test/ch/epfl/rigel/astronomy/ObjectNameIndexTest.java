@@ -0,0 +1,145 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectNameIndexTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    private static final String SAT_CATALOGUE_NAME = "/active_satellites.csv";
+
+    private static StarCatalogue catalogue;
+    private static SatelliteCatalogue satCatalogue;
+    private static ObjectNameIndex index;
+
+    @BeforeAll
+    static void loadCatalogues() throws IOException {
+        try (InputStream hs = ObjectNameIndexTest.class.getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream ss = ObjectNameIndexTest.class.getResourceAsStream(SAT_CATALOGUE_NAME)) {
+            catalogue = new StarCatalogue.Builder().loadFrom(hs, HygDatabaseLoader.INSTANCE).build();
+            satCatalogue = new SatelliteCatalogue.Builder()
+                    .loadFrom(ss, SatelliteDatabaseLoader.INSTANCE)
+                    .build();
+            index = new ObjectNameIndex(catalogue, satCatalogue);
+        }
+    }
+
+    private static List<String> names(List<ObjectNameIndex.Match> matches) {
+        return matches.stream().map(ObjectNameIndex.Match::name).collect(Collectors.toList());
+    }
+
+    @Test
+    void namesAreFoundByTheirPrefix() {
+        List<ObjectNameIndex.Match> rig = index.search("Rig", 2);
+        assertEquals(List.of("Rigel", "Rigil Kentaurus"), names(rig));
+        assertEquals(ObjectNameIndex.Kind.STAR, rig.get(0).kind());
+        assertEquals(24436, catalogue.starTable().hipparcosId(rig.get(0).index()));
+        assertEquals(0, rig.get(0).distance());
+
+        // The case, the accents and the punctuation are ignored
+        assertEquals("Vénus", index.search("venus", 1).get(0).name());
+        assertEquals(ObjectNameIndex.Kind.PLANET, index.search("VÉNUS", 1).get(0).kind());
+        assertEquals(ObjectNameIndex.Kind.SUN, index.search("soleil", 1).get(0).kind());
+        assertEquals(ObjectNameIndex.Kind.MOON, index.search("Lune", 1).get(0).kind());
+        assertEquals(ObjectNameIndex.Kind.SATELLITE, index.search("astra-1", 1).get(0).kind());
+
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search("Rig", 0).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.search("Rig", -1));
+    }
+
+    @Test
+    void designationsAreFoundByAnyOfTheirWords() {
+        // The whole names starting with "ori" come first, then the names with another word starting with it (and
+        // then the misspellings)
+        List<ObjectNameIndex.Match> orion = index.search("ori", 500);
+        int firstDesignation = names(orion).indexOf("Pi-3 Ori");
+        assertTrue(firstDesignation >= 0);
+        for (int i = 0; i < orion.size() && orion.get(i).distance() == 0; ++i) {
+            String name = ObjectNameIndex.normalized(orion.get(i).name());
+            assertTrue(i < firstDesignation ? name.startsWith("ori") : name.contains(" ori"));
+        }
+
+        // The Bayer designations are also found without their suffix
+        List<String> alphaCentauri = names(index.search("Alp Cen", 5));
+        assertTrue(alphaCentauri.contains("Alp-2 Cen"));
+    }
+
+    @Test
+    void starsAreFoundByTheirHipparcosNumber() {
+        List<ObjectNameIndex.Match> rigel = index.search("HIP 24436", 5);
+        assertEquals(List.of("HIP 24436 (Rigel)"), names(rigel));
+
+        // The numbers starting with the digits, the shorter ones first
+        List<ObjectNameIndex.Match> matches = index.search("2443", 20);
+        assertFalse(matches.isEmpty());
+        int previous = 0;
+        for (ObjectNameIndex.Match match : matches) {
+            int id = catalogue.starTable().hipparcosId(match.index());
+            assertTrue(String.valueOf(id).startsWith("2443"));
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void misspelledNamesAreFound() {
+        ObjectNameIndex.Match betelgeuse = index.search("Betelgeuze", 5).get(0);
+        assertEquals("Betelgeuse", betelgeuse.name());
+        assertEquals(1, betelgeuse.distance());
+
+        assertEquals("Aldebaran", index.search("Aldebrn", 1).get(0).name());
+        assertTrue(index.search("Xyzzyq", 10).isEmpty());
+    }
+
+    @Test
+    void misspelledNamesSharingALongPrefixAreAllFound() {
+        // The names of the Eutelsat satellites share the prefix "eutels", then too far from the query
+        List<String> eutelsats = satCatalogue.satellites().stream()
+                .map(Satellite::name)
+                .filter(name -> name.toLowerCase().startsWith("eutelsat"))
+                .collect(Collectors.toList());
+        assertTrue(eutelsats.size() > 20);
+
+        List<ObjectNameIndex.Match> matches = index.search("eutelstat", 100);
+        assertTrue(matches.size() < 100);
+        assertTrue(names(matches).containsAll(eutelsats));
+        for (ObjectNameIndex.Match match : matches) {
+            if (eutelsats.contains(match.name())) assertEquals(1, match.distance());
+        }
+
+        // The designations of the stars in Alpha of every constellation share the prefix "alp"
+        List<String> alf = names(index.search("alf", 100));
+        assertTrue(alf.size() < 100);
+        assertTrue(alf.stream().filter(name -> name.startsWith("Alp")).count() > 20);
+    }
+
+    @Test
+    void matchesArePositionedAtTheGivenEpoch() {
+        ZonedDateTime when = ZonedDateTime.of(2020, 4, 1, 20, 0, 0, 0, ZoneOffset.UTC);
+        double daysSinceJ2010 = Epoch.J2010.daysUntil(when);
+
+        EquatorialCoordinates venus = index.equatorialPos(index.search("Vénus", 1).get(0), when);
+        EquatorialCoordinates expected = PlanetModel.VENUS
+                .at(daysSinceJ2010, new EclipticToEquatorialConversion(when))
+                .equatorialPos();
+        assertEquals(expected.ra(), venus.ra(), 1e-12);
+        assertEquals(expected.dec(), venus.dec(), 1e-12);
+
+        ObjectNameIndex.Match rigel = index.search("Rigel", 1).get(0);
+        EquatorialCoordinates rigelPos = index.equatorialPos(rigel, when);
+        StarPositions positions = catalogue.positionsAt(2020);
+        assertEquals(positions.ra(rigel.index()), rigelPos.ra());
+        assertEquals(positions.dec(rigel.index()), rigelPos.dec());
+    }
+}
@@ -0,0 +1,102 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SatelliteTableTest {
+    private static final String SAT_CATALOGUE_NAME = "/active_satellites.csv";
+
+    @Test
+    void countriesAndPurposesAreDictionaryEncoded() {
+        var table = new SatelliteTable.Builder()
+                .add("A", "USA", "Communications", 0.5)
+                .add("B", "France", "Communications", 1)
+                .add("C", new String("USA"), "Navigation", 1.5)
+                .build();
+
+        assertEquals(3, table.size());
+        assertEquals(List.of("USA", "France"), table.countries());
+        assertEquals(List.of("Communications", "Navigation"), table.purposes());
+        assertEquals(0, table.countryCode(2));
+        assertEquals(1, table.purposeCode(2));
+        assertSame(table.country(0), table.country(2));
+        assertSame(table.country(0), table.satellite(2).country());
+        assertEquals(1.5, table.lon(2));
+        assertEquals("C", table.name(2));
+    }
+
+    @Test
+    void satellitesAreMaterializedOnceAndKeepTheirInfo() {
+        var table = new SatelliteTable.Builder().add("ABS-2", "Multinational", "Communications", 1).build();
+
+        assertNull(table.materializedSatellite(0));
+        Satellite satellite = table.satellite(0);
+        assertSame(satellite, table.satellite(0));
+        assertEquals("ABS-2 (Communications, Multinational)", satellite.info());
+        assertSame(satellite.info(), satellite.info());
+        assertEquals(1, satellite.equatorialPos().ra());
+        assertEquals(0, satellite.equatorialPos().dec());
+    }
+
+    @Test
+    void tableOfSatellitesKeepsThem() {
+        var satellite = new Satellite("ABS-2", "Multinational", "Communications", 1);
+        var catalogue = new SatelliteCatalogue(List.of(satellite));
+
+        assertSame(satellite, catalogue.satellites().get(0));
+        assertEquals(List.of("Multinational"), catalogue.satelliteTable().countries());
+    }
+
+    @Test
+    void builderRejectsInvalidSatellites() {
+        var builder = new SatelliteTable.Builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.add("A", "B", "C", -1));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("A", "B", "C", 7));
+        assertThrows(NullPointerException.class, () -> builder.add(null, "B", "C", 0));
+        assertThrows(NullPointerException.class, () -> builder.add("A", null, "C", 0));
+        assertEquals(0, builder.size());
+    }
+
+    @Test
+    void loadedCatalogueSharesItsStrings() throws IOException {
+        try (InputStream sat = getClass().getResourceAsStream(SAT_CATALOGUE_NAME)) {
+            var table = new SatelliteCatalogue.Builder()
+                    .loadFrom(sat, SatelliteDatabaseLoader.INSTANCE)
+                    .build()
+                    .satelliteTable();
+
+            assertTrue(table.size() > 100);
+            assertTrue(table.countries().size() < table.size() / 4);
+            assertEquals(table.countries().size(), new HashSet<>(table.countries()).size());
+            for (int i = 0; i < table.size(); ++i) {
+                assertNull(table.materializedSatellite(i));
+            }
+        }
+    }
+
+    @Test
+    void closestObjectCanBeASatellite() {
+        var when = ZonedDateTime.of(2020, 4, 4, 0, 0, 0, 0, ZoneOffset.UTC);
+        var where = GeographicCoordinates.ofDeg(6.57, 46.52);
+        var projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 30));
+        var catalogue = new SatelliteCatalogue.Builder()
+                .addSatellite("A", "USA", "Communications", 0.5)
+                .addSatellite("B", "USA", "Navigation", 3)
+                .build();
+        var sky = new ObservedSky(when, where, projection, new StarCatalogue(List.of(), List.of()), catalogue);
+
+        double[] positions = sky.satellitePositions();
+        assertEquals(4, positions.length);
+        var closest = sky.objectClosestTo(CartesianCoordinates.of(positions[2], positions[3]), 1e-6);
+        assertSame(catalogue.satellites().get(1), closest.orElseThrow());
+    }
+}
@@ -0,0 +1,45 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the construction time of a catalogue of 100 000 stars and 10 000 asterisms of up to 10 stars, dominated
+ * by the indexing of the stars of the asterisms.
+ *
+ * Run with : java -cp ... ch.epfl.rigel.astronomy.StarCatalogueBenchmark
+ */
+public final class StarCatalogueBenchmark {
+    private static final int WARMUP_ROUNDS = 20, MEASURED_ROUNDS = 20;
+    private static final int STAR_COUNT = 100_000, ASTERISM_COUNT = 10_000, MAX_ASTERISM_SIZE = 10;
+
+    public static void main(String[] args) {
+        var rng = new SplittableRandom(2020);
+        List<Star> stars = new ArrayList<>(STAR_COUNT);
+        for (int i = 0; i < STAR_COUNT; ++i) {
+            stars.add(new Star(i, "S" + i, EquatorialCoordinates.of(0, 0), 0, 0));
+        }
+        List<Asterism> asterisms = new ArrayList<>(ASTERISM_COUNT);
+        for (int a = 0; a < ASTERISM_COUNT; ++a) {
+            List<Star> asterismStars = new ArrayList<>();
+            for (int i = rng.nextInt(MAX_ASTERISM_SIZE) + 1; i > 0; --i) {
+                asterismStars.add(stars.get(rng.nextInt(STAR_COUNT)));
+            }
+            asterisms.add(new Asterism(asterismStars));
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; ++i)
+            new StarCatalogue(stars, asterisms);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; ++i)
+            new StarCatalogue(stars, asterisms);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%d stars, %d asterisms : %.3f ms/catalogue%n", STAR_COUNT, ASTERISM_COUNT,
+                elapsed / 1e6 / MEASURED_ROUNDS);
+    }
+}
@@ -0,0 +1,145 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StarCatalogueMergeTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    private static final String AST_CATALOGUE_NAME = "/asterisms.txt";
+
+    private static StarCatalogue.Builder hygBuilder() throws IOException {
+        try (InputStream hs = StarCatalogueMergeTest.class.getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream as = StarCatalogueMergeTest.class.getResourceAsStream(AST_CATALOGUE_NAME)) {
+            return new StarCatalogue.Builder()
+                    .loadFrom(hs, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(as, AsterismLoader.INSTANCE);
+        }
+    }
+
+    private static int indexOf(StarTable table, int hipparcosId) {
+        for (int i = 0; i < table.size(); ++i) {
+            if (table.hipparcosId(i) == hipparcosId) return i;
+        }
+        return -1;
+    }
+
+    @Test
+    void existingStarsAreKeptAndNewStarsAdded() {
+        var base = new StarCatalogue.Builder()
+                .addStar(1, "A", 0, 0, 1, 0)
+                .addStar(0, "Unknown", 0, 0, 2, 0);
+        var supplement = new StarCatalogue.Builder()
+                .addStar(1, "A'", 1, 1, 3, 0)
+                .addStar(2, "B", 1, 1, 4, 0)
+                .addStar(0, "Other unknown", 1, 1, 5, 0);
+
+        var table = base.merge(supplement, StarCatalogue.MergePolicy.KEEP_EXISTING).build().starTable();
+        assertEquals(4, table.size());
+        assertEquals("A", table.name(0));
+        assertEquals(1, table.magnitude(0));
+        assertEquals(List.of("Unknown", "B", "Other unknown"), List.of(table.name(1), table.name(2), table.name(3)));
+        assertEquals(3, supplement.stars().size());
+    }
+
+    @Test
+    void replacedStarsKeepTheirIndexAndAsterisms() {
+        var base = new StarCatalogue.Builder()
+                .addStar(1, "A", 0, 0, 1, 0)
+                .addStar(2, "B", 0, 0, 2, 0);
+        base.addAsterism(new Asterism(base.stars()));
+        var supplement = new StarCatalogue.Builder().addStar(2, "B'", 1, 0.5, 0.5f, 1);
+        supplement.addAsterism(new Asterism(List.of(supplement.stars().get(0))));
+
+        var catalogue = base.merge(supplement, StarCatalogue.MergePolicy.REPLACE).build();
+        var table = catalogue.starTable();
+        assertEquals(2, table.size());
+        assertEquals("B'", table.name(1));
+        assertEquals(0.5, table.dec(1));
+
+        assertEquals(2, catalogue.asterisms().size());
+        for (Asterism asterism : catalogue.asterisms()) {
+            List<Integer> indices = catalogue.asterismIndices(asterism);
+            for (int k = 0; k < indices.size(); ++k) {
+                assertSame(table.star(indices.get(k)), asterism.stars().get(k));
+            }
+            assertTrue(indices.contains(1));
+        }
+    }
+
+    @Test
+    void namesAreSupplementedOnlyForCatalogueDesignations() throws IOException {
+        var base = hygBuilder();
+        var hyg = hygBuilder().build().starTable();
+        int rigel = indexOf(hyg, 24436);
+        int designated = -1;
+        for (int i = 0; i < hyg.size() && designated < 0; ++i) {
+            if (hyg.hipparcosId(i) != 0 && hyg.hasEncodedName(i)) designated = i;
+        }
+
+        var names = new StarCatalogue.Builder()
+                .addStar(24436, "Algebar", 0, 0, 0, 0)
+                .addStar(hyg.hipparcosId(designated), "Supplementary name", 0, 0, 0, 0);
+        var catalogue = base.merge(names, StarCatalogue.MergePolicy.SUPPLEMENT_NAMES).build();
+        var table = catalogue.starTable();
+
+        assertEquals(hyg.size(), table.size());
+        assertEquals("Rigel", table.name(rigel));
+        assertEquals("Supplementary name", table.name(designated));
+        assertEquals(hyg.ra(designated), table.ra(designated));
+        assertEquals(hyg.magnitude(designated), table.magnitude(designated));
+        assertEquals(hygBuilder().build().asterisms().size(), catalogue.asterisms().size());
+    }
+
+    @Test
+    void asterismsOfTheMergedCatalogueReferToTheJoinedStars() throws IOException {
+        var base = hygBuilder();
+        int baseAsterisms = base.asterisms().size();
+
+        // An asterism of a supplementary catalogue made of Rigel, Betelgeuse and a faint rejected star
+        var supplement = new StarCatalogue.Builder()
+                .addStar(24436, "Rigel", 1.3724303693276385, -0.143145630755865, 0.18f, -0.03f)
+                .addStar(27989, "Betelgeuse", 1.5497291130160287, 0.1292766670954509, 0.45f, 1.5f)
+                .addStar(999_999, "Faint", 0, 0, 12, 0);
+        supplement.addAsterism(new Asterism(supplement.stars()));
+        supplement.addAsterism(new Asterism(List.of(supplement.stars().get(2))));
+
+        var catalogue = base.filterStars(StarFilter.magnitudeAtMost(6))
+                .merge(supplement, StarCatalogue.MergePolicy.KEEP_EXISTING)
+                .build();
+        var table = catalogue.starTable();
+
+        assertEquals(-1, indexOf(table, 999_999));
+        assertEquals(baseAsterisms + 1, catalogue.asterisms().size());
+        boolean found = false;
+        for (Asterism asterism : catalogue.asterisms()) {
+            if (asterism.stars().size() == 2) {
+                List<Integer> indices = catalogue.asterismIndices(asterism);
+                found |= indices.equals(List.of(indexOf(table, 24436), indexOf(table, 27989)));
+            }
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    void mergeOfLargeCataloguesIsLinear() {
+        int count = 200_000;
+        var base = new StarCatalogue.Builder();
+        var supplement = new StarCatalogue.Builder();
+        for (int i = 0; i < count; ++i) {
+            base.addStar(i + 1, "Base", 0, 0, 0, 0);
+            supplement.addStar(2 * i + 1, "Supplement", 1, 0, 0, 0);
+        }
+
+        var table = base.merge(supplement, StarCatalogue.MergePolicy.REPLACE).build().starTable();
+        assertEquals(count + count / 2, table.size());
+        assertEquals("Supplement", table.name(0));
+        assertEquals("Base", table.name(1));
+        assertEquals(EquatorialCoordinates.of(1, 0).ra(), table.ra(count - 2));
+    }
+}
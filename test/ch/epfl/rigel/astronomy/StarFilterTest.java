@@ -0,0 +1,119 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StarFilterTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    private static final String AST_CATALOGUE_NAME = "/asterisms.txt";
+
+    private static StarCatalogue load(StarFilter filter, StarCatalogue.Loader starLoader) throws IOException {
+        try (InputStream hs = StarFilterTest.class.getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream as = StarFilterTest.class.getResourceAsStream(AST_CATALOGUE_NAME)) {
+            return new StarCatalogue.Builder()
+                    .filterStars(filter)
+                    .loadFrom(hs, starLoader)
+                    .loadFrom(as, AsterismLoader.INSTANCE)
+                    .build();
+        }
+    }
+
+    @Test
+    void filtersAcceptTheExpectedStars() {
+        assertTrue(StarFilter.ALL.accepts(0, 0, 0, 20));
+        assertTrue(StarFilter.magnitudeAtMost(4).accepts(0, 0, 0, 4));
+        assertFalse(StarFilter.magnitudeAtMost(4).accepts(0, 0, 0, 4.01));
+        assertTrue(StarFilter.declinationBetween(-0.5, 0.5).accepts(0, 0, -0.5, 0));
+        assertFalse(StarFilter.declinationBetween(-0.5, 0.5).accepts(0, 0, 0.51, 0));
+        assertThrows(IllegalArgumentException.class, () -> StarFilter.declinationBetween(1, 0));
+
+        // From Lausanne, the stars of declination lower than about -43.5° never rise
+        StarFilter rising = StarFilter.risingAt(GeographicCoordinates.ofDeg(6.57, 46.52));
+        assertTrue(rising.accepts(0, 0, Math.toRadians(-43), 0));
+        assertFalse(rising.accepts(0, 0, Math.toRadians(-44), 0));
+        assertTrue(rising.accepts(0, 0, Math.PI / 2, 0));
+
+        StarFilter ids = StarFilter.hipparcosIds(27989, 24436);
+        assertTrue(ids.accepts(24436, 0, 0, 0));
+        assertFalse(ids.accepts(1, 0, 0, 0));
+        assertFalse(ids.and(StarFilter.magnitudeAtMost(0)).accepts(27989, 0, 0, 0.45));
+    }
+
+    @Test
+    void rejectedStarsAreNotLoaded(@TempDir Path directory) throws IOException {
+        StarFilter filter = StarFilter.magnitudeAtMost(3)
+                .and(StarFilter.risingAt(GeographicCoordinates.ofDeg(6.57, 46.52)));
+        StarCatalogue all = load(StarFilter.ALL, HygDatabaseLoader.INSTANCE);
+        StarCatalogue filtered = load(filter, HygDatabaseLoader.INSTANCE);
+
+        int expected = 0;
+        StarTable table = all.starTable();
+        for (int i = 0; i < table.size(); ++i) {
+            if (filter.accepts(table.hipparcosId(i), table.ra(i), table.dec(i), table.magnitude(i))) ++expected;
+        }
+        assertTrue(0 < expected && expected < table.size() / 10);
+        assertEquals(expected, filtered.stars().size());
+        for (int i = 0; i < filtered.starTable().size(); ++i) {
+            assertTrue(filtered.starTable().magnitude(i) <= 3);
+        }
+        assertEquals(expected, load(filter, HygDatabaseLoader.PARALLEL).stars().size());
+        assertEquals(expected, load(filter, new HygSnapshotLoader(directory.resolve("hyg.snapshot"))).stars().size());
+    }
+
+    @Test
+    void asterismsOnlyContainTheAcceptedStars() throws IOException {
+        // Betelgeuse, its neighbour in an asterism of Orion and Rigel (which has no accepted neighbour)
+        StarCatalogue catalogue = load(StarFilter.hipparcosIds(27989, 26207, 24436), HygDatabaseLoader.INSTANCE);
+
+        assertEquals(3, catalogue.stars().size());
+        assertFalse(catalogue.asterisms().isEmpty());
+        for (Asterism asterism : catalogue.asterisms()) {
+            assertEquals(2, asterism.stars().size());
+            for (Star star : asterism.stars()) {
+                assertTrue(star.hipparcosId() == 27989 || star.hipparcosId() == 26207);
+            }
+        }
+
+        // The asterisms none of whose stars is accepted are ignored
+        assertTrue(load(StarFilter.hipparcosIds(), HygDatabaseLoader.INSTANCE).asterisms().isEmpty());
+    }
+
+    @Test
+    void asterismsAreSplitAtTheRejectedStars() throws IOException {
+        StarFilter filter = StarFilter.hipparcosIds(27989, 26207, 22449, 22509, 22845, 24436, 27366);
+        try (InputStream hs = StarFilterTest.class.getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            StarCatalogue catalogue = new StarCatalogue.Builder()
+                    .filterStars(filter)
+                    .loadFrom(hs, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(new ByteArrayInputStream(String.join("\n",
+                            "27989,26207,25336,22449,22509,22845",
+                            "24436,27366,26727,27989",
+                            "26727,24436,25336").getBytes(StandardCharsets.US_ASCII)), AsterismLoader.INSTANCE)
+                    .build();
+
+            // The rejected star 25336 splits the first asterism, 26727 leaves a single star after the split of the
+            // second one, and the third one has a single accepted star
+            Set<List<Integer>> asterisms = new HashSet<>();
+            for (Asterism asterism : catalogue.asterisms()) {
+                List<Integer> ids = new ArrayList<>();
+                for (Star star : asterism.stars()) ids.add(star.hipparcosId());
+                asterisms.add(ids);
+            }
+            assertEquals(Set.of(List.of(27989, 26207), List.of(22449, 22509, 22845), List.of(24436, 27366)),
+                    asterisms);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ch.epfl.rigel.astronomy;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StarNamesTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+
+    private static int bayerCode(String bayer) {
+        byte[] bytes = bayer.getBytes(StandardCharsets.US_ASCII);
+        return StarNames.bayerCode(bytes, 0, bytes.length);
+    }
+
+    private static int constellationCode(String constellation) {
+        byte[] bytes = constellation.getBytes(StandardCharsets.US_ASCII);
+        return StarNames.constellationCode(bytes, 0, bytes.length);
+    }
+
+    @Test
+    void namesAreRebuiltFromTheirCodes() {
+        assertEquals("Alp Ori", StarNames.name(bayerCode("Alp"), constellationCode("Ori")));
+        assertEquals("Kap-2 Tuc", StarNames.name(bayerCode("Kap-2"), constellationCode("Tuc")));
+        assertEquals("Ome CMa", StarNames.name(bayerCode("Ome"), constellationCode("CMa")));
+        assertEquals("? And", StarNames.name(bayerCode(""), constellationCode("And")));
+        assertEquals(88, StarNames.CONSTELLATIONS.size());
+    }
+
+    @Test
+    void unknownComponentsCannotBeEncoded() {
+        assertEquals(StarNames.NO_CODE, bayerCode("Foo"));
+        assertEquals(StarNames.NO_CODE, bayerCode("Alp-0"));
+        assertEquals(StarNames.NO_CODE, bayerCode("Alpha"));
+        assertEquals(StarNames.NO_CODE, constellationCode("Xyz"));
+        assertEquals(StarNames.NO_CODE, constellationCode("Orion"));
+        assertFalse(StarNames.isValidBayerCode(StarNames.NO_CODE));
+        assertFalse(StarNames.isValidBayerCode(5));
+        assertFalse(StarNames.isValidBayerCode(250));
+    }
+
+    @Test
+    void namesAreBuiltLazilyAndOnce() {
+        var table = new StarTable.Builder()
+                .add(1, bayerCode("Bet"), constellationCode("Ori"), 0, 0, 0, 0, 0, 0)
+                .add(2, "Rigel", 0, 0, 0, 0)
+                .build();
+
+        assertEquals(constellationCode("Ori"), table.constellationCode(0));
+        assertEquals(StarNames.NO_CODE, table.constellationCode(1));
+        assertEquals("Bet Ori", table.name(0));
+        assertSame(table.name(0), table.name(0));
+        assertSame(table.name(0), table.star(0).name());
+        assertEquals("Rigel", table.name(1));
+    }
+
+    @Test
+    void builderRejectsInvalidCodes() {
+        var builder = new StarTable.Builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.add(0, 5, 0, 0, 0, 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(0, 0, 88, 0, 0, 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(0, 0, StarNames.NO_CODE, 0, 0, 0, 0, 0, 0));
+        assertEquals(0, builder.size());
+    }
+
+    @Test
+    void loadedNamesAreTheNamesOfTheCatalogue() throws IOException {
+        // The names as built by the former loader, one string per line
+        List<String> expected = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream(HYG_CATALOGUE_NAME), StandardCharsets.US_ASCII))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",", -1);
+                expected.add(!columns[6].isEmpty() ?
+                        columns[6] :
+                        (columns[27].isEmpty() ? "?" : columns[27]) + " " + columns[29]);
+            }
+        }
+
+        try (InputStream hs = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            var table = new StarCatalogue.Builder().loadFrom(hs, HygDatabaseLoader.INSTANCE).build().starTable();
+
+            assertEquals(expected.size(), table.size());
+            int encoded = 0;
+            for (int i = 0; i < table.size(); ++i) {
+                if (table.hasEncodedName(i)) ++encoded;
+                assertEquals(expected.get(i), table.name(i));
+            }
+            assertTrue(encoded > table.size() * 9 / 10);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StarPositionsTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+
+    // One milliarcsecond (in radians)
+    private static final double MAS = Math.toRadians(1d / 3_600_000);
+
+    @Test
+    void positionsAtTheEpochOfTheCatalogueAreTheCataloguePositions() {
+        var table = new StarTable.Builder()
+                .add(1, "A", 1, 0.5, 0, 0, (float) (1000 * MAS), (float) (-500 * MAS))
+                .build();
+
+        var positions = StarPositions.of(table, StarPositions.CATALOGUE_EPOCH_YEAR);
+        assertEquals(1, positions.ra(0));
+        assertEquals(0.5, positions.dec(0));
+    }
+
+    @Test
+    void positionsFollowTheProperMotions() {
+        // Barnard's star : about 10.3 arcseconds per year, mostly northward
+        double dec = Math.toRadians(4.69);
+        float pmRa = (float) (-798.6 * MAS), pmDec = (float) (10328.1 * MAS);
+        var table = new StarTable.Builder().add(87937, "Barnard's Star", 4.7, dec, 9.5f, 1.7f, pmRa, pmDec).build();
+
+        // Over a century, the motion along the great circle is close to the linear one (to a tenth of arcsecond)
+        var positions = StarPositions.of(table, 2100);
+        assertEquals(4.7 + 100 * pmRa / Math.cos(dec), positions.ra(0), 100 * MAS);
+        assertEquals(dec + 100 * pmDec, positions.dec(0), 100 * MAS);
+        assertEquals(100 * Math.hypot(pmRa, pmDec), angularDistance(4.7, dec, positions.ra(0), positions.dec(0)),
+                1e-12);
+        assertUnitVectorOfPosition(positions, 0);
+
+        var pastPositions = StarPositions.of(table, 1900);
+        assertEquals(dec - 100 * pmDec, pastPositions.dec(0), 100 * MAS);
+        assertEquals(1900, pastPositions.year());
+    }
+
+    @Test
+    void starsCrossTheCelestialPoles() {
+        // Stars at 0.1° from the north and the south poles, moving by half an arcsecond per year towards them
+        double distance = Math.toRadians(0.1);
+        float pm = (float) (500 * MAS);
+        var table = new StarTable.Builder()
+                .add(1, "N", 0.3, Math.PI / 2 - distance, 0, 0, 0, pm)
+                .add(2, "S", 4, -Math.PI / 2 + distance, 0, 0, 0, -pm)
+                .add(3, "E", 1, Math.PI / 2 - distance, 0, 0, pm, 0)
+                .build();
+
+        // After 2000 years, they are beyond the poles, on the opposite meridians
+        var positions = StarPositions.of(table, 4000);
+        double travelled = 2000d * pm;
+        assertEquals(Math.PI / 2 - (travelled - distance), positions.dec(0), 1e-12);
+        assertEquals(0.3 + Math.PI, positions.ra(0), 1e-9);
+        assertEquals(-Math.PI / 2 + (travelled - distance), positions.dec(1), 1e-12);
+        assertEquals(4 - Math.PI, positions.ra(1), 1e-9);
+
+        // A star moving eastward near the pole travels the same angle along its great circle
+        assertEquals(travelled, angularDistance(1, Math.PI / 2 - distance, positions.ra(2), positions.dec(2)), 1e-12);
+        for (int i = 0; i < table.size(); ++i) {
+            assertUnitVectorOfPosition(positions, i);
+        }
+
+        // 2000 years earlier, they were farther from the poles, on their own meridians
+        var pastPositions = StarPositions.of(table, 0);
+        assertEquals(Math.PI / 2 - (travelled + distance), pastPositions.dec(0), 1e-12);
+        assertEquals(0.3, pastPositions.ra(0), 1e-9);
+        assertEquals(-Math.PI / 2 + (travelled + distance), pastPositions.dec(1), 1e-12);
+        assertEquals(4, pastPositions.ra(1), 1e-9);
+    }
+
+    @Test
+    void propagatedPositionsAreValidEquatorialPositions() {
+        var table = new StarTable.Builder()
+                .add(1, "A", 0, 0, 0, 0, (float) (-1e5 * MAS), 0)
+                .add(2, "B", 2 * Math.PI - 1e-9, 0, 0, 0, (float) (1e5 * MAS), 0)
+                .add(3, "C", 1, Math.PI / 2 - 1e-6, 0, 0, (float) (1e5 * MAS), (float) (1e5 * MAS))
+                .add(4, "D", 1, Math.PI / 2, 0, 0, (float) (1e5 * MAS), 0)
+                .build();
+
+        for (int year : new int[] {-3000, 1000, 2020, 5000}) {
+            var positions = StarPositions.of(table, year);
+            for (int i = 0; i < table.size(); ++i) {
+                assertTrue(EquatorialCoordinates.isValidRa(positions.ra(i)));
+                assertTrue(EquatorialCoordinates.isValidDec(positions.dec(i)));
+            }
+        }
+        var positions = StarPositions.of(table, 2020);
+        assertTrue(positions.ra(0) > Math.PI);
+        assertTrue(positions.ra(1) < 1);
+
+        // The star at the pole moves towards the east defined by its right ascension
+        assertEquals(1 + Math.PI / 2, positions.ra(3), 1e-9);
+        assertEquals(Math.PI / 2 - 20d * (float) (1e5 * MAS), positions.dec(3), 1e-12);
+    }
+
+    @Test
+    void cataloguePositionsAreKeptForTheLastYear() {
+        var catalogue = new StarCatalogue.Builder()
+                .addStar(1, "A", 1, 0.5, 0, 0, (float) (1000 * MAS), 0)
+                .build();
+
+        var positions = catalogue.positionsAt(2020);
+        assertSame(positions, catalogue.positionsAt(2020));
+        assertNotSame(positions, catalogue.positionsAt(2021));
+        assertEquals(2021, catalogue.positionsAt(2021).year());
+    }
+
+    @Test
+    void loadedCatalogueHasProperMotions() throws IOException {
+        try (InputStream hs = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            var catalogue = new StarCatalogue.Builder().loadFrom(hs, HygDatabaseLoader.INSTANCE).build();
+            var table = catalogue.starTable();
+
+            assertTrue(table.hasProperMotions());
+            // Arcturus, one of the bright stars with the largest proper motion (about 2.3 arcseconds per year)
+            int arcturus = -1;
+            for (int i = 0; i < table.size(); ++i) {
+                if (table.name(i).equals("Arcturus")) arcturus = i;
+            }
+            assertEquals(2.28, Math.hypot(table.pmRa(arcturus), table.pmDec(arcturus)) / MAS / 1000, 0.05);
+            assertTrue(table.maxProperMotion() >= Math.hypot(table.pmRa(arcturus), table.pmDec(arcturus)));
+
+            // Over two millennia, the stars do not move by more than their maximal proper motion
+            var positions = catalogue.positionsAt(4000);
+            for (int i = 0; i < table.size(); ++i) {
+                double displacement = angularDistance(table.ra(i), table.dec(i), positions.ra(i), positions.dec(i));
+                assertTrue(displacement <= table.maxProperMotion() * 2000 * (1 + 1e-3));
+            }
+        }
+    }
+
+    private static void assertUnitVectorOfPosition(StarPositions positions, int i) {
+        double[] unitVector = positions.unitVectorColumn();
+        double ra = positions.ra(i), dec = positions.dec(i);
+        assertEquals(Math.cos(dec) * Math.cos(ra), unitVector[3 * i], 1e-12);
+        assertEquals(Math.cos(dec) * Math.sin(ra), unitVector[3 * i + 1], 1e-12);
+        assertEquals(Math.sin(dec), unitVector[3 * i + 2], 1e-12);
+    }
+
+    private static double angularDistance(double ra1, double dec1, double ra2, double dec2) {
+        double cos = Math.sin(dec1) * Math.sin(dec2) + Math.cos(dec1) * Math.cos(dec2) * Math.cos(ra1 - ra2);
+        return Math.acos(Math.min(1, cos));
+    }
+}
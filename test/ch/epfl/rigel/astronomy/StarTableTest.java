@@ -0,0 +1,157 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StarTableTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+    private static final String ASTERISM_CATALOGUE_NAME = "/asterisms.txt";
+
+    @Test
+    void columnsMatchTheStars() {
+        var rigel = new Star(24436, "Rigel", EquatorialCoordinates.of(1.3724303693276385, -0.143145630755865),
+                0.18f, -0.03f);
+        var sirius = new Star(32349, "Sirius", EquatorialCoordinates.of(1.7677943, -0.2917),
+                -1.44f, 0.009f);
+        var table = StarTable.of(List.of(rigel, sirius));
+
+        assertEquals(2, table.size());
+        for (int i = 0; i < table.size(); ++i) {
+            Star s = table.star(i);
+            assertEquals(s.hipparcosId(), table.hipparcosId(i));
+            assertEquals(s.name(), table.name(i));
+            assertEquals(s.equatorialPos().ra(), table.ra(i));
+            assertEquals(s.equatorialPos().dec(), table.dec(i));
+            assertEquals(s.magnitude(), table.magnitude(i));
+            assertEquals(s.colorTemperature(), table.colorTemperature(i));
+            assertEquals(s.discSize(), table.discSize(i));
+            assertEquals(s.isBright(), table.isBright(i));
+        }
+        assertSame(rigel, table.star(0));
+        assertSame(sirius, table.star(1));
+    }
+
+    @Test
+    void starsAreMaterializedOnceFromTheColumns() {
+        var builder = new StarTable.Builder()
+                .add(24436, "Rigel", 1.3724303693276385, -0.143145630755865, 0.18f, -0.03f);
+        var table = builder.build();
+
+        assertNull(table.materializedStar(0));
+        Star rigel = table.star(0);
+        assertSame(rigel, table.star(0));
+        assertEquals("Rigel", rigel.name());
+        assertEquals(24436, rigel.hipparcosId());
+        assertEquals(0.18f, rigel.magnitude());
+        assertEquals(10_515, rigel.colorTemperature());
+    }
+
+    @Test
+    void sortByMagnitudeIsStableAndKeepsTheMaterializedStars() {
+        var faint = new Star(1, "Faint", EquatorialCoordinates.of(0, 0), 5f, 0);
+        var builder = new StarTable.Builder()
+                .add(faint)
+                .add(2, "Bright", 0, 0, -1f, 0)
+                .add(3, "Medium1", 0, 0, 2f, 0)
+                .add(4, "Medium2", 0, 0, 2f, 0);
+        var table = builder.sortByMagnitude().build();
+
+        assertTrue(table.isSortedByMagnitude());
+        assertEquals(List.of("Bright", "Medium1", "Medium2", "Faint"),
+                List.of(table.name(0), table.name(1), table.name(2), table.name(3)));
+        assertSame(faint, table.star(3));
+        assertEquals(0, table.brighterStarCount(-2));
+        assertEquals(1, table.brighterStarCount(-1));
+        assertEquals(3, table.brighterStarCount(4.9));
+        assertEquals(4, table.brighterStarCount(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void brighterStarCountOfUnsortedTableIsItsSize() {
+        var table = new StarTable.Builder()
+                .add(1, "A", 0, 0, 3f, 0)
+                .add(2, "B", 0, 0, 1f, 0)
+                .build();
+        assertFalse(table.isSortedByMagnitude());
+        assertEquals(2, table.brighterStarCount(0));
+    }
+
+    @Test
+    void builderRejectsInvalidStars() {
+        var builder = new StarTable.Builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.add(-1, "A", 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(0, "A", 0, 0, 0, 6f));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(0, "A", 7, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(0, "A", 0, 2, 0, 0));
+        assertThrows(NullPointerException.class, () -> builder.add(0, null, 0, 0, 0, 0));
+        assertEquals(0, builder.size());
+    }
+
+    @Test
+    void reservedColumnsAreHandedOverWithoutCopy() throws IOException {
+        var builder = new StarTable.Builder(2).add(1, "A", 0, 0, 2, 0).add(2, "B", 0, 0, 1, 0);
+        var table = builder.build();
+        assertEquals(2, table.raColumn().length);
+        assertSame(table.raColumn(), builder.build().raColumn());
+
+        // A builder modified after having built a table does not modify the latter
+        Star a = builder.star(0);
+        builder.add(3, "C", 1, 1, 0, 0).sortByMagnitude();
+        var other = builder.build();
+        assertNull(table.materializedStar(0));
+        assertEquals(2, table.size());
+        assertEquals("A", table.name(0));
+        assertEquals(0, table.ra(1));
+        assertEquals(List.of("C", "B", "A"), List.of(other.name(0), other.name(1), other.name(2)));
+        assertSame(a, other.star(2));
+
+        try (InputStream hs = getClass().getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            var stars = new StarCatalogue.Builder()
+                    .orderByMagnitude()
+                    .loadFrom(hs, HygDatabaseLoader.INSTANCE)
+                    .build()
+                    .starTable();
+            assertEquals(stars.size(), stars.raColumn().length);
+            assertTrue(stars.isSortedByMagnitude());
+        }
+    }
+
+    @Test
+    void indicesAreOutOfBoundsBeyondTheSize() {
+        var table = new StarTable.Builder().add(0, "A", 0, 0, 0, 0).build();
+        assertThrows(IndexOutOfBoundsException.class, () -> table.ra(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.star(-1));
+    }
+
+    @Test
+    void catalogueOnlyMaterializesTheStarsOfTheAsterisms() throws IOException {
+        try (InputStream hs = getClass().getResourceAsStream(HYG_CATALOGUE_NAME);
+             InputStream as = getClass().getResourceAsStream(ASTERISM_CATALOGUE_NAME)) {
+            var catalogue = new StarCatalogue.Builder()
+                    .loadFrom(hs, HygDatabaseLoader.INSTANCE)
+                    .loadFrom(as, AsterismLoader.INSTANCE)
+                    .build();
+            var table = catalogue.starTable();
+
+            int materialized = 0;
+            for (int i = 0; i < table.size(); ++i) {
+                if (table.materializedStar(i) != null) ++materialized;
+            }
+            assertTrue(materialized > 0);
+            assertTrue(materialized < table.size() / 2);
+
+            for (Asterism ast : catalogue.asterisms()) {
+                List<Integer> indices = catalogue.asterismIndices(ast);
+                for (int i = 0; i < indices.size(); ++i) {
+                    assertSame(ast.stars().get(i), catalogue.stars().get(indices.get(i)));
+                }
+            }
+        }
+    }
+}
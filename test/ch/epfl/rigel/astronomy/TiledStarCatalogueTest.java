@@ -0,0 +1,178 @@
+package ch.epfl.rigel.astronomy;
+
+import ch.epfl.rigel.coordinates.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiledStarCatalogueTest {
+    private static final String HYG_CATALOGUE_NAME = "/hygdata_v3.csv";
+
+    private static StarTable hygTable() throws IOException {
+        try (InputStream hs = TiledStarCatalogueTest.class.getResourceAsStream(HYG_CATALOGUE_NAME)) {
+            return new StarCatalogue.Builder().loadFrom(hs, HygDatabaseLoader.INSTANCE).build().starTable();
+        }
+    }
+
+    private static Set<String> namesOf(StarTable table) {
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < table.size(); ++i) {
+            names.add(table.hipparcosId(i) + table.name(i));
+        }
+        return names;
+    }
+
+    @Test
+    void wholeSkyContainsAllTheStarsBrighterThanTheLimit(@TempDir Path directory) throws IOException {
+        StarTable hyg = hygTable();
+        Path path = directory.resolve("hyg.tiles");
+        TiledStarCatalogue.write(hyg, path, 3);
+
+        try (var tiles = new TiledStarCatalogue(path, Long.MAX_VALUE)) {
+            assertEquals(hyg.size(), tiles.starCount());
+            assertEquals(hyg.maxProperMotion(), tiles.maxProperMotion(), 1e-12);
+
+            var all = tiles.catalogueFor(EquatorialCoordinates.of(0, 0), Math.PI, Double.POSITIVE_INFINITY);
+            assertEquals(hyg.size(), all.stars().size());
+            assertEquals(namesOf(hyg), namesOf(all.starTable()));
+            assertTrue(all.starTable().isSortedByMagnitude());
+            assertTrue(all.starTable().hasProperMotions());
+
+            var bright = tiles.catalogueFor(EquatorialCoordinates.of(0, 0), Math.PI, 4);
+            int expected = 0;
+            for (int i = 0; i < hyg.size(); ++i) {
+                if (hyg.magnitude(i) <= 4) ++expected;
+            }
+            assertEquals(expected, bright.stars().size());
+            assertSame(bright, tiles.catalogueFor(EquatorialCoordinates.of(0, 0), Math.PI, 4));
+        }
+    }
+
+    @Test
+    void capOnlyReadsTheTilesIntersectingIt(@TempDir Path directory) throws IOException {
+        StarTable hyg = hygTable();
+        Path path = directory.resolve("hyg.tiles");
+        TiledStarCatalogue.write(hyg, path, TiledStarCatalogue.DEFAULT_DEPTH);
+
+        EquatorialCoordinates center = EquatorialCoordinates.of(Math.toRadians(83.8), Math.toRadians(-5.4)); // Orion
+        double radius = Math.toRadians(10);
+        try (var tiles = new TiledStarCatalogue(path, Long.MAX_VALUE)) {
+            StarTable cap = tiles.catalogueFor(center, radius, 5).starTable();
+            Set<String> found = namesOf(cap);
+
+            int inCap = 0;
+            for (int i = 0; i < hyg.size(); ++i) {
+                double distance = angularDistance(center, hyg.ra(i), hyg.dec(i));
+                if (distance <= radius && hyg.magnitude(i) <= 5) {
+                    ++inCap;
+                    assertTrue(found.contains(hyg.hipparcosId(i) + hyg.name(i)));
+                }
+            }
+            assertTrue(inCap > 0);
+            for (int i = 0; i < cap.size(); ++i) {
+                assertTrue(cap.magnitude(i) <= 5);
+                assertTrue(angularDistance(center, cap.ra(i), cap.dec(i)) < radius + Math.toRadians(10));
+            }
+            assertTrue(cap.size() < hyg.size() / 10);
+        }
+    }
+
+    @Test
+    void catalogueIsReusedWhileTheCapIntersectsTheSameCells(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("hyg.tiles");
+        TiledStarCatalogue.write(hygTable(), path, 2);
+
+        try (var tiles = new TiledStarCatalogue(path, Long.MAX_VALUE)) {
+            EquatorialCoordinates center = EquatorialCoordinates.of(Math.toRadians(83.8), Math.toRadians(-5.4));
+            StarCatalogue catalogue = tiles.catalogueFor(center, Math.toRadians(10), 5);
+
+            // A cap slightly moved and widened (as while panning), intersecting the same cells
+            EquatorialCoordinates moved = EquatorialCoordinates.of(Math.toRadians(83.8 + 1e-6),
+                    Math.toRadians(-5.4 - 1e-6));
+            assertArrayEquals(CelestialSphereIndex.cellsInCap(center, Math.toRadians(10), 2),
+                    CelestialSphereIndex.cellsInCap(moved, Math.toRadians(10 + 1e-6), 2));
+            assertSame(catalogue, tiles.catalogueFor(moved, Math.toRadians(10 + 1e-6), 5));
+
+            // Another limiting magnitude, or another part of the sky
+            assertNotSame(catalogue, tiles.catalogueFor(moved, Math.toRadians(10 + 1e-6), 4));
+            StarCatalogue magnitude4 = tiles.catalogueFor(moved, Math.toRadians(10 + 1e-6), 4);
+            assertNotSame(magnitude4, tiles.catalogueFor(EquatorialCoordinates.of(Math.toRadians(260), 1), 0.1, 4));
+        }
+    }
+
+    @Test
+    void cacheRespectsTheMemoryBudget(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("hyg.tiles");
+        TiledStarCatalogue.write(hygTable(), path, 2);
+
+        long budget = 16 * 1024;
+        try (var tiles = new TiledStarCatalogue(path, budget)) {
+            for (int ra = 0; ra < 360; ra += 30) {
+                tiles.catalogueFor(EquatorialCoordinates.of(Math.toRadians(ra), 0), Math.toRadians(20), 7);
+                assertTrue(tiles.cachedBytes() <= budget || tiles.cachedTileCount() == 1);
+            }
+            assertTrue(tiles.cachedTileCount() > 0);
+        }
+    }
+
+    @Test
+    void invalidFilesAreRejected(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("invalid.tiles");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertThrows(IOException.class, () -> new TiledStarCatalogue(path, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TiledStarCatalogue(path, -1));
+    }
+
+    @Test
+    void observedSkyReadsTheVisibleTiles(@TempDir Path directory) throws IOException {
+        StarTable hyg = hygTable();
+        Path path = directory.resolve("hyg.tiles");
+        TiledStarCatalogue.write(hyg, path, TiledStarCatalogue.DEFAULT_DEPTH);
+
+        var when = ZonedDateTime.of(2020, 2, 17, 20, 15, 0, 0, ZoneOffset.UTC);
+        var where = GeographicCoordinates.ofDeg(6.57, 46.52);
+        var projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+        var satellites = new SatelliteCatalogue(List.of());
+        try (var tiles = new TiledStarCatalogue(path, 1 << 20)) {
+            var sky = new ObservedSky(when, where, projection, tiles, satellites, 5, Math.toRadians(30));
+            assertTrue(sky.starTable().size() > 0);
+            assertTrue(sky.starTable().size() < hyg.size() / 4);
+
+            // The visible stars of the cap are all read
+            Set<String> found = namesOf(sky.starTable());
+            var center = new EquatorialToHorizontalConversion(when, where)
+                    .inverseApply(projection.inverseApply(CartesianCoordinates.of(0, 0)));
+            for (int i = 0; i < hyg.size(); ++i) {
+                if (hyg.magnitude(i) <= 5 && angularDistance(center, hyg.ra(i), hyg.dec(i)) <= Math.toRadians(30)) {
+                    assertTrue(found.contains(hyg.hipparcosId(i) + hyg.name(i)));
+                }
+            }
+            assertTrue(projectedCount(sky.starPositions()) > 0);
+        }
+    }
+
+    private static int projectedCount(double[] positions) {
+        int count = 0;
+        for (int i = 0; i < positions.length; i += 2) {
+            if (!Double.isNaN(positions[i])) ++count;
+        }
+        return count;
+    }
+
+    private static double angularDistance(EquatorialCoordinates center, double ra, double dec) {
+        double cos = Math.sin(center.dec()) * Math.sin(dec)
+                + Math.cos(center.dec()) * Math.cos(dec) * Math.cos(center.ra() - ra);
+        return Math.acos(Math.max(-1, Math.min(1, cos)));
+    }
+}
@@ -0,0 +1,116 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EquatorialToCartesianConversionTest {
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+
+    private static double[][] randomPositions(int count) {
+        var rng = TestRandomizer.newRandom();
+        double[] ra = new double[count], dec = new double[count];
+        for (int i = 0; i < count; ++i) {
+            ra[i] = rng.nextDouble(0, 2 * Math.PI);
+            dec[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+        }
+        return new double[][]{ra, dec};
+    }
+
+    @Test
+    void bulkConversionGivesTheCoordinatesOfTheConversionOfEachObject() {
+        double[][] equ = randomPositions(10_000);
+        for (HorizontalCoordinates center : new HorizontalCoordinates[]{
+                HorizontalCoordinates.ofDeg(180, 45), HorizontalCoordinates.ofDeg(12, -30),
+                HorizontalCoordinates.ofDeg(277, 90)}) {
+            var equToCart = new EquatorialToCartesianConversion(WHEN, WHERE, new StereographicProjection(center));
+
+            double[] positions = new double[2 * equ[0].length];
+            equToCart.applyToAll(equ[0], equ[1], 0, equ[0].length, positions, 1, 1, 0, 0);
+            for (int i = 0; i < equ[0].length; ++i) {
+                CartesianCoordinates expected = equToCart.apply(EquatorialCoordinates.of(equ[0][i], equ[1][i]));
+                assertEquals(expected.x(), positions[2 * i], 0);
+                assertEquals(expected.y(), positions[2 * i + 1], 0);
+            }
+        }
+    }
+
+    @Test
+    void projectionOfTheUnitVectorsMatchesTheConversionOfEachObject() {
+        double[][] equ = randomPositions(10_000);
+        double[] unitVectors = new double[3 * equ[0].length];
+        int[] indices = new int[equ[0].length];
+        for (int i = 0; i < equ[0].length; ++i) {
+            double cosDec = Math.cos(equ[1][i]);
+            unitVectors[3 * i] = cosDec * Math.cos(equ[0][i]);
+            unitVectors[3 * i + 1] = cosDec * Math.sin(equ[0][i]);
+            unitVectors[3 * i + 2] = Math.sin(equ[1][i]);
+            indices[i] = i;
+        }
+
+        for (GeographicCoordinates where : new GeographicCoordinates[]{WHERE, GeographicCoordinates.ofDeg(-120, -33),
+                GeographicCoordinates.ofDeg(0, 0)}) {
+            for (HorizontalCoordinates center : new HorizontalCoordinates[]{
+                    HorizontalCoordinates.ofDeg(180, 45), HorizontalCoordinates.ofDeg(12, -30),
+                    HorizontalCoordinates.ofDeg(277, 90), HorizontalCoordinates.ofDeg(0, 0)}) {
+                var equToCart = new EquatorialToCartesianConversion(WHEN, where, new StereographicProjection(center));
+
+                double[] positions = new double[2 * equ[0].length];
+                equToCart.applyToAllUnitVectors(unitVectors, indices, indices.length, positions, 1, 1, 0, 0);
+                for (int i = 0; i < equ[0].length; ++i) {
+                    CartesianCoordinates expected = equToCart.apply(EquatorialCoordinates.of(equ[0][i], equ[1][i]));
+                    // The error grows with the distance to the center of the projection, as the coordinates do
+                    double scale = 1 + expected.x() * expected.x() + expected.y() * expected.y();
+                    assertEquals(expected.x(), positions[2 * i], 1e-13 * scale * scale);
+                    assertEquals(expected.y(), positions[2 * i + 1], 1e-13 * scale * scale);
+                }
+            }
+        }
+    }
+
+    @Test
+    void bulkConversionAppliesTheAffineTransform() {
+        double[][] equ = randomPositions(1000);
+        var equToCart = new EquatorialToCartesianConversion(WHEN, WHERE,
+                new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45)));
+
+        double[] plane = new double[2 * equ[0].length], canvas = new double[2 * equ[0].length];
+        equToCart.applyToAll(equ[0], equ[1], 0, equ[0].length, plane, 1, 1, 0, 0);
+        equToCart.applyToAll(equ[0], equ[1], 0, equ[0].length, canvas, 1300, -1300, 400, 300);
+        for (int i = 0; i < equ[0].length; ++i) {
+            assertEquals(plane[2 * i] * 1300 + 400, canvas[2 * i], 1e-9);
+            assertEquals(plane[2 * i + 1] * -1300 + 300, canvas[2 * i + 1], 1e-9);
+        }
+    }
+
+    @Test
+    void onlyTheObjectsOfTheGivenIndicesAreConverted() {
+        double[][] equ = randomPositions(100);
+        var equToCart = new EquatorialToCartesianConversion(WHEN, WHERE,
+                new StereographicProjection(HorizontalCoordinates.ofDeg(90, 10)));
+
+        double[] all = new double[200], some = new double[200];
+        Arrays.fill(some, Double.NaN);
+        equToCart.applyToAll(equ[0], equ[1], 0, 100, all, 1, 1, 0, 0);
+        equToCart.applyToAll(equ[0], equ[1], new int[]{3, 50, 97, 0}, 3, some, 1, 1, 0, 0);
+
+        for (int i = 0; i < 100; ++i) {
+            boolean converted = i == 3 || i == 50 || i == 97;
+            assertEquals(converted ? all[2 * i] : Double.NaN, some[2 * i]);
+            assertEquals(converted ? all[2 * i + 1] : Double.NaN, some[2 * i + 1]);
+        }
+
+        // The range of indices is respected too
+        Arrays.fill(some, Double.NaN);
+        equToCart.applyToAll(equ[0], equ[1], 10, 20, some, 1, 1, 0, 0);
+        assertTrue(Double.isNaN(some[19]) && Double.isNaN(some[40]));
+        assertEquals(all[20], some[20]);
+        assertEquals(all[39], some[39]);
+    }
+}
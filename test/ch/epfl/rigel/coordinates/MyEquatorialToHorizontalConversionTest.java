@@ -52,4 +52,17 @@ class MyEquatorialToHorizontalConversionTest {
         // Actual altitude   : 0.3374479 8288268113 radians
         assertEquals(Angle.ofDMS(19, 20, 3.64), h, 1e-7);
     }
-}
\ No newline at end of file
+
+    @Test
+    void inverseApplyIsTheInverseOfApply() {
+        var conversion = new EquatorialToHorizontalConversion(
+                java.time.ZonedDateTime.parse("2020-04-04T21:00:00+02:00"), GeographicCoordinates.ofDeg(6.57, 46.52));
+        var rng = new java.util.SplittableRandom(2020);
+        for (int i = 0; i < 1000; ++i) {
+            var equ = EquatorialCoordinates.of(rng.nextDouble(0, 2 * PI), rng.nextDouble(-1.5, 1.5));
+            var back = conversion.inverseApply(conversion.apply(equ));
+            assertEquals(equ.dec(), back.dec(), 1e-9);
+            assertEquals(0, Angle.normalizePositive(equ.ra() - back.ra() + PI) - PI, 1e-9);
+        }
+    }
+}
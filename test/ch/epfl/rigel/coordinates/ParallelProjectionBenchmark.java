@@ -0,0 +1,79 @@
+package ch.epfl.rigel.coordinates;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the time per object of the bulk conversions, serial and parallel, from 10 thousand to 10 million objects :
+ * by their equatorial coordinates (as the satellites and the planets) and by their unit vectors (as the stars). The
+ * number of rounds decreases with the number of objects, so that each measure converts about as many objects.
+ *
+ * Run with : java -cp ... ch.epfl.rigel.coordinates.ParallelProjectionBenchmark [threads]
+ * (one thread per processor by default)
+ */
+public final class ParallelProjectionBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000, 10_000_000};
+
+    // The number of objects converted by each measure (and by its warmup), by equatorial coordinates and unit vectors
+    private static final long EQUATORIAL_OBJECTS = 4_000_000, UNIT_VECTOR_OBJECTS = 200_000_000;
+
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final StereographicProjection PROJECTION =
+            new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+
+    private interface Conversion {
+        void run(EquatorialToCartesianConversion equToCart, double[] positions);
+    }
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        var serial = new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION, new ParallelProjection(1));
+        var parallel = new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION, new ParallelProjection(threads));
+        System.out.printf("%d processors, %d threads%n", Runtime.getRuntime().availableProcessors(), threads);
+
+        var rng = new SplittableRandom(2020);
+        int maxSize = SIZES[SIZES.length - 1];
+        double[] ra = new double[maxSize], dec = new double[maxSize], unitVectors = new double[3 * maxSize];
+        for (int i = 0; i < maxSize; ++i) {
+            ra[i] = rng.nextDouble(0, 2 * Math.PI);
+            dec[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+            unitVectors[3 * i] = Math.cos(dec[i]) * Math.cos(ra[i]);
+            unitVectors[3 * i + 1] = Math.cos(dec[i]) * Math.sin(ra[i]);
+            unitVectors[3 * i + 2] = Math.sin(dec[i]);
+        }
+
+        for (int size : SIZES) {
+            Conversion equatorial = (equToCart, positions) ->
+                    equToCart.applyToAll(ra, dec, 0, size, positions, 1300, -1300, 400, 300);
+            Conversion rotation = (equToCart, positions) ->
+                    equToCart.applyToAllUnitVectors(unitVectors, 0, size, positions, 1300, -1300, 400, 300);
+
+            compare("Equatorial", size, EQUATORIAL_OBJECTS, serial, parallel, equatorial);
+            compare("Unit vectors", size, UNIT_VECTOR_OBJECTS, serial, parallel, rotation);
+        }
+    }
+
+    private static void compare(String name, int size, long objects, EquatorialToCartesianConversion serial,
+                                EquatorialToCartesianConversion parallel, Conversion conversion) {
+        int rounds = (int) Math.max(1, objects / size);
+        double serialTime = measure(size, rounds, serial, conversion);
+        double parallelTime = measure(size, rounds, parallel, conversion);
+
+        System.out.printf("%-12s %,12d objects : serial %8.2f ns/object, parallel %8.2f ns/object (x%.2f)%n",
+                name, size, serialTime, parallelTime, serialTime / parallelTime);
+    }
+
+    private static double measure(int size, int rounds, EquatorialToCartesianConversion equToCart,
+                                  Conversion conversion) {
+        double[] positions = new double[2 * size];
+        for (int i = 0; i < rounds; ++i)
+            conversion.run(equToCart, positions);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; ++i)
+            conversion.run(equToCart, positions);
+        return (double) (System.nanoTime() - start) / rounds / size;
+    }
+}
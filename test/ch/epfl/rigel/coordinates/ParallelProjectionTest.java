@@ -0,0 +1,140 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelProjectionTest {
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final StereographicProjection PROJECTION =
+            new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+
+    // Several threads, even on a single processor, so that the parallel mode is engaged
+    private static final ParallelProjection SERIAL = new ParallelProjection(1), PARALLEL = new ParallelProjection(4);
+
+    private static double[][] randomPositions(SplittableRandom rng, int count) {
+        double[] ra = new double[count], dec = new double[count], unitVectors = new double[3 * count];
+        for (int i = 0; i < count; ++i) {
+            ra[i] = rng.nextDouble(0, 2 * Math.PI);
+            dec[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+            unitVectors[3 * i] = Math.cos(dec[i]) * Math.cos(ra[i]);
+            unitVectors[3 * i + 1] = Math.cos(dec[i]) * Math.sin(ra[i]);
+            unitVectors[3 * i + 2] = Math.sin(dec[i]);
+        }
+        return new double[][]{ra, dec, unitVectors};
+    }
+
+    // Every other object, in a shuffled order
+    private static int[] shuffledIndices(SplittableRandom rng, int count) {
+        int[] indices = new int[count / 2];
+        for (int k = 0; k < indices.length; ++k) {
+            indices[k] = 2 * k;
+        }
+        for (int k = indices.length - 1; k > 0; --k) {
+            int other = rng.nextInt(k + 1);
+            int index = indices[k];
+            indices[k] = indices[other];
+            indices[other] = index;
+        }
+        return indices;
+    }
+
+    private static double[] nanPositions(int count) {
+        double[] positions = new double[2 * count];
+        Arrays.fill(positions, Double.NaN);
+        return positions;
+    }
+
+    @Test
+    void parallelConversionGivesExactlyTheCoordinatesOfTheSerialOne() {
+        var rng = TestRandomizer.newRandom();
+        int count = 3 * ParallelProjection.CHUNK_SIZE + 17;
+        double[][] equ = randomPositions(rng, count);
+        int[] indices = shuffledIndices(rng, count);
+
+        var serial = new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION, SERIAL);
+        var parallel = new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION, PARALLEL);
+
+        double[] expected = nanPositions(count), actual = nanPositions(count);
+        serial.applyToAll(equ[0], equ[1], 5, count, expected, 1300, -1300, 400, 300);
+        parallel.applyToAll(equ[0], equ[1], 5, count, actual, 1300, -1300, 400, 300);
+        assertArrayEquals(expected, actual);
+
+        expected = nanPositions(count);
+        actual = nanPositions(count);
+        serial.applyToAll(equ[0], equ[1], indices, indices.length, expected, 1, 1, 0, 0);
+        parallel.applyToAll(equ[0], equ[1], indices, indices.length, actual, 1, 1, 0, 0);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void parallelProjectionOfUnitVectorsGivesExactlyTheCoordinatesOfTheSerialOne() {
+        var rng = TestRandomizer.newRandom();
+        int count = 70 * ParallelProjection.CHUNK_SIZE + 123;
+        double[] unitVectors = randomPositions(rng, count)[2];
+        int[] indices = shuffledIndices(rng, count);
+
+        var serial = new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION, SERIAL);
+        var parallel = new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION, PARALLEL);
+
+        double[] expected = nanPositions(count), actual = nanPositions(count);
+        serial.applyToAllUnitVectors(unitVectors, 0, count - 3, expected, 1300, -1300, 400, 300);
+        parallel.applyToAllUnitVectors(unitVectors, 0, count - 3, actual, 1300, -1300, 400, 300);
+        assertArrayEquals(expected, actual);
+
+        expected = nanPositions(count);
+        actual = nanPositions(count);
+        serial.applyToAllUnitVectors(unitVectors, indices, indices.length, expected, 1, 1, 0, 0);
+        parallel.applyToAllUnitVectors(unitVectors, indices, indices.length, actual, 1, 1, 0, 0);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void chunksCoverEveryObjectExactlyOnce() {
+        int from = 3, to = 5 * ParallelProjection.CHUNK_SIZE + 7;
+        AtomicIntegerArray conversions = new AtomicIntegerArray(to + 1);
+        PARALLEL.convert(from, to, 1, (start, end) -> {
+            assertTrue(end - start <= ParallelProjection.CHUNK_SIZE);
+            for (int i = start; i < end; ++i) {
+                conversions.incrementAndGet(i);
+            }
+        });
+
+        for (int i = 0; i <= to; ++i) {
+            assertEquals(from <= i && i < to ? 1 : 0, conversions.get(i));
+        }
+    }
+
+    @Test
+    void fewObjectsAreConvertedSeriallyByTheCallingThread() {
+        Thread caller = Thread.currentThread();
+        int[] calls = new int[1];
+        PARALLEL.convert(0, 1000, 1001, (start, end) -> {
+            assertSame(caller, Thread.currentThread());
+            assertEquals(0, start);
+            assertEquals(1000, end);
+            ++calls[0];
+        });
+        SERIAL.convert(0, 100_000, 1, (start, end) -> {
+            assertSame(caller, Thread.currentThread());
+            ++calls[0];
+        });
+        assertEquals(2, calls[0]);
+    }
+
+    @Test
+    void failureOfAChunkIsRethrown() {
+        assertThrows(IllegalStateException.class, () -> PARALLEL.convert(0, 10 * ParallelProjection.CHUNK_SIZE, 1,
+                (start, end) -> {
+                    if (start > 0) throw new IllegalStateException();
+                }));
+    }
+}
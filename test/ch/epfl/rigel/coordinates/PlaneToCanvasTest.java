@@ -1,5 +1,7 @@
 package ch.epfl.rigel.coordinates;
 
+import ch.epfl.test.TestRandomizer;
+import javafx.geometry.Point2D;
 import javafx.scene.transform.Transform;
 import org.junit.jupiter.api.Test;
 
@@ -28,4 +30,60 @@ class PlaneToCanvasTest {
     void applyToDistance() {
         System.out.println(PlaneToCanvas.applyToDistance(1.0, PLANE_TO_CANVAS));
     }
+
+    @Test
+    void precomputedAffineGivesTheCoordinatesOfTheTransform() {
+        var rng = TestRandomizer.newRandom();
+        for (Transform transform : new Transform[]{PLANE_TO_CANVAS, Transform.affine(123.4, 0, 0, -123.4, 0.5, 7),
+                Transform.affine(-2, 0, 0, 3, -10, 20)}) {
+            PlaneToCanvas planeToCanvas = PlaneToCanvas.of(transform);
+
+            for (int i = 0; i < TestRandomizer.RANDOM_ITERATIONS; ++i) {
+                double x = rng.nextDouble(-5, 5), y = rng.nextDouble(-5, 5);
+                Point2D expected = transform.transform(x, y);
+
+                assertEquals(expected.getX(), planeToCanvas.applyToX(x));
+                assertEquals(expected.getY(), planeToCanvas.applyToY(y));
+
+                CartesianCoordinates canvasPos = planeToCanvas.applyToPoint(CartesianCoordinates.of(x, y));
+                assertEquals(expected.getX(), canvasPos.x());
+                assertEquals(expected.getY(), canvasPos.y());
+
+                assertEquals(transform.deltaTransform(x, 0).magnitude(), planeToCanvas.applyToDistance(x));
+            }
+        }
+    }
+
+    @Test
+    void bulkVariantsGiveTheCoordinatesOfEachPoint() {
+        var rng = TestRandomizer.newRandom();
+        PlaneToCanvas planeToCanvas = PlaneToCanvas.of(PLANE_TO_CANVAS);
+
+        double[] planePositions = new double[2 * 1000];
+        for (int i = 0; i < planePositions.length; ++i) {
+            planePositions[i] = rng.nextDouble(-2, 2);
+        }
+        planePositions[10] = Double.NaN;
+
+        double[] canvasPositions = planeToCanvas.applyToAllPoints(planePositions);
+        for (int i = 0; i < planePositions.length; i += 2) {
+            assertEquals(planeToCanvas.applyToX(planePositions[i]), canvasPositions[i]);
+            assertEquals(planeToCanvas.applyToY(planePositions[i + 1]), canvasPositions[i + 1]);
+        }
+        assertTrue(Double.isNaN(canvasPositions[10]));
+
+        // In place, and through the static method
+        assertArrayEquals(canvasPositions, PlaneToCanvas.applyToAllPoints(planePositions, PLANE_TO_CANVAS));
+        planeToCanvas.applyToAllPoints(planePositions, planePositions);
+        assertArrayEquals(canvasPositions, planePositions);
+    }
+
+    @Test
+    void precomputedAffineReadsTheCoefficientsOfTheTransform() {
+        PlaneToCanvas planeToCanvas = PlaneToCanvas.of(PLANE_TO_CANVAS);
+        assertEquals(1300, planeToCanvas.scaleX());
+        assertEquals(-1300, planeToCanvas.scaleY());
+        assertEquals(400, planeToCanvas.translateX());
+        assertEquals(300, planeToCanvas.translateY());
+    }
 }
\ No newline at end of file
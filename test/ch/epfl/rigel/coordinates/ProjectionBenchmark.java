@@ -0,0 +1,108 @@
+package ch.epfl.rigel.coordinates;
+
+import javafx.scene.transform.Transform;
+
+import java.lang.management.ManagementFactory;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the time and the allocated bytes per object of the conversion of equatorial positions to the coordinates of the canvas : object by
+ * object through the composed conversion and projection followed by a second pass applying the affine transform, as
+ * ObservedSky and SkyCanvasPainter did before the bulk conversion, in bulk, on the plane or fused with the affine
+ * transform, and in bulk by a rotation of the precomputed unit vectors of the positions.
+ *
+ * Run with : java -cp ... ch.epfl.rigel.coordinates.ProjectionBenchmark
+ */
+public final class ProjectionBenchmark {
+    private static final int WARMUP_ROUNDS = 20, MEASURED_ROUNDS = 20, OBJECTS = 1_000_000;
+
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final StereographicProjection PROJECTION =
+            new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45));
+    private static final Transform PLANE_TO_CANVAS = Transform.affine(1300, 0, 0, -1300, 400, 300);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Projection {
+        double[] run(double[] ra, double[] dec);
+    }
+
+    public static void main(String[] args) {
+        var rng = new SplittableRandom(2020);
+        double[] ra = new double[OBJECTS], dec = new double[OBJECTS];
+        for (int i = 0; i < OBJECTS; ++i) {
+            ra[i] = rng.nextDouble(0, 2 * Math.PI);
+            dec[i] = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+        }
+
+        measure("Composed, then affine", ra, dec, ProjectionBenchmark::composed);
+        measure("Bulk (plane)", ra, dec, ProjectionBenchmark::bulkPlane);
+        measure("Bulk (fused affine)", ra, dec, ProjectionBenchmark::bulkCanvas);
+
+        // The unit vectors are computed once, as by the catalogue
+        double[] unitVectors = new double[3 * OBJECTS];
+        int[] indices = new int[OBJECTS];
+        for (int i = 0; i < OBJECTS; ++i) {
+            double cosDec = Math.cos(dec[i]);
+            unitVectors[3 * i] = cosDec * Math.cos(ra[i]);
+            unitVectors[3 * i + 1] = cosDec * Math.sin(ra[i]);
+            unitVectors[3 * i + 2] = Math.sin(dec[i]);
+            indices[i] = i;
+        }
+        measure("Rotation of unit vectors", ra, dec, (r, d) -> {
+            double[] positions = new double[2 * r.length];
+            new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION).applyToAllUnitVectors(unitVectors, indices,
+                    OBJECTS, positions, PLANE_TO_CANVAS.getMxx(), PLANE_TO_CANVAS.getMyy(), PLANE_TO_CANVAS.getTx(),
+                    PLANE_TO_CANVAS.getTy());
+            return positions;
+        });
+    }
+
+    private static void measure(String name, double[] ra, double[] dec, Projection projection) {
+        double checksum = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; ++i)
+            checksum += projection.run(ra, dec)[0];
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; ++i)
+            checksum += projection.run(ra, dec)[0];
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-24s %8.2f ns/object %8.1f bytes/object (checksum %.3f)%n", name,
+                (double) elapsed / MEASURED_ROUNDS / ra.length, (double) allocated / MEASURED_ROUNDS / ra.length,
+                checksum);
+    }
+
+    // The reference conversion, composing the conversion and the projection for each object
+    private static double[] composed(double[] ra, double[] dec) {
+        var equToHor = new EquatorialToHorizontalConversion(WHEN, WHERE);
+        double[] positions = new double[2 * ra.length];
+        for (int i = 0; i < ra.length; ++i) {
+            CartesianCoordinates p = equToHor.andThen(PROJECTION).apply(EquatorialCoordinates.of(ra[i], dec[i]));
+            positions[2 * i] = p.x();
+            positions[2 * i + 1] = p.y();
+        }
+        return PlaneToCanvas.applyToAllPoints(positions, PLANE_TO_CANVAS);
+    }
+
+    private static double[] bulkPlane(double[] ra, double[] dec) {
+        double[] positions = new double[2 * ra.length];
+        new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION)
+                .applyToAll(ra, dec, 0, ra.length, positions, 1, 1, 0, 0);
+        return positions;
+    }
+
+    private static double[] bulkCanvas(double[] ra, double[] dec) {
+        double[] positions = new double[2 * ra.length];
+        new EquatorialToCartesianConversion(WHEN, WHERE, PROJECTION).applyToAll(ra, dec, 0, ra.length, positions,
+                PLANE_TO_CANVAS.getMxx(), PLANE_TO_CANVAS.getMyy(), PLANE_TO_CANVAS.getTx(), PLANE_TO_CANVAS.getTy());
+        return positions;
+    }
+}
@@ -0,0 +1,75 @@
+package ch.epfl.rigel.coordinates;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the time per object of the projection of unit vectors by the scalar kernel and by the kernel using the
+ * Vector API, on ranges of objects and on (shuffled) indices, as ObservedSky projects the visible stars.
+ *
+ * The kernel using the Vector API is measured only if the module is added and the source folder src-vector compiled,
+ * once per size of vectors (which is chosen once per virtual machine) :
+ * java --add-modules jdk.incubator.vector -Drigel.vectorBitSize=256 -cp ... ch.epfl.rigel.coordinates.ProjectionKernelBenchmark
+ */
+public final class ProjectionKernelBenchmark {
+    private static final int WARMUP_ROUNDS = 50, MEASURED_ROUNDS = 50, OBJECTS = 1_000_000;
+
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private static final double[] ROTATION = new EquatorialToCartesianConversion(WHEN, WHERE,
+            new StereographicProjection(HorizontalCoordinates.ofDeg(180, 45))).rotation();
+
+    private interface Run {
+        void run(ProjectionKernel kernel, double[] positions);
+    }
+
+    public static void main(String[] args) {
+        var rng = new SplittableRandom(2020);
+        double[] unitVectors = new double[3 * OBJECTS];
+        for (int i = 0; i < OBJECTS; ++i) {
+            double ra = rng.nextDouble(0, 2 * Math.PI), dec = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+            unitVectors[3 * i] = Math.cos(dec) * Math.cos(ra);
+            unitVectors[3 * i + 1] = Math.cos(dec) * Math.sin(ra);
+            unitVectors[3 * i + 2] = Math.sin(dec);
+        }
+
+        // Half of the objects, in a random order
+        int[] indices = new int[OBJECTS / 2];
+        for (int k = 0; k < indices.length; ++k) {
+            indices[k] = rng.nextInt(OBJECTS);
+        }
+
+        Set<ProjectionKernel> kernels = new LinkedHashSet<>();
+        kernels.add(ScalarProjectionKernel.INSTANCE);
+        kernels.add(ProjectionKernel.preferred());
+
+        for (ProjectionKernel kernel : kernels) {
+            measure(kernel + ", range", kernel, OBJECTS, (k, positions) ->
+                    k.project(unitVectors, 0, OBJECTS, positions, ROTATION, 1300, -1300, 400, 300));
+            measure(kernel + ", indices", kernel, indices.length, (k, positions) ->
+                    k.project(unitVectors, indices, 0, indices.length, positions, ROTATION, 1300, -1300, 400, 300));
+        }
+    }
+
+    private static void measure(String name, ProjectionKernel kernel, int objects, Run run) {
+        double[] positions = new double[2 * OBJECTS];
+        for (int i = 0; i < WARMUP_ROUNDS; ++i)
+            run.run(kernel, positions);
+
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            long start = System.nanoTime();
+            run.run(kernel, positions);
+            times.add(System.nanoTime() - start);
+        }
+        times.sort(null);
+
+        System.out.printf("%-50s %6.2f ns/object (median), %6.2f ns/object (best) (checksum %.3f)%n", name,
+                (double) times.get(times.size() / 2) / objects, (double) times.get(0) / objects, positions[0]);
+    }
+}
@@ -0,0 +1,113 @@
+package ch.epfl.rigel.coordinates;
+
+import ch.epfl.test.TestRandomizer;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionKernelTest {
+    private static final ZonedDateTime WHEN = ZonedDateTime.of(2020, 4, 4, 21, 30, 0, 0, ZoneOffset.UTC);
+    private static final GeographicCoordinates WHERE = GeographicCoordinates.ofDeg(6.57, 46.52);
+
+    private static boolean vectorModulePresent() {
+        return ModuleLayer.boot().findModule(ProjectionKernel.VECTOR_MODULE_NAME).isPresent();
+    }
+
+    // The kernel using the Vector API, of the width chosen for the virtual machine (none if the module is absent)
+    private static List<ProjectionKernel> vectorKernels() {
+        ProjectionKernel kernel = ProjectionKernel.preferred();
+        return kernel == ScalarProjectionKernel.INSTANCE ? List.of() : List.of(kernel);
+    }
+
+    private static double[] randomUnitVectors(SplittableRandom rng, int count) {
+        double[] unitVectors = new double[3 * count];
+        for (int i = 0; i < count; ++i) {
+            double ra = rng.nextDouble(0, 2 * Math.PI), dec = rng.nextDouble(-Math.PI / 2, Math.PI / 2);
+            unitVectors[3 * i] = Math.cos(dec) * Math.cos(ra);
+            unitVectors[3 * i + 1] = Math.cos(dec) * Math.sin(ra);
+            unitVectors[3 * i + 2] = Math.sin(dec);
+        }
+        return unitVectors;
+    }
+
+    private static double[] rotation(HorizontalCoordinates center) {
+        return new EquatorialToCartesianConversion(WHEN, WHERE, new StereographicProjection(center)).rotation();
+    }
+
+    @Test
+    void preferredKernelUsesTheVectorApiOnlyWhenItsModuleIsPresent() {
+        ProjectionKernel kernel = ProjectionKernel.preferred();
+        if (vectorModulePresent()) {
+            assertEquals(ProjectionKernel.VECTOR_KERNEL_NAME, kernel.getClass().getName());
+        } else {
+            assertSame(ScalarProjectionKernel.INSTANCE, kernel);
+        }
+    }
+
+    @Test
+    void vectorKernelsGiveExactlyTheCoordinatesOfTheScalarKernel() {
+        var rng = TestRandomizer.newRandom();
+        double[] rotation = rotation(HorizontalCoordinates.ofDeg(180, 45));
+
+        for (ProjectionKernel kernel : vectorKernels()) {
+            // Ranges whose bounds are not multiples of the number of lanes, so that the last objects are projected
+            // one by one
+            for (int count : new int[]{0, 1, 7, 8, 9, 1000, 1003}) {
+                double[] unitVectors = randomUnitVectors(rng, count + 5);
+                double[] expected = new double[2 * (count + 5)], actual = new double[2 * (count + 5)];
+                ScalarProjectionKernel.INSTANCE.project(unitVectors, 3, count + 3, expected, rotation,
+                        1300, -1300, 400, 300);
+                kernel.project(unitVectors, 3, count + 3, actual, rotation, 1300, -1300, 400, 300);
+                assertArrayEquals(expected, actual, kernel.toString());
+            }
+        }
+    }
+
+    @Test
+    void vectorKernelsProjectOnlyTheObjectsAtTheGivenIndices() {
+        var rng = TestRandomizer.newRandom();
+        double[] rotation = rotation(HorizontalCoordinates.ofDeg(12, -30));
+        double[] unitVectors = randomUnitVectors(rng, 5000);
+
+        // Distinct objects scattered over the whole array, in an unsorted order (the multiples of 21 modulo the prime
+        // 4999), only the first indices being read
+        int[] indices = new int[2000];
+        for (int k = 0; k < indices.length; ++k) {
+            indices[k] = (3 * k * 7) % 4999;
+        }
+
+        for (ProjectionKernel kernel : vectorKernels()) {
+            for (int count : new int[]{0, 5, 16, 1661, 1666}) {
+                double[] expected = new double[2 * 5000], actual = new double[2 * 5000];
+                Arrays.fill(expected, Double.NaN);
+                Arrays.fill(actual, Double.NaN);
+                ScalarProjectionKernel.INSTANCE.project(unitVectors, indices, 0, count, expected, rotation,
+                        2, 3, -1, 1);
+                kernel.project(unitVectors, indices, 0, count, actual, rotation, 2, 3, -1, 1);
+                assertArrayEquals(expected, actual, kernel.toString());
+            }
+        }
+    }
+
+    @Test
+    void scalarKernelRangesAndIndicesGiveTheSameCoordinates() {
+        var rng = TestRandomizer.newRandom();
+        double[] rotation = rotation(HorizontalCoordinates.ofDeg(277, 90));
+        double[] unitVectors = randomUnitVectors(rng, 1000);
+        int[] indices = new int[1000];
+        for (int i = 0; i < indices.length; ++i) {
+            indices[i] = i;
+        }
+
+        double[] fromRange = new double[2000], fromIndices = new double[2000];
+        ScalarProjectionKernel.INSTANCE.project(unitVectors, 0, 1000, fromRange, rotation, 1, 1, 0, 0);
+        ScalarProjectionKernel.INSTANCE.project(unitVectors, indices, 0, 1000, fromIndices, rotation, 1, 1, 0, 0);
+        assertArrayEquals(fromRange, fromIndices);
+    }
+}
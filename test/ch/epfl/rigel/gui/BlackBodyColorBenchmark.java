@@ -0,0 +1,74 @@
+package ch.epfl.rigel.gui;
+
+import javafx.scene.paint.Color;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the time per lookup of the color of a black body, by temperature and by temperature bin, compared to a
+ * reference lookup in a map keyed by the rounded temperature, as BlackBodyColor did before using an array.
+ *
+ * Run with : java -cp ... ch.epfl.rigel.gui.BlackBodyColorBenchmark
+ */
+public final class BlackBodyColorBenchmark {
+    private static final int WARMUP_ROUNDS = 20, MEASURED_ROUNDS = 20, LOOKUPS = 1_000_000;
+
+    private interface Lookup {
+        Color colorOf(int i);
+    }
+
+    public static void main(String[] args) throws IOException {
+        var rng = new SplittableRandom(2020);
+        int[] temperatures = rng.ints(LOOKUPS, 1000, 40_000).toArray();
+        int[] bins = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; ++i)
+            bins[i] = (int) Math.round(temperatures[i] / 100.0) - 10;
+        Map<Integer, Color> map = referenceMap();
+
+        measure("HashMap (reference)", i -> {
+            int closest = (int) Math.round(temperatures[i] / 100.0) * 100;
+            if (!map.containsKey(closest))
+                throw new IllegalArgumentException();
+            return map.get(closest);
+        });
+        measure("Array by temperature", i -> BlackBodyColor.colorForTemperature(temperatures[i]));
+        measure("Array by bin", i -> BlackBodyColor.colorForTemperatureBin(bins[i]));
+    }
+
+    private static void measure(String name, Lookup lookup) {
+        int hash = 0;
+        for (int r = 0; r < WARMUP_ROUNDS; ++r)
+            for (int i = 0; i < LOOKUPS; ++i)
+                hash += lookup.colorOf(i).hashCode();
+
+        long start = System.nanoTime();
+        for (int r = 0; r < MEASURED_ROUNDS; ++r)
+            for (int i = 0; i < LOOKUPS; ++i)
+                hash += lookup.colorOf(i).hashCode();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-24s %8.2f ns/lookup (%d)%n", name, (double) elapsed / MEASURED_ROUNDS / LOOKUPS, hash);
+    }
+
+    // The map of the colors keyed by temperature, read from the file as BlackBodyColor did before using an array
+    private static Map<Integer, Color> referenceMap() throws IOException {
+        Map<Integer, Color> map = new HashMap<>();
+        try (var reader = new BufferedReader(new InputStreamReader(
+                BlackBodyColorBenchmark.class.getResourceAsStream("/bbr_color.txt"), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.charAt(0) != '#' && line.charAt(10) != ' ') {
+                    int temperature = Integer.parseInt(line.substring(1, 6).trim());
+                    map.put(temperature, Color.web(line.substring(80, 87)));
+                }
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,92 @@
+package ch.epfl.rigel.gui;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueWatcherTest {
+    private static final long TIMEOUT_S = 20;
+
+    @Test
+    void changedFileIsReloadedAndHandedOver(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("catalogue.txt"), "v1");
+        BlockingQueue<String> handedOver = new LinkedBlockingQueue<>();
+        BlockingQueue<String> threads = new LinkedBlockingQueue<>();
+
+        try (CatalogueWatcher watcher = new CatalogueWatcher(Runnable::run)) {
+            watcher.watch(List.of(file), () -> {
+                threads.add(Thread.currentThread().getName());
+                return Files.readString(file);
+            }, handedOver::add).start();
+
+            Files.writeString(file, "v2");
+            assertEquals("v2", handedOver.poll(TIMEOUT_S, TimeUnit.SECONDS));
+            assertNotEquals(Thread.currentThread().getName(), threads.poll());
+        }
+    }
+
+    @Test
+    void otherFilesOfTheDirectoryAreIgnored(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("catalogue.txt"), "v1");
+        Path other = Files.writeString(directory.resolve("other.txt"), "x");
+        BlockingQueue<String> handedOver = new LinkedBlockingQueue<>();
+
+        try (CatalogueWatcher watcher = new CatalogueWatcher(Runnable::run)) {
+            watcher.watch(List.of(file), () -> Files.readString(file), handedOver::add).start();
+
+            Files.writeString(other, "y");
+            assertNull(handedOver.poll(1, TimeUnit.SECONDS));
+
+            Files.writeString(file, "v2");
+            assertEquals("v2", handedOver.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void failedReloadKeepsWatching(@TempDir Path directory) throws Exception {
+        Path file = Files.writeString(directory.resolve("catalogue.txt"), "v1");
+        BlockingQueue<String> handedOver = new LinkedBlockingQueue<>();
+
+        try (CatalogueWatcher watcher = new CatalogueWatcher(Runnable::run)) {
+            watcher.watch(List.of(file), () -> {
+                String content = Files.readString(file);
+                if (content.equals("invalid")) {
+                    throw new IOException("Invalid catalogue");
+                }
+                return content;
+            }, handedOver::add).start();
+
+            Files.writeString(file, "invalid");
+            assertNull(handedOver.poll(1, TimeUnit.SECONDS));
+
+            Files.writeString(file, "v3");
+            assertEquals("v3", handedOver.poll(TIMEOUT_S, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void catalogueOfSeveralFilesIsReloadedOnceForSimultaneousChanges(@TempDir Path directory) throws Exception {
+        Path stars = Files.writeString(directory.resolve("stars.txt"), "s1");
+        Path asterisms = Files.writeString(directory.resolve("asterisms.txt"), "a1");
+        BlockingQueue<String> handedOver = new LinkedBlockingQueue<>();
+
+        try (CatalogueWatcher watcher = new CatalogueWatcher(Runnable::run)) {
+            watcher.watch(List.of(stars, asterisms),
+                    () -> Files.readString(stars) + Files.readString(asterisms), handedOver::add).start();
+
+            Files.writeString(stars, "s2");
+            Files.writeString(asterisms, "a2");
+            assertEquals("s2a2", handedOver.poll(TIMEOUT_S, TimeUnit.SECONDS));
+            assertNull(handedOver.poll(1, TimeUnit.SECONDS));
+        }
+    }
+}
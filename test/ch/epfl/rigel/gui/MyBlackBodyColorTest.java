@@ -1,6 +1,8 @@
 package ch.epfl.rigel.gui;
 
 import ch.epfl.rigel.Preconditions;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.StarCatalogue;
 import javafx.scene.paint.Color;
 import org.junit.jupiter.api.Test;
 
@@ -51,4 +53,24 @@ class MyBlackBodyColorTest {
         assertThrows(IllegalArgumentException.class, () -> BlackBodyColor.colorForTemperature(40050));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void colorForTemperatureBinMatchesColorForTemperature() {
+        for (int bin = 0; bin <= 390; ++bin) {
+            assertSame(BlackBodyColor.colorForTemperature(1000 + 100 * bin), BlackBodyColor.colorForTemperatureBin(bin));
+        }
+        assertThrows(IllegalArgumentException.class, () -> BlackBodyColor.colorForTemperatureBin(-1));
+        assertThrows(IllegalArgumentException.class, () -> BlackBodyColor.colorForTemperatureBin(391));
+    }
+
+    @Test
+    void temperatureBinsOfTheStarsMatchTheirTemperatures() throws IOException {
+        try (InputStream hs = getClass().getResourceAsStream("/hygdata_v3.csv")) {
+            var table = new StarCatalogue.Builder().loadFrom(hs, HygDatabaseLoader.INSTANCE).build().starTable();
+            for (int i = 0; i < table.size(); ++i) {
+                assertSame(BlackBodyColor.colorForTemperature(table.colorTemperature(i)),
+                        BlackBodyColor.colorForTemperatureBin(table.temperatureBin(i)));
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ch.epfl.rigel.gui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewingParametersBeanTest {
+
+    @Test
+    void limitingMagnitudeDecreasesWithTheFieldOfView() {
+        assertEquals(6.5, ViewingParametersBean.limitingMagnitudeFor(30), 1e-9);
+        assertEquals(6.5, ViewingParametersBean.limitingMagnitudeFor(10), 1e-9);
+        assertEquals(6.5 - 2.5 * Math.log10(5), ViewingParametersBean.limitingMagnitudeFor(150), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, ViewingParametersBean.limitingMagnitudeFor(0));
+    }
+
+    @Test
+    void limitingMagnitudeFollowsTheFieldOfView() {
+        var bean = new ViewingParametersBean();
+        bean.setFieldOfViewDeg(30);
+        assertEquals(6.5, bean.getLimitingMagnitude(), 1e-9);
+        bean.setFieldOfViewDeg(300);
+        assertEquals(4, bean.getLimitingMagnitude(), 1e-9);
+    }
+}